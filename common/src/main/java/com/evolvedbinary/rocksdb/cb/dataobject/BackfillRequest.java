@@ -0,0 +1,275 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A request to benchmark historical commits of a ref,
+ * either a range of commits, or a list of tags.
+ */
+public class BackfillRequest extends AbstractIdentifiableDataObject {
+
+    private String repository;
+    private String ref;
+    @Nullable private String fromCommit;
+    @Nullable private String toCommit;
+    private List<String> tags;
+    private String author;
+
+    public BackfillRequest() {
+        super();
+    }
+
+    /**
+     * Request to benchmark a range of commits.
+     *
+     * @param repository the name of the repository on GitHub
+     * @param ref the ref which the commits belong to
+     * @param fromCommit the oldest commit of the range
+     * @param toCommit the newest commit of the range
+     * @param author the author of the request
+     */
+    public BackfillRequest(final String repository, final String ref, final String fromCommit, final String toCommit, final String author) {
+        super();
+        this.repository = repository;
+        this.ref = ref;
+        this.fromCommit = fromCommit;
+        this.toCommit = toCommit;
+        this.tags = Collections.emptyList();
+        this.author = author;
+    }
+
+    /**
+     * Request to benchmark the commits of a list of tags.
+     *
+     * @param repository the name of the repository on GitHub
+     * @param ref the ref which the commits belong to
+     * @param tags the tags, in the order that they should be benchmarked
+     * @param author the author of the request
+     */
+    public BackfillRequest(final String repository, final String ref, final List<String> tags, final String author) {
+        super();
+        this.repository = repository;
+        this.ref = ref;
+        this.tags = tags;
+        this.author = author;
+    }
+
+    public BackfillRequest(final UUID id, final ZonedDateTime timeStamp, final String repository, final String ref, @Nullable final String fromCommit, @Nullable final String toCommit, final List<String> tags, final String author) {
+        super(id, timeStamp);
+        this.repository = repository;
+        this.ref = ref;
+        this.fromCommit = fromCommit;
+        this.toCommit = toCommit;
+        this.tags = tags;
+        this.author = author;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    /**
+     * The oldest commit of the range, which is itself benchmarked.
+     *
+     * @return the commit, or null if this is a request for a list of tags
+     */
+    public @Nullable String getFromCommit() {
+        return fromCommit;
+    }
+
+    /**
+     * The newest commit of the range.
+     *
+     * @return the commit, or null if this is a request for a list of tags
+     */
+    public @Nullable String getToCommit() {
+        return toCommit;
+    }
+
+    /**
+     * The tags to benchmark.
+     *
+     * @return the tags, or an empty list if this is a request for a range of commits
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Determine if this is a request for a range of commits.
+     *
+     * @return true if this is a request for a range of commits, false if it is for a list of tags
+     */
+    public boolean isRange() {
+        return fromCommit != null;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+
+        generator.writeStringField("repository", repository);
+        generator.writeStringField("ref", ref);
+        if (fromCommit != null) {
+            generator.writeStringField("fromCommit", fromCommit);
+        }
+        if (toCommit != null) {
+            generator.writeStringField("toCommit", toCommit);
+        }
+        if (tags != null && !tags.isEmpty()) {
+            generator.writeArrayFieldStart("tags");
+            for (final String tag : tags) {
+                generator.writeString(tag);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeStringField("author", author);
+    }
+
+    @Override
+    BackfillRequest deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        String repository1 = null;
+        String ref1 = null;
+        String fromCommit1 = null;
+        String toCommit1 = null;
+        List<String> tags1 = null;
+        String author1 = null;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("id")) {
+                        id1 = parser.getValueAsString();
+                    } else if (fieldName.equals("timeStamp")) {
+                        timeStamp1 = parser.getValueAsString();
+                    } else if (fieldName.equals("repository")) {
+                        repository1 = parser.getValueAsString();
+                    } else if (fieldName.equals("ref")) {
+                        ref1 = parser.getValueAsString();
+                    } else if (fieldName.equals("fromCommit")) {
+                        fromCommit1 = parser.getValueAsString();
+                    } else if (fieldName.equals("toCommit")) {
+                        toCommit1 = parser.getValueAsString();
+                    } else if (fieldName.equals("author")) {
+                        author1 = parser.getValueAsString();
+                    }
+
+                } else if (token == JsonToken.START_ARRAY) {
+                    if (fieldName.equals("tags")) {
+                        tags1 = new ArrayList<>();
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                            if (token != JsonToken.VALUE_STRING) {
+                                throw new IOException("Expected field tags to contain string values, but found: " + token);
+                            }
+                            tags1.add(parser.getValueAsString());
+                        }
+                    }
+
+                } else {
+                    throw new IOException("Expected field string value or start array, but found: " + token);
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (repository1 == null) {
+            throw new IOException("Expected repository field");
+        }
+        if (ref1 == null) {
+            throw new IOException("Expected ref field");
+        }
+        if (author1 == null) {
+            throw new IOException("Expected author field");
+        }
+        if (tags1 == null || tags1.isEmpty()) {
+            if (fromCommit1 == null || toCommit1 == null) {
+                throw new IOException("Expected either fromCommit and toCommit fields, or tags field");
+            }
+            tags1 = Collections.emptyList();
+        } else if (fromCommit1 != null || toCommit1 != null) {
+            throw new IOException("Expected either fromCommit and toCommit fields, or tags field, but found both");
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.repository = repository1;
+        this.ref = ref1;
+        this.fromCommit = fromCommit1;
+        this.toCommit = toCommit1;
+        this.tags = tags1;
+        this.author = author1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BackfillRequest that = (BackfillRequest) o;
+
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (repository != null ? !repository.equals(that.repository) : that.repository != null) return false;
+        if (ref != null ? !ref.equals(that.ref) : that.ref != null) return false;
+        if (fromCommit != null ? !fromCommit.equals(that.fromCommit) : that.fromCommit != null) return false;
+        if (toCommit != null ? !toCommit.equals(that.toCommit) : that.toCommit != null) return false;
+        if (tags != null ? !tags.equals(that.tags) : that.tags != null) return false;
+        return author != null ? author.equals(that.author) : that.author == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (repository != null ? repository.hashCode() : 0);
+        result = 31 * result + (ref != null ? ref.hashCode() : 0);
+        result = 31 * result + (fromCommit != null ? fromCommit.hashCode() : 0);
+        result = 31 * result + (toCommit != null ? toCommit.hashCode() : 0);
+        result = 31 * result + (tags != null ? tags.hashCode() : 0);
+        result = 31 * result + (author != null ? author.hashCode() : 0);
+        return result;
+    }
+}
@@ -0,0 +1,324 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Sent by a Runner whilst a benchmark is running, for each interim
+ * report of throughput by a thread of {@code db_bench}, i.e. one
+ * for every {@code --stats_interval_seconds}.
+ *
+ * Allows the Orchestrator to follow the throughput of a long
+ * benchmark as it runs, and to detect stalls before it finishes.
+ */
+public class BenchmarkProgress extends AbstractIdentifiableDataObject {
+
+    private UUID buildRequestId;
+    private String ref;
+    private String runnerId;
+    private String workload;
+    private int thread;
+    private double elapsedSeconds;
+    private long intervalOps;
+    private long totalOps;
+    private double intervalOpsPerSec;
+    private double cumulativeOpsPerSec;
+
+    public BenchmarkProgress() {
+        super();
+    }
+
+    public BenchmarkProgress(final UUID buildRequestId, final String ref, final String runnerId, final String workload, final int thread, final double elapsedSeconds, final long intervalOps, final long totalOps, final double intervalOpsPerSec, final double cumulativeOpsPerSec) {
+        super();
+        this.buildRequestId = buildRequestId;
+        this.ref = ref;
+        this.runnerId = runnerId;
+        this.workload = workload;
+        this.thread = thread;
+        this.elapsedSeconds = elapsedSeconds;
+        this.intervalOps = intervalOps;
+        this.totalOps = totalOps;
+        this.intervalOpsPerSec = intervalOpsPerSec;
+        this.cumulativeOpsPerSec = cumulativeOpsPerSec;
+    }
+
+    public BenchmarkProgress(final UUID id, final ZonedDateTime timeStamp, final UUID buildRequestId, final String ref, final String runnerId, final String workload, final int thread, final double elapsedSeconds, final long intervalOps, final long totalOps, final double intervalOpsPerSec, final double cumulativeOpsPerSec) {
+        super(id, timeStamp);
+        this.buildRequestId = buildRequestId;
+        this.ref = ref;
+        this.runnerId = runnerId;
+        this.workload = workload;
+        this.thread = thread;
+        this.elapsedSeconds = elapsedSeconds;
+        this.intervalOps = intervalOps;
+        this.totalOps = totalOps;
+        this.intervalOpsPerSec = intervalOpsPerSec;
+        this.cumulativeOpsPerSec = cumulativeOpsPerSec;
+    }
+
+    /**
+     * The id of the build request which is being benchmarked.
+     *
+     * @return the id of the build request
+     */
+    public UUID getBuildRequestId() {
+        return buildRequestId;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getRunnerId() {
+        return runnerId;
+    }
+
+    /**
+     * The name of the workload which is being benchmarked.
+     *
+     * @return the name of the workload
+     */
+    public String getWorkload() {
+        return workload;
+    }
+
+    /**
+     * The thread of {@code db_bench} which reported the progress.
+     *
+     * @return the thread id
+     */
+    public int getThread() {
+        return thread;
+    }
+
+    /**
+     * The time since the benchmark started.
+     *
+     * @return the elapsed time in seconds
+     */
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    /**
+     * The number of operations completed since the previous report.
+     *
+     * @return the number of operations in the interval
+     */
+    public long getIntervalOps() {
+        return intervalOps;
+    }
+
+    /**
+     * The number of operations completed since the benchmark started.
+     *
+     * @return the total number of operations
+     */
+    public long getTotalOps() {
+        return totalOps;
+    }
+
+    /**
+     * The throughput since the previous report.
+     *
+     * @return the operations per second in the interval
+     */
+    public double getIntervalOpsPerSec() {
+        return intervalOpsPerSec;
+    }
+
+    /**
+     * The throughput since the benchmark started.
+     *
+     * @return the operations per second since the start
+     */
+    public double getCumulativeOpsPerSec() {
+        return cumulativeOpsPerSec;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+
+        generator.writeStringField("buildRequestId", buildRequestId.toString());
+        generator.writeStringField("ref", ref);
+        generator.writeStringField("runnerId", runnerId);
+        generator.writeStringField("workload", workload);
+        generator.writeNumberField("thread", thread);
+        generator.writeNumberField("elapsedSeconds", elapsedSeconds);
+        generator.writeNumberField("intervalOps", intervalOps);
+        generator.writeNumberField("totalOps", totalOps);
+        generator.writeNumberField("intervalOpsPerSec", intervalOpsPerSec);
+        generator.writeNumberField("cumulativeOpsPerSec", cumulativeOpsPerSec);
+    }
+
+    @Override
+    BenchmarkProgress deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        String buildRequestId1 = null;
+        String ref1 = null;
+        String runnerId1 = null;
+        String workload1 = null;
+        int thread1 = -1;
+        double elapsedSeconds1 = -1;
+        long intervalOps1 = -1;
+        long totalOps1 = -1;
+        double intervalOpsPerSec1 = -1;
+        double cumulativeOpsPerSec1 = -1;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("id")) {
+                        id1 = parser.getValueAsString();
+                    } else if (fieldName.equals("timeStamp")) {
+                        timeStamp1 = parser.getValueAsString();
+                    } else if (fieldName.equals("buildRequestId")) {
+                        buildRequestId1 = parser.getValueAsString();
+                    } else if (fieldName.equals("ref")) {
+                        ref1 = parser.getValueAsString();
+                    } else if (fieldName.equals("runnerId")) {
+                        runnerId1 = parser.getValueAsString();
+                    } else if (fieldName.equals("workload")) {
+                        workload1 = parser.getValueAsString();
+                    }
+
+                } else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    if (fieldName.equals("thread")) {
+                        thread1 = parser.getValueAsInt();
+                    } else if (fieldName.equals("elapsedSeconds")) {
+                        elapsedSeconds1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("intervalOps")) {
+                        intervalOps1 = parser.getValueAsLong();
+                    } else if (fieldName.equals("totalOps")) {
+                        totalOps1 = parser.getValueAsLong();
+                    } else if (fieldName.equals("intervalOpsPerSec")) {
+                        intervalOpsPerSec1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("cumulativeOpsPerSec")) {
+                        cumulativeOpsPerSec1 = parser.getValueAsDouble();
+                    }
+
+                } else {
+                    throw new IOException("Expected field string or number value, but found: " + token);
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (buildRequestId1 == null) {
+            throw new IOException("Expected buildRequestId field");
+        }
+        if (ref1 == null) {
+            throw new IOException("Expected ref field");
+        }
+        if (runnerId1 == null) {
+            throw new IOException("Expected runnerId field");
+        }
+        if (workload1 == null) {
+            throw new IOException("Expected workload field");
+        }
+        if (thread1 == -1) {
+            throw new IOException("Expected thread field");
+        }
+        if (elapsedSeconds1 < 0) {
+            throw new IOException("Expected elapsedSeconds field");
+        }
+        if (intervalOps1 == -1) {
+            throw new IOException("Expected intervalOps field");
+        }
+        if (totalOps1 == -1) {
+            throw new IOException("Expected totalOps field");
+        }
+        if (intervalOpsPerSec1 < 0) {
+            throw new IOException("Expected intervalOpsPerSec field");
+        }
+        if (cumulativeOpsPerSec1 < 0) {
+            throw new IOException("Expected cumulativeOpsPerSec field");
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.buildRequestId = UUID.fromString(buildRequestId1);
+        this.ref = ref1;
+        this.runnerId = runnerId1;
+        this.workload = workload1;
+        this.thread = thread1;
+        this.elapsedSeconds = elapsedSeconds1;
+        this.intervalOps = intervalOps1;
+        this.totalOps = totalOps1;
+        this.intervalOpsPerSec = intervalOpsPerSec1;
+        this.cumulativeOpsPerSec = cumulativeOpsPerSec1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BenchmarkProgress that = (BenchmarkProgress) o;
+
+        if (thread != that.thread) return false;
+        if (Double.compare(that.elapsedSeconds, elapsedSeconds) != 0) return false;
+        if (intervalOps != that.intervalOps) return false;
+        if (totalOps != that.totalOps) return false;
+        if (Double.compare(that.intervalOpsPerSec, intervalOpsPerSec) != 0) return false;
+        if (Double.compare(that.cumulativeOpsPerSec, cumulativeOpsPerSec) != 0) return false;
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (buildRequestId != null ? !buildRequestId.equals(that.buildRequestId) : that.buildRequestId != null) return false;
+        if (ref != null ? !ref.equals(that.ref) : that.ref != null) return false;
+        if (runnerId != null ? !runnerId.equals(that.runnerId) : that.runnerId != null) return false;
+        return workload != null ? workload.equals(that.workload) : that.workload == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result;
+        long temp;
+        result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (buildRequestId != null ? buildRequestId.hashCode() : 0);
+        result = 31 * result + (ref != null ? ref.hashCode() : 0);
+        result = 31 * result + (runnerId != null ? runnerId.hashCode() : 0);
+        result = 31 * result + (workload != null ? workload.hashCode() : 0);
+        result = 31 * result + thread;
+        temp = Double.doubleToLongBits(elapsedSeconds);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (int) (intervalOps ^ (intervalOps >>> 32));
+        result = 31 * result + (int) (totalOps ^ (totalOps >>> 32));
+        temp = Double.doubleToLongBits(intervalOpsPerSec);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(cumulativeOpsPerSec);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        return result;
+    }
+}
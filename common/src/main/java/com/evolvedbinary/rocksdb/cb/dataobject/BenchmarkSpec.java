@@ -0,0 +1,168 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The matrix of workloads that a Runner benchmarks for a build request.
+ *
+ * The workloads run one after the other against the same database,
+ * so a workload which reads, e.g. {@code readrandom}, should follow
+ * a workload which loads the database, e.g. {@code fillseq}.
+ */
+public class BenchmarkSpec extends AbstractDataObject {
+
+    private List<String> makeTargets;
+    private List<BenchmarkWorkload> workloads;
+
+    public BenchmarkSpec() {
+    }
+
+    /**
+     * @param makeTargets the make build targets, or an empty list for the Runner's default targets
+     * @param workloads the workloads, each of which must have a unique name
+     */
+    public BenchmarkSpec(final List<String> makeTargets, final List<BenchmarkWorkload> workloads) {
+        this.makeTargets = makeTargets;
+        this.workloads = workloads;
+    }
+
+    /**
+     * Get the make build targets.
+     *
+     * @return the targets, or an empty list for the Runner's default targets
+     */
+    public List<String> getMakeTargets() {
+        return makeTargets;
+    }
+
+    public List<BenchmarkWorkload> getWorkloads() {
+        return workloads;
+    }
+
+    /**
+     * Get a workload by name.
+     *
+     * @param name the name of the workload
+     *
+     * @return the workload, or null if there is no such workload
+     */
+    public @Nullable BenchmarkWorkload getWorkload(final String name) {
+        for (final BenchmarkWorkload workload : workloads) {
+            if (workload.getName().equals(name)) {
+                return workload;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        if (!makeTargets.isEmpty()) {
+            generator.writeArrayFieldStart("makeTargets");
+            for (final String makeTarget : makeTargets) {
+                generator.writeString(makeTarget);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeArrayFieldStart("workloads");
+        for (final BenchmarkWorkload workload : workloads) {
+            generator.writeStartObject();
+            workload.serializeFields(generator);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    @Override
+    BenchmarkSpec deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        List<String> makeTargets1 = null;
+        List<BenchmarkWorkload> workloads1 = null;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected field array value, but found: " + token);
+                }
+
+                if (fieldName.equals("makeTargets")) {
+                    makeTargets1 = new ArrayList<>();
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token != JsonToken.VALUE_STRING) {
+                            throw new IOException("Expected makeTargets to contain string values, but found: " + token);
+                        }
+                        makeTargets1.add(parser.getValueAsString());
+                    }
+
+                } else if (fieldName.equals("workloads")) {
+                    workloads1 = new ArrayList<>();
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token != JsonToken.START_OBJECT) {
+                            throw new IOException("Expected workloads to contain objects, but found: " + token);
+                        }
+                        workloads1.add(new BenchmarkWorkload().deserializeFields(parser, token));
+                    }
+
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (workloads1 == null || workloads1.isEmpty()) {
+            throw new IOException("Expected workloads field with at least one workload");
+        }
+        final Set<String> names = new HashSet<>();
+        for (final BenchmarkWorkload workload : workloads1) {
+            if (!names.add(workload.getName())) {
+                throw new IOException("Expected workloads to have unique names, but found duplicate: " + workload.getName());
+            }
+        }
+
+        this.makeTargets = makeTargets1 != null ? makeTargets1 : Collections.emptyList();
+        this.workloads = workloads1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BenchmarkSpec that = (BenchmarkSpec) o;
+
+        if (makeTargets != null ? !makeTargets.equals(that.makeTargets) : that.makeTargets != null) return false;
+        return workloads != null ? workloads.equals(that.workloads) : that.workloads == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = makeTargets != null ? makeTargets.hashCode() : 0;
+        result = 31 * result + (workloads != null ? workloads.hashCode() : 0);
+        return result;
+    }
+}
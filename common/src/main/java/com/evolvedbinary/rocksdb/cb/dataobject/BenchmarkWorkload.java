@@ -0,0 +1,233 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single workload of a {@link BenchmarkSpec}, e.g. {@code readrandom}
+ * with 100 million keys of 20 bytes and values of 400 bytes.
+ */
+public class BenchmarkWorkload extends AbstractDataObject {
+
+    private String name;
+    private List<String> args;
+    private Map<String, String> env;
+    private long numKeys = -1;
+    private int keySize = -1;
+    private int valueSize = -1;
+    private CacheMode cacheMode = CacheMode.WARM;
+
+    public BenchmarkWorkload() {
+    }
+
+    public BenchmarkWorkload(final String name) {
+        this(name, Collections.emptyList(), Collections.emptyMap(), -1, -1, -1, CacheMode.WARM);
+    }
+
+    /**
+     * @param name the unique name of the workload, the results of the workload are reported under this name
+     * @param args the arguments to the benchmark command, or an empty list to use the name of the workload
+     * @param env additional environment variables for the benchmark command
+     * @param numKeys the number of keys, or -1 for the default
+     * @param keySize the size in bytes of each key, or -1 for the default
+     * @param valueSize the size in bytes of each value, or -1 for the default
+     * @param cacheMode the state of the caches when the workload starts
+     */
+    public BenchmarkWorkload(final String name, final List<String> args, final Map<String, String> env, final long numKeys, final int keySize, final int valueSize, final CacheMode cacheMode) {
+        this.name = name;
+        this.args = args;
+        this.env = env;
+        this.numKeys = numKeys;
+        this.keySize = keySize;
+        this.valueSize = valueSize;
+        this.cacheMode = cacheMode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the arguments to the benchmark command.
+     *
+     * @return the arguments, or the name of the workload if no arguments were specified
+     */
+    public List<String> getArgs() {
+        if (args.isEmpty()) {
+            return Collections.singletonList(name);
+        }
+        return args;
+    }
+
+    public Map<String, String> getEnv() {
+        return env;
+    }
+
+    public long getNumKeys() {
+        return numKeys;
+    }
+
+    public int getKeySize() {
+        return keySize;
+    }
+
+    public int getValueSize() {
+        return valueSize;
+    }
+
+    public CacheMode getCacheMode() {
+        return cacheMode;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("name", name);
+        if (!args.isEmpty()) {
+            generator.writeArrayFieldStart("args");
+            for (final String arg : args) {
+                generator.writeString(arg);
+            }
+            generator.writeEndArray();
+        }
+        if (!env.isEmpty()) {
+            generator.writeObjectFieldStart("env");
+            for (final Map.Entry<String, String> variable : env.entrySet()) {
+                generator.writeStringField(variable.getKey(), variable.getValue());
+            }
+            generator.writeEndObject();
+        }
+        if (numKeys > -1) {
+            generator.writeNumberField("numKeys", numKeys);
+        }
+        if (keySize > -1) {
+            generator.writeNumberField("keySize", keySize);
+        }
+        if (valueSize > -1) {
+            generator.writeNumberField("valueSize", valueSize);
+        }
+        generator.writeStringField("cacheMode", cacheMode.name());
+    }
+
+    @Override
+    BenchmarkWorkload deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        String name1 = null;
+        List<String> args1 = null;
+        Map<String, String> env1 = null;
+        long numKeys1 = -1;
+        int keySize1 = -1;
+        int valueSize1 = -1;
+        CacheMode cacheMode1 = CacheMode.WARM;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("name")) {
+                        name1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("cacheMode")) {
+                        final String fieldValue = parser.getValueAsString();
+                        try {
+                            cacheMode1 = CacheMode.valueOf(fieldValue);
+                        } catch (final IllegalArgumentException e) {
+                            throw new IOException("Expected field cacheMode to have a valid CacheMode, but found: " + fieldValue);
+                        }
+                    }
+
+                } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                    if (fieldName.equals("numKeys")) {
+                        numKeys1 = parser.getValueAsLong();
+                    } else if (fieldName.equals("keySize")) {
+                        keySize1 = parser.getValueAsInt();
+                    } else if (fieldName.equals("valueSize")) {
+                        valueSize1 = parser.getValueAsInt();
+                    }
+
+                } else if (token == JsonToken.START_ARRAY && fieldName.equals("args")) {
+                    args1 = new ArrayList<>();
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token != JsonToken.VALUE_STRING) {
+                            throw new IOException("Expected args to contain string values, but found: " + token);
+                        }
+                        args1.add(parser.getValueAsString());
+                    }
+
+                } else if (token == JsonToken.START_OBJECT && fieldName.equals("env")) {
+                    env1 = new LinkedHashMap<>();
+                    while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+                        final String variable = parser.getCurrentName();
+                        token = parser.nextToken();
+                        if (token != JsonToken.VALUE_STRING) {
+                            throw new IOException("Expected env to contain string values, but found: " + token);
+                        }
+                        env1.put(variable, parser.getValueAsString());
+                    }
+
+                } else {
+                    throw new IOException("Unexpected value for field " + fieldName + ": " + token);
+                }
+            }
+        }
+
+        if (name1 == null) {
+            throw new IOException("Expected name field");
+        }
+
+        this.name = name1;
+        this.args = args1 != null ? args1 : Collections.emptyList();
+        this.env = env1 != null ? env1 : Collections.emptyMap();
+        this.numKeys = numKeys1;
+        this.keySize = keySize1;
+        this.valueSize = valueSize1;
+        this.cacheMode = cacheMode1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BenchmarkWorkload that = (BenchmarkWorkload) o;
+
+        if (numKeys != that.numKeys) return false;
+        if (keySize != that.keySize) return false;
+        if (valueSize != that.valueSize) return false;
+        if (name != null ? !name.equals(that.name) : that.name != null) return false;
+        if (args != null ? !args.equals(that.args) : that.args != null) return false;
+        if (env != null ? !env.equals(that.env) : that.env != null) return false;
+        return cacheMode == that.cacheMode;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name != null ? name.hashCode() : 0;
+        result = 31 * result + (args != null ? args.hashCode() : 0);
+        result = 31 * result + (env != null ? env.hashCode() : 0);
+        result = 31 * result + (int) (numKeys ^ (numKeys >>> 32));
+        result = 31 * result + keySize;
+        result = 31 * result + valueSize;
+        result = 31 * result + (cacheMode != null ? cacheMode.hashCode() : 0);
+        return result;
+    }
+}
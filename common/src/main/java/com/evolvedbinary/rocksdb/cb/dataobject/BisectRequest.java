@@ -0,0 +1,308 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * A request to find the first commit between a good and a bad commit
+ * at which a benchmark regressed.
+ */
+public class BisectRequest extends AbstractIdentifiableDataObject {
+
+    public static final double DEFAULT_THRESHOLD = 0.05;
+    public static final int DEFAULT_REPETITIONS = 3;
+
+    private String repository;
+    private String ref;
+    private String goodCommit;
+    private String badCommit;
+    private String author;
+    private double threshold = DEFAULT_THRESHOLD;
+    private int repetitions = DEFAULT_REPETITIONS;
+    @Nullable private String benchmark;
+    @Nullable private String metric;
+
+    public BisectRequest() {
+        super();
+    }
+
+    public BisectRequest(final String repository, final String ref, final String goodCommit, final String badCommit, final String author, final double threshold, final int repetitions) {
+        this(repository, ref, goodCommit, badCommit, author, threshold, repetitions, null, null);
+    }
+
+    /**
+     * @param benchmark the benchmark whose metric is bisected, or null to bisect the benchmark time
+     * @param metric the metric of the benchmark which is bisected, e.g. {@link BuildStats#METRIC_OPS_PER_SEC}, or null to bisect the benchmark time
+     */
+    public BisectRequest(final String repository, final String ref, final String goodCommit, final String badCommit, final String author, final double threshold, final int repetitions, @Nullable final String benchmark, @Nullable final String metric) {
+        super();
+        this.repository = repository;
+        this.ref = ref;
+        this.goodCommit = goodCommit;
+        this.badCommit = badCommit;
+        this.author = author;
+        this.threshold = threshold;
+        this.repetitions = repetitions;
+        this.benchmark = benchmark;
+        this.metric = metric;
+    }
+
+    public BisectRequest(final UUID id, final ZonedDateTime timeStamp, final String repository, final String ref, final String goodCommit, final String badCommit, final String author, final double threshold, final int repetitions) {
+        this(id, timeStamp, repository, ref, goodCommit, badCommit, author, threshold, repetitions, null, null);
+    }
+
+    /**
+     * @param benchmark the benchmark whose metric is bisected, or null to bisect the benchmark time
+     * @param metric the metric of the benchmark which is bisected, e.g. {@link BuildStats#METRIC_OPS_PER_SEC}, or null to bisect the benchmark time
+     */
+    public BisectRequest(final UUID id, final ZonedDateTime timeStamp, final String repository, final String ref, final String goodCommit, final String badCommit, final String author, final double threshold, final int repetitions, @Nullable final String benchmark, @Nullable final String metric) {
+        super(id, timeStamp);
+        this.repository = repository;
+        this.ref = ref;
+        this.goodCommit = goodCommit;
+        this.badCommit = badCommit;
+        this.author = author;
+        this.threshold = threshold;
+        this.repetitions = repetitions;
+        this.benchmark = benchmark;
+        this.metric = metric;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getGoodCommit() {
+        return goodCommit;
+    }
+
+    public String getBadCommit() {
+        return badCommit;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * The relative change for the worse in the bisected metric over the good
+     * commit above which a commit is considered to have regressed,
+     * e.g. 0.05 for 5%.
+     *
+     * @return the threshold
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * The number of times each commit is benchmarked,
+     * the median of which is compared against the threshold.
+     *
+     * @return the number of repetitions
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * The benchmark whose metric is bisected, e.g. {@code readrandom}.
+     *
+     * @return the name of the benchmark, or null to bisect the benchmark time of the whole build
+     */
+    public @Nullable String getBenchmark() {
+        return benchmark;
+    }
+
+    /**
+     * The metric of the benchmark which is bisected.
+     *
+     * @return the name of the metric, e.g. {@link BuildStats#METRIC_OPS_PER_SEC}, or null to bisect the benchmark time of the whole build
+     */
+    public @Nullable String getMetric() {
+        return metric;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+
+        generator.writeStringField("repository", repository);
+        generator.writeStringField("ref", ref);
+        generator.writeStringField("goodCommit", goodCommit);
+        generator.writeStringField("badCommit", badCommit);
+        generator.writeStringField("author", author);
+        generator.writeNumberField("threshold", threshold);
+        generator.writeNumberField("repetitions", repetitions);
+        if (benchmark != null) {
+            generator.writeStringField("benchmark", benchmark);
+        }
+        if (metric != null) {
+            generator.writeStringField("metric", metric);
+        }
+    }
+
+    @Override
+    BisectRequest deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        String repository1 = null;
+        String ref1 = null;
+        String goodCommit1 = null;
+        String badCommit1 = null;
+        String author1 = null;
+        double threshold1 = DEFAULT_THRESHOLD;
+        int repetitions1 = DEFAULT_REPETITIONS;
+        String benchmark1 = null;
+        String metric1 = null;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("id")) {
+                        id1 = parser.getValueAsString();
+                    } else if (fieldName.equals("timeStamp")) {
+                        timeStamp1 = parser.getValueAsString();
+                    } else if (fieldName.equals("repository")) {
+                        repository1 = parser.getValueAsString();
+                    } else if (fieldName.equals("ref")) {
+                        ref1 = parser.getValueAsString();
+                    } else if (fieldName.equals("goodCommit")) {
+                        goodCommit1 = parser.getValueAsString();
+                    } else if (fieldName.equals("badCommit")) {
+                        badCommit1 = parser.getValueAsString();
+                    } else if (fieldName.equals("author")) {
+                        author1 = parser.getValueAsString();
+                    } else if (fieldName.equals("benchmark")) {
+                        benchmark1 = parser.getValueAsString();
+                    } else if (fieldName.equals("metric")) {
+                        metric1 = parser.getValueAsString();
+                    }
+
+                } else if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                    if (fieldName.equals("threshold")) {
+                        threshold1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("repetitions")) {
+                        if (token != JsonToken.VALUE_NUMBER_INT) {
+                            throw new IOException("Expected field int value, but found: " + token);
+                        }
+                        repetitions1 = parser.getValueAsInt();
+                    }
+
+                } else {
+                    throw new IOException("Expected field string or number value, but found: " + token);
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (repository1 == null) {
+            throw new IOException("Expected repository field");
+        }
+        if (ref1 == null) {
+            throw new IOException("Expected ref field");
+        }
+        if (goodCommit1 == null) {
+            throw new IOException("Expected goodCommit field");
+        }
+        if (badCommit1 == null) {
+            throw new IOException("Expected badCommit field");
+        }
+        if (author1 == null) {
+            throw new IOException("Expected author field");
+        }
+        if (threshold1 < 0) {
+            throw new IOException("Expected field threshold to be non-negative, but found: " + threshold1);
+        }
+        if (repetitions1 < 1) {
+            throw new IOException("Expected field repetitions to be at least 1, but found: " + repetitions1);
+        }
+        if ((benchmark1 == null) != (metric1 == null)) {
+            throw new IOException("Expected both or neither of the fields benchmark and metric, but found: " + benchmark1 + " and " + metric1);
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.repository = repository1;
+        this.ref = ref1;
+        this.goodCommit = goodCommit1;
+        this.badCommit = badCommit1;
+        this.author = author1;
+        this.threshold = threshold1;
+        this.repetitions = repetitions1;
+        this.benchmark = benchmark1;
+        this.metric = metric1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BisectRequest that = (BisectRequest) o;
+
+        if (Double.compare(that.threshold, threshold) != 0) return false;
+        if (repetitions != that.repetitions) return false;
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (repository != null ? !repository.equals(that.repository) : that.repository != null) return false;
+        if (ref != null ? !ref.equals(that.ref) : that.ref != null) return false;
+        if (goodCommit != null ? !goodCommit.equals(that.goodCommit) : that.goodCommit != null) return false;
+        if (badCommit != null ? !badCommit.equals(that.badCommit) : that.badCommit != null) return false;
+        if (benchmark != null ? !benchmark.equals(that.benchmark) : that.benchmark != null) return false;
+        if (metric != null ? !metric.equals(that.metric) : that.metric != null) return false;
+        return author != null ? author.equals(that.author) : that.author == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result;
+        final long temp;
+        result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (repository != null ? repository.hashCode() : 0);
+        result = 31 * result + (ref != null ? ref.hashCode() : 0);
+        result = 31 * result + (goodCommit != null ? goodCommit.hashCode() : 0);
+        result = 31 * result + (badCommit != null ? badCommit.hashCode() : 0);
+        result = 31 * result + (author != null ? author.hashCode() : 0);
+        temp = Double.doubleToLongBits(threshold);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + repetitions;
+        result = 31 * result + (benchmark != null ? benchmark.hashCode() : 0);
+        result = 31 * result + (metric != null ? metric.hashCode() : 0);
+        return result;
+    }
+}
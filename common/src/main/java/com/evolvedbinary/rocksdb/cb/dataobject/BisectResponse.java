@@ -0,0 +1,244 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * The result of a {@link BisectRequest}.
+ */
+public class BisectResponse extends AbstractIdentifiableDataObject {
+
+    private BisectState bisectState;
+    private BisectRequest bisectRequest;
+    @Nullable private String lastGoodCommit;
+    @Nullable private String firstBadCommit;
+    private double goodMedian = -1;
+    private double badMedian = -1;
+    @Nullable private String message;
+
+    public BisectResponse() {
+        super();
+    }
+
+    public BisectResponse(final BisectState bisectState, final BisectRequest bisectRequest, @Nullable final String lastGoodCommit, @Nullable final String firstBadCommit, final double goodMedian, final double badMedian, @Nullable final String message) {
+        super();
+        this.bisectState = bisectState;
+        this.bisectRequest = bisectRequest;
+        this.lastGoodCommit = lastGoodCommit;
+        this.firstBadCommit = firstBadCommit;
+        this.goodMedian = goodMedian;
+        this.badMedian = badMedian;
+        this.message = message;
+    }
+
+    public BisectResponse(final UUID id, final ZonedDateTime timeStamp, final BisectState bisectState, final BisectRequest bisectRequest, @Nullable final String lastGoodCommit, @Nullable final String firstBadCommit, final double goodMedian, final double badMedian, @Nullable final String message) {
+        super(id, timeStamp);
+        this.bisectState = bisectState;
+        this.bisectRequest = bisectRequest;
+        this.lastGoodCommit = lastGoodCommit;
+        this.firstBadCommit = firstBadCommit;
+        this.goodMedian = goodMedian;
+        this.badMedian = badMedian;
+        this.message = message;
+    }
+
+    public BisectState getBisectState() {
+        return bisectState;
+    }
+
+    public BisectRequest getBisectRequest() {
+        return bisectRequest;
+    }
+
+    public @Nullable String getLastGoodCommit() {
+        return lastGoodCommit;
+    }
+
+    public @Nullable String getFirstBadCommit() {
+        return firstBadCommit;
+    }
+
+    /**
+     * The median of the bisected metric of the good commit, or -1 if it was not measured,
+     * see {@link BisectRequest#getMetric()}.
+     *
+     * @return the median, which is the benchmark time in milliseconds if the request has no metric
+     */
+    public double getGoodMedian() {
+        return goodMedian;
+    }
+
+    /**
+     * The median of the bisected metric of the first bad commit, or -1 if it was not measured,
+     * see {@link BisectRequest#getMetric()}.
+     *
+     * @return the median, which is the benchmark time in milliseconds if the request has no metric
+     */
+    public double getBadMedian() {
+        return badMedian;
+    }
+
+    public @Nullable String getMessage() {
+        return message;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+        generator.writeStringField("bisectState", bisectState.name());
+        generator.writeObjectFieldStart("bisectRequest");
+        bisectRequest.serializeFields(generator);
+        generator.writeEndObject();
+        if (lastGoodCommit != null) {
+            generator.writeStringField("lastGoodCommit", lastGoodCommit);
+        }
+        if (firstBadCommit != null) {
+            generator.writeStringField("firstBadCommit", firstBadCommit);
+        }
+        generator.writeNumberField("goodMedian", goodMedian);
+        generator.writeNumberField("badMedian", badMedian);
+        if (message != null) {
+            generator.writeStringField("message", message);
+        }
+    }
+
+    @Override
+    BisectResponse deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        BisectState bisectState1 = null;
+        BisectRequest bisectRequest1 = null;
+        String lastGoodCommit1 = null;
+        String firstBadCommit1 = null;
+        double goodMedian1 = -1;
+        double badMedian1 = -1;
+        String message1 = null;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("id")) {
+                        id1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("timeStamp")) {
+                        timeStamp1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("bisectState")) {
+                        final String fieldValue = parser.getValueAsString();
+                        try {
+                            bisectState1 = BisectState.valueOf(fieldValue);
+                        } catch (final IllegalArgumentException e) {
+                            throw new IOException("Expected field bisectState to have a valid BisectState, but found: " + fieldValue);
+                        }
+
+                    } else if (fieldName.equals("lastGoodCommit")) {
+                        lastGoodCommit1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("firstBadCommit")) {
+                        firstBadCommit1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("message")) {
+                        message1 = parser.getValueAsString();
+                    }
+
+                } else if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                    if (fieldName.equals("goodMedian")) {
+                        goodMedian1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("badMedian")) {
+                        badMedian1 = parser.getValueAsDouble();
+                    }
+
+                } else if (token == JsonToken.START_OBJECT) {
+                    if (fieldName.equals("bisectRequest")) {
+                        bisectRequest1 = new BisectRequest().deserializeFields(parser, token);
+                    }
+
+                } else {
+                    throw new IOException("Expected field string value, number value or start object, but found: " + token);
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (bisectState1 == null) {
+            throw new IOException("Expected bisectState field");
+        }
+        if (bisectRequest1 == null) {
+            throw new IOException("Expected bisectRequest field");
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.bisectState = bisectState1;
+        this.bisectRequest = bisectRequest1;
+        this.lastGoodCommit = lastGoodCommit1;
+        this.firstBadCommit = firstBadCommit1;
+        this.goodMedian = goodMedian1;
+        this.badMedian = badMedian1;
+        this.message = message1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BisectResponse that = (BisectResponse) o;
+
+        if (Double.compare(that.goodMedian, goodMedian) != 0) return false;
+        if (Double.compare(that.badMedian, badMedian) != 0) return false;
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (bisectState != that.bisectState) return false;
+        if (bisectRequest != null ? !bisectRequest.equals(that.bisectRequest) : that.bisectRequest != null) return false;
+        if (lastGoodCommit != null ? !lastGoodCommit.equals(that.lastGoodCommit) : that.lastGoodCommit != null) return false;
+        if (firstBadCommit != null ? !firstBadCommit.equals(that.firstBadCommit) : that.firstBadCommit != null) return false;
+        return message != null ? message.equals(that.message) : that.message == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result;
+        long temp;
+        result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (bisectState != null ? bisectState.hashCode() : 0);
+        result = 31 * result + (bisectRequest != null ? bisectRequest.hashCode() : 0);
+        result = 31 * result + (lastGoodCommit != null ? lastGoodCommit.hashCode() : 0);
+        result = 31 * result + (firstBadCommit != null ? firstBadCommit.hashCode() : 0);
+        temp = Double.doubleToLongBits(goodMedian);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(badMedian);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (message != null ? message.hashCode() : 0);
+        return result;
+    }
+}
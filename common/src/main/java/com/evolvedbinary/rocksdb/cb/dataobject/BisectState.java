@@ -0,0 +1,23 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+/**
+ * The outcome of a Bisect.
+ */
+public enum BisectState {
+    /**
+     * The first bad commit was found.
+     */
+    COMPLETE,
+
+    /**
+     * The bad commit did not regress against the good commit
+     * by more than the threshold, so there was nothing to bisect.
+     */
+    NO_REGRESSION,
+
+    /**
+     * The bisect could not be completed,
+     * e.g. the commit range was invalid or a build failed.
+     */
+    FAILED
+}
@@ -4,16 +4,38 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 public class BuildRequest extends AbstractIdentifiableDataObject {
 
+    /**
+     * The JMS message property which holds the hardware class of the
+     * Runners that a build request is routed to. Build requests without
+     * the property may be built by any Runner.
+     */
+    public static final String HARDWARE_CLASS_PROPERTY = "hardwareClass";
+
     private String repository;
     private String ref;
     private String commit;
     private String author;
+    @Nullable private String schedule;
+    @Nullable private String benchmark;
+    @Nullable private BenchmarkSpec benchmarkSpec;
+
+    // benchmark name -> baseline throughput in operations per second
+    @Nullable private Map<String, Double> baselines;
+
+    private boolean backfill;
+    @Nullable private String hardwareClass;
+    @Nullable private UUID bisectRequestId;
 
     public BuildRequest() {
         super();
@@ -28,11 +50,53 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
     }
 
     public BuildRequest(final UUID id, final ZonedDateTime timeStamp, final String repository, final String ref, final String commit, final String author) {
+        this(id, timeStamp, repository, ref, commit, author, null, null, null, null, false, null, null);
+    }
+
+    private BuildRequest(final UUID id, final ZonedDateTime timeStamp, final String repository, final String ref, final String commit, final String author, @Nullable final String schedule, @Nullable final String benchmark, @Nullable final BenchmarkSpec benchmarkSpec, @Nullable final Map<String, Double> baselines, final boolean backfill, @Nullable final String hardwareClass, @Nullable final UUID bisectRequestId) {
         super(id, timeStamp);
         this.repository = repository;
         this.ref = ref;
         this.commit = commit;
         this.author = author;
+        this.schedule = schedule;
+        this.benchmark = benchmark;
+        this.benchmarkSpec = benchmarkSpec;
+        this.baselines = (baselines != null && !baselines.isEmpty()) ? baselines : null;
+        this.backfill = backfill;
+        this.hardwareClass = hardwareClass;
+        this.bisectRequestId = bisectRequestId;
+    }
+
+    /**
+     * Get a builder which is initialised with all of the fields of this build request,
+     * including its id, so that a copy with some fields changed still matches the build.
+     *
+     * @return the builder
+     */
+    public Builder toBuilder() {
+        return new Builder(repository, ref, commit, author)
+                .id(id)
+                .timeStamp(timeStamp)
+                .schedule(schedule)
+                .benchmark(benchmark)
+                .benchmarkSpec(benchmarkSpec)
+                .baselines(baselines)
+                .backfill(backfill)
+                .hardwareClass(hardwareClass)
+                .bisectRequestId(bisectRequestId);
+    }
+
+    /**
+     * Get a JMS message selector which matches the build requests
+     * routed to a hardware class.
+     *
+     * @param hardwareClass the hardware class
+     *
+     * @return the message selector
+     */
+    public static String hardwareClassSelector(final String hardwareClass) {
+        return HARDWARE_CLASS_PROPERTY + " = '" + hardwareClass.replace("'", "''") + "'";
     }
 
     public String getRepository() {
@@ -51,6 +115,114 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
         return author;
     }
 
+    /**
+     * Get the name of the schedule which requested the build.
+     *
+     * Scheduled builds may run a heavier benchmark profile
+     * than builds which are requested by a push.
+     *
+     * @return the name of the schedule, or null if the build was requested by a push
+     */
+    public @Nullable String getSchedule() {
+        return schedule;
+    }
+
+    public boolean isScheduled() {
+        return schedule != null;
+    }
+
+    /**
+     * Get the single benchmark that the Runner should run.
+     *
+     * A build request which has been expanded into a workflow
+     * is sent to the Runners as one build request per benchmark.
+     *
+     * @return the name of the benchmark, or null if the Runner should run its default benchmarks
+     */
+    public @Nullable String getBenchmark() {
+        return benchmark;
+    }
+
+    /**
+     * Get the workloads that the Runner should benchmark.
+     *
+     * If the build request also has a single benchmark, then
+     * the Runner runs only the workload of that name.
+     *
+     * @return the benchmark spec, or null if the Runner should run its default benchmarks
+     */
+    public @Nullable BenchmarkSpec getBenchmarkSpec() {
+        return benchmarkSpec;
+    }
+
+    /**
+     * Get the baseline throughput of each benchmark, i.e. the typical throughput
+     * of the benchmark for the ref on the hardware class that it is routed to.
+     *
+     * A Runner may abort a benchmark whose throughput falls far below its baseline.
+     *
+     * @return benchmark name -> operations per second, empty if there are no baselines
+     */
+    public Map<String, Double> getBaselines() {
+        if (baselines == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(baselines);
+    }
+
+    /**
+     * Get the baseline throughput of a benchmark.
+     *
+     * @param benchmark the name of the benchmark
+     *
+     * @return the operations per second, or null if there is no baseline for the benchmark
+     */
+    public @Nullable Double getBaseline(final String benchmark) {
+        return baselines == null ? null : baselines.get(benchmark);
+    }
+
+    /**
+     * Determine if the build is a backfill, i.e. of a commit which is older than
+     * those already built for the ref, e.g. a commit of a backfill campaign,
+     * or a commit which was skipped whilst the Runners were overloaded.
+     *
+     * The result of a backfill is out of order in the time series of the ref,
+     * so must not be used for change point detection or as a baseline.
+     *
+     * @return true if the build is a backfill
+     */
+    public boolean isBackfill() {
+        return backfill;
+    }
+
+    /**
+     * Get the hardware class of the Runners that the build is routed to.
+     *
+     * The baselines of the build are those of this hardware class,
+     * so its result is also recorded against this hardware class.
+     *
+     * @return the hardware class, or null if the build is not yet routed, or may be built by any Runner
+     */
+    public @Nullable String getHardwareClass() {
+        return hardwareClass;
+    }
+
+    /**
+     * Get the id of the bisect request whose bisect dispatched the build.
+     *
+     * The result of a bisect build belongs to its bisect, so is never published,
+     * even if the Orchestrator restarted and no longer knows of the bisect.
+     *
+     * @return the id of the bisect request, or null if the build was not dispatched by a bisect
+     */
+    public @Nullable UUID getBisectRequestId() {
+        return bisectRequestId;
+    }
+
+    public boolean isBisect() {
+        return bisectRequestId != null;
+    }
+
     @Override
     void serializeFields(final JsonGenerator generator) throws IOException {
         generator.writeStringField("id", id.toString());
@@ -60,6 +232,33 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
         generator.writeStringField("ref", ref);
         generator.writeStringField("commit", commit);
         generator.writeStringField("author", author);
+        if (schedule != null) {
+            generator.writeStringField("schedule", schedule);
+        }
+        if (benchmark != null) {
+            generator.writeStringField("benchmark", benchmark);
+        }
+        if (benchmarkSpec != null) {
+            generator.writeObjectFieldStart("benchmarkSpec");
+            benchmarkSpec.serializeFields(generator);
+            generator.writeEndObject();
+        }
+        if (baselines != null) {
+            generator.writeObjectFieldStart("baselines");
+            for (final Map.Entry<String, Double> baseline : baselines.entrySet()) {
+                generator.writeNumberField(baseline.getKey(), baseline.getValue());
+            }
+            generator.writeEndObject();
+        }
+        if (backfill) {
+            generator.writeBooleanField("backfill", true);
+        }
+        if (hardwareClass != null) {
+            generator.writeStringField("hardwareClass", hardwareClass);
+        }
+        if (bisectRequestId != null) {
+            generator.writeStringField("bisectRequestId", bisectRequestId.toString());
+        }
     }
 
     @Override
@@ -72,6 +271,13 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
         String ref1 = null;
         String commit1 = null;
         String author1 = null;
+        String schedule1 = null;
+        String benchmark1 = null;
+        BenchmarkSpec benchmarkSpec1 = null;
+        Map<String, Double> baselines1 = null;
+        boolean backfill1 = false;
+        String hardwareClass1 = null;
+        String bisectRequestId1 = null;
 
         while (true) {
             token = parser.nextToken();
@@ -87,6 +293,26 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
 
                 // move to field value
                 token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT && fieldName.equals("benchmarkSpec")) {
+                    benchmarkSpec1 = new BenchmarkSpec().deserializeFields(parser, token);
+                    continue;
+                }
+                if (token == JsonToken.START_OBJECT && fieldName.equals("baselines")) {
+                    baselines1 = new LinkedHashMap<>();
+                    while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+                        final String benchmark = parser.getCurrentName();
+                        token = parser.nextToken();
+                        if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                            throw new IOException("Expected baselines to contain number values, but found: " + token);
+                        }
+                        baselines1.put(benchmark, parser.getValueAsDouble());
+                    }
+                    continue;
+                }
+                if ((token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) && fieldName.equals("backfill")) {
+                    backfill1 = parser.getValueAsBoolean();
+                    continue;
+                }
                 if (token != JsonToken.VALUE_STRING) {
                     throw new IOException("Expected field string value, but found: " + token);
                 }
@@ -103,6 +329,14 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
                     commit1 = parser.getValueAsString();
                 } else if (fieldName.equals("author")) {
                     author1 = parser.getValueAsString();
+                } else if (fieldName.equals("schedule")) {
+                    schedule1 = parser.getValueAsString();
+                } else if (fieldName.equals("benchmark")) {
+                    benchmark1 = parser.getValueAsString();
+                } else if (fieldName.equals("hardwareClass")) {
+                    hardwareClass1 = parser.getValueAsString();
+                } else if (fieldName.equals("bisectRequestId")) {
+                    bisectRequestId1 = parser.getValueAsString();
                 }
             }
         }
@@ -132,6 +366,13 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
         this.ref = ref1;
         this.commit = commit1;
         this.author = author1;
+        this.schedule = schedule1;
+        this.benchmark = benchmark1;
+        this.benchmarkSpec = benchmarkSpec1;
+        this.baselines = (baselines1 != null && !baselines1.isEmpty()) ? baselines1 : null;
+        this.backfill = backfill1;
+        this.hardwareClass = hardwareClass1;
+        this.bisectRequestId = bisectRequestId1 != null ? UUID.fromString(bisectRequestId1) : null;
 
         return this;
     }
@@ -148,7 +389,14 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
         if (repository != null ? !repository.equals(that.repository) : that.repository != null) return false;
         if (ref != null ? !ref.equals(that.ref) : that.ref != null) return false;
         if (commit != null ? !commit.equals(that.commit) : that.commit != null) return false;
-        return author != null ? author.equals(that.author) : that.author == null;
+        if (author != null ? !author.equals(that.author) : that.author != null) return false;
+        if (schedule != null ? !schedule.equals(that.schedule) : that.schedule != null) return false;
+        if (benchmark != null ? !benchmark.equals(that.benchmark) : that.benchmark != null) return false;
+        if (benchmarkSpec != null ? !benchmarkSpec.equals(that.benchmarkSpec) : that.benchmarkSpec != null) return false;
+        if (backfill != that.backfill) return false;
+        if (hardwareClass != null ? !hardwareClass.equals(that.hardwareClass) : that.hardwareClass != null) return false;
+        if (bisectRequestId != null ? !bisectRequestId.equals(that.bisectRequestId) : that.bisectRequestId != null) return false;
+        return getBaselines().equals(that.getBaselines());
     }
 
     @Override
@@ -159,6 +407,110 @@ public class BuildRequest extends AbstractIdentifiableDataObject {
         result = 31 * result + (ref != null ? ref.hashCode() : 0);
         result = 31 * result + (commit != null ? commit.hashCode() : 0);
         result = 31 * result + (author != null ? author.hashCode() : 0);
+        result = 31 * result + (schedule != null ? schedule.hashCode() : 0);
+        result = 31 * result + (benchmark != null ? benchmark.hashCode() : 0);
+        result = 31 * result + (benchmarkSpec != null ? benchmarkSpec.hashCode() : 0);
+        result = 31 * result + getBaselines().hashCode();
+        result = 31 * result + (backfill ? 1 : 0);
+        result = 31 * result + (hardwareClass != null ? hardwareClass.hashCode() : 0);
+        result = 31 * result + (bisectRequestId != null ? bisectRequestId.hashCode() : 0);
         return result;
     }
+
+    /**
+     * Builds a {@link BuildRequest}, where any field which is not set has its default value,
+     * and a new id and time stamp are used unless they are set.
+     */
+    public static class Builder {
+        private final String repository;
+        private final String ref;
+        private final String commit;
+        private final String author;
+        private UUID id = UUID.randomUUID();
+        private ZonedDateTime timeStamp = ZonedDateTime.now(ZoneId.of("UTC"));
+        @Nullable private String schedule;
+        @Nullable private String benchmark;
+        @Nullable private BenchmarkSpec benchmarkSpec;
+        @Nullable private Map<String, Double> baselines;
+        private boolean backfill;
+        @Nullable private String hardwareClass;
+        @Nullable private UUID bisectRequestId;
+
+        public Builder(final String repository, final String ref, final String commit, final String author) {
+            this.repository = repository;
+            this.ref = ref;
+            this.commit = commit;
+            this.author = author;
+        }
+
+        public Builder id(final UUID id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder timeStamp(final ZonedDateTime timeStamp) {
+            this.timeStamp = timeStamp;
+            return this;
+        }
+
+        /**
+         * @param schedule the name of the schedule which requested the build, or null if the build was requested by a push
+         */
+        public Builder schedule(@Nullable final String schedule) {
+            this.schedule = schedule;
+            return this;
+        }
+
+        /**
+         * @param benchmark the single benchmark that the Runner should run, or null for the Runner's default benchmarks
+         */
+        public Builder benchmark(@Nullable final String benchmark) {
+            this.benchmark = benchmark;
+            return this;
+        }
+
+        /**
+         * @param benchmarkSpec the workloads that the Runner should benchmark, or null for the Runner's default benchmarks
+         */
+        public Builder benchmarkSpec(@Nullable final BenchmarkSpec benchmarkSpec) {
+            this.benchmarkSpec = benchmarkSpec;
+            return this;
+        }
+
+        /**
+         * @param baselines the baseline throughput in operations per second of each benchmark, or null if there are no baselines
+         */
+        public Builder baselines(@Nullable final Map<String, Double> baselines) {
+            this.baselines = baselines;
+            return this;
+        }
+
+        /**
+         * @param backfill true if the build is of a commit which is older than those already built for the ref
+         */
+        public Builder backfill(final boolean backfill) {
+            this.backfill = backfill;
+            return this;
+        }
+
+        /**
+         * @param hardwareClass the hardware class of the Runners that the build is routed to, or null if it is not yet routed, or may be built by any Runner
+         */
+        public Builder hardwareClass(@Nullable final String hardwareClass) {
+            this.hardwareClass = hardwareClass;
+            return this;
+        }
+
+        /**
+         * @param bisectRequestId the id of the bisect request whose bisect dispatched the build, or null if the build was not dispatched by a bisect
+         */
+        public Builder bisectRequestId(@Nullable final UUID bisectRequestId) {
+            this.bisectRequestId = bisectRequestId;
+            return this;
+        }
+
+        public BuildRequest build() {
+            return new BuildRequest(id, timeStamp, repository, ref, commit, author, schedule, benchmark, benchmarkSpec, baselines, backfill, hardwareClass, bisectRequestId);
+        }
+    }
 }
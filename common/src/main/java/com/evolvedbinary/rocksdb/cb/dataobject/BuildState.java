@@ -21,10 +21,19 @@ public enum BuildState {
     BUILDING(UPDATING_SOURCE_COMPLETE),
     BUILDING_FAILED(BUILDING),
     BUILDING_COMPLETE(BUILDING),
+    // the build exceeded its time budget on the Runner, and was killed
+    BUILDING_TIMED_OUT(BUILDING),
 
     BENCHMARKING(BUILDING_COMPLETE),
     BENCHMARKING_FAILED(BENCHMARKING),
-    BENCHMARKING_COMPLETE(BENCHMARKING);
+    BENCHMARKING_COMPLETE(BENCHMARKING),
+    // the throughput of a benchmark regressed so far below its baseline that it was not worth finishing
+    BENCHMARKING_ABORTED(BENCHMARKING),
+    // a benchmark exceeded its time budget on the Runner, and was killed
+    BENCHMARKING_TIMED_OUT(BENCHMARKING),
+
+    // may follow any state before a final state
+    CANCELLED(null);
 
 
     @Nullable final BuildState prevBuildState;
@@ -36,7 +45,8 @@ public enum BuildState {
     /**
      * The Build State that must proceed this Build State.
      *
-     * @return the preceding build state, or null if this is the first state.
+     * @return the preceding build state, or null if this is the first state,
+     *     or the state may follow any state, i.e. {@link #CANCELLED}.
      */
     public @Nullable BuildState getPrevBuildState() {
         return prevBuildState;
@@ -61,6 +71,9 @@ public enum BuildState {
     /**
      * Returns true if the state is a failure state.
      *
+     * A build which was cancelled, which timed out, or whose benchmark
+     * was aborted, is considered to have failed.
+     *
      * @param buildState the build state to test
      *
      * @return true if the state is a failure state, false otherwise.
@@ -68,7 +81,11 @@ public enum BuildState {
     public static boolean isStateFailureState(final BuildState buildState) {
         return buildState == UPDATING_SOURCE_FAILED
                 || buildState == BUILDING_FAILED
-                || buildState == BENCHMARKING_FAILED;
+                || buildState == BUILDING_TIMED_OUT
+                || buildState == BENCHMARKING_FAILED
+                || buildState == BENCHMARKING_ABORTED
+                || buildState == BENCHMARKING_TIMED_OUT
+                || buildState == CANCELLED;
     }
 
     /**
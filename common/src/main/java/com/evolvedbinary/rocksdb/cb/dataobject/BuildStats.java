@@ -4,14 +4,77 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class BuildStats extends AbstractDataObject {
 
+    /**
+     * Names of the metrics reported by db_bench for each benchmark.
+     * The percentiles are of the latency in microseconds of each operation.
+     */
+    public static final String METRIC_OPS_PER_SEC = "opsPerSec";
+    public static final String METRIC_MICROS_PER_OP = "microsPerOp";
+    public static final String METRIC_MB_PER_SEC = "mbPerSec";
+    public static final String METRIC_P50 = "P50";
+    public static final String METRIC_P95 = "P95";
+    public static final String METRIC_P99 = "P99";
+    public static final String METRIC_P99_9 = "P99.9";
+    public static final String METRIC_P99_99 = "P99.99";
+
+    /**
+     * Names of the metrics accounted by the cgroup of an isolated benchmark.
+     */
+    public static final String METRIC_CPU_USER_USEC = "cpuUserUsec";
+    public static final String METRIC_CPU_SYSTEM_USEC = "cpuSystemUsec";
+    public static final String METRIC_CPU_THROTTLED_USEC = "cpuThrottledUsec";
+    public static final String METRIC_MEMORY_PEAK_BYTES = "memoryPeakBytes";
+    public static final String METRIC_IO_READ_BYTES = "ioReadBytes";
+    public static final String METRIC_IO_WRITE_BYTES = "ioWriteBytes";
+
+    /**
+     * Names of the metrics derived from the {@code LOG} file of RocksDB for each workload.
+     * The tickers of RocksDB's statistics are recorded under their own names, e.g. {@code rocksdb.stall.micros}.
+     */
+    public static final String METRIC_COMPACTION_READ_BYTES = "compactionReadBytes";
+    public static final String METRIC_COMPACTION_WRITE_BYTES = "compactionWriteBytes";
+    public static final String METRIC_COMPACTION_COUNT = "compactionCount";
+    public static final String METRIC_FLUSH_COUNT = "flushCount";
+    public static final String METRIC_WRITE_AMPLIFICATION = "writeAmplification";
+    public static final String METRIC_STALL_MICROS = "stallMicros";
+
+    /**
+     * Names of the metrics of a benchmark which was aborted because its throughput regressed,
+     * alongside the {@link #METRIC_OPS_PER_SEC} that it had achieved by then.
+     */
+    public static final String METRIC_ABORTED_AFTER_SECONDS = "abortedAfterSeconds";
+    public static final String METRIC_BASELINE_OPS_PER_SEC = "baselineOpsPerSec";
+
+    /**
+     * Determine if a higher value of a metric is better, e.g. {@link #METRIC_OPS_PER_SEC},
+     * otherwise a lower value is better, e.g. a time or a latency percentile.
+     *
+     * @param metric the name of the metric
+     *
+     * @return true if a higher value is better
+     */
+    public static boolean isHigherBetter(final String metric) {
+        return METRIC_OPS_PER_SEC.equals(metric) || METRIC_MB_PER_SEC.equals(metric);
+    }
+
     private long updateSourceTime = -1;
     private long compilationTime = -1;
     private long benchmarkTime = -1;
 
+    // benchmark name -> metric name -> value, in the order that they were reported
+    @Nullable private Map<String, Map<String, Double>> metrics;
+
+    // null if isolation was not requested
+    @Nullable private Boolean isolated;
+
     public BuildStats() {
     }
 
@@ -45,11 +108,82 @@ public class BuildStats extends AbstractDataObject {
         this.benchmarkTime = benchmarkTime;
     }
 
+    /**
+     * Get the metrics of each benchmark.
+     *
+     * @return benchmark name -> metric name -> value, empty if there are no metrics
+     */
+    public Map<String, Map<String, Double>> getMetrics() {
+        if (metrics == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Get a metric of a benchmark.
+     *
+     * @param benchmark the name of the benchmark, e.g. {@code fillseq}
+     * @param metric the name of the metric, e.g. {@link #METRIC_OPS_PER_SEC}
+     *
+     * @return the value of the metric, or null if the benchmark did not report the metric
+     */
+    public @Nullable Double getMetric(final String benchmark, final String metric) {
+        if (metrics == null) {
+            return null;
+        }
+        final Map<String, Double> benchmarkMetrics = metrics.get(benchmark);
+        return benchmarkMetrics == null ? null : benchmarkMetrics.get(metric);
+    }
+
+    /**
+     * Set a metric of a benchmark.
+     *
+     * @param benchmark the name of the benchmark, e.g. {@code fillseq}
+     * @param metric the name of the metric, e.g. {@link #METRIC_OPS_PER_SEC}
+     * @param value the value of the metric
+     */
+    public void setMetric(final String benchmark, final String metric, final double value) {
+        if (metrics == null) {
+            metrics = new LinkedHashMap<>();
+        }
+        metrics.computeIfAbsent(benchmark, k -> new LinkedHashMap<>()).put(metric, value);
+    }
+
+    /**
+     * Determine if the benchmarks ran isolated from other processes,
+     * see the isolation mode of the Runner.
+     *
+     * @return true if isolated, false if isolation was requested but was not available,
+     *     or null if isolation was not requested
+     */
+    public @Nullable Boolean getIsolated() {
+        return isolated;
+    }
+
+    public void setIsolated(@Nullable final Boolean isolated) {
+        this.isolated = isolated;
+    }
+
     @Override
     void serializeFields(final JsonGenerator generator) throws IOException {
         generator.writeNumberField("updateSourceTime", updateSourceTime);
         generator.writeNumberField("compilationTime", compilationTime);
         generator.writeNumberField("benchmarkTime", benchmarkTime);
+        if (metrics != null && !metrics.isEmpty()) {
+            generator.writeObjectFieldStart("metrics");
+            for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : metrics.entrySet()) {
+                generator.writeObjectFieldStart(benchmarkMetrics.getKey());
+                for (final Map.Entry<String, Double> metric : benchmarkMetrics.getValue().entrySet()) {
+                    generator.writeNumberField(metric.getKey(), metric.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+        if (isolated != null) {
+            generator.writeBooleanField("isolated", isolated);
+        }
     }
 
     @Override
@@ -59,6 +193,8 @@ public class BuildStats extends AbstractDataObject {
         long updateSourceTime1 = -1;
         long compilationTime1 = -1;
         long benchmarkTime1 = -1;
+        Map<String, Map<String, Double>> metrics1 = null;
+        Boolean isolated1 = null;
 
         while (true) {
             token = parser.nextToken();
@@ -74,6 +210,14 @@ public class BuildStats extends AbstractDataObject {
 
                 // move to field value
                 token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT && fieldName.equals("metrics")) {
+                    metrics1 = deserializeMetrics(parser);
+                    continue;
+                }
+                if ((token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) && fieldName.equals("isolated")) {
+                    isolated1 = token == JsonToken.VALUE_TRUE;
+                    continue;
+                }
                 if (token != JsonToken.VALUE_NUMBER_INT) {
                     throw new IOException("Expected field int value, but found: " + token);
                 }
@@ -91,10 +235,46 @@ public class BuildStats extends AbstractDataObject {
         this.updateSourceTime = updateSourceTime1;
         this.compilationTime = compilationTime1;
         this.benchmarkTime = benchmarkTime1;
+        this.metrics = (metrics1 != null && !metrics1.isEmpty()) ? metrics1 : null;
+        this.isolated = isolated1;
 
         return this;
     }
 
+    private static Map<String, Map<String, Double>> deserializeMetrics(final JsonParser parser) throws IOException {
+        final Map<String, Map<String, Double>> metrics = new LinkedHashMap<>();
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token != JsonToken.FIELD_NAME) {
+                throw new IOException("Expected benchmark name, but found: " + token);
+            }
+            final String benchmark = parser.getCurrentName();
+
+            token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected metrics object for benchmark: " + benchmark + ", but found: " + token);
+            }
+
+            final Map<String, Double> benchmarkMetrics = new LinkedHashMap<>();
+            while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+                if (token != JsonToken.FIELD_NAME) {
+                    throw new IOException("Expected metric name, but found: " + token);
+                }
+                final String metric = parser.getCurrentName();
+
+                token = parser.nextToken();
+                if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                    throw new IOException("Expected field number value for metric: " + metric + ", but found: " + token);
+                }
+                benchmarkMetrics.put(metric, parser.getValueAsDouble());
+            }
+            metrics.put(benchmark, benchmarkMetrics);
+        }
+
+        return metrics;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -104,7 +284,9 @@ public class BuildStats extends AbstractDataObject {
 
         if (updateSourceTime != that.updateSourceTime) return false;
         if (compilationTime != that.compilationTime) return false;
-        return benchmarkTime == that.benchmarkTime;
+        if (benchmarkTime != that.benchmarkTime) return false;
+        if (!getMetrics().equals(that.getMetrics())) return false;
+        return isolated != null ? isolated.equals(that.isolated) : that.isolated == null;
     }
 
     @Override
@@ -112,6 +294,8 @@ public class BuildStats extends AbstractDataObject {
         int result = (int) (updateSourceTime ^ (updateSourceTime >>> 32));
         result = 31 * result + (int) (compilationTime ^ (compilationTime >>> 32));
         result = 31 * result + (int) (benchmarkTime ^ (benchmarkTime >>> 32));
+        result = 31 * result + getMetrics().hashCode();
+        result = 31 * result + (isolated != null ? isolated.hashCode() : 0);
         return result;
     }
 }
@@ -0,0 +1,18 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+/**
+ * The state of the caches when a benchmark workload starts.
+ */
+public enum CacheMode {
+    /**
+     * The workload runs straight after the previous workload,
+     * so the caches hold whatever the previous workload left in them.
+     */
+    WARM,
+
+    /**
+     * The page cache of the operating system is dropped
+     * before the workload runs, so it has to read from disk.
+     */
+    COLD
+}
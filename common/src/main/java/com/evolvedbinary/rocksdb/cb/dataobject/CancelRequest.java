@@ -0,0 +1,161 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Sent by the Orchestrator to all Runners to ask that a build
+ * which is in progress be abandoned, e.g. because a newer commit
+ * of the same ref has superseded it.
+ *
+ * The Runner which is building the build request stops its current
+ * stage and reports the build as {@link BuildState#CANCELLED},
+ * any other Runner ignores the request.
+ */
+public class CancelRequest extends AbstractIdentifiableDataObject {
+
+    private UUID buildRequestId;
+    private String ref;
+    private String reason;
+
+    public CancelRequest() {
+        super();
+    }
+
+    public CancelRequest(final UUID buildRequestId, final String ref, final String reason) {
+        super();
+        this.buildRequestId = buildRequestId;
+        this.ref = ref;
+        this.reason = reason;
+    }
+
+    public CancelRequest(final UUID id, final ZonedDateTime timeStamp, final UUID buildRequestId, final String ref, final String reason) {
+        super(id, timeStamp);
+        this.buildRequestId = buildRequestId;
+        this.ref = ref;
+        this.reason = reason;
+    }
+
+    /**
+     * The id of the build request to cancel.
+     *
+     * @return the id of the build request
+     */
+    public UUID getBuildRequestId() {
+        return buildRequestId;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+
+        generator.writeStringField("buildRequestId", buildRequestId.toString());
+        generator.writeStringField("ref", ref);
+        generator.writeStringField("reason", reason);
+    }
+
+    @Override
+    CancelRequest deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        String buildRequestId1 = null;
+        String ref1 = null;
+        String reason1 = null;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+                if (token != JsonToken.VALUE_STRING) {
+                    throw new IOException("Expected field string value, but found: " + token);
+                }
+
+                if (fieldName.equals("id")) {
+                    id1 = parser.getValueAsString();
+                } else if (fieldName.equals("timeStamp")) {
+                    timeStamp1 = parser.getValueAsString();
+                } else if (fieldName.equals("buildRequestId")) {
+                    buildRequestId1 = parser.getValueAsString();
+                } else if (fieldName.equals("ref")) {
+                    ref1 = parser.getValueAsString();
+                } else if (fieldName.equals("reason")) {
+                    reason1 = parser.getValueAsString();
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (buildRequestId1 == null) {
+            throw new IOException("Expected buildRequestId field");
+        }
+        if (ref1 == null) {
+            throw new IOException("Expected ref field");
+        }
+        if (reason1 == null) {
+            throw new IOException("Expected reason field");
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.buildRequestId = UUID.fromString(buildRequestId1);
+        this.ref = ref1;
+        this.reason = reason1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final CancelRequest that = (CancelRequest) o;
+
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (buildRequestId != null ? !buildRequestId.equals(that.buildRequestId) : that.buildRequestId != null) return false;
+        if (ref != null ? !ref.equals(that.ref) : that.ref != null) return false;
+        return reason != null ? reason.equals(that.reason) : that.reason == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (buildRequestId != null ? buildRequestId.hashCode() : 0);
+        result = 31 * result + (ref != null ? ref.hashCode() : 0);
+        result = 31 * result + (reason != null ? reason.hashCode() : 0);
+        return result;
+    }
+}
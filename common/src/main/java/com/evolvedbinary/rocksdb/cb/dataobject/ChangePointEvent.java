@@ -0,0 +1,320 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * A statistically significant change in a benchmark metric
+ * of a ref, i.e. a regression or an improvement.
+ */
+public class ChangePointEvent extends AbstractIdentifiableDataObject {
+
+    private ChangePointType changePointType;
+    private BuildRequest buildRequest;
+    private String benchmark;
+    private String metric;
+    private String commit;
+    private double beforeMedian;
+    private double afterMedian;
+    private double relativeChange;
+    private double effectSize;
+    private double confidence;
+
+    public ChangePointEvent() {
+        super();
+    }
+
+    public ChangePointEvent(final ChangePointType changePointType, final BuildRequest buildRequest, final String benchmark, final String metric, final String commit, final double beforeMedian, final double afterMedian, final double relativeChange, final double effectSize, final double confidence) {
+        super();
+        this.changePointType = changePointType;
+        this.buildRequest = buildRequest;
+        this.benchmark = benchmark;
+        this.metric = metric;
+        this.commit = commit;
+        this.beforeMedian = beforeMedian;
+        this.afterMedian = afterMedian;
+        this.relativeChange = relativeChange;
+        this.effectSize = effectSize;
+        this.confidence = confidence;
+    }
+
+    public ChangePointEvent(final UUID id, final ZonedDateTime timeStamp, final ChangePointType changePointType, final BuildRequest buildRequest, final String benchmark, final String metric, final String commit, final double beforeMedian, final double afterMedian, final double relativeChange, final double effectSize, final double confidence) {
+        super(id, timeStamp);
+        this.changePointType = changePointType;
+        this.buildRequest = buildRequest;
+        this.benchmark = benchmark;
+        this.metric = metric;
+        this.commit = commit;
+        this.beforeMedian = beforeMedian;
+        this.afterMedian = afterMedian;
+        this.relativeChange = relativeChange;
+        this.effectSize = effectSize;
+        this.confidence = confidence;
+    }
+
+    public ChangePointType getChangePointType() {
+        return changePointType;
+    }
+
+    /**
+     * The build whose result completed the detection of the change.
+     *
+     * @return the build request
+     */
+    public BuildRequest getBuildRequest() {
+        return buildRequest;
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    /**
+     * The first commit after the change.
+     *
+     * @return the commit
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    public double getBeforeMedian() {
+        return beforeMedian;
+    }
+
+    public double getAfterMedian() {
+        return afterMedian;
+    }
+
+    /**
+     * The change in the median relative to the median before the change.
+     *
+     * @return the relative change, e.g. 0.1 for an increase of 10%
+     */
+    public double getRelativeChange() {
+        return relativeChange;
+    }
+
+    /**
+     * Cliff's delta of the values after the change against those before.
+     *
+     * @return the effect size, between -1 and 1
+     */
+    public double getEffectSize() {
+        return effectSize;
+    }
+
+    /**
+     * One minus the p-value of the change.
+     *
+     * @return the confidence, between 0 and 1
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+        generator.writeStringField("changePointType", changePointType.name());
+        generator.writeObjectFieldStart("buildRequest");
+        buildRequest.serializeFields(generator);
+        generator.writeEndObject();
+        generator.writeStringField("benchmark", benchmark);
+        generator.writeStringField("metric", metric);
+        generator.writeStringField("commit", commit);
+        generator.writeNumberField("beforeMedian", beforeMedian);
+        generator.writeNumberField("afterMedian", afterMedian);
+        generator.writeNumberField("relativeChange", relativeChange);
+        generator.writeNumberField("effectSize", effectSize);
+        generator.writeNumberField("confidence", confidence);
+    }
+
+    @Override
+    ChangePointEvent deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        ChangePointType changePointType1 = null;
+        BuildRequest buildRequest1 = null;
+        String benchmark1 = null;
+        String metric1 = null;
+        String commit1 = null;
+        Double beforeMedian1 = null;
+        Double afterMedian1 = null;
+        Double relativeChange1 = null;
+        Double effectSize1 = null;
+        Double confidence1 = null;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("id")) {
+                        id1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("timeStamp")) {
+                        timeStamp1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("changePointType")) {
+                        final String fieldValue = parser.getValueAsString();
+                        try {
+                            changePointType1 = ChangePointType.valueOf(fieldValue);
+                        } catch (final IllegalArgumentException e) {
+                            throw new IOException("Expected field changePointType to have a valid ChangePointType, but found: " + fieldValue);
+                        }
+
+                    } else if (fieldName.equals("benchmark")) {
+                        benchmark1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("metric")) {
+                        metric1 = parser.getValueAsString();
+
+                    } else if (fieldName.equals("commit")) {
+                        commit1 = parser.getValueAsString();
+                    }
+
+                } else if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                    if (fieldName.equals("beforeMedian")) {
+                        beforeMedian1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("afterMedian")) {
+                        afterMedian1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("relativeChange")) {
+                        relativeChange1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("effectSize")) {
+                        effectSize1 = parser.getValueAsDouble();
+                    } else if (fieldName.equals("confidence")) {
+                        confidence1 = parser.getValueAsDouble();
+                    }
+
+                } else if (token == JsonToken.START_OBJECT) {
+                    if (fieldName.equals("buildRequest")) {
+                        buildRequest1 = new BuildRequest().deserializeFields(parser, token);
+                    }
+
+                } else {
+                    throw new IOException("Expected field string value, number value or start object, but found: " + token);
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (changePointType1 == null) {
+            throw new IOException("Expected changePointType field");
+        }
+        if (buildRequest1 == null) {
+            throw new IOException("Expected buildRequest field");
+        }
+        if (benchmark1 == null) {
+            throw new IOException("Expected benchmark field");
+        }
+        if (metric1 == null) {
+            throw new IOException("Expected metric field");
+        }
+        if (commit1 == null) {
+            throw new IOException("Expected commit field");
+        }
+        if (beforeMedian1 == null) {
+            throw new IOException("Expected beforeMedian field");
+        }
+        if (afterMedian1 == null) {
+            throw new IOException("Expected afterMedian field");
+        }
+        if (relativeChange1 == null) {
+            throw new IOException("Expected relativeChange field");
+        }
+        if (effectSize1 == null) {
+            throw new IOException("Expected effectSize field");
+        }
+        if (confidence1 == null) {
+            throw new IOException("Expected confidence field");
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.changePointType = changePointType1;
+        this.buildRequest = buildRequest1;
+        this.benchmark = benchmark1;
+        this.metric = metric1;
+        this.commit = commit1;
+        this.beforeMedian = beforeMedian1;
+        this.afterMedian = afterMedian1;
+        this.relativeChange = relativeChange1;
+        this.effectSize = effectSize1;
+        this.confidence = confidence1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final ChangePointEvent that = (ChangePointEvent) o;
+
+        if (Double.compare(that.beforeMedian, beforeMedian) != 0) return false;
+        if (Double.compare(that.afterMedian, afterMedian) != 0) return false;
+        if (Double.compare(that.relativeChange, relativeChange) != 0) return false;
+        if (Double.compare(that.effectSize, effectSize) != 0) return false;
+        if (Double.compare(that.confidence, confidence) != 0) return false;
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (changePointType != that.changePointType) return false;
+        if (buildRequest != null ? !buildRequest.equals(that.buildRequest) : that.buildRequest != null) return false;
+        if (benchmark != null ? !benchmark.equals(that.benchmark) : that.benchmark != null) return false;
+        if (metric != null ? !metric.equals(that.metric) : that.metric != null) return false;
+        return commit != null ? commit.equals(that.commit) : that.commit == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result;
+        long temp;
+        result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (changePointType != null ? changePointType.hashCode() : 0);
+        result = 31 * result + (buildRequest != null ? buildRequest.hashCode() : 0);
+        result = 31 * result + (benchmark != null ? benchmark.hashCode() : 0);
+        result = 31 * result + (metric != null ? metric.hashCode() : 0);
+        result = 31 * result + (commit != null ? commit.hashCode() : 0);
+        temp = Double.doubleToLongBits(beforeMedian);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(afterMedian);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(relativeChange);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(effectSize);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(confidence);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+/**
+ * The type of a change in benchmark performance.
+ */
+public enum ChangePointType {
+    REGRESSION,
+    IMPROVEMENT
+}
@@ -0,0 +1,243 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Periodically sent by each Runner to announce that it is alive,
+ * and to describe the hardware it benchmarks on.
+ *
+ * Runners with the same hardware class are considered to produce
+ * comparable benchmark results.
+ */
+public class RunnerHeartbeat extends AbstractIdentifiableDataObject {
+
+    private String runnerId;
+    private String hardwareClass;
+    private String cpuModel;
+    private int cpuCores;
+    private long memory;
+    private String diskType;
+    private long heartbeatInterval;
+
+    public RunnerHeartbeat() {
+        super();
+    }
+
+    public RunnerHeartbeat(final String runnerId, final String hardwareClass, final String cpuModel, final int cpuCores, final long memory, final String diskType, final long heartbeatInterval) {
+        super();
+        this.runnerId = runnerId;
+        this.hardwareClass = hardwareClass;
+        this.cpuModel = cpuModel;
+        this.cpuCores = cpuCores;
+        this.memory = memory;
+        this.diskType = diskType;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public RunnerHeartbeat(final UUID id, final ZonedDateTime timeStamp, final String runnerId, final String hardwareClass, final String cpuModel, final int cpuCores, final long memory, final String diskType, final long heartbeatInterval) {
+        super(id, timeStamp);
+        this.runnerId = runnerId;
+        this.hardwareClass = hardwareClass;
+        this.cpuModel = cpuModel;
+        this.cpuCores = cpuCores;
+        this.memory = memory;
+        this.diskType = diskType;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public String getRunnerId() {
+        return runnerId;
+    }
+
+    public String getHardwareClass() {
+        return hardwareClass;
+    }
+
+    public String getCpuModel() {
+        return cpuModel;
+    }
+
+    public int getCpuCores() {
+        return cpuCores;
+    }
+
+    /**
+     * The total physical memory of the Runner.
+     *
+     * @return the memory in bytes
+     */
+    public long getMemory() {
+        return memory;
+    }
+
+    /**
+     * The type of the disk holding the Runner's data directory,
+     * e.g. "ssd", "hdd", or "unknown".
+     *
+     * @return the disk type
+     */
+    public String getDiskType() {
+        return diskType;
+    }
+
+    /**
+     * The interval at which the Runner sends heartbeats.
+     *
+     * @return the interval in milliseconds
+     */
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    @Override
+    void serializeFields(final JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("timeStamp", timeStamp.toString());
+
+        generator.writeStringField("runnerId", runnerId);
+        generator.writeStringField("hardwareClass", hardwareClass);
+        generator.writeStringField("cpuModel", cpuModel);
+        generator.writeNumberField("cpuCores", cpuCores);
+        generator.writeNumberField("memory", memory);
+        generator.writeStringField("diskType", diskType);
+        generator.writeNumberField("heartbeatInterval", heartbeatInterval);
+    }
+
+    @Override
+    RunnerHeartbeat deserializeFields(final JsonParser parser, JsonToken token) throws IOException {
+
+        // new data fields
+        String id1 = null;
+        String timeStamp1 = null;
+        String runnerId1 = null;
+        String hardwareClass1 = null;
+        String cpuModel1 = null;
+        int cpuCores1 = -1;
+        long memory1 = -1;
+        String diskType1 = null;
+        long heartbeatInterval1 = -1;
+
+        while (true) {
+            token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                break;  // EOL
+            }
+            if (token == JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected Start object: " + token);
+            }
+
+            if (token == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+
+                // move to field value
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    if (fieldName.equals("id")) {
+                        id1 = parser.getValueAsString();
+                    } else if (fieldName.equals("timeStamp")) {
+                        timeStamp1 = parser.getValueAsString();
+                    } else if (fieldName.equals("runnerId")) {
+                        runnerId1 = parser.getValueAsString();
+                    } else if (fieldName.equals("hardwareClass")) {
+                        hardwareClass1 = parser.getValueAsString();
+                    } else if (fieldName.equals("cpuModel")) {
+                        cpuModel1 = parser.getValueAsString();
+                    } else if (fieldName.equals("diskType")) {
+                        diskType1 = parser.getValueAsString();
+                    }
+
+                } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                    if (fieldName.equals("cpuCores")) {
+                        cpuCores1 = parser.getValueAsInt();
+                    } else if (fieldName.equals("memory")) {
+                        memory1 = parser.getValueAsLong();
+                    } else if (fieldName.equals("heartbeatInterval")) {
+                        heartbeatInterval1 = parser.getValueAsLong();
+                    }
+
+                } else {
+                    throw new IOException("Expected field string or int value, but found: " + token);
+                }
+            }
+        }
+
+        if (id1 == null) {
+            throw new IOException("Expected id field");
+        }
+        if (timeStamp1 == null) {
+            throw new IOException("Expected timeStamp field");
+        }
+        if (runnerId1 == null) {
+            throw new IOException("Expected runnerId field");
+        }
+        if (hardwareClass1 == null) {
+            throw new IOException("Expected hardwareClass field");
+        }
+        if (cpuModel1 == null) {
+            throw new IOException("Expected cpuModel field");
+        }
+        if (cpuCores1 == -1) {
+            throw new IOException("Expected cpuCores field");
+        }
+        if (memory1 == -1) {
+            throw new IOException("Expected memory field");
+        }
+        if (diskType1 == null) {
+            throw new IOException("Expected diskType field");
+        }
+        if (heartbeatInterval1 <= 0) {
+            throw new IOException("Expected field heartbeatInterval to be positive, but found: " + heartbeatInterval1);
+        }
+
+        this.id = UUID.fromString(id1);
+        this.timeStamp = ZonedDateTime.parse(timeStamp1);
+        this.runnerId = runnerId1;
+        this.hardwareClass = hardwareClass1;
+        this.cpuModel = cpuModel1;
+        this.cpuCores = cpuCores1;
+        this.memory = memory1;
+        this.diskType = diskType1;
+        this.heartbeatInterval = heartbeatInterval1;
+
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final RunnerHeartbeat that = (RunnerHeartbeat) o;
+
+        if (cpuCores != that.cpuCores) return false;
+        if (memory != that.memory) return false;
+        if (heartbeatInterval != that.heartbeatInterval) return false;
+        if (id != null ? !id.equals(that.id) : that.id != null) return false;
+        if (timeStamp != null ? !timeStamp.equals(that.timeStamp) : that.timeStamp != null) return false;
+        if (runnerId != null ? !runnerId.equals(that.runnerId) : that.runnerId != null) return false;
+        if (hardwareClass != null ? !hardwareClass.equals(that.hardwareClass) : that.hardwareClass != null) return false;
+        if (cpuModel != null ? !cpuModel.equals(that.cpuModel) : that.cpuModel != null) return false;
+        return diskType != null ? diskType.equals(that.diskType) : that.diskType == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (timeStamp != null ? timeStamp.hashCode() : 0);
+        result = 31 * result + (runnerId != null ? runnerId.hashCode() : 0);
+        result = 31 * result + (hardwareClass != null ? hardwareClass.hashCode() : 0);
+        result = 31 * result + (cpuModel != null ? cpuModel.hashCode() : 0);
+        result = 31 * result + cpuCores;
+        result = 31 * result + (int) (memory ^ (memory >>> 32));
+        result = 31 * result + (diskType != null ? diskType.hashCode() : 0);
+        result = 31 * result + (int) (heartbeatInterval ^ (heartbeatInterval >>> 32));
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackfillRequestTest {
+
+    @Test
+    public void serializeStringRange() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"fromCommit\":\"abc\",\"toCommit\":\"def\",\"author\":\"person1\"}";
+
+        final BackfillRequest deserialized = new BackfillRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", Collections.emptyList(), "person1");
+        final String serialized = deserialized.serialize();
+        assertEquals(expected, serialized);
+    }
+
+    @Test
+    public void serializeStringTags() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"tags\":[\"v6.0.1\",\"v7.0.1\"],\"author\":\"person1\"}";
+
+        final BackfillRequest deserialized = new BackfillRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", null, null, Arrays.asList("v6.0.1", "v7.0.1"), "person1");
+        final String serialized = deserialized.serialize();
+        assertEquals(expected, serialized);
+    }
+
+    @Test
+    public void deserializeStringRange() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final BackfillRequest expected = new BackfillRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", Collections.emptyList(), "person1");
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"fromCommit\":\"abc\",\"toCommit\":\"def\",\"author\":\"person1\"}";
+        final BackfillRequest deserialized = new BackfillRequest().deserialize(serialized);
+        assertEquals(expected, deserialized);
+        assertTrue(deserialized.isRange());
+    }
+
+    @Test
+    public void deserializeStringTags() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final BackfillRequest expected = new BackfillRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", null, null, Arrays.asList("v6.0.1", "v7.0.1"), "person1");
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"tags\":[\"v6.0.1\",\"v7.0.1\"],\"author\":\"person1\"}";
+        final BackfillRequest deserialized = new BackfillRequest().deserialize(serialized);
+        assertEquals(expected, deserialized);
+        assertFalse(deserialized.isRange());
+    }
+
+    @Test
+    public void deserializeIncompleteRange() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"fromCommit\":\"abc\",\"author\":\"person1\"}";
+        assertThrows(IOException.class, () -> new BackfillRequest().deserialize(serialized));
+    }
+
+    @Test
+    public void deserializeRangeAndTags() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"fromCommit\":\"abc\",\"toCommit\":\"def\",\"tags\":[\"v6.0.1\"],\"author\":\"person1\"}";
+        assertThrows(IOException.class, () -> new BackfillRequest().deserialize(serialized));
+    }
+}
@@ -0,0 +1,40 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkProgressTest {
+
+    @Test
+    public void serializeDeserialize() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+        final UUID buildRequestId = UUID.randomUUID();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"buildRequestId\":\"" + buildRequestId.toString() + "\",\"ref\":\"refs/heads/main\",\"runnerId\":\"runner-1\",\"workload\":\"readwhilewriting\",\"thread\":0,\"elapsedSeconds\":40.5,\"intervalOps\":200000,\"totalOps\":1000000,\"intervalOpsPerSec\":20000.0,\"cumulativeOpsPerSec\":24691.4}";
+
+        final BenchmarkProgress benchmarkProgress = new BenchmarkProgress(id, timeStamp, buildRequestId, "refs/heads/main", "runner-1", "readwhilewriting", 0, 40.5, 200000, 1000000, 20000.0, 24691.4);
+        final String serialized = benchmarkProgress.serialize();
+        assertEquals(expected, serialized);
+
+        final BenchmarkProgress deserialized = new BenchmarkProgress().deserialize(serialized);
+        assertEquals(benchmarkProgress, deserialized);
+        assertEquals(buildRequestId, deserialized.getBuildRequestId());
+        assertEquals(20000.0, deserialized.getIntervalOpsPerSec());
+    }
+
+    @Test
+    public void deserializeMissingField() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+        final UUID buildRequestId = UUID.randomUUID();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"buildRequestId\":\"" + buildRequestId.toString() + "\",\"ref\":\"refs/heads/main\",\"runnerId\":\"runner-1\",\"workload\":\"readwhilewriting\",\"thread\":0,\"elapsedSeconds\":40.5,\"intervalOps\":200000,\"totalOps\":1000000,\"cumulativeOpsPerSec\":24691.4}";
+        assertThrows(IOException.class, () -> new BenchmarkProgress().deserialize(serialized));
+    }
+}
@@ -0,0 +1,74 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkSpecTest {
+
+    @Test
+    public void serializeDeserialize() throws IOException {
+        final Map<String, String> env = new LinkedHashMap<>();
+        env.put("COMPRESSION_TYPE", "lz4");
+
+        final BenchmarkSpec benchmarkSpec = new BenchmarkSpec(
+                Arrays.asList("clean", "db_bench"),
+                Arrays.asList(
+                        new BenchmarkWorkload("fillseq", Collections.singletonList("fillseq_enable_wal"), env, 1000000, 20, 400, CacheMode.WARM),
+                        new BenchmarkWorkload("readrandom", Collections.emptyList(), Collections.emptyMap(), -1, -1, -1, CacheMode.COLD)
+                )
+        );
+
+        final String expected = "{\"makeTargets\":[\"clean\",\"db_bench\"],\"workloads\":[" +
+                "{\"name\":\"fillseq\",\"args\":[\"fillseq_enable_wal\"],\"env\":{\"COMPRESSION_TYPE\":\"lz4\"},\"numKeys\":1000000,\"keySize\":20,\"valueSize\":400,\"cacheMode\":\"WARM\"}," +
+                "{\"name\":\"readrandom\",\"cacheMode\":\"COLD\"}]}";
+
+        final String serialized = benchmarkSpec.serialize();
+        assertEquals(expected, serialized);
+
+        final BenchmarkSpec deserialized = new BenchmarkSpec().deserialize(serialized);
+        assertEquals(benchmarkSpec, deserialized);
+        assertEquals(benchmarkSpec.hashCode(), deserialized.hashCode());
+
+        final BenchmarkWorkload fillseq = deserialized.getWorkload("fillseq");
+        assertNotNull(fillseq);
+        assertEquals(Collections.singletonList("fillseq_enable_wal"), fillseq.getArgs());
+        assertEquals("lz4", fillseq.getEnv().get("COMPRESSION_TYPE"));
+        assertEquals(1000000, fillseq.getNumKeys());
+        assertEquals(20, fillseq.getKeySize());
+        assertEquals(400, fillseq.getValueSize());
+
+        final BenchmarkWorkload readrandom = deserialized.getWorkload("readrandom");
+        assertNotNull(readrandom);
+        assertEquals(Collections.singletonList("readrandom"), readrandom.getArgs());
+        assertEquals(CacheMode.COLD, readrandom.getCacheMode());
+
+        assertNull(deserialized.getWorkload("other"));
+    }
+
+    @Test
+    public void deserializeDefaults() throws IOException {
+        final BenchmarkSpec deserialized = new BenchmarkSpec().deserialize("{\"workloads\":[{\"name\":\"fillrandom\"}]}");
+        assertTrue(deserialized.getMakeTargets().isEmpty());
+
+        final BenchmarkWorkload workload = deserialized.getWorkloads().get(0);
+        assertEquals(CacheMode.WARM, workload.getCacheMode());
+        assertEquals(-1, workload.getNumKeys());
+        assertTrue(workload.getEnv().isEmpty());
+    }
+
+    @Test
+    public void deserializeInvalid() {
+        assertThrows(IOException.class, () -> new BenchmarkSpec().deserialize("{}"));
+        assertThrows(IOException.class, () -> new BenchmarkSpec().deserialize("{\"workloads\":[]}"));
+        assertThrows(IOException.class, () -> new BenchmarkSpec().deserialize("{\"workloads\":[{\"args\":[\"fillseq\"]}]}"));
+        assertThrows(IOException.class, () -> new BenchmarkSpec().deserialize("{\"workloads\":[{\"name\":\"fillseq\"},{\"name\":\"fillseq\"}]}"));
+        assertThrows(IOException.class, () -> new BenchmarkSpec().deserialize("{\"workloads\":[{\"name\":\"fillseq\",\"cacheMode\":\"LUKEWARM\"}]}"));
+    }
+}
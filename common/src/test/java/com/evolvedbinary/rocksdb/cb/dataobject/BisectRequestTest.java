@@ -0,0 +1,90 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BisectRequestTest {
+
+    @Test
+    public void serializeString() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\",\"threshold\":0.1,\"repetitions\":5}";
+
+        final BisectRequest deserialized = new BisectRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.1, 5);
+        final String serialized = deserialized.serialize();
+        assertEquals(expected, serialized);
+    }
+
+    @Test
+    public void deserializeString() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final BisectRequest expected = new BisectRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.1, 5);
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\",\"threshold\":0.1,\"repetitions\":5}";
+        final BisectRequest deserialized = new BisectRequest().deserialize(serialized);
+        assertEquals(expected, deserialized);
+    }
+
+    @Test
+    public void deserializeDefaults() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\"}";
+        final BisectRequest deserialized = new BisectRequest().deserialize(serialized);
+        assertEquals(BisectRequest.DEFAULT_THRESHOLD, deserialized.getThreshold());
+        assertEquals(BisectRequest.DEFAULT_REPETITIONS, deserialized.getRepetitions());
+    }
+
+    @Test
+    public void deserializeInvalidRepetitions() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\",\"repetitions\":0}";
+        assertThrows(IOException.class, () -> new BisectRequest().deserialize(serialized));
+    }
+
+    @Test
+    public void deserializeMissingField() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"author\":\"person1\"}";
+        assertThrows(IOException.class, () -> new BisectRequest().deserialize(serialized));
+    }
+
+    @Test
+    public void serializeDeserializeMetric() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\",\"threshold\":0.1,\"repetitions\":5,\"benchmark\":\"readrandom\",\"metric\":\"opsPerSec\"}";
+
+        final BisectRequest bisectRequest = new BisectRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.1, 5, "readrandom", BuildStats.METRIC_OPS_PER_SEC);
+        final String serialized = bisectRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BisectRequest deserialized = new BisectRequest().deserialize(serialized);
+        assertEquals(bisectRequest, deserialized);
+        assertNotEquals(new BisectRequest(id, timeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.1, 5), deserialized);
+    }
+
+    @Test
+    public void deserializeBenchmarkWithoutMetric() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\",\"benchmark\":\"readrandom\"}";
+        assertThrows(IOException.class, () -> new BisectRequest().deserialize(serialized));
+    }
+}
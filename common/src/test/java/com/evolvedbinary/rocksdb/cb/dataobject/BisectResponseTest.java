@@ -0,0 +1,57 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BisectResponseTest {
+
+    @Test
+    public void serializeString() throws IOException {
+        final UUID bisectRequestId = UUID.randomUUID();
+        final ZonedDateTime bisectRequestTimeStamp = ZonedDateTime.now();
+        final UUID bisectResponseId = UUID.randomUUID();
+        final ZonedDateTime bisectResponseTimeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + bisectResponseId.toString() + "\",\"timeStamp\":\"" + bisectResponseTimeStamp.toString() + "\",\"bisectState\":\"COMPLETE\",\"bisectRequest\":{\"id\":\"" + bisectRequestId.toString() + "\",\"timeStamp\":\"" + bisectRequestTimeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"goodCommit\":\"abc\",\"badCommit\":\"def\",\"author\":\"person1\",\"threshold\":0.05,\"repetitions\":3},\"lastGoodCommit\":\"bcd\",\"firstBadCommit\":\"cde\",\"goodMedian\":1000.0,\"badMedian\":1200.0}";
+
+        final BisectRequest bisectRequest = new BisectRequest(bisectRequestId, bisectRequestTimeStamp, "facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.05, 3);
+        final BisectResponse deserialized = new BisectResponse(bisectResponseId, bisectResponseTimeStamp, BisectState.COMPLETE, bisectRequest, "bcd", "cde", 1000, 1200, null);
+        final String serialized = deserialized.serialize();
+        assertEquals(expected, serialized);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final BisectRequest bisectRequest = new BisectRequest("facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.05, 3);
+        final BisectResponse expected = new BisectResponse(BisectState.FAILED, bisectRequest, null, null, 1000, -1, "Build failed for commit: def");
+
+        final BisectResponse deserialized = new BisectResponse().deserialize(expected.serialize());
+        assertEquals(expected, deserialized);
+    }
+
+    @Test
+    public void roundTripMetric() throws IOException {
+        final BisectRequest bisectRequest = new BisectRequest("facebook/rocksdb", "refs/heads/master", "abc", "def", "person1", 0.05, 3, "readrandom", BuildStats.METRIC_P99);
+        final BisectResponse expected = new BisectResponse(BisectState.COMPLETE, bisectRequest, "bcd", "cde", 12.5, 17.25, null);
+
+        final BisectResponse deserialized = new BisectResponse().deserialize(expected.serialize());
+        assertEquals(expected, deserialized);
+        assertEquals("readrandom", deserialized.getBisectRequest().getBenchmark());
+        assertEquals(BuildStats.METRIC_P99, deserialized.getBisectRequest().getMetric());
+        assertEquals(12.5, deserialized.getGoodMedian());
+        assertEquals(17.25, deserialized.getBadMedian());
+    }
+
+    @Test
+    public void deserializeMissingBisectRequest() {
+        final UUID id = UUID.randomUUID();
+        assertThrows(IOException.class, () -> {
+            new BisectResponse().deserialize("{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + ZonedDateTime.now().toString() + "\",\"bisectState\":\"COMPLETE\"}");
+        });
+    }
+}
@@ -6,6 +6,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.UUID;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -69,6 +70,163 @@ public class BuildRequestTest {
         assertEquals(expected, deserialized);
     }
 
+    @Test
+    public void serializeDeserializeScheduled() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"schedule\":\"nightly\"}";
+
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).schedule("nightly").build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertEquals("nightly", deserialized.getSchedule());
+        assertTrue(deserialized.isScheduled());
+
+        assertNotEquals(buildRequest, new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1"));
+        assertNotEquals(buildRequest, new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).schedule("weekly").build());
+        assertFalse(new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1").isScheduled());
+    }
+
+    @Test
+    public void serializeDeserializeBenchmark() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"benchmark\":\"readrandom\"}";
+
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).benchmark("readrandom").build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertEquals("readrandom", deserialized.getBenchmark());
+        assertNull(deserialized.getSchedule());
+
+        assertNotEquals(buildRequest, new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1"));
+        assertNotEquals(buildRequest, new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).benchmark("fillseq").build());
+    }
+
+    @Test
+    public void serializeDeserializeBenchmarkSpec() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"benchmarkSpec\":{\"workloads\":[{\"name\":\"fillseq\",\"numKeys\":1000,\"cacheMode\":\"WARM\"}]}}";
+
+        final BenchmarkSpec benchmarkSpec = new BenchmarkSpec(Collections.emptyList(), Collections.singletonList(new BenchmarkWorkload("fillseq", Collections.emptyList(), Collections.emptyMap(), 1000, -1, -1, CacheMode.WARM)));
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).benchmarkSpec(benchmarkSpec).build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertEquals(benchmarkSpec, deserialized.getBenchmarkSpec());
+
+        assertNotEquals(buildRequest, new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1"));
+        assertNull(new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1").getBenchmarkSpec());
+    }
+
+    @Test
+    public void serializeDeserializeBaselines() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"benchmark\":\"fillseq\",\"baselines\":{\"fillseq\":123456.7}}";
+
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).benchmark("fillseq").baselines(Collections.singletonMap("fillseq", 123456.7)).build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertEquals(123456.7, deserialized.getBaseline("fillseq"));
+        assertNull(deserialized.getBaseline("readrandom"));
+
+        assertNotEquals(buildRequest, new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).benchmark("fillseq").build());
+        assertTrue(new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1").getBaselines().isEmpty());
+    }
+
+    @Test
+    public void serializeDeserializeBackfill() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"backfill\":true}";
+
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).backfill(true).build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertTrue(deserialized.isBackfill());
+
+        assertNotEquals(buildRequest, new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1"));
+        assertFalse(new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1").isBackfill());
+    }
+
+    @Test
+    public void serializeDeserializeHardwareClass() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"hardwareClass\":\"class-a\"}";
+
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).hardwareClass("class-a").build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertEquals("class-a", deserialized.getHardwareClass());
+
+        assertNotEquals(buildRequest, new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1"));
+    }
+
+    @Test
+    public void serializeDeserializeBisectRequestId() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+        final UUID bisectRequestId = UUID.randomUUID();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"origin/refs/master\",\"commit\":\"abc\",\"author\":\"person1\",\"bisectRequestId\":\"" + bisectRequestId + "\"}";
+
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).bisectRequestId(bisectRequestId).build();
+        final String serialized = buildRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildRequest deserialized = new BuildRequest().deserialize(serialized);
+        assertEquals(buildRequest, deserialized);
+        assertEquals(bisectRequestId, deserialized.getBisectRequestId());
+        assertTrue(deserialized.isBisect());
+
+        assertNotEquals(buildRequest, new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1"));
+        assertFalse(new BuildRequest(id, timeStamp, "facebook/rocksdb", "origin/refs/master", "abc", "person1").isBisect());
+    }
+
+    @Test
+    public void toBuilder() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+        final BuildRequest buildRequest = new BuildRequest.Builder("facebook/rocksdb", "origin/refs/master", "abc", "person1").id(id).timeStamp(timeStamp).schedule("nightly").benchmark("fillseq").baselines(Collections.singletonMap("fillseq", 123456.7)).backfill(true).hardwareClass("class-a").build();
+
+        // a copy keeps every field, including the id
+        assertEquals(buildRequest, buildRequest.toBuilder().build());
+
+        final BuildRequest copy = buildRequest.toBuilder().benchmark("readrandom").build();
+        assertEquals(id, copy.getId());
+        assertEquals("readrandom", copy.getBenchmark());
+        assertEquals("nightly", copy.getSchedule());
+        assertEquals(123456.7, copy.getBaseline("fillseq"));
+        assertTrue(copy.isBackfill());
+        assertEquals("class-a", copy.getHardwareClass());
+    }
+
     @Test
     public void deserializeNonJson() {
         assertThrows(IOException.class, () -> {
@@ -177,4 +335,10 @@ public class BuildRequestTest {
         assertEquals(commit, buildRequest.getCommit());
         assertEquals(author, buildRequest.getAuthor());
     }
+
+    @Test
+    public void hardwareClassSelector() {
+        assertEquals("hardwareClass = 'xeon-e5-2680-v4-28c-128g-ssd'", BuildRequest.hardwareClassSelector("xeon-e5-2680-v4-28c-128g-ssd"));
+        assertEquals("hardwareClass = 'o''brien'", BuildRequest.hardwareClassSelector("o'brien"));
+    }
 }
@@ -8,7 +8,11 @@ import java.io.IOException;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class BuildStatsTest {
 
@@ -55,6 +59,44 @@ public class BuildStatsTest {
         assertEquals(expected, deserialized);
     }
 
+    @Test
+    public void serializeDeserializeMetrics() throws IOException {
+        final String expected = "{\"updateSourceTime\":2000,\"compilationTime\":1000,\"benchmarkTime\":5000,\"metrics\":{\"fillseq\":{\"opsPerSec\":426439.0,\"P99\":5.6},\"readrandom\":{\"opsPerSec\":123456.0}}}";
+
+        final BuildStats buildStats = new BuildStats(2000, 1000, 5000);
+        buildStats.setMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC, 426439);
+        buildStats.setMetric("fillseq", BuildStats.METRIC_P99, 5.6);
+        buildStats.setMetric("readrandom", BuildStats.METRIC_OPS_PER_SEC, 123456);
+        final String serialized = buildStats.serialize();
+        assertEquals(expected, serialized);
+
+        final BuildStats deserialized = new BuildStats().deserialize(serialized);
+        assertEquals(buildStats, deserialized);
+        assertEquals(5.6, deserialized.getMetric("fillseq", BuildStats.METRIC_P99));
+        assertNull(deserialized.getMetric("fillseq", BuildStats.METRIC_P50));
+        assertNull(deserialized.getMetric("fillrandom", BuildStats.METRIC_OPS_PER_SEC));
+
+        // metric values may have been written as integers
+        final BuildStats deserializedInt = new BuildStats().deserialize("{\"updateSourceTime\":2000,\"compilationTime\":1000,\"benchmarkTime\":5000,\"metrics\":{\"fillseq\":{\"opsPerSec\":426439}}}");
+        assertEquals(426439.0, deserializedInt.getMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC));
+    }
+
+    @Test
+    public void serializeDeserializeIsolated() throws IOException {
+        final BuildStats buildStats = new BuildStats(2000, 1000, 5000);
+        assertNull(buildStats.getIsolated());
+        assertEquals("{\"updateSourceTime\":2000,\"compilationTime\":1000,\"benchmarkTime\":5000}", buildStats.serialize());
+
+        buildStats.setIsolated(false);
+        final String serialized = buildStats.serialize();
+        assertEquals("{\"updateSourceTime\":2000,\"compilationTime\":1000,\"benchmarkTime\":5000,\"isolated\":false}", serialized);
+
+        final BuildStats deserialized = new BuildStats().deserialize(serialized);
+        assertEquals(buildStats, deserialized);
+        assertEquals(Boolean.FALSE, deserialized.getIsolated());
+        assertNotEquals(new BuildStats(2000, 1000, 5000), deserialized);
+    }
+
     @Test
     public void deserializeNonJson() {
         assertThrows(IOException.class, () -> {
@@ -75,4 +117,12 @@ public class BuildStatsTest {
             new BuildStats().deserialize("{other\":{}}");
         });
     }
+
+    @Test
+    public void higherIsBetter() {
+        assertTrue(BuildStats.isHigherBetter(BuildStats.METRIC_OPS_PER_SEC));
+        assertTrue(BuildStats.isHigherBetter(BuildStats.METRIC_MB_PER_SEC));
+        assertFalse(BuildStats.isHigherBetter(BuildStats.METRIC_MICROS_PER_OP));
+        assertFalse(BuildStats.isHigherBetter(BuildStats.METRIC_P99));
+    }
 }
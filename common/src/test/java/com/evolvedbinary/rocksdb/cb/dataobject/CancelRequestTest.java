@@ -0,0 +1,38 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CancelRequestTest {
+
+    @Test
+    public void serializeDeserialize() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+        final UUID buildRequestId = UUID.randomUUID();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"buildRequestId\":\"" + buildRequestId.toString() + "\",\"ref\":\"refs/heads/main\",\"reason\":\"Superseded by commit def\"}";
+
+        final CancelRequest cancelRequest = new CancelRequest(id, timeStamp, buildRequestId, "refs/heads/main", "Superseded by commit def");
+        final String serialized = cancelRequest.serialize();
+        assertEquals(expected, serialized);
+
+        final CancelRequest deserialized = new CancelRequest().deserialize(serialized);
+        assertEquals(cancelRequest, deserialized);
+        assertEquals(buildRequestId, deserialized.getBuildRequestId());
+    }
+
+    @Test
+    public void deserializeMissingField() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"ref\":\"refs/heads/main\",\"reason\":\"Superseded by commit def\"}";
+        assertThrows(IOException.class, () -> new CancelRequest().deserialize(serialized));
+    }
+}
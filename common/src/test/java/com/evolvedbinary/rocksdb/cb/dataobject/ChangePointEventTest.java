@@ -0,0 +1,43 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangePointEventTest {
+
+    @Test
+    public void serializeString() throws IOException {
+        final UUID buildRequestId = UUID.randomUUID();
+        final ZonedDateTime buildRequestTimeStamp = ZonedDateTime.now();
+        final UUID eventId = UUID.randomUUID();
+        final ZonedDateTime eventTimeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + eventId.toString() + "\",\"timeStamp\":\"" + eventTimeStamp.toString() + "\",\"changePointType\":\"REGRESSION\",\"buildRequest\":{\"id\":\"" + buildRequestId.toString() + "\",\"timeStamp\":\"" + buildRequestTimeStamp.toString() + "\",\"repository\":\"facebook/rocksdb\",\"ref\":\"refs/heads/master\",\"commit\":\"def\",\"author\":\"person1\"},\"benchmark\":\"db_bench\",\"metric\":\"benchmarkTime\",\"commit\":\"abc\",\"beforeMedian\":1000.0,\"afterMedian\":1200.0,\"relativeChange\":0.2,\"effectSize\":1.0,\"confidence\":0.999}";
+
+        final BuildRequest buildRequest = new BuildRequest(buildRequestId, buildRequestTimeStamp, "facebook/rocksdb", "refs/heads/master", "def", "person1");
+        final ChangePointEvent event = new ChangePointEvent(eventId, eventTimeStamp, ChangePointType.REGRESSION, buildRequest, "db_bench", "benchmarkTime", "abc", 1000, 1200, 0.2, 1.0, 0.999);
+        assertEquals(expected, event.serialize());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final BuildRequest buildRequest = new BuildRequest("facebook/rocksdb", "refs/heads/master", "def", "person1");
+        final ChangePointEvent expected = new ChangePointEvent(ChangePointType.IMPROVEMENT, buildRequest, "db_bench", "compilationTime", "abc", 1000, 800, -0.2, -0.75, 0.99);
+
+        final ChangePointEvent deserialized = new ChangePointEvent().deserialize(expected.serialize());
+        assertEquals(expected, deserialized);
+    }
+
+    @Test
+    public void deserializeMissingField() {
+        final UUID id = UUID.randomUUID();
+        assertThrows(IOException.class, () -> {
+            new ChangePointEvent().deserialize("{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + ZonedDateTime.now().toString() + "\",\"changePointType\":\"REGRESSION\"}");
+        });
+    }
+}
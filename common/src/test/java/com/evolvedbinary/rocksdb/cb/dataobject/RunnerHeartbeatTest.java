@@ -0,0 +1,54 @@
+package com.evolvedbinary.rocksdb.cb.dataobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunnerHeartbeatTest {
+
+    @Test
+    public void serializeString() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String expected = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"runnerId\":\"runner-1\",\"hardwareClass\":\"xeon-e5-2680-28c-128g-ssd\",\"cpuModel\":\"Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz\",\"cpuCores\":28,\"memory\":137438953472,\"diskType\":\"ssd\",\"heartbeatInterval\":10000}";
+
+        final RunnerHeartbeat deserialized = new RunnerHeartbeat(id, timeStamp, "runner-1", "xeon-e5-2680-28c-128g-ssd", "Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz", 28, 137438953472L, "ssd", 10000);
+        final String serialized = deserialized.serialize();
+        assertEquals(expected, serialized);
+    }
+
+    @Test
+    public void deserializeString() throws IOException {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final RunnerHeartbeat expected = new RunnerHeartbeat(id, timeStamp, "runner-1", "xeon-e5-2680-28c-128g-ssd", "Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz", 28, 137438953472L, "ssd", 10000);
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"runnerId\":\"runner-1\",\"hardwareClass\":\"xeon-e5-2680-28c-128g-ssd\",\"cpuModel\":\"Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz\",\"cpuCores\":28,\"memory\":137438953472,\"diskType\":\"ssd\",\"heartbeatInterval\":10000}";
+        final RunnerHeartbeat deserialized = new RunnerHeartbeat().deserialize(serialized);
+        assertEquals(expected, deserialized);
+    }
+
+    @Test
+    public void deserializeInvalidHeartbeatInterval() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"runnerId\":\"runner-1\",\"hardwareClass\":\"xeon-e5-2680-28c-128g-ssd\",\"cpuModel\":\"Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz\",\"cpuCores\":28,\"memory\":137438953472,\"diskType\":\"ssd\",\"heartbeatInterval\":0}";
+        assertThrows(IOException.class, () -> new RunnerHeartbeat().deserialize(serialized));
+    }
+
+    @Test
+    public void deserializeMissingField() {
+        final UUID id = UUID.randomUUID();
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+
+        final String serialized = "{\"id\":\"" + id.toString() + "\",\"timeStamp\":\"" + timeStamp.toString() + "\",\"runnerId\":\"runner-1\",\"cpuModel\":\"Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz\",\"cpuCores\":28,\"memory\":137438953472,\"diskType\":\"ssd\",\"heartbeatInterval\":10000}";
+        assertThrows(IOException.class, () -> new RunnerHeartbeat().deserialize(serialized));
+    }
+}
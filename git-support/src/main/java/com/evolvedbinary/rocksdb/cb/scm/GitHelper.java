@@ -14,6 +14,31 @@ public interface GitHelper extends AutoCloseable {
 
     List<String> listCommits() throws GitHelperException;
 
+    /**
+     * Resolve the name of a commit, e.g. a tag, branch, or abbreviated commit id.
+     *
+     * @param nameOrCommit the name of the commit
+     *
+     * @return the full id of the commit, peeling any annotated tag
+     *
+     * @throws GitHelperException if the name cannot be resolved to a commit
+     */
+    String resolveCommit(final String nameOrCommit) throws GitHelperException;
+
+    /**
+     * List the commits on the first-parent history between two commits,
+     * i.e. the commits that {@code git rev-list --first-parent --reverse from..to} would list.
+     *
+     * @param fromCommit the older commit, which is excluded from the result
+     * @param toCommit the newer commit, which is included in the result
+     *
+     * @return the commits, oldest first, ending with {@code toCommit}
+     *
+     * @throws GitHelperException if either commit cannot be resolved, or if
+     *     {@code fromCommit} is not on the first-parent history of {@code toCommit}
+     */
+    List<String> listFirstParentCommits(final String fromCommit, final String toCommit) throws GitHelperException;
+
     GitHelper fetch() throws GitHelperException;
 
     GitHelper cleanAll() throws GitHelperException;
@@ -3,8 +3,10 @@ package com.evolvedbinary.rocksdb.cb.scm;
 import org.eclipse.jgit.annotations.Nullable;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.NetRCCredentialsProvider;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
@@ -12,6 +14,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class JGitGitHelperImpl implements GitHelper {
@@ -116,6 +119,50 @@ public class JGitGitHelperImpl implements GitHelper {
         }
     }
 
+    @Override
+    public String resolveCommit(final String nameOrCommit) throws GitHelperException {
+        try {
+            final ObjectId commitId = git.getRepository().resolve(nameOrCommit + "^{commit}");
+            if (commitId == null) {
+                throw new GitHelperException("Unable to resolve commit: " + nameOrCommit);
+            }
+            return commitId.getName();
+        } catch (final IOException | RevisionSyntaxException e) {
+            throw new GitHelperException("Unable to resolve commit: " + nameOrCommit + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> listFirstParentCommits(final String fromCommit, final String toCommit) throws GitHelperException {
+        final Repository repository = git.getRepository();
+        try (final RevWalk revWalk = new RevWalk(repository)) {
+            final ObjectId fromId = repository.resolve(fromCommit);
+            if (fromId == null) {
+                throw new GitHelperException("Unable to resolve commit: " + fromCommit);
+            }
+            final ObjectId toId = repository.resolve(toCommit);
+            if (toId == null) {
+                throw new GitHelperException("Unable to resolve commit: " + toCommit);
+            }
+
+            final List<String> commits = new ArrayList<>();
+            RevCommit revCommit = revWalk.parseCommit(toId);
+            while (!revCommit.getId().equals(fromId)) {
+                commits.add(revCommit.getName());
+                if (revCommit.getParentCount() == 0) {
+                    throw new GitHelperException("Commit: " + fromCommit + " is not on the first-parent history of: " + toCommit);
+                }
+                revCommit = revWalk.parseCommit(revCommit.getParent(0));
+            }
+
+            Collections.reverse(commits);
+            return commits;
+
+        } catch (final IOException e) {
+            throw new GitHelperException("Unable to list first-parent commits from: " + fromCommit + " to: " + toCommit + ". " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public GitHelper fetch() throws GitHelperException {
         final FetchCommand fetchCommand = git.fetch()
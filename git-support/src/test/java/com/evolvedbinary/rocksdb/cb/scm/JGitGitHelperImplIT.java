@@ -1,5 +1,9 @@
 package com.evolvedbinary.rocksdb.cb.scm;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -10,6 +14,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JGitGitHelperImplIT {
@@ -155,4 +160,72 @@ public class JGitGitHelperImplIT {
             assertEquals(prevCommit, gitHelper.getBranch());
         }
     }
+
+    @Test
+    public void listFirstParentCommits(@TempDir final Path tempDir) throws IOException, GitAPIException, GitHelperException {
+        final Path repoDir = Files.createTempDirectory(tempDir, "listFirstParentCommitsTest");
+
+        // create a local repo with a merged side branch
+        final String c1;
+        final String c2;
+        final String side;
+        final String merge;
+        try (final Git git = Git.init().setDirectory(repoDir.toFile()).setInitialBranch(BRANCH).call()) {
+            c1 = commitFile(git, repoDir, "a.txt", "c1");
+            git.branchCreate().setName("side").call();
+            c2 = commitFile(git, repoDir, "b.txt", "c2");
+
+            git.checkout().setName("side").call();
+            side = commitFile(git, repoDir, "c.txt", "side");
+
+            git.checkout().setName(BRANCH).call();
+            final MergeResult mergeResult = git.merge()
+                    .include(git.getRepository().resolve("side"))
+                    .setFastForward(MergeCommand.FastForwardMode.NO_FF)
+                    .setMessage("merge")
+                    .call();
+            merge = mergeResult.getNewHead().getName();
+        }
+
+        try (final GitHelper gitHelper = JGitGitHelperImpl.open(repoDir)) {
+            // the side branch commit is not on the first-parent history
+            assertEquals(Arrays.asList(c2, merge), gitHelper.listFirstParentCommits(c1, merge));
+            assertEquals(Arrays.asList(merge), gitHelper.listFirstParentCommits(c2, merge));
+            assertTrue(gitHelper.listFirstParentCommits(merge, merge).isEmpty());
+
+            assertThrows(GitHelperException.class, () -> gitHelper.listFirstParentCommits(side, merge));
+            assertThrows(GitHelperException.class, () -> gitHelper.listFirstParentCommits(merge, c1));
+            assertThrows(GitHelperException.class, () -> gitHelper.listFirstParentCommits("no-such-commit", merge));
+        }
+    }
+
+    @Test
+    public void resolveCommit(@TempDir final Path tempDir) throws IOException, GitAPIException, GitHelperException {
+        final Path repoDir = Files.createTempDirectory(tempDir, "resolveCommitTest");
+
+        final String c1;
+        final String c2;
+        try (final Git git = Git.init().setDirectory(repoDir.toFile()).setInitialBranch(BRANCH).call()) {
+            c1 = commitFile(git, repoDir, "a.txt", "c1");
+            git.tag().setName("v1.0").setAnnotated(true).setMessage("v1.0").call();
+            c2 = commitFile(git, repoDir, "b.txt", "c2");
+            git.tag().setName("v2.0").setAnnotated(false).call();
+        }
+
+        try (final GitHelper gitHelper = JGitGitHelperImpl.open(repoDir)) {
+            // annotated tags are peeled to their commit
+            assertEquals(c1, gitHelper.resolveCommit("v1.0"));
+            assertEquals(c2, gitHelper.resolveCommit("v2.0"));
+            assertEquals(c2, gitHelper.resolveCommit(BRANCH));
+            assertEquals(c1, gitHelper.resolveCommit(c1.substring(0, 10)));
+
+            assertThrows(GitHelperException.class, () -> gitHelper.resolveCommit("no-such-tag"));
+        }
+    }
+
+    private static String commitFile(final Git git, final Path repoDir, final String fileName, final String content) throws IOException, GitAPIException {
+        Files.write(repoDir.resolve(fileName), content.getBytes(UTF_8));
+        git.add().addFilepattern(fileName).call();
+        return git.commit().setMessage(content).setAuthor("test", "test@example.com").call().getName();
+    }
 }
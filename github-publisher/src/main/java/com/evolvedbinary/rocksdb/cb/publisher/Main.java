@@ -2,6 +2,7 @@ package com.evolvedbinary.rocksdb.cb.publisher;
 
 import com.evolvedbinary.rocksdb.cb.Constants;
 import com.evolvedbinary.rocksdb.cb.common.ExitCodes;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
 import se.softhouse.jargo.Argument;
 import se.softhouse.jargo.ArgumentException;
 import se.softhouse.jargo.CommandLineParser;
@@ -12,6 +13,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import static se.softhouse.jargo.Arguments.*;
 
@@ -26,6 +28,9 @@ public class Main {
             .defaultValue(Constants.DEFAULT_ARTEMIS_PORT)
             .description("The port of the Artemis Broker")
             .build();
+    private static final Argument<String> ARTEMIS_BROKERS_ARG = stringArgument("--artemis-brokers")
+            .description("A comma separated list of host:port for each Artemis Broker of a cluster. Overrides --artemis-broker-host and --artemis-broker-port")
+            .build();
     private static final Argument<String> PUBLISH_REQUEST_QUEUE_NAME_ARG = stringArgument("-p", "--publish-request-queue-name")
             .defaultValue("PublishRequestQueue")
             .description("The name of the JMS Queue for Publish request messages")
@@ -62,6 +67,7 @@ public class Main {
                 HELP_ARG,
                 ARTEMIS_BROKER_HOST_ARG,
                 ARTEMIS_BROKER_PORT_ARG,
+                ARTEMIS_BROKERS_ARG,
                 PUBLISH_REQUEST_QUEUE_NAME_ARG,
                 PUBLISH_RESPONSE_QUEUE_NAME_ARG,
                 DATA_DIR_ARG,
@@ -74,8 +80,14 @@ public class Main {
         try {
             final ParsedArguments parsedArguments = parser.parse(args);
 
-            final String artemisBrokerHost = parsedArguments.get(ARTEMIS_BROKER_HOST_ARG);
-            final int artemisBrokerPort = parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue();
+            final List<BrokerEndpoint> artemisBrokers;
+            try {
+                artemisBrokers = BrokerEndpoint.parseList(parsedArguments.get(ARTEMIS_BROKERS_ARG), parsedArguments.get(ARTEMIS_BROKER_HOST_ARG), parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue());
+            } catch (final IllegalArgumentException e) {
+                System.out.println("Invalid Artemis broker specified: " + e.getMessage());
+                System.exit(ExitCodes.INVALID_ARGUMENT);
+                return;
+            }
             final String publishRequestQueueName = parsedArguments.get(PUBLISH_REQUEST_QUEUE_NAME_ARG);
             final String publishResponseQueueName = parsedArguments.get(PUBLISH_RESPONSE_QUEUE_NAME_ARG);
             final Path dataDir = parsedArguments.get(DATA_DIR_ARG).toPath();
@@ -92,7 +104,7 @@ public class Main {
             @Nullable final String repoPassword = parsedArguments.get(REPO_PASSWORD);
             final boolean skipPush = parsedArguments.get(SKIP_PUSH);
 
-            final Publisher.Settings publisherSettings = new Publisher.Settings(artemisBrokerHost, artemisBrokerPort, publishRequestQueueName, publishResponseQueueName, dataDir, repo, repoBranch, repoUsername, repoPassword, skipPush);
+            final Publisher.Settings publisherSettings = new Publisher.Settings(artemisBrokers, publishRequestQueueName, publishResponseQueueName, dataDir, repo, repoBranch, repoUsername, repoPassword, skipPush);
             final Publisher publisher = new Publisher(publisherSettings);
             publisher.runSync();
 
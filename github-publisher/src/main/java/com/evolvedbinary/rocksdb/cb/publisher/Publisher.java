@@ -1,8 +1,8 @@
 package com.evolvedbinary.rocksdb.cb.publisher;
 
-import com.evolvedbinary.rocksdb.cb.common.MapUtil;
 import com.evolvedbinary.rocksdb.cb.dataobject.*;
 import com.evolvedbinary.rocksdb.cb.jms.AbstractJMSService;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
 import com.evolvedbinary.rocksdb.cb.jms.JMSServiceState;
 import com.evolvedbinary.rocksdb.cb.scm.GitHelper;
 import com.evolvedbinary.rocksdb.cb.scm.GitHelperException;
@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import javax.jms.*;
 import java.io.*;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -21,11 +22,11 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class Publisher extends AbstractJMSService {
@@ -53,11 +54,8 @@ public class Publisher extends AbstractJMSService {
     }
 
     @Override
-    protected Map<String, Object> getTransportConfigurationParameters() {
-        return MapUtil.Map(
-                Entry("host", settings.artemisBrokerHost),
-                Entry("port", settings.artemisBrokerPort)
-        );
+    protected List<BrokerEndpoint> getBrokerEndpoints() {
+        return settings.artemisBrokers;
     }
 
     @Override
@@ -110,7 +108,7 @@ public class Publisher extends AbstractJMSService {
             // attempt to parse as PublishResponse
             final PublishRequest publishRequest;
             try {
-                publishRequest = new PublishRequest().deserialize(content);
+                publishRequest = deserialize(new PublishRequest(), content);
             } catch (final IOException e) {
                 // unable to deserialize, acknowledge invalid message so that it is removed from the queue
                 if (acknowledgeMessage(message)) {
@@ -199,6 +197,14 @@ public class Publisher extends AbstractJMSService {
                     task = "Benchmark 1"; // TODO(AR) add different benchmarks
                     time = buildStats.getBenchmarkTime();
                     writeCsvLine(printWriter, task, commit, date, time);
+
+                    // write the metrics of each benchmark, e.g. 'fillseq opsPerSec'
+                    for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : buildStats.getMetrics().entrySet()) {
+                        for (final Map.Entry<String, Double> metric : benchmarkMetrics.getValue().entrySet()) {
+                            task = benchmarkMetrics.getKey() + " " + metric.getKey();
+                            writeCsvLine(printWriter, task, commit, date, metric.getValue());
+                        }
+                    }
                 } catch (final IOException e) {
                     LOGGER.error("Unable to append data to CSV file. Error: {}", e.getMessage(), e);
                     sendFailureToPublish(publishRequest.getBuildResponse().getBuildRequest());
@@ -266,6 +272,11 @@ public class Publisher extends AbstractJMSService {
         printWriter.print(csvLine);
     }
 
+    private void writeCsvLine(final PrintWriter printWriter, final String task, final String commit, final String date, final double value) {
+        final String csvLine = String.format("%s,%s,%s,%s\r\n", task, commit, date, BigDecimal.valueOf(value).toPlainString());  // RFC 4180 for CSV specifies that EOL should always be CRLF
+        printWriter.print(csvLine);
+    }
+
     private void updateWebAssets(final GitHelper gitHelper, final Path projectRepoDir) throws IOException, GitHelperException {
         boolean updated = false;
 
@@ -345,8 +356,7 @@ public class Publisher extends AbstractJMSService {
     }
 
     static class Settings {
-        final String artemisBrokerHost;
-        final int artemisBrokerPort;
+        final List<BrokerEndpoint> artemisBrokers;
         final String publishRequestQueueName;
         final String publishResponseQueueName;
         final Path dataDir;
@@ -358,8 +368,12 @@ public class Publisher extends AbstractJMSService {
 
         public Settings(final String artemisBrokerHost, final int artemisBrokerPort, final String publishRequestQueueName, final String publishResponseQueueName, final Path dataDir, final String repo, final String repoBranch,
                         @Nullable final String repoUsername, @Nullable final String repoPassword, final boolean skipPush) {
-            this.artemisBrokerHost = artemisBrokerHost;
-            this.artemisBrokerPort = artemisBrokerPort;
+            this(Collections.singletonList(new BrokerEndpoint(artemisBrokerHost, artemisBrokerPort)), publishRequestQueueName, publishResponseQueueName, dataDir, repo, repoBranch, repoUsername, repoPassword, skipPush);
+        }
+
+        public Settings(final List<BrokerEndpoint> artemisBrokers, final String publishRequestQueueName, final String publishResponseQueueName, final Path dataDir, final String repo, final String repoBranch,
+                        @Nullable final String repoUsername, @Nullable final String repoPassword, final boolean skipPush) {
+            this.artemisBrokers = artemisBrokers;
             this.publishRequestQueueName = publishRequestQueueName;
             this.publishResponseQueueName = publishResponseQueueName;
             this.dataDir = dataDir;
@@ -1,20 +1,17 @@
 package com.evolvedbinary.rocksdb.cb.github;
 
 import com.evolvedbinary.rocksdb.cb.dataobject.DataObject;
-import org.apache.activemq.artemis.api.core.TransportConfiguration;
-import org.apache.activemq.artemis.api.jms.ActiveMQJMSClient;
-import org.apache.activemq.artemis.api.jms.JMSFactoryType;
-import org.apache.activemq.artemis.core.remoting.impl.netty.NettyConnectorFactory;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
+import com.evolvedbinary.rocksdb.cb.jms.ConnectionFactoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jms.*;
 import java.io.IOException;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 
 import static com.evolvedbinary.rocksdb.cb.common.CloseUtil.closeAndLogIfException;
-import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
-import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Map;
 
 public class JMSClient implements AutoCloseable {
 
@@ -33,12 +30,7 @@ public class JMSClient implements AutoCloseable {
 
     public void start() throws IOException {
         try {
-            final Map<String, Object> transportParams = Map(
-                    Entry("host", settings.artemisBrokerHost),
-                    Entry("port", settings.artemisBrokerPort)
-            );
-            final TransportConfiguration transportConfiguration = new TransportConfiguration(NettyConnectorFactory.class.getName(), transportParams);
-            final ConnectionFactory connectionFactory = ActiveMQJMSClient.createConnectionFactoryWithoutHA(JMSFactoryType.CF, transportConfiguration);
+            final ConnectionFactory connectionFactory = ConnectionFactoryUtil.createConnectionFactory(settings.artemisBrokers);
 
             this.connection = connectionFactory.createConnection();
             this.connection.setClientID("github-webhook");
@@ -89,13 +81,15 @@ public class JMSClient implements AutoCloseable {
     }
 
     static class Settings {
-        final String artemisBrokerHost;
-        final int artemisBrokerPort;
+        final List<BrokerEndpoint> artemisBrokers;
         final String webHookQueueName;
 
         Settings(final String artemisBrokerHost, final int artemisBrokerPort, final String webHookQueueName) {
-            this.artemisBrokerHost = artemisBrokerHost;
-            this.artemisBrokerPort = artemisBrokerPort;
+            this(Collections.singletonList(new BrokerEndpoint(artemisBrokerHost, artemisBrokerPort)), webHookQueueName);
+        }
+
+        Settings(final List<BrokerEndpoint> artemisBrokers, final String webHookQueueName) {
+            this.artemisBrokers = artemisBrokers;
             this.webHookQueueName = webHookQueueName;
         }
     }
@@ -2,6 +2,7 @@ package com.evolvedbinary.rocksdb.cb.github;
 
 import com.evolvedbinary.rocksdb.cb.Constants;
 import com.evolvedbinary.rocksdb.cb.common.ExitCodes;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
 import se.softhouse.jargo.Argument;
 import se.softhouse.jargo.ArgumentException;
 import se.softhouse.jargo.CommandLineParser;
@@ -11,6 +12,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 import static se.softhouse.jargo.Arguments.*;
@@ -40,6 +42,9 @@ public class Main {
             .defaultValue(Constants.DEFAULT_ARTEMIS_PORT)
             .description("The port of the Artemis Broker")
             .build();
+    private static final Argument<String> ARTEMIS_BROKERS_ARG = stringArgument("--artemis-brokers")
+            .description("A comma separated list of host:port for each Artemis Broker of a cluster. Overrides --artemis-broker-host and --artemis-broker-port")
+            .build();
     private static final Argument<String> QUEUE_NAME_ARG = stringArgument("-w", "--webhook-queue-name")
             .defaultValue("WebHookQueue")
             .description("The name of the JMS Queue for GitHub WebHook messages")
@@ -54,6 +59,7 @@ public class Main {
                 CERTIFICATE_PASSWORD_ARG,
                 ARTEMIS_BROKER_HOST_ARG,
                 ARTEMIS_BROKER_PORT_ARG,
+                ARTEMIS_BROKERS_ARG,
                 QUEUE_NAME_ARG);
 
         try {
@@ -68,11 +74,17 @@ public class Main {
             final Optional<String> certificatePassword = Optional.ofNullable(parsedArguments.get(CERTIFICATE_PASSWORD_ARG)).filter(s -> !s.isEmpty());
             final Integer port = parsedArguments.get(PORT_ARG);
 
-            final String artemisBrokerHost = parsedArguments.get(ARTEMIS_BROKER_HOST_ARG);
-            final int artemisBrokerPort = parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue();
+            final List<BrokerEndpoint> artemisBrokers;
+            try {
+                artemisBrokers = BrokerEndpoint.parseList(parsedArguments.get(ARTEMIS_BROKERS_ARG), parsedArguments.get(ARTEMIS_BROKER_HOST_ARG), parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue());
+            } catch (final IllegalArgumentException e) {
+                System.out.println("Invalid Artemis broker specified: " + e.getMessage());
+                System.exit(ExitCodes.INVALID_ARGUMENT);
+                return;
+            }
 
             final String queueName = parsedArguments.get(QUEUE_NAME_ARG);
-            final JMSClient.Settings jmsClientSettings = new JMSClient.Settings(artemisBrokerHost, artemisBrokerPort, queueName);
+            final JMSClient.Settings jmsClientSettings = new JMSClient.Settings(artemisBrokers, queueName);
             try (final JMSClient jmsClient = new JMSClient(jmsClientSettings)) {
 
                 jmsClient.start();
@@ -1,42 +1,96 @@
 package com.evolvedbinary.rocksdb.cb.jms;
 
-import com.evolvedbinary.rocksdb.cb.common.MapUtil;
 import com.evolvedbinary.rocksdb.cb.dataobject.DataObject;
-import org.apache.activemq.artemis.api.core.TransportConfiguration;
-import org.apache.activemq.artemis.api.jms.ActiveMQJMSClient;
-import org.apache.activemq.artemis.api.jms.JMSFactoryType;
-import org.apache.activemq.artemis.core.remoting.impl.netty.NettyConnectorFactory;
+import com.evolvedbinary.rocksdb.cb.jms.metrics.JMSServiceMetrics;
+import com.evolvedbinary.rocksdb.cb.jms.metrics.MessageReceivedEvent;
+import com.evolvedbinary.rocksdb.cb.jms.metrics.MessageSentEvent;
+import com.evolvedbinary.rocksdb.cb.jms.metrics.MetricsHttpServer;
+import com.evolvedbinary.rocksdb.cb.jms.metrics.QueueMetrics;
+import com.sun.net.httpserver.HttpHandler;
 import org.slf4j.Logger;
 
 import javax.annotation.Nullable;
 import javax.jms.*;
 import java.io.IOException;
 import java.lang.IllegalStateException;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.evolvedbinary.rocksdb.cb.common.CloseUtil.closeAndLogIfException;
-import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
 
 public abstract class AbstractJMSService implements JMSService {
 
-    private Connection connection;
-    private Session session;
+    /**
+     * System property which sets the port of the metrics HTTP endpoint,
+     * see {@link #getMetricsHttpPort()}.
+     */
+    public static final String METRICS_HTTP_PORT_PROPERTY = "cb.metrics.http.port";
+
+    /**
+     * System property which sets the maximum time in milliseconds to wait
+     * for in-flight messages during shutdown, see {@link #getShutdownDrainTimeout()}.
+     */
+    public static final String SHUTDOWN_DRAIN_TIMEOUT_PROPERTY = "cb.shutdown.drain.timeout";
+
+    static final long DEFAULT_SHUTDOWN_DRAIN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    static final long DEFAULT_RECONNECT_INITIAL_DELAY = TimeUnit.SECONDS.toMillis(1);
+    static final long DEFAULT_RECONNECT_MAX_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    // how long to wait for another message before a queue is considered drained
+    private static final long DRAIN_RECEIVE_TIMEOUT = 500;
+
+    private static final ThreadLocal<QueueMetrics> CURRENT_QUEUE_METRICS = new ThreadLocal<>();
+
+    private ConnectionFactory connectionFactory;
+    private volatile Connection connection;
+    private volatile Session session;
+    private volatile @Nullable Session topicSession;
     private Map<String, Queue> queues;
-    private @Nullable MessageProducer producer;
+    private Map<String, Topic> topics;
+
+    /*
+     * A JMS session may only be used by one thread at a time, but messages are sent from
+     * the threads of the listeners and from background threads, e.g. heartbeats and schedulers.
+     * So messages are sent with their own session and producer, and never with the sessions
+     * of the listeners. Guarded by sendLock.
+     */
+    private final Object sendLock = new Object();
+    private volatile @Nullable Session sendSession;
+    private volatile @Nullable MessageProducer producer;
     private TreeMap<String, MessageConsumer> queueConsumers;
+    private TreeMap<String, MessageConsumer> topicConsumers;
+    private @Nullable ScheduledExecutorService reconnectExecutorService;
+    private final AtomicBoolean reconnecting = new AtomicBoolean();
+    private JMSServiceMetrics metrics;
+    private volatile @Nullable MetricsHttpServer metricsHttpServer;
+
+    /*
+     * Tracks the messages being handled and sent, so that shutdown can wait for them to complete.
+     * Guarded by inFlightLock.
+     */
+    private final Object inFlightLock = new Object();
+    private boolean draining;
+    private int inFlightHandlers;
+    private int inFlightHandlersWhilstDraining;
+    private int inFlightSends;
 
     protected abstract Logger getLogger();
 
-    protected abstract Map<String, Object> getTransportConfigurationParameters();
-
     protected abstract AtomicReference<JMSServiceState> getState();
 
     protected abstract String getClientId();
@@ -44,7 +98,19 @@ public abstract class AbstractJMSService implements JMSService {
     @Override
     public void runSync() throws InterruptedException {
         final JMSServiceInstance instance = runAsync();
-        instance.awaitShutdown();
+
+        // drain in-flight messages when the JVM is asked to exit, e.g. SIGTERM
+        final Thread shutdownHook = new Thread(instance::close, getClientId() + "-JMSService-ShutdownHook");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            instance.awaitShutdown();
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (final IllegalStateException e) {
+                // JVM is already shutting down
+            }
+        }
     }
 
     @Override
@@ -54,68 +120,335 @@ public abstract class AbstractJMSService implements JMSService {
         }
 
         // setup JMS
-        final Map<String, Object> transportConfigurationParameters = getTransportConfigurationParameters();
-        final TransportConfiguration transportConfiguration = new TransportConfiguration(NettyConnectorFactory.class.getName(), transportConfigurationParameters);
-        final ConnectionFactory connectionFactory = ActiveMQJMSClient.createConnectionFactoryWithoutHA(JMSFactoryType.CF, transportConfiguration);
+        final List<BrokerEndpoint> brokerEndpoints = getBrokerEndpoints();
+        this.connectionFactory = createConnectionFactory(brokerEndpoints);
 
-        try {
-            final String clientId = getClientId();
-            this.connection = createConnection(connectionFactory, clientId);
-            this.session = createSession(connection);
-
-            final List<String> queueNames = getQueueNames();
-            if (queueNames != null) {
-                for (final String queueName : queueNames) {
-                    final Queue queue = createQueue(session, queueName);
-                    if (queues == null) {
-                        queues = new HashMap<>();
-                    }
-                    queues.put(queueName, queue);
-
-                    final MessageListener listener = getListener(queueName);
-                    if (listener != null) {
-                        final MessageConsumer consumer = session.createConsumer(queue);
-                        consumer.setMessageListener(listener);
-                        if (queueConsumers == null) {
-                            queueConsumers = new TreeMap<>();
-                        }
-                        queueConsumers.put(queueName, consumer);
-                        getLogger().info("Listening to Queue: {}", queueName);
-                    }
-                }
-            }
+        final String clientId = getClientId();
+        synchronized (inFlightLock) {
+            this.draining = false;
+        }
+        this.metrics = new JMSServiceMetrics(clientId);
+        startMetricsHttpServer();
 
-            this.producer = createProducer(session);
+        try {
+            connect(clientId);
 
-            // start the connection
-            this.connection.start();
+            getLogger().info("Created connection for ClientID: {} to Broker(s): {}", clientId, brokerEndpoints);
 
-            getLogger().info("Created connection for ClientID: {}", clientId);
+            this.reconnectExecutorService = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, clientId + "-JMSService-Reconnect-Thread"));
 
             final ExecutorService executorService = Executors.newFixedThreadPool(1, r -> new Thread(r, clientId + "-JMSService-Thread"));
-            final Future<?> jmsServiceFuture = executorService.submit(new JMSServiceCallable());
+            final CountDownLatch shutdownLatch = new CountDownLatch(1);
+            final Future<?> jmsServiceFuture = executorService.submit(new JMSServiceCallable(shutdownLatch));
 
-            return new JMSServiceInstance(executorService, clientId, getState(), jmsServiceFuture);
+            return new JMSServiceInstance(executorService, clientId, getState(), shutdownLatch, jmsServiceFuture);
 
         } catch (final JMSException e) {
-            if (this.connection != null) {
-                closeAndLogIfException(connection::stop, this::getLogger);
+            closeConnection();
+            stopMetrics();
+            getState().set(JMSServiceState.IDLE);
+
+            throw new RuntimeException("Unable to setup JMS broker connection: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create the connection, session, consumers and producer,
+     * and start the connection.
+     *
+     * @param clientId the JMS client id
+     *
+     * @throws JMSException if the connection cannot be established, in which case
+     *     the caller is responsible for calling {@link #closeConnection()}
+     */
+    private void connect(final String clientId) throws JMSException {
+        this.connection = createConnection(connectionFactory, clientId);
+        this.connection.setExceptionListener(this::onConnectionException);
+        this.session = createSession(connection);
+
+        final List<String> queueNames = getQueueNames();
+        if (queueNames != null) {
+            for (final String queueName : queueNames) {
+                final Queue queue = createQueue(session, queueName);
+                if (queues == null) {
+                    queues = new ConcurrentHashMap<>();
+                }
+                queues.put(queueName, queue);
+                final QueueMetrics queueMetrics = metrics.forQueue(queueName);
+
+                final MessageListener listener = getListener(queueName);
+                if (listener != null) {
+                    final MessageConsumer consumer = session.createConsumer(queue, getMessageSelector(queueName));
+                    consumer.setMessageListener(new InstrumentedMessageListener(clientId, queueMetrics, listener, isHandledWhilstDraining(queueName)));
+                    if (queueConsumers == null) {
+                        queueConsumers = new TreeMap<>();
+                    }
+                    queueConsumers.put(queueName, consumer);
+                    getLogger().info("Listening to Queue: {}", queueName);
+                }
             }
+        }
 
-            if (queueConsumers != null) {
-                for (final MessageConsumer queueConsumer : queueConsumers.descendingMap().values()) {
-                    closeAndLogIfException(queueConsumer, this::getLogger);
+        final List<String> topicNames = getTopicNames();
+        if (topicNames != null && !topicNames.isEmpty()) {
+            // a session delivers its messages one at a time, so the topics have their own session,
+            // so that a long running listener of a queue does not hold up the messages of a topic
+            this.topicSession = createSession(connection);
+
+            for (final String topicName : topicNames) {
+                final Topic topic = createTopic(topicSession, topicName);
+                if (topics == null) {
+                    topics = new ConcurrentHashMap<>();
+                }
+                topics.put(topicName, topic);
+                final QueueMetrics topicMetrics = metrics.forQueue(topicName);
+
+                final MessageListener listener = getListener(topicName);
+                if (listener != null) {
+                    final MessageConsumer consumer = topicSession.createConsumer(topic, getMessageSelector(topicName));
+                    consumer.setMessageListener(new InstrumentedMessageListener(clientId, topicMetrics, listener, isHandledWhilstDraining(topicName)));
+                    if (topicConsumers == null) {
+                        topicConsumers = new TreeMap<>();
+                    }
+                    topicConsumers.put(topicName, consumer);
+                    getLogger().info("Subscribed to Topic: {}", topicName);
                 }
             }
+        }
+
+        this.sendSession = createSession(connection);
+        this.producer = createProducer(sendSession);
 
-            if (this.producer != null) {
-                closeAndLogIfException(this.producer, this::getLogger);
+        // start the connection
+        this.connection.start();
+    }
+
+    private void closeConnection() {
+        final Connection connection = this.connection;
+        if (connection != null) {
+            closeAndLogIfException(connection::stop, this::getLogger);
+        }
+
+        if (queueConsumers != null) {
+            for (final MessageConsumer queueConsumer : queueConsumers.descendingMap().values()) {
+                closeAndLogIfException(queueConsumer, this::getLogger);
             }
+            queueConsumers = null;
+        }
 
-            closeAndLogIfException(this.session, this::getLogger);
-            closeAndLogIfException(this.connection, this::getLogger);
+        if (topicConsumers != null) {
+            for (final MessageConsumer topicConsumer : topicConsumers.descendingMap().values()) {
+                closeAndLogIfException(topicConsumer, this::getLogger);
+            }
+            topicConsumers = null;
+        }
 
-            throw new RuntimeException("Unable to setup JMS broker connection: " + e.getMessage(), e);
+        if (producer != null) {
+            closeAndLogIfException(producer, this::getLogger);
+            this.producer = null;
+        }
+        final Session sendSession = this.sendSession;
+        if (sendSession != null) {
+            closeAndLogIfException(sendSession, this::getLogger);
+            this.sendSession = null;
+        }
+
+        final Session topicSession = this.topicSession;
+        if (topicSession != null) {
+            closeAndLogIfException(topicSession, this::getLogger);
+            this.topicSession = null;
+        }
+        closeAndLogIfException(session, this::getLogger);
+        closeAndLogIfException(connection, this::getLogger);
+    }
+
+    /**
+     * Called when the connection to the broker has failed,
+     * and Artemis has given up trying to reconnect it.
+     *
+     * @param exception the exception which caused the failure
+     */
+    private void onConnectionException(final JMSException exception) {
+        if (isDraining()) {
+            return;
+        }
+
+        getLogger().error("Connection to JMS Broker failed: {}", exception.getMessage(), exception);
+        if (reconnecting.compareAndSet(false, true)) {
+            scheduleReconnect(0);
+        }
+    }
+
+    private void scheduleReconnect(final int attempt) {
+        final ScheduledExecutorService reconnectExecutorService = this.reconnectExecutorService;
+        if (reconnectExecutorService == null || reconnectExecutorService.isShutdown()) {
+            reconnecting.set(false);
+            return;
+        }
+
+        final long delay = reconnectDelay(attempt, getReconnectInitialDelay(), getReconnectMaxDelay());
+        getLogger().info("Attempting reconnect {} to JMS Broker in {} ms...", attempt + 1, delay);
+        try {
+            reconnectExecutorService.schedule(() -> reconnect(attempt), delay, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // shutting down
+            reconnecting.set(false);
+        }
+    }
+
+    private void reconnect(final int attempt) {
+        if (isDraining()) {
+            reconnecting.set(false);
+            return;
+        }
+
+        closeConnection();
+        try {
+            final String clientId = getClientId();
+            connect(clientId);
+            reconnecting.set(false);
+            getLogger().info("Reconnected ClientID: {} to JMS Broker", clientId);
+        } catch (final JMSException e) {
+            getLogger().error("Unable to reconnect to JMS Broker: {}", e.getMessage());
+            closeConnection();
+            scheduleReconnect(attempt + 1);
+        }
+    }
+
+    /**
+     * Calculate the delay before a reconnect attempt,
+     * which grows exponentially up to a maximum.
+     *
+     * @param attempt the zero based reconnect attempt
+     * @param initialDelay the delay before the first attempt
+     * @param maxDelay the maximum delay
+     *
+     * @return the delay in milliseconds
+     */
+    static long reconnectDelay(final int attempt, final long initialDelay, final long maxDelay) {
+        if (attempt >= 62 || initialDelay << attempt >>> attempt != initialDelay) {
+            return maxDelay;
+        }
+        return Math.min(initialDelay << attempt, maxDelay);
+    }
+
+    /**
+     * Get the brokers to connect to.
+     *
+     * When more than one broker is given, connections are load balanced
+     * across them, and if the connection to one fails then the service
+     * will fail over to another.
+     *
+     * @return the broker endpoints
+     */
+    protected abstract List<BrokerEndpoint> getBrokerEndpoints();
+
+    protected ConnectionFactory createConnectionFactory(final List<BrokerEndpoint> brokerEndpoints) {
+        return ConnectionFactoryUtil.createConnectionFactory(brokerEndpoints);
+    }
+
+    /**
+     * Get the delay before the first attempt to re-establish
+     * a failed connection to the broker(s).
+     *
+     * @return the delay in milliseconds
+     */
+    protected long getReconnectInitialDelay() {
+        return DEFAULT_RECONNECT_INITIAL_DELAY;
+    }
+
+    /**
+     * Get the maximum delay between attempts to re-establish
+     * a failed connection to the broker(s).
+     *
+     * @return the delay in milliseconds
+     */
+    protected long getReconnectMaxDelay() {
+        return DEFAULT_RECONNECT_MAX_DELAY;
+    }
+
+    /**
+     * Get the port on which to serve the metrics of this service
+     * over HTTP.
+     *
+     * By default this is read from the system property {@link #METRICS_HTTP_PORT_PROPERTY}.
+     *
+     * @return the port, 0 to choose a free port, or a negative value to disable the HTTP endpoint
+     */
+    protected int getMetricsHttpPort() {
+        return Integer.getInteger(METRICS_HTTP_PORT_PROPERTY, -1);
+    }
+
+    /**
+     * Get any further resources to serve over HTTP alongside
+     * the metrics of this service, see {@link #getMetricsHttpPort()}.
+     *
+     * @return the paths of the resources, and their handlers
+     */
+    protected Map<String, HttpHandler> getHttpHandlers() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Get the port that the metrics HTTP endpoint is listening on.
+     *
+     * @return the port, or -1 if the endpoint is not running
+     */
+    protected int getMetricsHttpServerPort() {
+        final MetricsHttpServer metricsHttpServer = this.metricsHttpServer;
+        return metricsHttpServer == null ? -1 : metricsHttpServer.getPort();
+    }
+
+    /**
+     * Get the maximum time to wait during a graceful shutdown for
+     * in-flight messages to be handled, acknowledged and any
+     * responses sent, before the connection is closed regardless.
+     *
+     * By default this is read from the system property {@link #SHUTDOWN_DRAIN_TIMEOUT_PROPERTY}.
+     *
+     * @return the timeout in milliseconds
+     */
+    protected long getShutdownDrainTimeout() {
+        return Long.getLong(SHUTDOWN_DRAIN_TIMEOUT_PROPERTY, DEFAULT_SHUTDOWN_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * Called once the JMS connection has been closed
+     * when the service stops. Subclasses may override
+     * this to release any of their own resources.
+     */
+    protected void onStopped() {
+    }
+
+    /**
+     * Get the metrics of this service.
+     *
+     * @return the metrics, or null if the service has not been started
+     */
+    public @Nullable JMSServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void startMetricsHttpServer() {
+        final int metricsHttpPort = getMetricsHttpPort();
+        if (metricsHttpPort < 0) {
+            return;
+        }
+
+        try {
+            this.metricsHttpServer = MetricsHttpServer.start(metricsHttpPort, metrics, getHttpHandlers());
+        } catch (final IOException e) {
+            getLogger().error("Unable to start metrics HTTP server on port: {}: {}", metricsHttpPort, e.getMessage(), e);
+        }
+    }
+
+    private void stopMetrics() {
+        if (metricsHttpServer != null) {
+            closeAndLogIfException(metricsHttpServer, this::getLogger);
+            metricsHttpServer = null;
+        }
+        if (metrics != null) {
+            metrics.unregister();
         }
     }
 
@@ -135,8 +468,61 @@ public abstract class AbstractJMSService implements JMSService {
         return session.createQueue(queueName);
     }
 
+    /**
+     * Get the names of the topics that this service publishes or subscribes to.
+     *
+     * Unlike a message on a queue, which is consumed by just one
+     * of its consumers, a message on a topic is delivered to all
+     * of the services which are subscribed to it at the time.
+     *
+     * @return the names of the topics, or null if there are none
+     */
+    protected @Nullable List<String> getTopicNames() {
+        return null;
+    }
+
+    protected Topic createTopic(final Session session, final String topicName) throws JMSException {
+        return session.createTopic(topicName);
+    }
+
+    /**
+     * Get the listener for the messages of a queue or a topic.
+     *
+     * @param queueName the name of the queue or topic
+     *
+     * @return the listener, or null if the service does not consume the messages
+     */
     protected abstract @Nullable MessageListener getListener(final String queueName);
 
+    /**
+     * Get the JMS message selector which restricts the messages
+     * that are delivered to the listener of a queue or topic.
+     *
+     * @param queueName the name of the queue or topic
+     *
+     * @return the message selector, or null to receive all messages
+     */
+    protected @Nullable String getMessageSelector(final String queueName) {
+        return null;
+    }
+
+    /**
+     * Determine whether the messages of a queue or topic are still handled
+     * once a graceful shutdown has begun, i.e. whilst the in-flight messages
+     * are being drained.
+     *
+     * By default new messages are refused during a graceful shutdown, but control
+     * messages which act upon the in-flight messages, for example to cancel them,
+     * must still be handled, or they would wait out the whole drain timeout.
+     *
+     * @param queueName the name of the queue or topic
+     *
+     * @return true if the messages are handled whilst draining, false otherwise
+     */
+    protected boolean isHandledWhilstDraining(final String queueName) {
+        return false;
+    }
+
     protected MessageProducer createProducer(final Session session) throws JMSException {
         return session.createProducer(null);
     }
@@ -145,58 +531,416 @@ public abstract class AbstractJMSService implements JMSService {
         return queues.get(queueName);
     }
 
+    protected @Nullable Topic getTopic(final String topicName) {
+        return topics == null ? null : topics.get(topicName);
+    }
+
+    /**
+     * Handles the content of a message removed from a queue by
+     * {@link #drainQueue(String, String, DrainedMessageHandler)}.
+     */
+    @FunctionalInterface
+    protected interface DrainedMessageHandler {
+        void handle(String content) throws IOException, JMSException;
+    }
+
+    /**
+     * Remove all of the messages that are currently waiting on a queue
+     * and match a selector, for example to send them again to different
+     * consumers.
+     *
+     * Each message is only acknowledged once the handler has returned,
+     * if the handler throws an exception then draining stops and the
+     * message is left on the queue.
+     *
+     * @param queueName the name of the queue to drain
+     * @param messageSelector a JMS message selector for the messages to drain, or null to drain all messages
+     * @param handler the handler for the content of each text message
+     *
+     * @return the number of messages drained
+     *
+     * @throws IOException if the handler throws an IOException
+     * @throws JMSException if the queue cannot be read or the handler throws a JMSException
+     */
+    protected int drainQueue(final String queueName, @Nullable final String messageSelector, final DrainedMessageHandler handler) throws IOException, JMSException {
+        final Connection connection = this.connection;
+        if (connection == null) {
+            throw new JMSException("Not connected to a JMS Broker");
+        }
+
+        // a session with a message listener cannot also receive synchronously, so use a separate session
+        try (final Session drainSession = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+             final MessageConsumer consumer = drainSession.createConsumer(createQueue(drainSession, queueName), messageSelector)) {
+
+            int drained = 0;
+            Message message;
+            while ((message = consumer.receive(DRAIN_RECEIVE_TIMEOUT)) != null) {
+                if (message instanceof TextMessage) {
+                    handler.handle(((TextMessage) message).getText());
+                } else {
+                    getLogger().error("Discarded message with unexpected type {} whilst draining Queue: {}.", message.getClass().getName(), queueName);
+                }
+                message.acknowledge();
+                drained++;
+            }
+            return drained;
+        }
+    }
+
+    /**
+     * Deserialize the content of a message into a Data Object,
+     * recording the time taken against the queue whose
+     * message is currently being handled.
+     *
+     * @param dataObject the data object to deserialize into
+     * @param content the content of the message
+     * @param <T> the type of the data object
+     *
+     * @return the deserialized data object
+     *
+     * @throws IOException if the content cannot be deserialized
+     */
+    protected <T extends DataObject> T deserialize(final T dataObject, final String content) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            return dataObject.deserialize(content);
+        } finally {
+            final QueueMetrics queueMetrics = CURRENT_QUEUE_METRICS.get();
+            if (queueMetrics != null) {
+                queueMetrics.messageDeserialized(System.nanoTime() - start);
+            }
+        }
+    }
+
     protected boolean acknowledgeMessage(final Message message) {
+        final long start = System.nanoTime();
+        boolean failed = false;
         try {
             message.acknowledge();
             return true;
         } catch (final JMSException e) {
+            failed = true;
             getLogger().error("Unable to acknowledge message: {}", e.getMessage(), e);
             return false;
+        } finally {
+            final QueueMetrics queueMetrics = CURRENT_QUEUE_METRICS.get();
+            if (queueMetrics != null) {
+                queueMetrics.messageAcknowledged(System.nanoTime() - start, failed);
+            }
         }
     }
 
     protected void sendMessage(final DataObject message, final Queue queue) throws IOException, JMSException {
-        // send the message
-        final String content = message.serialize();
-        final TextMessage textMessage = session.createTextMessage(content);
-        producer.send(queue, textMessage);
+        sendMessage(message, queue, null);
+    }
+
+    /**
+     * Send a message to a queue.
+     *
+     * @param message the message
+     * @param queue the queue
+     * @param properties any JMS message properties to set on the message,
+     *     which consumers may select messages by
+     *
+     * @throws IOException if the message cannot be serialized
+     * @throws JMSException if the message cannot be sent
+     */
+    protected void sendMessage(final DataObject message, final Queue queue, @Nullable final Map<String, String> properties) throws IOException, JMSException {
+        sendMessage(message, queue, queue.getQueueName(), properties);
         getLogger().info("Sent {} to Queue: {}", message.getClass().getName(), queue.getQueueName());
     }
 
+    /**
+     * Publish a message to all of the current subscribers of a topic.
+     *
+     * @param message the message
+     * @param topic the topic
+     *
+     * @throws IOException if the message cannot be serialized
+     * @throws JMSException if the message cannot be sent
+     */
+    protected void sendMessage(final DataObject message, final Topic topic) throws IOException, JMSException {
+        sendMessage(message, topic, topic.getTopicName(), null);
+        getLogger().info("Sent {} to Topic: {}", message.getClass().getName(), topic.getTopicName());
+    }
+
+    private void sendMessage(final DataObject message, final Destination destination, final String queueName, @Nullable final Map<String, String> properties) throws IOException, JMSException {
+        final QueueMetrics queueMetrics = metrics.forQueue(queueName);
+        final MessageSentEvent event = new MessageSentEvent();
+        event.begin();
+
+        beginSend();
+        final long start = System.nanoTime();
+        long bytes = 0;
+        boolean failed = true;
+        try {
+            // send the message
+            final String content = message.serialize();
+            bytes = content.getBytes(StandardCharsets.UTF_8).length;
+            synchronized (sendLock) {
+                final Session sendSession = this.sendSession;
+                final MessageProducer producer = this.producer;
+                if (sendSession == null || producer == null) {
+                    throw new JMSException("Not connected to JMS Broker");
+                }
+
+                final TextMessage textMessage = sendSession.createTextMessage(content);
+                if (properties != null) {
+                    for (final Map.Entry<String, String> property : properties.entrySet()) {
+                        textMessage.setStringProperty(property.getKey(), property.getValue());
+                    }
+                }
+                producer.send(destination, textMessage);
+            }
+            failed = false;
+        } finally {
+            endSend();
+            queueMetrics.messageSent(bytes, System.nanoTime() - start, failed);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.clientId = metrics.getClientId();
+                event.queueName = queueName;
+                event.dataObjectType = message.getClass().getName();
+                event.bytes = bytes;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean isDraining() {
+        synchronized (inFlightLock) {
+            return draining;
+        }
+    }
+
+    private boolean beginHandling(final boolean handledWhilstDraining) {
+        synchronized (inFlightLock) {
+            if (draining && !handledWhilstDraining) {
+                return false;
+            }
+            inFlightHandlers++;
+            if (handledWhilstDraining) {
+                inFlightHandlersWhilstDraining++;
+            }
+            return true;
+        }
+    }
+
+    private void endHandling(final boolean handledWhilstDraining) {
+        synchronized (inFlightLock) {
+            inFlightHandlers--;
+            if (handledWhilstDraining) {
+                inFlightHandlersWhilstDraining--;
+            }
+            inFlightLock.notifyAll();
+        }
+    }
+
+    private void beginSend() {
+        synchronized (inFlightLock) {
+            inFlightSends++;
+        }
+    }
+
+    private void endSend() {
+        synchronized (inFlightLock) {
+            inFlightSends--;
+            inFlightLock.notifyAll();
+        }
+    }
+
+    /**
+     * Stop handling new messages, and wait for any
+     * in-flight messages to be handled and sent.
+     *
+     * Once the in-flight messages of the consumers which are not handled whilst
+     * draining have been handled, those consumers are closed, so that new
+     * messages are left on their queues rather than being delivered and refused,
+     * which would count towards their redelivery limit. A consumer is not closed
+     * whilst its listener is handling a message, as that would return the
+     * message to its queue.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     *
+     * @return true if there are no in-flight messages, false if the timeout elapsed
+     *
+     * @throws InterruptedException if the thread is interrupted whilst waiting
+     */
+    private boolean drain(final long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        synchronized (inFlightLock) {
+            draining = true;
+            if (!awaitInFlight(deadline, false)) {
+                return false;
+            }
+        }
+
+        // outside of the lock, as closing a consumer waits for its session to finish delivering any message
+        closeConsumersNotHandledWhilstDraining();
+
+        synchronized (inFlightLock) {
+            return awaitInFlight(deadline, true);
+        }
+    }
+
+    /**
+     * Wait for in-flight messages, must be called whilst holding the inFlightLock.
+     *
+     * @param deadline the time by which to stop waiting, as given by {@link System#nanoTime()}
+     * @param all true to wait for all in-flight messages to be handled and sent, false to wait only
+     *     for those messages being handled by listeners which are not handled whilst draining
+     *
+     * @return true if there are no such in-flight messages, false if the deadline passed
+     *
+     * @throws InterruptedException if the thread is interrupted whilst waiting
+     */
+    private boolean awaitInFlight(final long deadline, final boolean all) throws InterruptedException {
+        while (true) {
+            final int inFlight = all ? inFlightHandlers + inFlightSends : inFlightHandlers - inFlightHandlersWhilstDraining;
+            if (inFlight == 0) {
+                return true;
+            }
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            getLogger().info("Waiting for {} in-flight message(s) to complete...", inFlight);
+            inFlightLock.wait(remaining);
+        }
+    }
+
+    private void closeConsumersNotHandledWhilstDraining() {
+        closeConsumersNotHandledWhilstDraining(queueConsumers, "Queue");
+        closeConsumersNotHandledWhilstDraining(topicConsumers, "Topic");
+    }
+
+    private void closeConsumersNotHandledWhilstDraining(@Nullable final TreeMap<String, MessageConsumer> consumers, final String destinationType) {
+        if (consumers == null) {
+            return;
+        }
+
+        for (final Iterator<Map.Entry<String, MessageConsumer>> iterator = consumers.descendingMap().entrySet().iterator(); iterator.hasNext(); ) {
+            final Map.Entry<String, MessageConsumer> consumer = iterator.next();
+            if (!isHandledWhilstDraining(consumer.getKey())) {
+                closeAndLogIfException(consumer.getValue(), this::getLogger);
+                iterator.remove();
+                getLogger().info("Stopped listening to {}: {}", destinationType, consumer.getKey());
+            }
+        }
+    }
+
+    /**
+     * Wraps the MessageListener of a queue to record
+     * metrics and JFR events for each message, and to
+     * refuse new messages once shutdown has begun, unless
+     * its messages are handled whilst draining.
+     */
+    private class InstrumentedMessageListener implements MessageListener {
+        private final String clientId;
+        private final QueueMetrics queueMetrics;
+        private final MessageListener listener;
+        private final boolean handledWhilstDraining;
+
+        InstrumentedMessageListener(final String clientId, final QueueMetrics queueMetrics, final MessageListener listener, final boolean handledWhilstDraining) {
+            this.clientId = clientId;
+            this.queueMetrics = queueMetrics;
+            this.listener = listener;
+            this.handledWhilstDraining = handledWhilstDraining;
+        }
+
+        @Override
+        public void onMessage(final Message message) {
+            if (!beginHandling(handledWhilstDraining)) {
+                // shutting down, leave the message unacknowledged so that it is redelivered
+                return;
+            }
+
+            final long bytes = payloadBytes(message);
+            queueMetrics.messageReceived(bytes);
+
+            final MessageReceivedEvent event = new MessageReceivedEvent();
+            event.begin();
+
+            final long start = System.nanoTime();
+            boolean failed = true;
+            CURRENT_QUEUE_METRICS.set(queueMetrics);
+            try {
+                listener.onMessage(message);
+                failed = false;
+            } finally {
+                CURRENT_QUEUE_METRICS.remove();
+                endHandling(handledWhilstDraining);
+                queueMetrics.messageHandled(System.nanoTime() - start, failed);
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.clientId = clientId;
+                    event.queueName = queueMetrics.getQueueName();
+                    event.bytes = bytes;
+                    event.failed = failed;
+                    event.commit();
+                }
+            }
+        }
+
+        private long payloadBytes(final Message message) {
+            if (message instanceof TextMessage) {
+                try {
+                    final String text = ((TextMessage) message).getText();
+                    return text == null ? 0 : text.getBytes(StandardCharsets.UTF_8).length;
+                } catch (final JMSException e) {
+                    return 0;
+                }
+            }
+            return 0;
+        }
+    }
+
     protected class JMSServiceCallable implements Callable<Void> {
+        private final CountDownLatch shutdownLatch;
+
+        public JMSServiceCallable(final CountDownLatch shutdownLatch) {
+            this.shutdownLatch = shutdownLatch;
+        }
 
         @Override
         public Void call() throws Exception {
             try {
 
-                // loop and sleep... until InterruptedException
-                while (true) {
-                    Thread.sleep(5000);
+                // wait until asked to shutdown
+                shutdownLatch.await();
+
+                // graceful shutdown, wait for in-flight messages before closing
+                final long drainTimeout = getShutdownDrainTimeout();
+                if (!drain(drainTimeout)) {
+                    getLogger().warn("Timed out after {} ms waiting for in-flight messages, closing anyway", drainTimeout);
                 }
 
+                closeJms();
+                return null;
+
             } catch (final Exception e) {
                 if (e instanceof InterruptedException) {
                     Thread.currentThread().interrupt();  // restore interrupt flag
                 }
 
-                // attempt JMS shutdown
-                if (connection != null) {
-                    closeAndLogIfException(connection::stop, AbstractJMSService.this::getLogger);
-                }
-
-                for (final MessageConsumer queueConsumer : queueConsumers.descendingMap().values()) {
-                    closeAndLogIfException(queueConsumer, AbstractJMSService.this::getLogger);
-                }
-
-                if (producer != null) {
-                    closeAndLogIfException(producer, AbstractJMSService.this::getLogger);
-                }
-
-                closeAndLogIfException(session, AbstractJMSService.this::getLogger);
-                closeAndLogIfException(connection, AbstractJMSService.this::getLogger);
+                // attempt immediate JMS shutdown
+                closeJms();
 
                 throw e;
             }
         }
+
+        private void closeJms() {
+            if (reconnectExecutorService != null) {
+                reconnectExecutorService.shutdownNow();
+            }
+
+            closeConnection();
+            stopMetrics();
+            onStopped();
+        }
     }
 }
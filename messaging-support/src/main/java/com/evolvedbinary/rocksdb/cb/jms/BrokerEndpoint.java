@@ -0,0 +1,142 @@
+package com.evolvedbinary.rocksdb.cb.jms;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
+import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Map;
+
+/**
+ * The network address of an Artemis Broker.
+ */
+public class BrokerEndpoint {
+
+    private final String host;
+    private final int port;
+
+    public BrokerEndpoint(final String host, final int port) {
+        if (host == null || host.isEmpty()) {
+            throw new IllegalArgumentException("Broker host must be specified");
+        }
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("Broker port must be between 1 and 65535, but was: " + port);
+        }
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Parse a broker endpoint of the form {@code host:port}.
+     *
+     * @param endpoint the endpoint string
+     *
+     * @return the broker endpoint
+     *
+     * @throws IllegalArgumentException if the endpoint is not of the form {@code host:port}
+     */
+    public static BrokerEndpoint parse(final String endpoint) {
+        final String trimmed = endpoint.trim();
+        final int idxColon = trimmed.lastIndexOf(':');
+        if (idxColon <= 0 || idxColon == trimmed.length() - 1) {
+            throw new IllegalArgumentException("Broker endpoint must be of the form host:port, but was: " + endpoint);
+        }
+
+        final String host = trimmed.substring(0, idxColon);
+        final int port;
+        try {
+            port = Integer.parseInt(trimmed.substring(idxColon + 1));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Broker endpoint has an invalid port: " + endpoint);
+        }
+        return new BrokerEndpoint(host, port);
+    }
+
+    /**
+     * Parse a comma separated list of broker endpoints,
+     * each of the form {@code host:port}.
+     *
+     * @param endpoints the comma separated endpoints
+     *
+     * @return the broker endpoints
+     *
+     * @throws IllegalArgumentException if any endpoint is invalid, or no endpoints are specified
+     */
+    public static List<BrokerEndpoint> parseList(final String endpoints) {
+        final List<BrokerEndpoint> brokerEndpoints = new ArrayList<>();
+        for (final String endpoint : endpoints.split(",")) {
+            if (!endpoint.trim().isEmpty()) {
+                brokerEndpoints.add(parse(endpoint));
+            }
+        }
+        if (brokerEndpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one broker endpoint must be specified");
+        }
+        return brokerEndpoints;
+    }
+
+    /**
+     * Parse the broker endpoints given on the command line, either as a
+     * comma separated list of {@code host:port}, or as a single host and port.
+     *
+     * @param endpoints the comma separated endpoints, or null or empty to use the host and port
+     * @param host the host of the broker, used if no endpoints are specified
+     * @param port the port of the broker, used if no endpoints are specified
+     *
+     * @return the broker endpoints
+     *
+     * @throws IllegalArgumentException if any endpoint is invalid
+     */
+    public static List<BrokerEndpoint> parseList(@Nullable final String endpoints, final String host, final int port) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            return Collections.singletonList(new BrokerEndpoint(host, port));
+        }
+        return parseList(endpoints);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Get the parameters for a Netty transport configuration
+     * which connects to this broker.
+     *
+     * @return the transport configuration parameters
+     */
+    public Map<String, Object> toTransportConfigurationParameters() {
+        return Map(
+                Entry("host", host),
+                Entry("port", port)
+        );
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final BrokerEndpoint that = (BrokerEndpoint) o;
+
+        if (port != that.port) return false;
+        return host.equals(that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = host.hashCode();
+        result = 31 * result + port;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,63 @@
+package com.evolvedbinary.rocksdb.cb.jms;
+
+import org.apache.activemq.artemis.api.core.TransportConfiguration;
+import org.apache.activemq.artemis.api.core.client.loadbalance.RoundRobinConnectionLoadBalancingPolicy;
+import org.apache.activemq.artemis.api.jms.ActiveMQJMSClient;
+import org.apache.activemq.artemis.api.jms.JMSFactoryType;
+import org.apache.activemq.artemis.core.remoting.impl.netty.NettyConnectorFactory;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+
+import javax.jms.ConnectionFactory;
+import java.util.List;
+
+public interface ConnectionFactoryUtil {
+
+    /**
+     * Number of times Artemis will try to transparently re-establish
+     * a failed connection before reporting the failure to the
+     * connection's {@link javax.jms.ExceptionListener}.
+     */
+    int RECONNECT_ATTEMPTS = 3;
+    long RETRY_INTERVAL = 500;
+    double RETRY_INTERVAL_MULTIPLIER = 2.0;
+    long MAX_RETRY_INTERVAL = 5000;
+
+    /**
+     * Create a JMS Connection Factory for one or more Artemis Brokers.
+     *
+     * For a single broker, a simple non-HA connection factory is created.
+     * For multiple brokers, an HA connection factory is created which
+     * learns the cluster topology from whichever broker it first connects
+     * to, and distributes connections across the brokers in a round-robin
+     * fashion.
+     *
+     * @param brokerEndpoints the brokers to connect to
+     *
+     * @return the connection factory
+     */
+    static ConnectionFactory createConnectionFactory(final List<BrokerEndpoint> brokerEndpoints) {
+        if (brokerEndpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one broker endpoint must be specified");
+        }
+
+        final TransportConfiguration[] transportConfigurations = new TransportConfiguration[brokerEndpoints.size()];
+        for (int i = 0; i < transportConfigurations.length; i++) {
+            transportConfigurations[i] = new TransportConfiguration(NettyConnectorFactory.class.getName(), brokerEndpoints.get(i).toTransportConfigurationParameters());
+        }
+
+        final ActiveMQConnectionFactory connectionFactory;
+        if (transportConfigurations.length == 1) {
+            connectionFactory = ActiveMQJMSClient.createConnectionFactoryWithoutHA(JMSFactoryType.CF, transportConfigurations);
+        } else {
+            connectionFactory = ActiveMQJMSClient.createConnectionFactoryWithHA(JMSFactoryType.CF, transportConfigurations);
+            connectionFactory.setConnectionLoadBalancingPolicyClassName(RoundRobinConnectionLoadBalancingPolicy.class.getName());
+        }
+
+        connectionFactory.setReconnectAttempts(RECONNECT_ATTEMPTS);
+        connectionFactory.setRetryInterval(RETRY_INTERVAL);
+        connectionFactory.setRetryIntervalMultiplier(RETRY_INTERVAL_MULTIPLIER);
+        connectionFactory.setMaxRetryInterval(MAX_RETRY_INTERVAL);
+
+        return connectionFactory;
+    }
+}
@@ -4,6 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -16,12 +18,14 @@ public class JMSServiceInstance implements Closeable {
     private final ExecutorService executorService;
     private final String jmsClientId;
     private final AtomicReference<JMSServiceState> jmsServiceState;
+    private final CountDownLatch shutdownLatch;
     private final Future<?> jmsServiceFuture;
 
-    JMSServiceInstance(final ExecutorService executorService, final String jmsClientId, final AtomicReference<JMSServiceState> jmsServiceState, final Future<?> jmsServiceFuture) {
+    JMSServiceInstance(final ExecutorService executorService, final String jmsClientId, final AtomicReference<JMSServiceState> jmsServiceState, final CountDownLatch shutdownLatch, final Future<?> jmsServiceFuture) {
         this.executorService = executorService;
         this.jmsClientId = jmsClientId;
         this.jmsServiceState = jmsServiceState;
+        this.shutdownLatch = shutdownLatch;
         this.jmsServiceFuture = jmsServiceFuture;
     }
 
@@ -42,19 +46,41 @@ public class JMSServiceInstance implements Closeable {
 
         } catch (final ExecutionException e) {
             LOGGER.error("JMSServiceInstance for ClientID: " + jmsClientId + " raised an exception: " + e.getMessage(), e);
+        } catch (final CancellationException e) {
+            LOGGER.warn("JMSServiceInstance for ClientID: {} was cancelled", jmsClientId);
         } finally {
-            jmsServiceState.set(JMSServiceState.IDLE);
+            jmsServiceState.compareAndSet(JMSServiceState.AWAITING_SHUTDOWN, JMSServiceState.IDLE);
         }
     }
 
+    /**
+     * Gracefully shutdown the JMSService.
+     *
+     * New messages are no longer handled, in-flight messages are
+     * given time to complete, and then the connection is closed.
+     * This method blocks until the shutdown is complete.
+     *
+     * If the calling thread is interrupted whilst waiting,
+     * the JMSService is shutdown immediately.
+     */
     @Override
     public void close() {
-        if (!jmsServiceState.compareAndSet(JMSServiceState.RUNNING, JMSServiceState.SHUTTING_DOWN)) {
+        if (!jmsServiceState.compareAndSet(JMSServiceState.RUNNING, JMSServiceState.SHUTTING_DOWN)
+                && !jmsServiceState.compareAndSet(JMSServiceState.AWAITING_SHUTDOWN, JMSServiceState.SHUTTING_DOWN)) {
             throw new IllegalStateException("Not running");
         }
 
         try {
-            jmsServiceFuture.cancel(true);
+            shutdownLatch.countDown();
+
+            try {
+                jmsServiceFuture.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();  // restore interrupt flag
+                jmsServiceFuture.cancel(true);
+            } catch (final ExecutionException e) {
+                LOGGER.error("JMSServiceInstance for ClientID: " + jmsClientId + " raised an exception: " + e.getMessage(), e);
+            }
 
             if (!executorService.isShutdown()) {
                 executorService.shutdownNow();
@@ -0,0 +1,165 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Registry of the {@link QueueMetrics} for each Queue
+ * used by a single JMS Service.
+ *
+ * Each {@link QueueMetrics} is registered as an MBean named
+ * {@code com.evolvedbinary.rocksdb.cb:type=JMSService,clientId=<clientId>,queue=<queueName>}.
+ */
+public class JMSServiceMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JMSServiceMetrics.class);
+
+    static final String JMX_DOMAIN = "com.evolvedbinary.rocksdb.cb";
+
+    private final String clientId;
+    private final Map<String, QueueMetrics> queueMetrics = new ConcurrentSkipListMap<>();
+    private final Map<String, ObjectName> registeredMBeans = new ConcurrentHashMap<>();
+
+    public JMSServiceMetrics(final String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Get the metrics for a Queue, creating and
+     * registering them with JMX if needed.
+     *
+     * @param queueName the name of the queue
+     *
+     * @return the metrics for the queue
+     */
+    public QueueMetrics forQueue(final String queueName) {
+        return queueMetrics.computeIfAbsent(queueName, name -> {
+            final QueueMetrics metrics = new QueueMetrics(name);
+            registerMBean(metrics);
+            return metrics;
+        });
+    }
+
+    public Map<String, QueueMetrics> getQueueMetrics() {
+        return queueMetrics;
+    }
+
+    private void registerMBean(final QueueMetrics metrics) {
+        try {
+            final ObjectName objectName = objectName(clientId, metrics.getQueueName());
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(metrics, objectName);
+            registeredMBeans.put(metrics.getQueueName(), objectName);
+        } catch (final InstanceAlreadyExistsException e) {
+            LOGGER.warn("MBean for Queue: {} is already registered: {}", metrics.getQueueName(), e.getMessage());
+        } catch (final JMException e) {
+            LOGGER.error("Unable to register MBean for Queue: {}: {}", metrics.getQueueName(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Unregister all MBeans registered by this registry.
+     */
+    public void unregister() {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (final ObjectName objectName : registeredMBeans.values()) {
+            try {
+                if (mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            } catch (final JMException e) {
+                LOGGER.error("Unable to unregister MBean: {}: {}", objectName, e.getMessage(), e);
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    static ObjectName objectName(final String clientId, final String queueName) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=JMSService,clientId=" + ObjectName.quote(clientId) + ",queue=" + ObjectName.quote(queueName));
+    }
+
+    /**
+     * Write the metrics in the Prometheus text exposition format.
+     *
+     * @param builder the builder to append the metrics to
+     */
+    public void writePrometheus(final StringBuilder builder) {
+        counter(builder, "cb_jms_messages_received_total", "Messages received from the queue", QueueMetrics::getMessagesReceived);
+        counter(builder, "cb_jms_messages_failed_total", "Messages whose handler threw an exception", QueueMetrics::getMessagesFailed);
+        counter(builder, "cb_jms_messages_acknowledged_total", "Messages acknowledged", QueueMetrics::getMessagesAcknowledged);
+        counter(builder, "cb_jms_acknowledge_failures_total", "Messages which could not be acknowledged", QueueMetrics::getAcknowledgeFailures);
+        counter(builder, "cb_jms_messages_sent_total", "Messages sent to the queue", QueueMetrics::getMessagesSent);
+        counter(builder, "cb_jms_send_failures_total", "Messages which could not be sent", QueueMetrics::getSendFailures);
+        counter(builder, "cb_jms_received_bytes_total", "Payload bytes received from the queue", QueueMetrics::getBytesReceived);
+        counter(builder, "cb_jms_sent_bytes_total", "Payload bytes sent to the queue", QueueMetrics::getBytesSent);
+
+        builder.append("# HELP cb_jms_in_flight Messages currently being handled\n");
+        builder.append("# TYPE cb_jms_in_flight gauge\n");
+        for (final QueueMetrics metrics : queueMetrics.values()) {
+            sample(builder, "cb_jms_in_flight", metrics.getQueueName(), null, metrics.getInFlight());
+        }
+
+        summary(builder, "cb_jms_deserialize_seconds", "Time to deserialize a message", QueueMetrics::getDeserializeTime);
+        summary(builder, "cb_jms_handler_seconds", "Time to handle a message", QueueMetrics::getHandlerTime);
+        summary(builder, "cb_jms_acknowledge_seconds", "Time to acknowledge a message", QueueMetrics::getAcknowledgeTime);
+        summary(builder, "cb_jms_send_seconds", "Time to send a message", QueueMetrics::getSendTime);
+    }
+
+    private void counter(final StringBuilder builder, final String name, final String help, final ToLongFunction<QueueMetrics> value) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" counter\n");
+        for (final QueueMetrics metrics : queueMetrics.values()) {
+            sample(builder, name, metrics.getQueueName(), null, value.applyAsLong(metrics));
+        }
+    }
+
+    private void summary(final StringBuilder builder, final String name, final String help, final Function<QueueMetrics, LatencyHistogram> histogram) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" summary\n");
+        for (final QueueMetrics metrics : queueMetrics.values()) {
+            final LatencyHistogram h = histogram.apply(metrics);
+            sample(builder, name, metrics.getQueueName(), "0.5", seconds(h.getPercentile(50)));
+            sample(builder, name, metrics.getQueueName(), "0.99", seconds(h.getPercentile(99)));
+            sample(builder, name, metrics.getQueueName(), "1", seconds(h.getMax()));
+            sample(builder, name + "_sum", metrics.getQueueName(), null, seconds(h.getSum()));
+            sample(builder, name + "_count", metrics.getQueueName(), null, h.getCount());
+        }
+    }
+
+    private void sample(final StringBuilder builder, final String name, final String queueName, @Nullable final String quantile, final Number value) {
+        builder.append(name)
+                .append("{clientId=\"").append(escape(clientId))
+                .append("\",queue=\"").append(escape(queueName)).append('"');
+        if (quantile != null) {
+            builder.append(",quantile=\"").append(quantile).append('"');
+        }
+        builder.append("} ").append(value).append('\n');
+    }
+
+    private static double seconds(final long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static String escape(final String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
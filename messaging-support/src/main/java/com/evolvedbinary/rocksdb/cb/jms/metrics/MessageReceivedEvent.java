@@ -0,0 +1,34 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering the handling of a message
+ * received by a JMS Service.
+ */
+@Name("com.evolvedbinary.rocksdb.cb.jms.MessageReceived")
+@Label("JMS Message Received")
+@Category({"RocksDB Continuous Benchmark", "JMS"})
+@Description("Handling of a message received from a JMS Queue")
+@StackTrace(false)
+public class MessageReceivedEvent extends Event {
+
+    @Label("Client ID")
+    public String clientId;
+
+    @Label("Queue")
+    public String queueName;
+
+    @Label("Payload Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Failed")
+    public boolean failed;
+}
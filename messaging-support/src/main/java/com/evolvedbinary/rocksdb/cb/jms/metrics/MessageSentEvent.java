@@ -0,0 +1,37 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering the sending of a message
+ * by a JMS Service.
+ */
+@Name("com.evolvedbinary.rocksdb.cb.jms.MessageSent")
+@Label("JMS Message Sent")
+@Category({"RocksDB Continuous Benchmark", "JMS"})
+@Description("Sending of a message to a JMS Queue")
+@StackTrace(false)
+public class MessageSentEvent extends Event {
+
+    @Label("Client ID")
+    public String clientId;
+
+    @Label("Queue")
+    public String queueName;
+
+    @Label("Data Object")
+    public String dataObjectType;
+
+    @Label("Payload Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Failed")
+    public boolean failed;
+}
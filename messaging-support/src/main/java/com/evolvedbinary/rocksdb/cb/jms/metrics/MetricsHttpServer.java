@@ -0,0 +1,109 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A minimal HTTP server which exposes the metrics of a
+ * JMS Service at {@code GET /metrics} in the Prometheus
+ * text exposition format.
+ *
+ * A service may also serve its own resources from the
+ * same server, so that it only needs a single HTTP port.
+ */
+public class MetricsHttpServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsHttpServer.class);
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private MetricsHttpServer(final HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Start a metrics HTTP server.
+     *
+     * @param port the port to listen on, or 0 to choose a free port
+     * @param metrics the metrics to expose
+     *
+     * @return the running server
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public static MetricsHttpServer start(final int port, final JMSServiceMetrics metrics) throws IOException {
+        return start(port, metrics, Collections.emptyMap());
+    }
+
+    /**
+     * Start a metrics HTTP server which also serves further resources.
+     *
+     * @param port the port to listen on, or 0 to choose a free port
+     * @param metrics the metrics to expose
+     * @param handlers the paths of further resources, and their handlers
+     *
+     * @return the running server
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public static MetricsHttpServer start(final int port, final JMSServiceMetrics metrics, final Map<String, HttpHandler> handlers) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, metrics.getClientId() + "-Metrics-Thread");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/metrics", exchange -> handle(exchange, metrics));
+        for (final Map.Entry<String, HttpHandler> handler : handlers.entrySet()) {
+            server.createContext(handler.getKey(), handler.getValue());
+        }
+        server.start();
+        LOGGER.info("Serving metrics for ClientID: {} on port: {}", metrics.getClientId(), server.getAddress().getPort());
+        return new MetricsHttpServer(server);
+    }
+
+    private static void handle(final HttpExchange exchange, final JMSServiceMetrics metrics) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            final StringBuilder builder = new StringBuilder();
+            metrics.writePrometheus(builder);
+            final byte[] body = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+}
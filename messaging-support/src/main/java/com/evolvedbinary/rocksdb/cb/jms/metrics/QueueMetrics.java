@@ -0,0 +1,193 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for a single JMS Queue
+ * used by a JMS Service.
+ *
+ * Times are recorded in nanoseconds, and reported
+ * to JMX in microseconds.
+ */
+public class QueueMetrics implements QueueMetricsMXBean {
+
+    private final String queueName;
+
+    final LongAdder messagesReceived = new LongAdder();
+    final LongAdder messagesFailed = new LongAdder();
+    final LongAdder messagesAcknowledged = new LongAdder();
+    final LongAdder acknowledgeFailures = new LongAdder();
+    final LongAdder messagesSent = new LongAdder();
+    final LongAdder sendFailures = new LongAdder();
+    final LongAdder bytesReceived = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+    final AtomicLong inFlight = new AtomicLong();
+
+    final LatencyHistogram deserializeTime = new LatencyHistogram();
+    final LatencyHistogram handlerTime = new LatencyHistogram();
+    final LatencyHistogram acknowledgeTime = new LatencyHistogram();
+    final LatencyHistogram sendTime = new LatencyHistogram();
+
+    public QueueMetrics(final String queueName) {
+        this.queueName = queueName;
+    }
+
+    public void messageReceived(final long bytes) {
+        messagesReceived.increment();
+        bytesReceived.add(bytes);
+        inFlight.incrementAndGet();
+    }
+
+    public void messageHandled(final long handlerNanos, final boolean failed) {
+        inFlight.decrementAndGet();
+        handlerTime.record(handlerNanos);
+        if (failed) {
+            messagesFailed.increment();
+        }
+    }
+
+    public void messageDeserialized(final long deserializeNanos) {
+        deserializeTime.record(deserializeNanos);
+    }
+
+    public void messageAcknowledged(final long acknowledgeNanos, final boolean failed) {
+        acknowledgeTime.record(acknowledgeNanos);
+        if (failed) {
+            acknowledgeFailures.increment();
+        } else {
+            messagesAcknowledged.increment();
+        }
+    }
+
+    public void messageSent(final long bytes, final long sendNanos, final boolean failed) {
+        sendTime.record(sendNanos);
+        if (failed) {
+            sendFailures.increment();
+        } else {
+            messagesSent.increment();
+            bytesSent.add(bytes);
+        }
+    }
+
+    public LatencyHistogram getDeserializeTime() {
+        return deserializeTime;
+    }
+
+    public LatencyHistogram getHandlerTime() {
+        return handlerTime;
+    }
+
+    public LatencyHistogram getAcknowledgeTime() {
+        return acknowledgeTime;
+    }
+
+    public LatencyHistogram getSendTime() {
+        return sendTime;
+    }
+
+    @Override
+    public String getQueueName() {
+        return queueName;
+    }
+
+    @Override
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    @Override
+    public long getMessagesFailed() {
+        return messagesFailed.sum();
+    }
+
+    @Override
+    public long getMessagesAcknowledged() {
+        return messagesAcknowledged.sum();
+    }
+
+    @Override
+    public long getAcknowledgeFailures() {
+        return acknowledgeFailures.sum();
+    }
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    @Override
+    public long getSendFailures() {
+        return sendFailures.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public double getDeserializeTimeMeanMicros() {
+        return deserializeTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getDeserializeTimeP99Micros() {
+        return micros(deserializeTime.getPercentile(99));
+    }
+
+    @Override
+    public double getHandlerTimeMeanMicros() {
+        return handlerTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getHandlerTimeP50Micros() {
+        return micros(handlerTime.getPercentile(50));
+    }
+
+    @Override
+    public long getHandlerTimeP99Micros() {
+        return micros(handlerTime.getPercentile(99));
+    }
+
+    @Override
+    public long getHandlerTimeMaxMicros() {
+        return micros(handlerTime.getMax());
+    }
+
+    @Override
+    public double getAcknowledgeTimeMeanMicros() {
+        return acknowledgeTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getAcknowledgeTimeP99Micros() {
+        return micros(acknowledgeTime.getPercentile(99));
+    }
+
+    @Override
+    public double getSendTimeMeanMicros() {
+        return sendTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getSendTimeP99Micros() {
+        return micros(sendTime.getPercentile(99));
+    }
+
+    private static long micros(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,50 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+/**
+ * JMX view of the metrics for a single JMS Queue
+ * used by a JMS Service.
+ *
+ * All times are reported in microseconds.
+ */
+public interface QueueMetricsMXBean {
+
+    String getQueueName();
+
+    long getMessagesReceived();
+
+    long getMessagesFailed();
+
+    long getMessagesAcknowledged();
+
+    long getAcknowledgeFailures();
+
+    long getMessagesSent();
+
+    long getSendFailures();
+
+    long getBytesReceived();
+
+    long getBytesSent();
+
+    long getInFlight();
+
+    double getDeserializeTimeMeanMicros();
+
+    long getDeserializeTimeP99Micros();
+
+    double getHandlerTimeMeanMicros();
+
+    long getHandlerTimeP50Micros();
+
+    long getHandlerTimeP99Micros();
+
+    long getHandlerTimeMaxMicros();
+
+    double getAcknowledgeTimeMeanMicros();
+
+    long getAcknowledgeTimeP99Micros();
+
+    double getSendTimeMeanMicros();
+
+    long getSendTimeP99Micros();
+}
@@ -0,0 +1,59 @@
+package com.evolvedbinary.rocksdb.cb.jms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BrokerEndpointTest {
+
+    @Test
+    public void parse() {
+        assertEquals(new BrokerEndpoint("localhost", 61616), BrokerEndpoint.parse("localhost:61616"));
+        assertEquals(new BrokerEndpoint("10.0.0.1", 1234), BrokerEndpoint.parse(" 10.0.0.1:1234 "));
+    }
+
+    @Test
+    public void parseInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parse("localhost"));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parse(":61616"));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parse("localhost:"));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parse("localhost:abc"));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parse("localhost:70000"));
+    }
+
+    @Test
+    public void parseList() {
+        assertEquals(
+                Arrays.asList(new BrokerEndpoint("broker1", 61616), new BrokerEndpoint("broker2", 61617)),
+                BrokerEndpoint.parseList("broker1:61616, broker2:61617,"));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parseList(" , "));
+    }
+
+    @Test
+    public void parseListOrHostAndPort() {
+        assertEquals(
+                Collections.singletonList(new BrokerEndpoint("localhost", 61616)),
+                BrokerEndpoint.parseList(null, "localhost", 61616));
+        assertEquals(
+                Collections.singletonList(new BrokerEndpoint("localhost", 61616)),
+                BrokerEndpoint.parseList("", "localhost", 61616));
+        assertEquals(
+                Arrays.asList(new BrokerEndpoint("broker1", 61616), new BrokerEndpoint("broker2", 61617)),
+                BrokerEndpoint.parseList("broker1:61616,broker2:61617", "localhost", 61616));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parseList("broker1", "localhost", 61616));
+        assertThrows(IllegalArgumentException.class, () -> BrokerEndpoint.parseList(null, "localhost", 0));
+    }
+
+    @Test
+    public void reconnectDelay() {
+        assertEquals(1000, AbstractJMSService.reconnectDelay(0, 1000, 60000));
+        assertEquals(2000, AbstractJMSService.reconnectDelay(1, 1000, 60000));
+        assertEquals(32000, AbstractJMSService.reconnectDelay(5, 1000, 60000));
+        assertEquals(60000, AbstractJMSService.reconnectDelay(6, 1000, 60000));
+        assertEquals(60000, AbstractJMSService.reconnectDelay(100, 1000, 60000));
+    }
+}
@@ -0,0 +1,207 @@
+package com.evolvedbinary.rocksdb.cb.jms;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.junit.EmbeddedJMSResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks that a JMS Service configured with two brokers
+ * fails over to the second broker when the first is stopped.
+ */
+public class BrokerFailoverIT {
+
+    private static final String REQUEST_QUEUE_NAME = "TestRequestQueue";
+    private static final String RESPONSE_QUEUE_NAME = "TestResponseQueue";
+
+    private static final int BROKER_1_PORT = 61716;
+    private static final int BROKER_2_PORT = 61717;
+
+    private static final long FAILOVER_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    private EmbeddedJMSResource broker1;
+    private EmbeddedJMSResource broker2;
+
+    @BeforeEach
+    public void startBrokers() throws Exception {
+        broker1 = new EmbeddedJMSResource(1).addAcceptor("netty", "tcp://localhost:" + BROKER_1_PORT);
+        broker1.start();
+        broker2 = new EmbeddedJMSResource(2).addAcceptor("netty", "tcp://localhost:" + BROKER_2_PORT);
+        broker2.start();
+    }
+
+    @AfterEach
+    public void stopBrokers() {
+        if (broker2 != null) {
+            broker2.stop();
+        }
+        if (broker1 != null) {
+            broker1.stop();
+        }
+    }
+
+    @Test
+    public void failoverToSecondBroker() throws IOException, JMSException, InterruptedException {
+        final List<BrokerEndpoint> brokerEndpoints = Arrays.asList(
+                new BrokerEndpoint("localhost", BROKER_1_PORT),
+                new BrokerEndpoint("localhost", BROKER_2_PORT)
+        );
+        final EchoService echoService = new EchoService(brokerEndpoints);
+
+        final JMSServiceInstance instance = echoService.runAsync();
+        try {
+            // find the broker the service is consuming from
+            final EmbeddedJMSResource connectedBroker = awaitConsumer(broker1, broker2);
+            final EmbeddedJMSResource otherBroker = connectedBroker == broker1 ? broker2 : broker1;
+            final int otherBrokerPort = connectedBroker == broker1 ? BROKER_2_PORT : BROKER_1_PORT;
+
+            final BuildRequest buildRequest1 = new BuildRequest("facebook/rocksdb", "refs/heads/main", "abcdef1", "adamretter");
+            assertEcho(connectedBroker == broker1 ? BROKER_1_PORT : BROKER_2_PORT, buildRequest1);
+
+            // stop the broker, the service should fail over to the other broker
+            connectedBroker.stop();
+            if (connectedBroker == broker1) {
+                broker1 = null;
+            } else {
+                broker2 = null;
+            }
+
+            assertTrue(awaitConsumer(otherBroker) == otherBroker);
+
+            final BuildRequest buildRequest2 = new BuildRequest("facebook/rocksdb", "refs/heads/main", "abcdef2", "adamretter");
+            assertEcho(otherBrokerPort, buildRequest2);
+
+        } finally {
+            instance.close();
+        }
+    }
+
+    private static void assertEcho(final int brokerPort, final BuildRequest buildRequest) throws IOException, JMSException {
+        final ConnectionFactory connectionFactory = ConnectionFactoryUtil.createConnectionFactory(Collections.singletonList(new BrokerEndpoint("localhost", brokerPort)));
+        try (final Connection connection = connectionFactory.createConnection();
+             final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+             final MessageProducer producer = session.createProducer(session.createQueue(REQUEST_QUEUE_NAME));
+             final MessageConsumer consumer = session.createConsumer(session.createQueue(RESPONSE_QUEUE_NAME))) {
+            connection.start();
+
+            producer.send(session.createTextMessage(buildRequest.serialize()));
+
+            final Message message = consumer.receive(FAILOVER_TIMEOUT);
+            assertNotNull(message);
+            assertTrue(message instanceof TextMessage);
+            assertEquals(buildRequest, new BuildRequest().deserialize(((TextMessage) message).getText()));
+        }
+    }
+
+    private static EmbeddedJMSResource awaitConsumer(final EmbeddedJMSResource... brokers) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + FAILOVER_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            for (final EmbeddedJMSResource broker : brokers) {
+                if (consumerCount(broker) > 0) {
+                    return broker;
+                }
+            }
+            Thread.sleep(100);
+        }
+        fail("Timed out waiting for a consumer of: " + REQUEST_QUEUE_NAME);
+        return null;
+    }
+
+    private static int consumerCount(final EmbeddedJMSResource broker) {
+        try {
+            final Queue queue = broker.getDestinationQueue(REQUEST_QUEUE_NAME);
+            return queue == null ? 0 : queue.getConsumerCount();
+        } catch (final RuntimeException e) {
+            // queue does not yet exist
+            return 0;
+        }
+    }
+
+    /**
+     * Sends each BuildRequest received on the request queue
+     * to the response queue.
+     */
+    private static class EchoService extends AbstractJMSService {
+        private static final Logger LOGGER = LoggerFactory.getLogger(EchoService.class);
+
+        private final AtomicReference<JMSServiceState> state = new AtomicReference<>(JMSServiceState.IDLE);
+        private final List<BrokerEndpoint> brokerEndpoints;
+
+        EchoService(final List<BrokerEndpoint> brokerEndpoints) {
+            this.brokerEndpoints = brokerEndpoints;
+        }
+
+        @Override
+        protected Logger getLogger() {
+            return LOGGER;
+        }
+
+        @Override
+        protected List<BrokerEndpoint> getBrokerEndpoints() {
+            return brokerEndpoints;
+        }
+
+        @Override
+        protected AtomicReference<JMSServiceState> getState() {
+            return state;
+        }
+
+        @Override
+        protected String getClientId() {
+            return "echo-service";
+        }
+
+        @Override
+        protected long getReconnectInitialDelay() {
+            return 100;
+        }
+
+        @Override
+        protected @Nullable List<String> getQueueNames() {
+            return Arrays.asList(REQUEST_QUEUE_NAME, RESPONSE_QUEUE_NAME);
+        }
+
+        @Override
+        protected @Nullable MessageListener getListener(final String queueName) {
+            if (!REQUEST_QUEUE_NAME.equals(queueName)) {
+                return null;
+            }
+
+            return message -> {
+                try {
+                    final BuildRequest buildRequest = deserialize(new BuildRequest(), ((TextMessage) message).getText());
+                    sendMessage(buildRequest, getQueue(RESPONSE_QUEUE_NAME));
+                    acknowledgeMessage(message);
+                } catch (final IOException | JMSException e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.evolvedbinary.rocksdb.cb.jms;
+
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.junit.EmbeddedJMSResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks that a JMS Service which is draining its in-flight
+ * messages during a graceful shutdown stops the delivery of
+ * new messages from its queues, but still handles the
+ * messages of a topic which are handled whilst draining.
+ */
+public class ShutdownDrainIT {
+
+    private static final String REQUEST_QUEUE_NAME = "TestRequestQueue";
+    private static final String CONTROL_TOPIC_NAME = "TestControlTopic";
+
+    private static final int BROKER_PORT = 61718;
+
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private EmbeddedJMSResource broker;
+
+    @BeforeEach
+    public void startBroker() throws Exception {
+        broker = new EmbeddedJMSResource(3).addAcceptor("netty", "tcp://localhost:" + BROKER_PORT);
+        broker.start();
+    }
+
+    @AfterEach
+    public void stopBroker() {
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    public void controlTopicIsHandledWhilstDraining() throws JMSException, InterruptedException {
+        final BlockingService blockingService = new BlockingService();
+        final JMSServiceInstance instance = blockingService.runAsync();
+
+        final Thread closer = new Thread(instance::close, "ShutdownDrainIT-Closer");
+        try {
+            final ConnectionFactory connectionFactory = ConnectionFactoryUtil.createConnectionFactory(Collections.singletonList(new BrokerEndpoint("localhost", BROKER_PORT)));
+            try (final Connection connection = connectionFactory.createConnection();
+                 final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                 final MessageProducer producer = session.createProducer(null)) {
+
+                // a request is in-flight when the shutdown begins
+                producer.send(session.createQueue(REQUEST_QUEUE_NAME), session.createTextMessage("request"));
+                assertTrue(blockingService.requestStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+                closer.start();
+                awaitState(blockingService, JMSServiceState.SHUTTING_DOWN);
+
+                // a control message, e.g. to cancel the in-flight request, is still handled
+                producer.send(session.createTopic(CONTROL_TOPIC_NAME), session.createTextMessage("cancel"));
+                assertTrue(blockingService.controlHandled.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            }
+
+        } finally {
+            blockingService.releaseRequest.countDown();
+            blockingService.releaseControl.countDown();
+            if (closer.isAlive()) {
+                closer.join(TIMEOUT);
+            } else {
+                instance.close();
+            }
+        }
+    }
+
+    @Test
+    public void queueConsumersAreClosedWhilstDraining() throws JMSException, InterruptedException {
+        final BlockingService blockingService = new BlockingService();
+        final JMSServiceInstance instance = blockingService.runAsync();
+
+        final Thread closer = new Thread(instance::close, "ShutdownDrainIT-Closer");
+        try {
+            final ConnectionFactory connectionFactory = ConnectionFactoryUtil.createConnectionFactory(Collections.singletonList(new BrokerEndpoint("localhost", BROKER_PORT)));
+            try (final Connection connection = connectionFactory.createConnection();
+                 final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                 final MessageProducer producer = session.createProducer(null)) {
+
+                // a request is in-flight when the shutdown begins
+                producer.send(session.createQueue(REQUEST_QUEUE_NAME), session.createTextMessage("request1"));
+                assertTrue(blockingService.requestStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+                closer.start();
+                awaitState(blockingService, JMSServiceState.SHUTTING_DOWN);
+
+                // the queue consumer is kept open whilst its request is in-flight
+                assertEquals(1, consumerCount(REQUEST_QUEUE_NAME));
+
+                // keep the drain going with an in-flight control message
+                producer.send(session.createTopic(CONTROL_TOPIC_NAME), session.createTextMessage("pause"));
+                assertTrue(blockingService.controlHandled.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+                // once the in-flight request has been handled, the queue consumer is closed
+                blockingService.releaseRequest.countDown();
+                awaitConsumerCount(REQUEST_QUEUE_NAME, 0);
+                assertTrue(closer.isAlive());
+
+                // so a new request is left on the queue for another consumer
+                producer.send(session.createQueue(REQUEST_QUEUE_NAME), session.createTextMessage("request2"));
+                Thread.sleep(200);
+                assertEquals(1, blockingService.requestsReceived.get());
+                assertEquals(1, broker.getDestinationQueue(REQUEST_QUEUE_NAME).getMessageCount());
+            }
+
+        } finally {
+            blockingService.releaseRequest.countDown();
+            blockingService.releaseControl.countDown();
+            if (closer.isAlive()) {
+                closer.join(TIMEOUT);
+            } else {
+                instance.close();
+            }
+        }
+    }
+
+    private int consumerCount(final String queueName) {
+        final Queue queue = broker.getDestinationQueue(queueName);
+        return queue == null ? 0 : queue.getConsumerCount();
+    }
+
+    private void awaitConsumerCount(final String queueName, final int consumerCount) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            if (consumerCount(queueName) == consumerCount) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Timed out waiting for " + consumerCount + " consumer(s) of: " + queueName);
+    }
+
+    private static void awaitState(final BlockingService blockingService, final JMSServiceState state) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (blockingService.getState().get() != state && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // give the drain a moment to begin after the state has changed
+        Thread.sleep(200);
+    }
+
+    /**
+     * Blocks whilst handling each request, and each
+     * control message, until they are released.
+     */
+    private static class BlockingService extends AbstractJMSService {
+        private static final Logger LOGGER = LoggerFactory.getLogger(BlockingService.class);
+
+        private final AtomicReference<JMSServiceState> state = new AtomicReference<>(JMSServiceState.IDLE);
+        final CountDownLatch requestStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRequest = new CountDownLatch(1);
+        final CountDownLatch controlHandled = new CountDownLatch(1);
+        final CountDownLatch releaseControl = new CountDownLatch(1);
+        final AtomicInteger requestsReceived = new AtomicInteger();
+
+        @Override
+        protected Logger getLogger() {
+            return LOGGER;
+        }
+
+        @Override
+        protected List<BrokerEndpoint> getBrokerEndpoints() {
+            return Collections.singletonList(new BrokerEndpoint("localhost", BROKER_PORT));
+        }
+
+        @Override
+        protected AtomicReference<JMSServiceState> getState() {
+            return state;
+        }
+
+        @Override
+        protected String getClientId() {
+            return "blocking-service";
+        }
+
+        @Override
+        protected long getShutdownDrainTimeout() {
+            return TIMEOUT;
+        }
+
+        @Override
+        protected @Nullable List<String> getQueueNames() {
+            return Collections.singletonList(REQUEST_QUEUE_NAME);
+        }
+
+        @Override
+        protected @Nullable List<String> getTopicNames() {
+            return Collections.singletonList(CONTROL_TOPIC_NAME);
+        }
+
+        @Override
+        protected boolean isHandledWhilstDraining(final String queueName) {
+            return CONTROL_TOPIC_NAME.equals(queueName);
+        }
+
+        @Override
+        protected @Nullable MessageListener getListener(final String queueName) {
+            if (REQUEST_QUEUE_NAME.equals(queueName)) {
+                return message -> {
+                    requestsReceived.incrementAndGet();
+                    requestStarted.countDown();
+                    try {
+                        releaseRequest.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    acknowledgeMessage(message);
+                };
+
+            } else if (CONTROL_TOPIC_NAME.equals(queueName)) {
+                return message -> {
+                    controlHandled.countDown();
+                    try {
+                        releaseControl.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    acknowledgeMessage(message);
+                };
+            }
+
+            return null;
+        }
+    }
+}
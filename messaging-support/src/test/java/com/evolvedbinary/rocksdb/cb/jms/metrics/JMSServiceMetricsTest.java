@@ -0,0 +1,60 @@
+package com.evolvedbinary.rocksdb.cb.jms.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JMSServiceMetricsTest {
+
+    @Test
+    public void registersMBeanPerQueue() throws JMException {
+        final JMSServiceMetrics metrics = new JMSServiceMetrics("test-client");
+        final QueueMetrics queueMetrics = metrics.forQueue("test-queue");
+        assertSame(queueMetrics, metrics.forQueue("test-queue"));
+
+        queueMetrics.messageReceived(10);
+        queueMetrics.messageHandled(2000, false);
+
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = JMSServiceMetrics.objectName("test-client", "test-queue");
+        try {
+            assertTrue(mBeanServer.isRegistered(objectName));
+            assertEquals(1L, mBeanServer.getAttribute(objectName, "MessagesReceived"));
+            assertEquals(10L, mBeanServer.getAttribute(objectName, "BytesReceived"));
+            assertEquals(0L, mBeanServer.getAttribute(objectName, "InFlight"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void writePrometheus() {
+        final JMSServiceMetrics metrics = new JMSServiceMetrics("test-client");
+        try {
+            final QueueMetrics queueMetrics = metrics.forQueue("test-queue");
+            queueMetrics.messageSent(42, 1_000_000, false);
+            queueMetrics.messageSent(0, 1_000_000, true);
+
+            final StringBuilder builder = new StringBuilder();
+            metrics.writePrometheus(builder);
+            final String text = builder.toString();
+
+            assertTrue(text.contains("# TYPE cb_jms_messages_sent_total counter\n"));
+            assertTrue(text.contains("cb_jms_messages_sent_total{clientId=\"test-client\",queue=\"test-queue\"} 1\n"));
+            assertTrue(text.contains("cb_jms_send_failures_total{clientId=\"test-client\",queue=\"test-queue\"} 1\n"));
+            assertTrue(text.contains("cb_jms_sent_bytes_total{clientId=\"test-client\",queue=\"test-queue\"} 42\n"));
+            assertTrue(text.contains("cb_jms_send_seconds_count{clientId=\"test-client\",queue=\"test-queue\"} 2\n"));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BackfillRequest;
+import net.jcip.annotations.NotThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The progress of benchmarking the historical commits of a backfill request.
+ *
+ * The commits are dispatched one at a time, oldest first, and the number
+ * dispatched so far is persisted, so that a campaign which is interrupted
+ * by a restart resumes from the next commit.
+ */
+@NotThreadSafe
+class BackfillCampaign {
+
+    private final BackfillRequest backfillRequest;
+    private final List<String> commits;
+    private int dispatched;
+
+    /**
+     * @param backfillRequest the backfill request
+     * @param commits the commits to benchmark, in the order that they should be dispatched
+     * @param dispatched the number of commits that have already been dispatched
+     */
+    BackfillCampaign(final BackfillRequest backfillRequest, final List<String> commits, final int dispatched) {
+        if (dispatched < 0 || dispatched > commits.size()) {
+            throw new IllegalArgumentException("dispatched must be between 0 and " + commits.size() + ", but was: " + dispatched);
+        }
+        this.backfillRequest = backfillRequest;
+        this.commits = commits;
+        this.dispatched = dispatched;
+    }
+
+    BackfillRequest getBackfillRequest() {
+        return backfillRequest;
+    }
+
+    List<String> getCommits() {
+        return commits;
+    }
+
+    int getDispatched() {
+        return dispatched;
+    }
+
+    int getRemaining() {
+        return commits.size() - dispatched;
+    }
+
+    boolean isFinished() {
+        return dispatched == commits.size();
+    }
+
+    /**
+     * Get the next commit to dispatch.
+     *
+     * @return the commit, or null if all of the commits have been dispatched
+     */
+    @Nullable String nextCommit() {
+        return isFinished() ? null : commits.get(dispatched);
+    }
+
+    /**
+     * Record that the next commit has been dispatched.
+     */
+    void dispatched() {
+        if (isFinished()) {
+            throw new IllegalStateException("All commits have already been dispatched");
+        }
+        dispatched++;
+    }
+}
@@ -0,0 +1,169 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BenchmarkProgress;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows the throughput of the benchmarks which are running,
+ * from the {@link BenchmarkProgress} reported by the Runners.
+ *
+ * Keeps a curve of the interim throughput of each thread of each workload
+ * of each build, and detects a stall when the throughput of an interval
+ * falls below a fraction of the highest throughput of an earlier interval.
+ */
+@ThreadSafe
+class BenchmarkProgressTracker {
+
+    /**
+     * System property which sets the fraction, between 0 and 1, of the highest
+     * throughput of a benchmark, below which the throughput is considered stalled.
+     */
+    static final String STALL_FRACTION_PROPERTY = "cb.progress.stall.fraction";
+    static final double DEFAULT_STALL_FRACTION = 0.1;
+
+    /**
+     * System property which sets the most points that are kept
+     * of the curve of each thread of each workload.
+     */
+    static final String MAX_POINTS_PROPERTY = "cb.progress.max.points";
+    static final int DEFAULT_MAX_POINTS = 1_000;
+
+    private final double stallFraction;
+    private final int maxPoints;
+
+    // build request id -> workload/thread -> curve
+    private final Map<UUID, Map<String, Curve>> builds = new ConcurrentHashMap<>();
+    private final AtomicLong stalls = new AtomicLong();
+
+    /**
+     * @param stallFraction the fraction of the highest throughput below which the throughput is considered stalled
+     * @param maxPoints the most points that are kept of each curve
+     */
+    BenchmarkProgressTracker(final double stallFraction, final int maxPoints) {
+        if (stallFraction < 0 || stallFraction > 1) {
+            throw new IllegalArgumentException("stallFraction must be between 0 and 1, but was: " + stallFraction);
+        }
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException("maxPoints must be at least 1, but was: " + maxPoints);
+        }
+        this.stallFraction = stallFraction;
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Create a Benchmark Progress Tracker which is configured from system properties.
+     *
+     * @return the benchmark progress tracker
+     */
+    static BenchmarkProgressTracker fromSystemProperties() {
+        return new BenchmarkProgressTracker(
+                Double.parseDouble(System.getProperty(STALL_FRACTION_PROPERTY, String.valueOf(DEFAULT_STALL_FRACTION))),
+                Integer.getInteger(MAX_POINTS_PROPERTY, DEFAULT_MAX_POINTS));
+    }
+
+    /**
+     * Record the progress of a benchmark.
+     *
+     * @param benchmarkProgress the progress
+     *
+     * @return true if the benchmark has stalled, false otherwise
+     */
+    boolean progress(final BenchmarkProgress benchmarkProgress) {
+        final Curve curve = builds.computeIfAbsent(benchmarkProgress.getBuildRequestId(), id -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(benchmarkProgress.getWorkload() + "/" + benchmarkProgress.getThread(), key -> new Curve());
+
+        final boolean stalled = curve.add(benchmarkProgress.getElapsedSeconds(), benchmarkProgress.getIntervalOpsPerSec(), stallFraction, maxPoints);
+        if (stalled) {
+            stalls.incrementAndGet();
+        }
+        return stalled;
+    }
+
+    /**
+     * Forget the progress of a build, e.g. once it has finished.
+     *
+     * @param buildRequestId the id of the build request
+     */
+    void remove(final UUID buildRequestId) {
+        builds.remove(buildRequestId);
+    }
+
+    /**
+     * Get the number of builds which have reported progress.
+     *
+     * @return the number of builds
+     */
+    int buildCount() {
+        return builds.size();
+    }
+
+    /**
+     * Get the number of stalls which have been detected.
+     *
+     * @return the number of stalls
+     */
+    long getStalls() {
+        return stalls.get();
+    }
+
+    /**
+     * Write the curves of the builds.
+     *
+     * Each curve is written as an array of {@code [elapsedSeconds, intervalOpsPerSec]}.
+     *
+     * @param generator the generator to write the curves to
+     */
+    void write(final JsonGenerator generator) throws IOException {
+        generator.writeObjectFieldStart("progress");
+        generator.writeNumberField("stalls", stalls.get());
+        generator.writeObjectFieldStart("builds");
+        for (final Map.Entry<UUID, Map<String, Curve>> build : builds.entrySet()) {
+            generator.writeObjectFieldStart(build.getKey().toString());
+            for (final Map.Entry<String, Curve> curve : build.getValue().entrySet()) {
+                generator.writeArrayFieldStart(curve.getKey());
+                curve.getValue().write(generator);
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    @ThreadSafe
+    private static class Curve {
+        @GuardedBy("this") private final ArrayDeque<double[]> points = new ArrayDeque<>();  // [elapsedSeconds, intervalOpsPerSec]
+        @GuardedBy("this") private double peakOpsPerSec;
+
+        synchronized boolean add(final double elapsedSeconds, final double intervalOpsPerSec, final double stallFraction, final int maxPoints) {
+            final boolean stalled = !points.isEmpty() && intervalOpsPerSec < peakOpsPerSec * stallFraction;
+
+            points.addLast(new double[] { elapsedSeconds, intervalOpsPerSec });
+            if (points.size() > maxPoints) {
+                points.removeFirst();
+            }
+            peakOpsPerSec = Math.max(peakOpsPerSec, intervalOpsPerSec);
+
+            return stalled;
+        }
+
+        synchronized void write(final JsonGenerator generator) throws IOException {
+            for (final double[] point : points) {
+                generator.writeStartArray();
+                generator.writeNumber(point[0]);
+                generator.writeNumber(point[1]);
+                generator.writeEndArray();
+            }
+        }
+    }
+}
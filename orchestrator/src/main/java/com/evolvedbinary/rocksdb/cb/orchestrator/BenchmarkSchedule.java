@@ -0,0 +1,79 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A recurring benchmark of a ref, e.g. a nightly
+ * long-running benchmark of {@code refs/heads/main}.
+ *
+ * The builds requested by a schedule are marked with
+ * the name of the schedule, so that the Runner may use
+ * a heavier benchmark profile than for a push.
+ */
+@Immutable
+final class BenchmarkSchedule {
+
+    private static final String SEPARATOR = ";";
+
+    private final String name;
+    private final String repository;
+    private final String ref;
+    private final CronSchedule cronSchedule;
+
+    /**
+     * @param name the unique name of the schedule
+     * @param repository the name of the repository on GitHub
+     * @param ref the branch or tag to benchmark, e.g. {@code refs/heads/main}
+     * @param cronSchedule when to benchmark the ref
+     */
+    BenchmarkSchedule(final String name, final String repository, final String ref, final CronSchedule cronSchedule) {
+        this.name = name;
+        this.repository = repository;
+        this.ref = ref;
+        this.cronSchedule = cronSchedule;
+    }
+
+    /**
+     * Parse a schedule in the form {@code name;repository;ref;cron-expression},
+     * e.g. {@code nightly;facebook/rocksdb;refs/heads/main;0 2 * * *}.
+     *
+     * @param str the schedule
+     *
+     * @return the schedule
+     *
+     * @throws IllegalArgumentException if the schedule is invalid
+     */
+    static BenchmarkSchedule parse(final String str) {
+        final String[] parts = str.split(SEPARATOR, -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Expected the form name;repository;ref;cron-expression but found: " + str);
+        }
+        for (int i = 0; i < 3; i++) {
+            if (parts[i].trim().isEmpty()) {
+                throw new IllegalArgumentException("Expected the form name;repository;ref;cron-expression but found: " + str);
+            }
+        }
+        return new BenchmarkSchedule(parts[0].trim(), parts[1].trim(), parts[2].trim(), CronSchedule.parse(parts[3]));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getRepository() {
+        return repository;
+    }
+
+    String getRef() {
+        return ref;
+    }
+
+    CronSchedule getCronSchedule() {
+        return cronSchedule;
+    }
+
+    @Override
+    public String toString() {
+        return name + SEPARATOR + repository + SEPARATOR + ref + SEPARATOR + cronSchedule;
+    }
+}
@@ -0,0 +1,224 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BisectRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BisectResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BisectState;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import net.jcip.annotations.NotThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * The progress of bisecting a performance regression.
+ *
+ * The good commit and then the bad commit are benchmarked first, to establish
+ * a baseline and confirm that there is a regression. Thereafter the midpoint
+ * of the remaining first-parent range is benchmarked, and the range is halved
+ * depending on whether the median of the bisected metric of the midpoint is
+ * worse than that of the good commit by more than the threshold.
+ *
+ * The bisected metric is {@link BisectRequest#getMetric()} of
+ * {@link BisectRequest#getBenchmark()}, e.g. the ops/sec or a latency
+ * percentile of {@code readrandom}, or else the benchmark time of the build.
+ *
+ * Each commit is benchmarked {@link BisectRequest#getRepetitions()} times.
+ */
+@NotThreadSafe
+class BisectJob {
+
+    private final BisectRequest bisectRequest;
+
+    /**
+     * The good commit, followed by the first-parent commits up to and including the bad commit.
+     */
+    private final List<String> commits;
+
+    /**
+     * Index of the newest commit known to be good.
+     */
+    private int good = 0;
+
+    /**
+     * Index of the oldest commit known to be bad.
+     */
+    private int bad;
+
+    private int commitUnderTest;
+    private final List<Double> samples = new ArrayList<>();
+    private final Set<UUID> pendingBuilds = new HashSet<>();
+
+    private final boolean higherIsBetter;
+    private double goodMedian = -1;
+    private double badMedian = -1;
+
+    @Nullable private BisectResponse response;
+
+    /**
+     * @param bisectRequest the bisect request
+     * @param range the first-parent commits after the good commit, oldest first, ending with the bad commit
+     */
+    BisectJob(final BisectRequest bisectRequest, final List<String> range) {
+        if (range.isEmpty()) {
+            throw new IllegalArgumentException("Range must contain at least the bad commit");
+        }
+        this.bisectRequest = bisectRequest;
+        this.commits = new ArrayList<>(range.size() + 1);
+        this.commits.add(bisectRequest.getGoodCommit());
+        this.commits.addAll(range);
+        this.bad = commits.size() - 1;
+        this.commitUnderTest = good;
+        this.higherIsBetter = bisectRequest.getMetric() != null && BuildStats.isHigherBetter(bisectRequest.getMetric());
+    }
+
+    BisectRequest getBisectRequest() {
+        return bisectRequest;
+    }
+
+    /**
+     * Get the commit that should currently be benchmarked.
+     *
+     * @return the commit
+     */
+    String getCommitUnderTest() {
+        return commits.get(commitUnderTest);
+    }
+
+    /**
+     * Get the number of commits that remain between the good and bad commits.
+     *
+     * @return the number of commits still to be eliminated
+     */
+    int getRemaining() {
+        return bad - good - 1;
+    }
+
+    /**
+     * Record that a build of the commit under test has been dispatched.
+     *
+     * @param buildRequestId the id of the build request
+     */
+    void addPendingBuild(final UUID buildRequestId) {
+        pendingBuilds.add(buildRequestId);
+    }
+
+    /**
+     * Determine if a build belongs to the current step of this job.
+     *
+     * @param buildRequestId the id of the build request
+     *
+     * @return true if the build is pending for this job
+     */
+    boolean isPendingBuild(final UUID buildRequestId) {
+        return pendingBuilds.contains(buildRequestId);
+    }
+
+    /**
+     * Record the bisected metric of a build of the commit under test.
+     *
+     * @param buildRequestId the id of the build request
+     * @param value the value of the metric, or the benchmark time if the request has no metric
+     *
+     * @return true if the commit under test has now been fully measured and the
+     *     job has moved on, i.e. either {@link #isComplete()} or a new commit needs
+     *     benchmarking. false if more samples are awaited, or the build was not pending.
+     */
+    boolean addSample(final UUID buildRequestId, final double value) {
+        if (response != null || !pendingBuilds.remove(buildRequestId)) {
+            return false;
+        }
+
+        samples.add(value);
+        if (samples.size() < bisectRequest.getRepetitions()) {
+            return false;
+        }
+
+        final double median = median(samples);
+        samples.clear();
+        pendingBuilds.clear();
+        advance(median);
+        return true;
+    }
+
+    /**
+     * Record that a build of the commit under test failed,
+     * which fails the whole job.
+     *
+     * @param buildRequestId the id of the build request
+     * @param reason the reason for the failure
+     *
+     * @return true if the job was failed by this call
+     */
+    boolean addFailure(final UUID buildRequestId, final String reason) {
+        if (response != null || !pendingBuilds.remove(buildRequestId)) {
+            return false;
+        }
+        fail("Build of commit: " + getCommitUnderTest() + " failed: " + reason);
+        return true;
+    }
+
+    /**
+     * Fail the job.
+     *
+     * @param message the reason
+     */
+    void fail(final String message) {
+        pendingBuilds.clear();
+        response = new BisectResponse(BisectState.FAILED, bisectRequest, null, null, goodMedian, badMedian, message);
+    }
+
+    boolean isComplete() {
+        return response != null;
+    }
+
+    @Nullable BisectResponse getResponse() {
+        return response;
+    }
+
+    private void advance(final double median) {
+        if (commitUnderTest == 0) {
+            // baseline established, now confirm the bad commit regressed
+            goodMedian = median;
+            commitUnderTest = bad;
+            return;
+        }
+
+        if (commitUnderTest == commits.size() - 1 && badMedian == -1) {
+            badMedian = median;
+            if (!isRegression(median)) {
+                response = new BisectResponse(BisectState.NO_REGRESSION, bisectRequest, commits.get(bad), null, goodMedian, median, null);
+                return;
+            }
+
+        } else if (isRegression(median)) {
+            bad = commitUnderTest;
+            badMedian = median;
+
+        } else {
+            good = commitUnderTest;
+        }
+
+        if (bad - good <= 1) {
+            response = new BisectResponse(BisectState.COMPLETE, bisectRequest, commits.get(good), commits.get(bad), goodMedian, badMedian, null);
+        } else {
+            commitUnderTest = (good + bad) >>> 1;
+        }
+    }
+
+    private boolean isRegression(final double value) {
+        if (higherIsBetter) {
+            return value < goodMedian * (1.0 - bisectRequest.getThreshold());
+        }
+        return value > goodMedian * (1.0 + bisectRequest.getThreshold());
+    }
+
+    static double median(final List<Double> samples) {
+        final List<Double> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        final int mid = sorted.size() / 2;
+        if (sorted.size() % 2 == 1) {
+            return sorted.get(mid);
+        }
+        return (sorted.get(mid - 1) + sorted.get(mid)) / 2;
+    }
+}
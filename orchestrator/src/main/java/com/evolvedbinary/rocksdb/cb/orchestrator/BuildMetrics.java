@@ -0,0 +1,279 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures how long builds wait for a Runner, and how long
+ * each stage of a build takes, and remembers the most
+ * recently completed builds.
+ *
+ * The most recent measurements are held in fixed size rings
+ * of atomics, so recording a measurement never blocks, and
+ * summaries are computed from a copy when they are queried.
+ */
+@ThreadSafe
+class BuildMetrics {
+
+    static final int DEFAULT_MAX_SAMPLES = 1024;
+    static final int DEFAULT_MAX_COMPLETIONS = 100;
+
+    /**
+     * The states which start a stage of a build.
+     */
+    static final List<BuildState> STAGES = Collections.unmodifiableList(Arrays.asList(BuildState.UPDATING_SOURCE, BuildState.BUILDING, BuildState.BENCHMARKING));
+
+    private final LongSupplier clock;
+
+    // build request id -> time that the build was requested
+    private final ConcurrentMap<UUID, Long> requestedTimes = new ConcurrentHashMap<>();
+
+    // build request id -> time that the current stage of the build started
+    private final ConcurrentMap<UUID, Long> stageStartTimes = new ConcurrentHashMap<>();
+
+    private final Samples queueToStart;
+    private final Samples total;
+    private final Map<BuildState, Samples> stages = new EnumMap<>(BuildState.class);
+
+    private final AtomicReferenceArray<Completion> completions;
+    private final AtomicLong completionCount = new AtomicLong();
+
+    /**
+     * @param maxSamples the number of the most recent measurements of each latency to summarise
+     * @param maxCompletions the number of the most recently completed builds to remember
+     * @param clock the source of the current time in milliseconds
+     */
+    BuildMetrics(final int maxSamples, final int maxCompletions, final LongSupplier clock) {
+        this.clock = clock;
+        this.queueToStart = new Samples(maxSamples);
+        this.total = new Samples(maxSamples);
+        for (final BuildState stage : STAGES) {
+            stages.put(stage, new Samples(maxSamples));
+        }
+        this.completions = new AtomicReferenceArray<>(maxCompletions);
+    }
+
+    BuildMetrics() {
+        this(DEFAULT_MAX_SAMPLES, DEFAULT_MAX_COMPLETIONS, System::currentTimeMillis);
+    }
+
+    /**
+     * Record that a build has entered a state.
+     *
+     * @param buildRequest the build request
+     * @param toState the new state of the build
+     */
+    void buildStateChanged(final BuildRequest buildRequest, final BuildState toState) {
+        final UUID id = buildRequest.getId();
+        final long now = clock.getAsLong();
+
+        if (toState == BuildState.REQUESTING) {
+            requestedTimes.put(id, now);
+
+        } else if (STAGES.contains(toState)) {
+            if (toState == BuildState.UPDATING_SOURCE) {
+                final Long requestedTime = requestedTimes.get(id);
+                if (requestedTime != null) {
+                    queueToStart.add(now - requestedTime);
+                }
+            }
+            stageStartTimes.put(id, now);
+
+        } else {
+            completeStage(id, toState, now);
+        }
+    }
+
+    /**
+     * Record that a build has finished.
+     *
+     * @param buildRequest the build request
+     * @param finalState the final state of the build
+     */
+    void buildRemoved(final BuildRequest buildRequest, final BuildState finalState) {
+        final UUID id = buildRequest.getId();
+        final long now = clock.getAsLong();
+
+        completeStage(id, finalState, now);
+        stageStartTimes.remove(id);
+
+        final Long requestedTime = requestedTimes.remove(id);
+        final long duration = requestedTime == null ? -1 : now - requestedTime;
+        if (finalState == BuildState.BENCHMARKING_COMPLETE && duration >= 0) {
+            total.add(duration);
+        }
+
+        final long idx = completionCount.getAndIncrement();
+        completions.set((int) (idx % completions.length()), new Completion(buildRequest, finalState, now, duration));
+    }
+
+    private void completeStage(final UUID id, final BuildState toState, final long now) {
+        // only stages which completed successfully are measured, failures would distort the latencies
+        final BuildState stage = toState.getPrevBuildState();
+        if (stage == null || !STAGES.contains(stage) || BuildState.isStateFailureState(toState)) {
+            return;
+        }
+
+        final Long stageStartTime = stageStartTimes.get(id);
+        if (stageStartTime != null) {
+            stages.get(stage).add(now - stageStartTime);
+        }
+    }
+
+    /**
+     * Summarise the time that builds waited between being requested and a Runner starting them.
+     *
+     * @return the summary
+     */
+    Summary getQueueToStart() {
+        return queueToStart.summarise();
+    }
+
+    /**
+     * Summarise the time that successful builds took from being requested to completion.
+     *
+     * @return the summary
+     */
+    Summary getTotal() {
+        return total.summarise();
+    }
+
+    /**
+     * Summarise the time that a stage of successful builds took.
+     *
+     * @param stage the state which starts the stage, one of {@link #STAGES}
+     *
+     * @return the summary
+     */
+    Summary getStage(final BuildState stage) {
+        final Samples samples = stages.get(stage);
+        if (samples == null) {
+            throw new IllegalArgumentException("Not a stage: " + stage);
+        }
+        return samples.summarise();
+    }
+
+    /**
+     * Get the most recently completed builds.
+     *
+     * @return the completed builds, most recent first
+     */
+    List<Completion> getRecentCompletions() {
+        final long count = completionCount.get();
+        final int size = (int) Math.min(count, completions.length());
+        final List<Completion> recent = new ArrayList<>(size);
+        for (long i = count - 1; i >= count - size; i--) {
+            final Completion completion = completions.get((int) (i % completions.length()));
+            if (completion != null) {
+                recent.add(completion);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * A fixed size ring of the most recent measurements.
+     */
+    @ThreadSafe
+    private static final class Samples {
+        private final AtomicLongArray ring;
+        private final AtomicLong count = new AtomicLong();
+
+        Samples(final int maxSamples) {
+            this.ring = new AtomicLongArray(maxSamples);
+        }
+
+        void add(final long value) {
+            final long idx = count.getAndIncrement();
+            ring.set((int) (idx % ring.length()), value);
+        }
+
+        Summary summarise() {
+            final long count = this.count.get();
+            final int size = (int) Math.min(count, ring.length());
+            final long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ring.get(i);
+            }
+            return Summary.of(count, values);
+        }
+    }
+
+    /**
+     * Summary of the most recent measurements of a latency, in milliseconds.
+     */
+    @Immutable
+    static final class Summary {
+        final long count;
+        final long mean;
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        private Summary(final long count, final long mean, final long p50, final long p95, final long p99, final long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        /**
+         * @param count the number of measurements ever made
+         * @param values the most recent measurements
+         */
+        static Summary of(final long count, final long[] values) {
+            if (values.length == 0) {
+                return new Summary(count, -1, -1, -1, -1, -1);
+            }
+
+            Arrays.sort(values);
+            long sum = 0;
+            for (final long value : values) {
+                sum += value;
+            }
+            return new Summary(count, sum / values.length, percentile(values, 0.5), percentile(values, 0.95), percentile(values, 0.99), values[values.length - 1]);
+        }
+
+        private static long percentile(final long[] sortedValues, final double percentile) {
+            final int idx = (int) Math.ceil(percentile * sortedValues.length) - 1;
+            return sortedValues[Math.max(0, idx)];
+        }
+    }
+
+    /**
+     * A build which has finished.
+     */
+    @Immutable
+    static final class Completion {
+        final BuildRequest buildRequest;
+        final BuildState finalState;
+        final long completedTime;
+        final long duration;
+
+        /**
+         * @param buildRequest the build request
+         * @param finalState the final state of the build
+         * @param completedTime the time that the build finished, in milliseconds since the epoch
+         * @param duration the time from the build being requested to it finishing in milliseconds, or -1 if unknown
+         */
+        Completion(final BuildRequest buildRequest, final BuildState finalState, final long completedTime, final long duration) {
+            this.buildRequest = buildRequest;
+            this.finalState = finalState;
+            this.completedTime = completedTime;
+            this.duration = duration;
+        }
+    }
+}
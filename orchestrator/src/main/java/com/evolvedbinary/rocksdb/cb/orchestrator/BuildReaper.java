@@ -0,0 +1,194 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Tracks a deadline for each build in progress, so that builds which are
+ * stuck, e.g. because their Runner died mid-build, are noticed.
+ *
+ * Each non-final {@link BuildState} has its own deadline. The deadline of a
+ * build is (re)armed every time that the build changes state, and disarmed
+ * when the build is removed. When a deadline expires the build is handed to
+ * the expiry callback, which must check that the build is still in the same
+ * state, as the build may have moved on concurrently.
+ *
+ * Deadlines are held in a {@link HashedTimerWheel}, so arming and disarming
+ * is cheap however many builds are in progress.
+ */
+@ThreadSafe
+class BuildReaper implements AutoCloseable {
+
+    /**
+     * Prefix of the system properties which set the deadline in milliseconds
+     * of each build state, e.g. {@code cb.build.deadline.benchmarking}. A
+     * deadline of zero or less disables the deadline for that state.
+     */
+    static final String DEADLINE_PROPERTY_PREFIX = "cb.build.deadline.";
+
+    /**
+     * System property which sets the resolution in milliseconds of the deadlines.
+     */
+    static final String DEADLINE_TICK_PROPERTY = "cb.build.deadline.tick";
+    static final long DEFAULT_DEADLINE_TICK = TimeUnit.SECONDS.toMillis(1);
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final Map<BuildState, Long> deadlines;
+    private final HashedTimerWheel timerWheel;
+    private final BiConsumer<BuildRequest, BuildState> expiredBuildConsumer;
+    private final ConcurrentMap<UUID, HashedTimerWheel.Timeout> armed = new ConcurrentHashMap<>();
+
+    /**
+     * @param deadlines the deadline in milliseconds of each build state, states without a deadline are never expired
+     * @param timerWheel the timer wheel which holds the deadlines
+     * @param expiredBuildConsumer receives the request and state of each build whose deadline has expired
+     */
+    BuildReaper(final Map<BuildState, Long> deadlines, final HashedTimerWheel timerWheel, final BiConsumer<BuildRequest, BuildState> expiredBuildConsumer) {
+        this.deadlines = deadlines;
+        this.timerWheel = timerWheel;
+        this.expiredBuildConsumer = expiredBuildConsumer;
+    }
+
+    /**
+     * Create a Build Reaper whose deadlines are configured from system properties.
+     *
+     * @param expiredBuildConsumer receives the request and state of each build whose deadline has expired
+     *
+     * @return the build reaper
+     */
+    static BuildReaper fromSystemProperties(final BiConsumer<BuildRequest, BuildState> expiredBuildConsumer) {
+        final Map<BuildState, Long> deadlines = new EnumMap<>(BuildState.class);
+        for (final Map.Entry<BuildState, Long> defaultDeadline : defaultDeadlines().entrySet()) {
+            deadlines.put(defaultDeadline.getKey(), Long.getLong(deadlineProperty(defaultDeadline.getKey()), defaultDeadline.getValue()));
+        }
+        final long tick = Long.getLong(DEADLINE_TICK_PROPERTY, DEFAULT_DEADLINE_TICK);
+        return new BuildReaper(deadlines, new HashedTimerWheel(tick, TICKS_PER_WHEEL), expiredBuildConsumer);
+    }
+
+    /**
+     * The default deadlines, generous enough that a healthy
+     * Runner building and benchmarking RocksDB will meet them.
+     *
+     * @return the default deadline in milliseconds of each non-final build state
+     */
+    static Map<BuildState, Long> defaultDeadlines() {
+        final Map<BuildState, Long> deadlines = new EnumMap<>(BuildState.class);
+        deadlines.put(BuildState.REQUESTING, TimeUnit.MINUTES.toMillis(5));
+        deadlines.put(BuildState.REQUESTED, TimeUnit.HOURS.toMillis(24));  // waiting for a free Runner
+        deadlines.put(BuildState.UPDATING_SOURCE, TimeUnit.MINUTES.toMillis(30));
+        deadlines.put(BuildState.UPDATING_SOURCE_COMPLETE, TimeUnit.MINUTES.toMillis(10));
+        deadlines.put(BuildState.BUILDING, TimeUnit.HOURS.toMillis(2));
+        deadlines.put(BuildState.BUILDING_COMPLETE, TimeUnit.MINUTES.toMillis(10));
+        deadlines.put(BuildState.BENCHMARKING, TimeUnit.HOURS.toMillis(6));
+        return deadlines;
+    }
+
+    static String deadlineProperty(final BuildState buildState) {
+        return DEADLINE_PROPERTY_PREFIX + buildState.name().toLowerCase(Locale.ROOT).replace('_', '.');
+    }
+
+    /**
+     * The failure state that a build is moved to when
+     * its deadline expires whilst it is in a state.
+     *
+     * @param buildState the state of the build when its deadline expired
+     *
+     * @return the failure state
+     */
+    static BuildState failureStateFor(final BuildState buildState) {
+        switch (buildState) {
+            case REQUESTING:
+            case REQUESTED:
+            case UPDATING_SOURCE:
+                return BuildState.UPDATING_SOURCE_FAILED;
+
+            case UPDATING_SOURCE_COMPLETE:
+            case BUILDING:
+                return BuildState.BUILDING_FAILED;
+
+            case BUILDING_COMPLETE:
+            case BENCHMARKING:
+                return BuildState.BENCHMARKING_FAILED;
+
+            default:
+                throw new IllegalArgumentException("Build state: " + buildState + " is a final state");
+        }
+    }
+
+    long getDeadline(final BuildState buildState) {
+        final Long deadline = deadlines.get(buildState);
+        return deadline == null ? 0 : deadline;
+    }
+
+    /**
+     * Start the thread which expires the deadlines.
+     *
+     * @param threadName the name of the thread
+     */
+    void start(final String threadName) {
+        timerWheel.start(threadName);
+    }
+
+    /**
+     * Arm the deadline of a build which has just entered a state,
+     * replacing any deadline of its previous state.
+     *
+     * @param buildRequest the build request
+     * @param buildState the state which the build has entered
+     */
+    void arm(final BuildRequest buildRequest, final BuildState buildState) {
+        final long deadline = getDeadline(buildState);
+        if (deadline <= 0) {
+            disarm(buildRequest.getId());
+            return;
+        }
+
+        final HashedTimerWheel.Timeout[] timeout = new HashedTimerWheel.Timeout[1];
+        timeout[0] = timerWheel.newTimeout(() -> {
+            armed.remove(buildRequest.getId(), timeout[0]);
+            expiredBuildConsumer.accept(buildRequest, buildState);
+        }, deadline);
+
+        final HashedTimerWheel.Timeout previous = armed.put(buildRequest.getId(), timeout[0]);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Disarm the deadline of a build which has been removed.
+     *
+     * @param buildRequestId the id of the build request
+     */
+    void disarm(final UUID buildRequestId) {
+        final HashedTimerWheel.Timeout previous = armed.remove(buildRequestId);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Get the number of builds with an armed deadline.
+     *
+     * @return the number of builds
+     */
+    int armedCount() {
+        return armed.size();
+    }
+
+    @Override
+    public void close() {
+        timerWheel.close();
+        armed.clear();
+    }
+}
@@ -0,0 +1,320 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The state of the builds in progress, grouped by ref.
+ *
+ * The builds for each ref are held in an immutable snapshot, and every
+ * change creates a new snapshot which is swapped in with a CAS
+ * (compare-and-swap) against the previous snapshot, retrying if another
+ * thread won the race. No locks are held, and readers always see a
+ * consistent snapshot of a ref.
+ *
+ * Transitions are validated against {@link BuildState#getPrevBuildState()},
+ * and a ref is removed entirely once its last build is removed.
+ */
+@ThreadSafe
+class BuildStateMachine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildStateMachine.class);
+
+    private final ConcurrentMap<String, RefBuilds> refs = new ConcurrentHashMap<>();
+
+    @Immutable
+    static final class Build {
+        final BuildRequest request;
+        final BuildState state;
+
+        Build(final BuildRequest request, final BuildState state) {
+            this.request = request;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the builds for a ref.
+     *
+     * Deliberately does not override {@link Object#equals(Object)}, so that
+     * the CAS operations of {@link ConcurrentMap} compare by identity.
+     */
+    @Immutable
+    private static final class RefBuilds {
+        final Map<UUID, Build> builds;
+
+        private RefBuilds(final Map<UUID, Build> builds) {
+            this.builds = builds;
+        }
+
+        static RefBuilds of(final Build build) {
+            return new RefBuilds(Collections.singletonMap(build.request.getId(), build));
+        }
+
+        RefBuilds with(final Build build) {
+            final Map<UUID, Build> newBuilds = new HashMap<>(builds);
+            newBuilds.put(build.request.getId(), build);
+            return new RefBuilds(Collections.unmodifiableMap(newBuilds));
+        }
+
+        @Nullable RefBuilds without(final UUID id) {
+            if (builds.size() == 1) {
+                return null;
+            }
+            final Map<UUID, Build> newBuilds = new HashMap<>(builds);
+            newBuilds.remove(id);
+            return new RefBuilds(Collections.unmodifiableMap(newBuilds));
+        }
+    }
+
+    /**
+     * Insert a new build.
+     *
+     * @param buildRequest the build request
+     * @param insertState the initial state of the build
+     *
+     * @return true if the build was inserted, false if a build with the same id already exists
+     */
+    boolean insert(final BuildRequest buildRequest, final BuildState insertState) {
+        final String ref = buildRequest.getRef();
+        final Build build = new Build(buildRequest, insertState);
+        while (true) {
+            @Nullable final RefBuilds current = refs.get(ref);
+            if (current != null) {
+                final Build existingBuild = current.builds.get(buildRequest.getId());
+                if (existingBuild != null) {
+                    if (insertState == existingBuild.state) {
+                        LOGGER.warn("Found existing build for ref: {} with id: {} and same expected state: {}. Ignoring...", ref, buildRequest.getId(), existingBuild.state.name());
+                    } else {
+                        LOGGER.error("Found existing build for ref: {} with id: {} but state: {} != insert state: {}. Ignoring...", ref, buildRequest.getId(), existingBuild.state.name(), insertState.name());
+                    }
+                    return false;
+                }
+            }
+
+            final RefBuilds next = current == null ? RefBuilds.of(build) : current.with(build);
+            if (compareAndSet(ref, current, next)) {
+                LOGGER.trace("Inserted Build State for ref: {} id: {}, {}", ref, buildRequest.getId(), insertState.name());
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Insert a new build, but only if there are no builds in progress for the same ref.
+     *
+     * @param buildRequest the build request
+     * @param insertState the initial state of the build
+     *
+     * @return true if the build was inserted, false if there is already a build in progress for the ref
+     */
+    boolean insertIfAbsent(final BuildRequest buildRequest, final BuildState insertState) {
+        final boolean inserted = refs.putIfAbsent(buildRequest.getRef(), RefBuilds.of(new Build(buildRequest, insertState))) == null;
+        if (inserted) {
+            LOGGER.trace("Inserted Build State for ref: {} id: {}, {}", buildRequest.getRef(), buildRequest.getId(), insertState.name());
+        }
+        return inserted;
+    }
+
+    /**
+     * Move a build from one state to the next.
+     *
+     * If the build is unknown, it is created in the {@code toState}.
+     *
+     * @param buildRequest the build request
+     * @param fromState the expected current state of the build
+     * @param toState the new state of the build
+     *
+     * @return true if the build is now in the {@code toState} as a result of this call, false otherwise
+     */
+    boolean update(final BuildRequest buildRequest, final BuildState fromState, final BuildState toState) {
+        final String ref = buildRequest.getRef();
+        if (toState.getPrevBuildState() != fromState) {
+            LOGGER.error("Invalid transition for ref: {} with id: {} from {} state to {} state. Ignoring...", ref, buildRequest.getId(), fromState.name(), toState.name());
+            return false;
+        }
+
+        while (true) {
+            @Nullable final RefBuilds current = refs.get(ref);
+            @Nullable final Build existingBuild = current == null ? null : current.builds.get(buildRequest.getId());
+            final RefBuilds next;
+            if (existingBuild == null) {
+                LOGGER.warn("Expecting build for ref: {} with id: {} in {} state not found. Will create with state: {}", ref, buildRequest.getId(), fromState.name(), toState.name());
+                final Build build = new Build(buildRequest, toState);
+                next = current == null ? RefBuilds.of(build) : current.with(build);
+
+            } else if (fromState == existingBuild.state) {
+                next = current.with(new Build(existingBuild.request, toState));
+
+            } else {
+                LOGGER.error("Expected build for ref: {} with id: {} to be in {} state, but was in {} state. Ignoring...", ref, buildRequest.getId(), fromState.name(), existingBuild.state.name());
+                return false;
+            }
+
+            if (compareAndSet(ref, current, next)) {
+                LOGGER.trace("Update Build State for ref: {} id: {}, {} -> {}", ref, buildRequest.getId(), fromState.name(), toState.name());
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remove a build which has reached its final state.
+     *
+     * If the ref has no other builds in progress, the ref is also removed.
+     *
+     * @param buildRequest the build request
+     * @param fromState the expected current state of the build
+     * @param finalState the final state of the build
+     *
+     * @return true if the build was removed by this call, false otherwise
+     */
+    boolean remove(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) {
+        final String ref = buildRequest.getRef();
+        if (finalState.getPrevBuildState() != fromState) {
+            LOGGER.error("Invalid transition for ref: {} with id: {} from {} state to {} state. Ignoring...", ref, buildRequest.getId(), fromState.name(), finalState.name());
+            return false;
+        }
+
+        return removeIfInState(buildRequest, fromState, finalState);
+    }
+
+    /**
+     * Remove a build whose deadline expired before it reached its final state.
+     *
+     * Unlike {@link #remove(BuildRequest, BuildState, BuildState)} the build
+     * may be moved to the failure state from any earlier state, as the build
+     * is abandoned rather than having failed by itself.
+     *
+     * @param buildRequest the build request
+     * @param fromState the expected current state of the build
+     * @param failureState the failure state of the build
+     *
+     * @return true if the build was removed by this call, false otherwise,
+     *     e.g. if the build has since moved to another state
+     */
+    boolean expire(final BuildRequest buildRequest, final BuildState fromState, final BuildState failureState) {
+        if (!BuildState.isStateFailureState(failureState)) {
+            LOGGER.error("Invalid expiry for ref: {} with id: {} from {} state to non-failure {} state. Ignoring...", buildRequest.getRef(), buildRequest.getId(), fromState.name(), failureState.name());
+            return false;
+        }
+
+        return removeIfInState(buildRequest, fromState, failureState);
+    }
+
+    private boolean removeIfInState(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) {
+        final String ref = buildRequest.getRef();
+        while (true) {
+            @Nullable final RefBuilds current = refs.get(ref);
+            @Nullable final Build existingBuild = current == null ? null : current.builds.get(buildRequest.getId());
+            if (existingBuild == null) {
+                LOGGER.warn("Expecting build for ref: {} with id: {} in {} state not found. Ignoring...", ref, buildRequest.getId(), fromState.name());
+                return false;
+            }
+
+            if (fromState != existingBuild.state) {
+                LOGGER.error("Found existing build for ref: {} with id: {} but state: {} != remove state: {}. Ignoring...", ref, buildRequest.getId(), existingBuild.state.name(), fromState.name());
+                return false;
+            }
+
+            if (compareAndSet(ref, current, current.without(buildRequest.getId()))) {
+                LOGGER.trace("Removed Build State for ref: {} id: {}, {} -> {}", ref, buildRequest.getId(), fromState.name(), finalState.name());
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the current state of a build.
+     *
+     * @param ref the ref of the build
+     * @param id the id of the build
+     *
+     * @return the state of the build, or null if the build is not in progress
+     */
+    @Nullable BuildState getState(final String ref, final UUID id) {
+        @Nullable final RefBuilds current = refs.get(ref);
+        if (current == null) {
+            return null;
+        }
+        @Nullable final Build build = current.builds.get(id);
+        return build == null ? null : build.state;
+    }
+
+    /**
+     * Get the builds in progress for a ref.
+     *
+     * @param ref the ref
+     *
+     * @return a consistent snapshot of the builds for the ref, empty if there are none
+     */
+    Collection<Build> getBuilds(final String ref) {
+        @Nullable final RefBuilds current = refs.get(ref);
+        return current == null ? Collections.emptyList() : current.builds.values();
+    }
+
+    /**
+     * Visit each build in progress.
+     *
+     * Each ref is visited as a consistent snapshot,
+     * but different refs may be visited at different points in time.
+     *
+     * @param consumer receives the request and state of each build
+     */
+    void forEach(final BiConsumer<BuildRequest, BuildState> consumer) {
+        for (final RefBuilds refBuilds : refs.values()) {
+            for (final Build build : refBuilds.builds.values()) {
+                consumer.accept(build.request, build.state);
+            }
+        }
+    }
+
+    /**
+     * Get the number of refs with builds in progress.
+     *
+     * @return the number of refs
+     */
+    int refCount() {
+        return refs.size();
+    }
+
+    /**
+     * Get the number of builds in progress.
+     *
+     * @return the number of builds
+     */
+    int buildCount() {
+        int count = 0;
+        for (final RefBuilds refBuilds : refs.values()) {
+            count += refBuilds.builds.size();
+        }
+        return count;
+    }
+
+    /**
+     * Remove all builds.
+     */
+    void clear() {
+        refs.clear();
+    }
+
+    private boolean compareAndSet(final String ref, @Nullable final RefBuilds expected, @Nullable final RefBuilds next) {
+        if (expected == null) {
+            return next == null || refs.putIfAbsent(ref, next) == null;
+        }
+        if (next == null) {
+            return refs.remove(ref, expected);
+        }
+        return refs.replace(ref, expected, next);
+    }
+}
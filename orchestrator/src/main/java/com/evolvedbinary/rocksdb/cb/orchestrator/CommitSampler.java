@@ -0,0 +1,300 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which commits to build when they are pushed faster than
+ * the Runners can benchmark them.
+ *
+ * The time needed to work through the builds in progress is estimated from
+ * the number of outstanding builds, the number of live Runners, and a moving
+ * average of the observed build durations. Whilst that estimate is within
+ * the target drain time, every commit is built. Once it exceeds the target,
+ * only every Nth commit of each ref is built, where N grows with the
+ * overload, so that the latest results stay fresh without the queue growing
+ * without bound.
+ *
+ * Skipped commits are recorded, so that they can be built later when the
+ * Runners are idle. The most recently skipped commits are built first.
+ * Each commit which is skipped or forgotten is passed to a {@link SkippedListener},
+ * so that the skipped commits can be persisted and restored after a restart.
+ */
+@ThreadSafe
+class CommitSampler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommitSampler.class);
+
+    /**
+     * System property which sets the target time in milliseconds
+     * within which the outstanding builds should be completed.
+     */
+    static final String TARGET_DRAIN_TIME_PROPERTY = "cb.sampling.target.drain.time";
+    static final long DEFAULT_TARGET_DRAIN_TIME = TimeUnit.HOURS.toMillis(4);
+
+    /**
+     * System property which sets the assumed duration in milliseconds
+     * of a build, until the duration of a build has been observed.
+     */
+    static final String INITIAL_BUILD_DURATION_PROPERTY = "cb.sampling.initial.build.duration";
+    static final long DEFAULT_INITIAL_BUILD_DURATION = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * System property which sets the most commits of a ref that are
+     * skipped for each commit that is built.
+     */
+    static final String MAX_STRIDE_PROPERTY = "cb.sampling.max.stride";
+    static final int DEFAULT_MAX_STRIDE = 16;
+
+    /**
+     * System property which sets the most skipped commits that are
+     * remembered, beyond which the oldest are forgotten.
+     */
+    static final String MAX_SKIPPED_PROPERTY = "cb.sampling.max.skipped";
+    static final int DEFAULT_MAX_SKIPPED = 10_000;
+
+    /**
+     * System property which sets the interval in milliseconds at which
+     * idle Runners are given skipped commits to build.
+     */
+    static final String BACKFILL_INTERVAL_PROPERTY = "cb.sampling.backfill.interval";
+    static final long DEFAULT_BACKFILL_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Weight of the latest observation in the moving average of the build durations.
+     */
+    private static final double DURATION_SMOOTHING = 0.2;
+
+    private final long targetDrainTime;
+    private final int maxStride;
+    private final int maxSkipped;
+    private final LongSupplier clock;
+    private final SkippedListener skippedListener;
+
+    // build request id -> time that a Runner started the build
+    private final ConcurrentMap<UUID, Long> buildStartTimes = new ConcurrentHashMap<>();
+
+    // ref -> number of commits skipped since the last commit that was built
+    private final ConcurrentMap<String, Integer> refSkipCounts = new ConcurrentHashMap<>();
+
+    @GuardedBy("this") private double estimatedBuildDuration;
+    @GuardedBy("this") private final Deque<BuildRequest> skipped = new ArrayDeque<>();
+
+    /**
+     * @param targetDrainTime the target time in milliseconds within which the outstanding builds should be completed
+     * @param initialBuildDuration the assumed duration in milliseconds of a build, until the duration of a build has been observed
+     * @param maxStride the most commits of a ref that are skipped for each commit that is built, plus one
+     * @param maxSkipped the most skipped commits that are remembered
+     * @param clock the source of the current time in milliseconds
+     * @param skippedListener receives each commit which is skipped or forgotten
+     */
+    CommitSampler(final long targetDrainTime, final long initialBuildDuration, final int maxStride, final int maxSkipped, final LongSupplier clock, final SkippedListener skippedListener) {
+        if (targetDrainTime <= 0) {
+            throw new IllegalArgumentException("targetDrainTime must be positive, but was: " + targetDrainTime);
+        }
+        if (maxStride < 1) {
+            throw new IllegalArgumentException("maxStride must be at least 1, but was: " + maxStride);
+        }
+        this.targetDrainTime = targetDrainTime;
+        this.estimatedBuildDuration = Math.max(1, initialBuildDuration);
+        this.maxStride = maxStride;
+        this.maxSkipped = maxSkipped;
+        this.clock = clock;
+        this.skippedListener = skippedListener;
+    }
+
+    /**
+     * Create a Commit Sampler which is configured from system properties.
+     *
+     * @param skippedListener receives each commit which is skipped or forgotten
+     *
+     * @return the commit sampler
+     */
+    static CommitSampler fromSystemProperties(final SkippedListener skippedListener) {
+        return new CommitSampler(
+                Long.getLong(TARGET_DRAIN_TIME_PROPERTY, DEFAULT_TARGET_DRAIN_TIME),
+                Long.getLong(INITIAL_BUILD_DURATION_PROPERTY, DEFAULT_INITIAL_BUILD_DURATION),
+                Integer.getInteger(MAX_STRIDE_PROPERTY, DEFAULT_MAX_STRIDE),
+                Integer.getInteger(MAX_SKIPPED_PROPERTY, DEFAULT_MAX_SKIPPED),
+                System::currentTimeMillis,
+                skippedListener);
+    }
+
+    /**
+     * Estimate the time needed to complete the outstanding builds.
+     *
+     * @param outstandingBuilds the number of builds that are queued or in progress
+     * @param runners the number of live Runners
+     *
+     * @return the estimated time in milliseconds
+     */
+    long estimateDrainTime(final int outstandingBuilds, final int runners) {
+        return (long) (outstandingBuilds * getEstimatedBuildDuration() / Math.max(1, runners));
+    }
+
+    /**
+     * Determine how sparsely commits should be sampled.
+     *
+     * @param outstandingBuilds the number of builds that are queued or in progress
+     * @param runners the number of live Runners
+     *
+     * @return 1 if every commit should be built, otherwise N where every Nth commit of each ref should be built
+     */
+    int stride(final int outstandingBuilds, final int runners) {
+        final long drainTime = estimateDrainTime(outstandingBuilds, runners);
+        final long stride = (drainTime + targetDrainTime - 1) / targetDrainTime;
+        return (int) Math.max(1, Math.min(maxStride, stride));
+    }
+
+    /**
+     * Decide whether a pushed commit should be built now.
+     *
+     * If not, the commit is recorded as skipped.
+     *
+     * @param buildRequest the build request for the commit
+     * @param outstandingBuilds the number of builds that are queued or in progress
+     * @param runners the number of live Runners
+     *
+     * @return true if the commit should be built now, false if it was skipped
+     */
+    boolean sample(final BuildRequest buildRequest, final int outstandingBuilds, final int runners) {
+        final int stride = stride(outstandingBuilds, runners);
+        final int skipCount = refSkipCounts.merge(buildRequest.getRef(), 1, Integer::sum);
+        if (skipCount >= stride) {
+            refSkipCounts.remove(buildRequest.getRef());
+            return true;
+        }
+
+        LOGGER.info("Runners are overloaded (~{} ms of outstanding builds), sampling every {} commits, skipped commit: {} of ref: {}", estimateDrainTime(outstandingBuilds, runners), stride, buildRequest.getCommit(), buildRequest.getRef());
+        synchronized (this) {
+            skipped.addLast(buildRequest);
+            skippedListener.skipped(buildRequest);
+            for (final BuildRequest forgotten : forgetOldestSkipped()) {
+                skippedListener.forgotten(forgotten);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restore the skipped commits which were recorded before a restart,
+     * replacing any skipped commits.
+     *
+     * @param buildRequests the build requests for the skipped commits, in any order
+     *
+     * @return the build requests for the oldest skipped commits, which were forgotten because there were too many
+     */
+    synchronized List<BuildRequest> restoreSkipped(final Collection<BuildRequest> buildRequests) {
+        final List<BuildRequest> ordered = new ArrayList<>(buildRequests);
+        ordered.sort(Comparator.comparing(BuildRequest::getTimeStamp));
+        skipped.clear();
+        skipped.addAll(ordered);
+        return forgetOldestSkipped();
+    }
+
+    @GuardedBy("this")
+    private List<BuildRequest> forgetOldestSkipped() {
+        final List<BuildRequest> forgotten = new ArrayList<>();
+        while (skipped.size() > maxSkipped) {
+            final BuildRequest buildRequest = skipped.removeFirst();
+            LOGGER.warn("Too many skipped commits, forgetting commit: {} of ref: {}", buildRequest.getCommit(), buildRequest.getRef());
+            forgotten.add(buildRequest);
+        }
+        return forgotten;
+    }
+
+    /**
+     * Take some of the skipped commits so that they can be built,
+     * the most recently skipped first.
+     *
+     * @param max the most commits to take
+     *
+     * @return the build requests for the skipped commits
+     */
+    synchronized List<BuildRequest> pollSkipped(final int max) {
+        final List<BuildRequest> buildRequests = new ArrayList<>(Math.min(max, skipped.size()));
+        while (buildRequests.size() < max && !skipped.isEmpty()) {
+            buildRequests.add(skipped.removeLast());
+        }
+        return buildRequests;
+    }
+
+    synchronized int skippedCount() {
+        return skipped.size();
+    }
+
+    /**
+     * Record that a Runner has started a build.
+     *
+     * @param buildRequestId the id of the build request
+     */
+    void buildStarted(final UUID buildRequestId) {
+        buildStartTimes.put(buildRequestId, clock.getAsLong());
+    }
+
+    /**
+     * Record that a build has finished.
+     *
+     * @param buildRequestId the id of the build request
+     * @param completed true if the build ran to completion, in which case
+     *     its duration is used to estimate the duration of future builds
+     */
+    void buildFinished(final UUID buildRequestId, final boolean completed) {
+        final Long startTime = buildStartTimes.remove(buildRequestId);
+        if (startTime == null || !completed) {
+            return;
+        }
+
+        final long duration = Math.max(1, clock.getAsLong() - startTime);
+        synchronized (this) {
+            estimatedBuildDuration = DURATION_SMOOTHING * duration + (1 - DURATION_SMOOTHING) * estimatedBuildDuration;
+        }
+    }
+
+    /**
+     * Get the estimated duration of a build.
+     *
+     * @return the moving average of the observed build durations in milliseconds
+     */
+    synchronized double getEstimatedBuildDuration() {
+        return estimatedBuildDuration;
+    }
+
+    /**
+     * Receives the changes to the skipped commits.
+     *
+     * Called whilst holding the lock of the Commit Sampler,
+     * so the changes are received in the order that they were made.
+     */
+    interface SkippedListener {
+
+        /**
+         * Called when a commit is skipped.
+         *
+         * @param buildRequest the build request for the skipped commit
+         */
+        void skipped(final BuildRequest buildRequest);
+
+        /**
+         * Called when a skipped commit is forgotten, because too many commits have been skipped.
+         *
+         * @param buildRequest the build request for the forgotten commit
+         */
+        void forgotten(final BuildRequest buildRequest);
+    }
+}
@@ -0,0 +1,195 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import net.jcip.annotations.Immutable;
+
+import javax.annotation.Nullable;
+import java.time.DayOfWeek;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * A schedule in the format of a cron expression.
+ *
+ * The expression has five space separated fields, {@code minute hour day-of-month month day-of-week},
+ * each of which may be {@code *}, a value, a range {@code a-b}, a step {@code *}{@code /n} or {@code a-b/n},
+ * or a comma separated list of those. Day-of-week is 0-7, where both 0 and 7 are Sunday.
+ * As with cron, when both day-of-month and day-of-week are restricted, a day matches if either matches.
+ *
+ * The macros {@code @hourly}, {@code @daily}, {@code @weekly}, and {@code @monthly} are also accepted.
+ */
+@Immutable
+final class CronSchedule {
+
+    // the furthest ahead that the next time is searched for, long enough to find a 29th of February
+    private static final int MAX_SEARCH_DAYS = 366 * 8;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean daysOfMonthRestricted;
+    private final boolean daysOfWeekRestricted;
+
+    private CronSchedule(final String expression, final BitSet minutes, final BitSet hours, final BitSet daysOfMonth, final BitSet months, final BitSet daysOfWeek, final boolean daysOfMonthRestricted, final boolean daysOfWeekRestricted) {
+        this.expression = expression;
+        this.minutes = minutes;
+        this.hours = hours;
+        this.daysOfMonth = daysOfMonth;
+        this.months = months;
+        this.daysOfWeek = daysOfWeek;
+        this.daysOfMonthRestricted = daysOfMonthRestricted;
+        this.daysOfWeekRestricted = daysOfWeekRestricted;
+    }
+
+    /**
+     * Parse a cron expression.
+     *
+     * @param expression the cron expression
+     *
+     * @return the schedule
+     *
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    static CronSchedule parse(final String expression) {
+        final String trimmed = expression.trim();
+        final String fieldsExpression;
+        switch (trimmed) {
+            case "@hourly":
+                fieldsExpression = "0 * * * *";
+                break;
+            case "@daily":
+                fieldsExpression = "0 0 * * *";
+                break;
+            case "@weekly":
+                fieldsExpression = "0 0 * * 0";
+                break;
+            case "@monthly":
+                fieldsExpression = "0 0 1 * *";
+                break;
+            default:
+                fieldsExpression = trimmed;
+        }
+
+        final String[] fields = fieldsExpression.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Expected 5 fields in cron expression, but found " + fields.length + ": " + expression);
+        }
+
+        final BitSet daysOfWeek = parseField(fields[4], 0, 7, expression);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);  // both 0 and 7 are Sunday
+            daysOfWeek.clear(7);
+        }
+
+        return new CronSchedule(
+                trimmed,
+                parseField(fields[0], 0, 59, expression),
+                parseField(fields[1], 0, 23, expression),
+                parseField(fields[2], 1, 31, expression),
+                parseField(fields[3], 1, 12, expression),
+                daysOfWeek,
+                !fields[2].equals("*"),
+                !fields[4].equals("*"));
+    }
+
+    private static BitSet parseField(final String field, final int min, final int max, final String expression) {
+        final BitSet values = new BitSet(max + 1);
+        for (final String part : field.split(",")) {
+            final String range;
+            final int step;
+            final int idxStep = part.indexOf('/');
+            if (idxStep > -1) {
+                range = part.substring(0, idxStep);
+                step = parseValue(part.substring(idxStep + 1), 1, max, expression);
+            } else {
+                range = part;
+                step = 1;
+            }
+
+            final int from;
+            final int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                final int idxRange = range.indexOf('-');
+                if (idxRange > -1) {
+                    from = parseValue(range.substring(0, idxRange), min, max, expression);
+                    to = parseValue(range.substring(idxRange + 1), min, max, expression);
+                    if (from > to) {
+                        throw new IllegalArgumentException("Invalid range: " + range + " in cron expression: " + expression);
+                    }
+                } else {
+                    from = parseValue(range, min, max, expression);
+                    to = idxStep > -1 ? max : from;
+                }
+            }
+
+            for (int i = from; i <= to; i += step) {
+                values.set(i);
+            }
+        }
+        return values;
+    }
+
+    private static int parseValue(final String value, final int min, final int max, final String expression) {
+        final int i;
+        try {
+            i = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value: " + value + " in cron expression: " + expression);
+        }
+        if (i < min || i > max) {
+            throw new IllegalArgumentException("Value: " + value + " is not between " + min + " and " + max + " in cron expression: " + expression);
+        }
+        return i;
+    }
+
+    /**
+     * Find the next time that matches the schedule.
+     *
+     * @param after the time after which to search, the result is in the same time zone
+     *
+     * @return the first matching time which is strictly after {@code after},
+     *     or null if the schedule never matches, e.g. the 30th of February
+     */
+    @Nullable ZonedDateTime next(final ZonedDateTime after) {
+        ZonedDateTime time = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        for (int i = 0; i < MAX_SEARCH_DAYS; i++) {
+            if (matchesDay(time)) {
+                for (int hour = hours.nextSetBit(time.getHour()); hour > -1; hour = hours.nextSetBit(hour + 1)) {
+                    final int minute = minutes.nextSetBit(hour == time.getHour() ? time.getMinute() : 0);
+                    if (minute > -1) {
+                        final ZonedDateTime next = time.withHour(hour).withMinute(minute);
+                        if (next.isAfter(after)) {
+                            return next;
+                        }
+                    }
+                }
+            }
+            time = time.toLocalDate().plusDays(1).atStartOfDay(time.getZone());
+        }
+        return null;
+    }
+
+    private boolean matchesDay(final ZonedDateTime time) {
+        if (!months.get(time.getMonthValue())) {
+            return false;
+        }
+
+        final boolean dayOfMonthMatches = daysOfMonth.get(time.getDayOfMonth());
+        final boolean dayOfWeekMatches = daysOfWeek.get(time.getDayOfWeek() == DayOfWeek.SUNDAY ? 0 : time.getDayOfWeek().getValue());
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonthMatches || dayOfWeekMatches;
+        }
+        return dayOfMonthMatches && dayOfWeekMatches;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
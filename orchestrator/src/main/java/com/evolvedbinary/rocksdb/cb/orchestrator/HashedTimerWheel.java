@@ -0,0 +1,296 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * A timer for a large number of timeouts, where each timeout
+ * need only fire approximately on time.
+ *
+ * Time is divided into ticks of a fixed duration, and the timeouts
+ * are hashed by their deadline into the buckets of a wheel, with one
+ * bucket per tick. Each tick only the timeouts of the current bucket
+ * are visited, so scheduling and cancelling a timeout are O(1)
+ * regardless of how many timeouts are outstanding. Timeouts which are
+ * further away than one revolution of the wheel wait for the remaining
+ * number of rounds.
+ *
+ * A timeout fires within one tick after its deadline. The tasks of the
+ * timeouts are run on the thread which advances the wheel, and so
+ * should be short.
+ *
+ * New timeouts are handed to the wheel through a lock-free queue, and
+ * only the thread which advances the wheel modifies the buckets.
+ */
+@ThreadSafe
+class HashedTimerWheel implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final LongSupplier clock;
+    private final long startTime;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    @GuardedBy("this") private long tick;
+    private volatile @Nullable Thread worker;
+
+    /**
+     * A scheduled task which may be cancelled.
+     */
+    final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // only accessed by the thread which advances the wheel
+        private long remainingRounds;
+        private @Nullable Timeout prev;
+        private @Nullable Timeout next;
+
+        private Timeout(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the timeout.
+         *
+         * @return true if the timeout was cancelled by this call,
+         *     false if it had already expired or been cancelled
+         */
+        boolean cancel() {
+            // the timeout is unlinked lazily when its bucket is next visited
+            return state.compareAndSet(ST_INIT, ST_CANCELLED);
+        }
+
+        boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                LOGGER.error("Timeout task threw an exception: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Doubly-linked list of the timeouts which hash to the same tick.
+     */
+    private static final class Bucket {
+        private @Nullable Timeout head;
+        private @Nullable Timeout tail;
+
+        void add(final Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        @Nullable Timeout remove(final Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            return next;
+        }
+
+        /**
+         * Expire the timeouts which are due this round,
+         * and count down the rounds of the others.
+         *
+         * @return the number of timeouts which expired
+         */
+        int expireTimeouts() {
+            int expired = 0;
+            Timeout timeout = head;
+            while (timeout != null) {
+                if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    final Timeout next = remove(timeout);
+                    timeout.expire();
+                    expired++;
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+            return expired;
+        }
+    }
+
+    /**
+     * @param tickDuration the duration of a tick in milliseconds
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two
+     */
+    HashedTimerWheel(final long tickDuration, final int ticksPerWheel) {
+        this(tickDuration, ticksPerWheel, System::currentTimeMillis);
+    }
+
+    /**
+     * @param tickDuration the duration of a tick in milliseconds
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two
+     * @param clock the source of the current time in milliseconds
+     */
+    HashedTimerWheel(final long tickDuration, final int ticksPerWheel, final LongSupplier clock) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive, but was: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30, but was: " + ticksPerWheel);
+        }
+
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    /**
+     * Schedule a task to be run once a delay has elapsed.
+     *
+     * @param task the task
+     * @param delay the delay in milliseconds
+     *
+     * @return the timeout, which may be used to cancel the task
+     */
+    Timeout newTimeout(final Runnable task, final long delay) {
+        final long deadline = clock.getAsLong() - startTime + Math.max(0, delay);
+        final Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Start a daemon thread which advances the wheel once every tick.
+     *
+     * @param threadName the name of the thread
+     */
+    synchronized void start(final String threadName) {
+        if (worker != null) {
+            throw new IllegalStateException("Already started");
+        }
+
+        final Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(tickDuration);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                advance();
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        this.worker = thread;
+    }
+
+    /**
+     * Advance the wheel to the current time, running the tasks
+     * of any timeouts which have expired.
+     *
+     * @return the number of timeouts which expired
+     */
+    synchronized int advance() {
+        final long elapsed = clock.getAsLong() - startTime;
+        int expired = 0;
+        while ((tick + 1) * tickDuration <= elapsed) {
+            transferPendingTimeouts();
+            expired += wheel[(int) (tick & mask)].expireTimeouts();
+            tick++;
+        }
+        return expired;
+    }
+
+    @GuardedBy("this")
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            final long calculated = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+            // a deadline in the past is expired on the current tick
+            final long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Stop the thread which advances the wheel,
+     * any outstanding timeouts will not be run.
+     */
+    @Override
+    public void close() {
+        final Thread thread;
+        synchronized (this) {
+            thread = worker;
+            worker = null;
+        }
+        if (thread == null) {
+            return;
+        }
+
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,17 +2,27 @@ package com.evolvedbinary.rocksdb.cb.orchestrator;
 
 import com.evolvedbinary.rocksdb.cb.Constants;
 import com.evolvedbinary.rocksdb.cb.common.ExitCodes;
+import com.evolvedbinary.rocksdb.cb.dataobject.BenchmarkSpec;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
 import se.softhouse.jargo.Argument;
 import se.softhouse.jargo.ArgumentException;
 import se.softhouse.jargo.CommandLineParser;
 import se.softhouse.jargo.ParsedArguments;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static se.softhouse.jargo.Arguments.*;
 
 public class Main {
@@ -26,6 +36,9 @@ public class Main {
             .defaultValue(Constants.DEFAULT_ARTEMIS_PORT)
             .description("The port of the Artemis Broker")
             .build();
+    private static final Argument<String> ARTEMIS_BROKERS_ARG = stringArgument("--artemis-brokers")
+            .description("A comma separated list of host:port for each Artemis Broker of a cluster. Overrides --artemis-broker-host and --artemis-broker-port")
+            .build();
     private static final Argument<String> WEBHOOK_QUEUE_NAME_ARG = stringArgument("-w", "--webhook-queue-name")
             .defaultValue("WebHookQueue")
             .description("The name of the JMS Queue for GitHub WebHook messages")
@@ -46,6 +59,30 @@ public class Main {
             .defaultValue("PublishResponseQueue")
             .description("The name of the JMS Queue for Publish response messages")
             .build();
+    private static final Argument<String> BISECT_REQUEST_QUEUE_NAME_ARG = stringArgument("--bisect-request-queue-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_BISECT_REQUEST_QUEUE_NAME)
+            .description("The name of the JMS Queue for Bisect request messages")
+            .build();
+    private static final Argument<String> BISECT_RESPONSE_QUEUE_NAME_ARG = stringArgument("--bisect-response-queue-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_BISECT_RESPONSE_QUEUE_NAME)
+            .description("The name of the JMS Queue for Bisect response messages")
+            .build();
+    private static final Argument<String> BACKFILL_REQUEST_QUEUE_NAME_ARG = stringArgument("--backfill-request-queue-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_BACKFILL_REQUEST_QUEUE_NAME)
+            .description("The name of the JMS Queue for Backfill request messages")
+            .build();
+    private static final Argument<String> CHANGE_POINT_QUEUE_NAME_ARG = stringArgument("--change-point-queue-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_CHANGE_POINT_QUEUE_NAME)
+            .description("The name of the JMS Queue for detected performance regressions and improvements")
+            .build();
+    private static final Argument<String> RUNNER_HEARTBEAT_QUEUE_NAME_ARG = stringArgument("--runner-heartbeat-queue-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_RUNNER_HEARTBEAT_QUEUE_NAME)
+            .description("The name of the JMS Queue for Runner heartbeat messages")
+            .build();
+    private static final Argument<List<String>> REF_HARDWARE_CLASS_ARG = stringArgument("--ref-hardware-class")
+            .repeated()
+            .description("Pins a Git ref to a Runner hardware class, in the form ref=hardware-class. By default each ref is pinned to the hardware class with the most live Runners when it is first built.")
+            .build();
     private static final Argument<List<String>> REF_PATTERN_ARG = stringArgument("-r", "--ref-pattern")
             .repeated()
             .description("The Git ref patterns to filter on, by default no filtering will take place and all refs will be built. The patterns are java.util.regex.Pattern.")
@@ -53,30 +90,108 @@ public class Main {
     private static final Argument<Boolean> ALL_BUILDS_ARG = booleanArgument("-a", "--all-builds")
             .description("Causes every request to be built. By default when a build is in progress, any incoming commits apart from the latest for the same ref are discarded.")
             .build();
+    private static final Argument<Boolean> ADAPTIVE_SAMPLING_ARG = booleanArgument("--adaptive-sampling")
+            .description("Causes every request to be built whilst the Runners keep up, as with --all-builds. When the Runners are overloaded, only a sample of the commits of each ref are built, and the skipped commits are built later when the Runners are idle.")
+            .build();
+    private static final Argument<Boolean> RESULT_CACHE_ARG = booleanArgument("--result-cache")
+            .description("Causes the result of a commit which has already been benchmarked on the same hardware class, e.g. when it is pushed to another ref, to be published again instead of building the commit again. The system property " + ResultCache.RERUN_RATE_PROPERTY + " sets the fraction of such commits that are built anyway to sample the noise of the benchmarks.")
+            .build();
+    private static final Argument<String> CONTROL_TOPIC_NAME_ARG = stringArgument("--control-topic-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_CONTROL_TOPIC_NAME)
+            .description("The name of the JMS Topic for control messages to the Runners, e.g. cancelling a build")
+            .build();
+    private static final Argument<String> BENCHMARK_PROGRESS_QUEUE_NAME_ARG = stringArgument("--benchmark-progress-queue-name")
+            .defaultValue(Orchestrator.Settings.DEFAULT_BENCHMARK_PROGRESS_QUEUE_NAME)
+            .description("The name of the JMS Queue for the progress of running benchmarks")
+            .build();
+    private static final Argument<Boolean> CANCEL_SUPERSEDED_ARG = booleanArgument("--cancel-superseded")
+            .description("Causes the builds of a ref which are still updating their source or building to be cancelled when a newer commit of the ref is pushed, so that the newer commit is built sooner. Ignored with --all-builds.")
+            .build();
+    private static final Argument<List<String>> SCHEDULE_ARG = stringArgument("--schedule")
+            .repeated()
+            .description("A recurring benchmark of a ref, in the form name;repository;ref;cron-expression, e.g. 'nightly;facebook/rocksdb;refs/heads/main;0 2 * * *'. Builds requested by a schedule are marked with its name. A schedule which was due whilst the Orchestrator was stopped is caught up by a single build. Requires --data-dir.")
+            .build();
+    private static final Argument<List<String>> WORKFLOW_BENCHMARK_ARG = stringArgument("--workflow-benchmark")
+            .repeated()
+            .description("A benchmark to run for each build request, e.g. 'readrandom'. When specified, each build request is expanded into a workflow with a stage per benchmark, the stages are sent to the Runners to run in parallel, and their results are aggregated into a single result. By default each Runner runs its default benchmarks.")
+            .build();
+    private static final Argument<String> BENCHMARK_PROFILE_ARG = stringArgument("--benchmark-profile")
+            .description("The path to a JSON file of the workloads for the Runners to benchmark for each build request, e.g. {\"workloads\":[{\"name\":\"fillseq\",\"numKeys\":1000000,\"valueSize\":400},{\"name\":\"readrandom\",\"cacheMode\":\"COLD\"}]}. Each workload may also specify args, env, and keySize, and the profile may specify makeTargets. With --workflow-benchmark, each stage runs the workload of the same name. By default each Runner runs its default benchmarks.")
+            .build();
+    private static final Argument<Integer> STATUS_PORT_ARG = integerArgument("--status-port")
+            .defaultValue(Orchestrator.Settings.DEFAULT_STATUS_PORT)
+            .description("The port of the HTTP server which reports the builds, backlog, and latencies of the Orchestrator as JSON, alongside its metrics at /metrics. By default the server is not started.")
+            .build();
+    private static final Argument<String> DATA_DIR_ARG = stringArgument("-d", "--data-dir")
+            .description("The path to the data directory where the Orchestrator should persist its state, and keep the Git repositories used for bisecting and backfilling. By default state is held only in memory and is lost on restart, and bisecting and backfilling are unavailable.")
+            .build();
 
     public static void main(final String args[]) {
         final CommandLineParser parser = CommandLineParser.withArguments(
                 HELP_ARG,
                 ARTEMIS_BROKER_HOST_ARG,
                 ARTEMIS_BROKER_PORT_ARG,
+                ARTEMIS_BROKERS_ARG,
                 WEBHOOK_QUEUE_NAME_ARG,
                 BUILD_REQUEST_QUEUE_NAME_ARG,
                 BUILD_RESPONSE_QUEUE_NAME_ARG,
                 PUBLISH_REQUEST_QUEUE_NAME_ARG,
                 PUBLISH_RESPONSE_QUEUE_NAME_ARG,
+                BISECT_REQUEST_QUEUE_NAME_ARG,
+                BISECT_RESPONSE_QUEUE_NAME_ARG,
+                BACKFILL_REQUEST_QUEUE_NAME_ARG,
+                CHANGE_POINT_QUEUE_NAME_ARG,
+                RUNNER_HEARTBEAT_QUEUE_NAME_ARG,
+                REF_HARDWARE_CLASS_ARG,
                 REF_PATTERN_ARG,
-                ALL_BUILDS_ARG);
+                ALL_BUILDS_ARG,
+                ADAPTIVE_SAMPLING_ARG,
+                RESULT_CACHE_ARG,
+                CANCEL_SUPERSEDED_ARG,
+                CONTROL_TOPIC_NAME_ARG,
+                BENCHMARK_PROGRESS_QUEUE_NAME_ARG,
+                STATUS_PORT_ARG,
+                SCHEDULE_ARG,
+                WORKFLOW_BENCHMARK_ARG,
+                BENCHMARK_PROFILE_ARG,
+                DATA_DIR_ARG);
 
         try {
             final ParsedArguments parsedArguments = parser.parse(args);
 
-            final String artemisBrokerHost = parsedArguments.get(ARTEMIS_BROKER_HOST_ARG);
-            final int artemisBrokerPort = parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue();
+            final List<BrokerEndpoint> artemisBrokers;
+            try {
+                artemisBrokers = BrokerEndpoint.parseList(parsedArguments.get(ARTEMIS_BROKERS_ARG), parsedArguments.get(ARTEMIS_BROKER_HOST_ARG), parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue());
+            } catch (final IllegalArgumentException e) {
+                System.out.println("Invalid Artemis broker specified: " + e.getMessage());
+                System.exit(ExitCodes.INVALID_ARGUMENT);
+                return;
+            }
             final String webHookQueueName = parsedArguments.get(WEBHOOK_QUEUE_NAME_ARG);
             final String buildRequestQueueName = parsedArguments.get(BUILD_REQUEST_QUEUE_NAME_ARG);
             final String buildResponseQueueName = parsedArguments.get(BUILD_RESPONSE_QUEUE_NAME_ARG);
             final String publishRequestQueueName = parsedArguments.get(PUBLISH_REQUEST_QUEUE_NAME_ARG);
             final String publishResponseQueueName = parsedArguments.get(PUBLISH_RESPONSE_QUEUE_NAME_ARG);
+            final String bisectRequestQueueName = parsedArguments.get(BISECT_REQUEST_QUEUE_NAME_ARG);
+            final String bisectResponseQueueName = parsedArguments.get(BISECT_RESPONSE_QUEUE_NAME_ARG);
+            final String backfillRequestQueueName = parsedArguments.get(BACKFILL_REQUEST_QUEUE_NAME_ARG);
+            final String changePointQueueName = parsedArguments.get(CHANGE_POINT_QUEUE_NAME_ARG);
+            final String runnerHeartbeatQueueName = parsedArguments.get(RUNNER_HEARTBEAT_QUEUE_NAME_ARG);
+
+            final List<String> strRefHardwareClasses = parsedArguments.get(REF_HARDWARE_CLASS_ARG);
+            final Map<String, String> refHardwareClasses = new HashMap<>();
+            if (strRefHardwareClasses != null) {
+                for (final String strRefHardwareClass : strRefHardwareClasses) {
+                    final int idxSeparator = strRefHardwareClass.lastIndexOf('=');
+                    if (idxSeparator < 1 || idxSeparator == strRefHardwareClass.length() - 1) {
+                        System.out.println("Invalid --ref-hardware-class specified: " + strRefHardwareClass);
+                        System.out.println("Expected the form ref=hardware-class");
+                        System.exit(ExitCodes.INVALID_ARGUMENT);
+                        return;
+                    }
+                    refHardwareClasses.put(strRefHardwareClass.substring(0, idxSeparator), strRefHardwareClass.substring(idxSeparator + 1));
+                }
+            }
 
             final List<String> strRefPatterns = parsedArguments.get(REF_PATTERN_ARG);
             final List<Pattern> refPatterns;
@@ -96,9 +211,86 @@ public class Main {
                 }
             }
 
-            final boolean allBuilds = parsedArguments.get(ALL_BUILDS_ARG);
+            final boolean adaptiveSampling = parsedArguments.get(ADAPTIVE_SAMPLING_ARG);
+            final boolean allBuilds = parsedArguments.get(ALL_BUILDS_ARG) || adaptiveSampling;
+            final boolean resultCache = parsedArguments.get(RESULT_CACHE_ARG);
+            final boolean cancelSuperseded = parsedArguments.get(CANCEL_SUPERSEDED_ARG);
+            final String controlTopicName = parsedArguments.get(CONTROL_TOPIC_NAME_ARG);
+            final String benchmarkProgressQueueName = parsedArguments.get(BENCHMARK_PROGRESS_QUEUE_NAME_ARG);
+            final int statusPort = parsedArguments.get(STATUS_PORT_ARG);
+
+            final List<String> strSchedules = parsedArguments.get(SCHEDULE_ARG);
+            final List<BenchmarkSchedule> schedules = new ArrayList<>();
+            if (strSchedules != null) {
+                for (final String strSchedule : strSchedules) {
+                    try {
+                        schedules.add(BenchmarkSchedule.parse(strSchedule));
+                    } catch (final IllegalArgumentException e) {
+                        System.out.println("Invalid --schedule specified: " + strSchedule);
+                        System.out.println(e.getMessage());
+                        System.exit(ExitCodes.INVALID_ARGUMENT);
+                        return;
+                    }
+                }
+            }
+
+            final List<String> strWorkflowBenchmarks = parsedArguments.get(WORKFLOW_BENCHMARK_ARG);
+            final List<String> workflowBenchmarks;
+            if (strWorkflowBenchmarks == null) {
+                workflowBenchmarks = Collections.emptyList();
+            } else {
+                workflowBenchmarks = strWorkflowBenchmarks;
+            }
+
+            final String strBenchmarkProfile = parsedArguments.get(BENCHMARK_PROFILE_ARG);
+            final BenchmarkSpec benchmarkSpec;
+            if (strBenchmarkProfile == null || strBenchmarkProfile.isEmpty()) {
+                benchmarkSpec = null;
+            } else {
+                try {
+                    benchmarkSpec = new BenchmarkSpec().deserialize(Files.readString(Paths.get(strBenchmarkProfile), UTF_8));
+                } catch (final InvalidPathException | IOException e) {
+                    System.out.println("Invalid --benchmark-profile specified: " + strBenchmarkProfile);
+                    System.out.println(e.getMessage());
+                    System.exit(ExitCodes.INVALID_ARGUMENT);
+                    return;
+                }
+            }
+
+            final String strDataDir = parsedArguments.get(DATA_DIR_ARG);
+            final Path dataDir;
+            if (strDataDir == null || strDataDir.isEmpty()) {
+                dataDir = null;
+            } else {
+                try {
+                    dataDir = Paths.get(strDataDir);
+                } catch (final InvalidPathException e) {
+                    System.out.println("Invalid --data-dir specified: " + strDataDir);
+                    System.out.println(e.getMessage());
+                    System.exit(ExitCodes.INVALID_ARGUMENT);
+                    return;
+                }
+            }
 
-            final Orchestrator.Settings orchestratorSettings = new Orchestrator.Settings(artemisBrokerHost, artemisBrokerPort, webHookQueueName, buildRequestQueueName, buildResponseQueueName, publishRequestQueueName, publishResponseQueueName, refPatterns, allBuilds);
+            final Orchestrator.Settings orchestratorSettings = new Orchestrator.Settings.Builder(artemisBrokers, webHookQueueName, buildRequestQueueName, buildResponseQueueName, publishRequestQueueName, publishResponseQueueName)
+                    .bisectQueueNames(bisectRequestQueueName, bisectResponseQueueName)
+                    .backfillRequestQueueName(backfillRequestQueueName)
+                    .changePointQueueName(changePointQueueName)
+                    .runnerHeartbeatQueueName(runnerHeartbeatQueueName)
+                    .controlTopicName(controlTopicName)
+                    .benchmarkProgressQueueName(benchmarkProgressQueueName)
+                    .refPatterns(refPatterns)
+                    .refHardwareClasses(refHardwareClasses)
+                    .allBuilds(allBuilds)
+                    .adaptiveSampling(adaptiveSampling)
+                    .resultCache(resultCache)
+                    .statusPort(statusPort)
+                    .schedules(schedules)
+                    .workflowBenchmarks(workflowBenchmarks)
+                    .cancelSuperseded(cancelSuperseded)
+                    .benchmarkSpec(benchmarkSpec)
+                    .dataDir(dataDir)
+                    .build();
             final Orchestrator orchestrator = new Orchestrator(orchestratorSettings);
             orchestrator.runSync();
 
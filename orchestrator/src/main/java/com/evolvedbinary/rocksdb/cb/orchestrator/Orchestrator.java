@@ -1,9 +1,22 @@
 package com.evolvedbinary.rocksdb.cb.orchestrator;
 
-import com.evolvedbinary.rocksdb.cb.common.MapUtil;
 import com.evolvedbinary.rocksdb.cb.dataobject.*;
 import com.evolvedbinary.rocksdb.cb.jms.AbstractJMSService;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
+import com.evolvedbinary.rocksdb.cb.jms.JMSServiceInstance;
 import com.evolvedbinary.rocksdb.cb.jms.JMSServiceState;
+import com.evolvedbinary.rocksdb.cb.orchestrator.changepoint.ChangePoint;
+import com.evolvedbinary.rocksdb.cb.orchestrator.changepoint.ChangePointDetector;
+import com.evolvedbinary.rocksdb.cb.orchestrator.changepoint.SeriesKey;
+import com.evolvedbinary.rocksdb.cb.orchestrator.store.BuildStore;
+import com.evolvedbinary.rocksdb.cb.orchestrator.store.BuildStoreException;
+import com.evolvedbinary.rocksdb.cb.orchestrator.store.NoOpBuildStore;
+import com.evolvedbinary.rocksdb.cb.orchestrator.store.RocksDBBuildStore;
+import com.evolvedbinary.rocksdb.cb.scm.GitHelper;
+import com.evolvedbinary.rocksdb.cb.scm.GitHelperException;
+import com.evolvedbinary.rocksdb.cb.scm.JGitGitHelperImpl;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,40 +24,561 @@ import javax.annotation.Nullable;
 import javax.jms.*;
 import javax.jms.Queue;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
 
 public class Orchestrator extends AbstractJMSService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Orchestrator.class);
+    private static final String REPO_DIR_NAME = "repo";
+    private static final String MAIN_GIT_BRANCH = "master";
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+    private static final String REMOTE_TRACKING_REF_PREFIX = "refs/remotes/origin/";
+    private static final String SCHEDULE_AUTHOR = "scheduler";
+
+    public static final String CHANGE_POINT_WINDOW_PROPERTY = "cb.changepoint.window";
+    public static final String CHANGE_POINT_SIGNIFICANCE_PROPERTY = "cb.changepoint.significance";
+    public static final String CHANGE_POINT_MIN_RELATIVE_CHANGE_PROPERTY = "cb.changepoint.min.relative.change";
+
+    /**
+     * System property which sets the interval in milliseconds at which
+     * the liveness of the Runners is checked.
+     */
+    public static final String RUNNER_LIVENESS_CHECK_INTERVAL_PROPERTY = "cb.runner.liveness.check.interval";
+    static final long DEFAULT_RUNNER_LIVENESS_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * System property which sets how many times a build whose deadline
+     * expired is re-queued for another Runner before it is failed.
+     */
+    public static final String BUILD_DEADLINE_RETRIES_PROPERTY = "cb.build.deadline.retries";
+    static final int DEFAULT_BUILD_DEADLINE_RETRIES = 1;
+
+    /**
+     * System property which sets the interval in milliseconds at which
+     * the next commit of a backfill campaign may be dispatched.
+     */
+    public static final String BACKFILL_INTERVAL_PROPERTY = "cb.backfill.interval";
+    static final long DEFAULT_BACKFILL_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * System property which sets the utilisation of the Runners, i.e. the number of
+     * builds in progress per live Runner, below which backfill commits are dispatched.
+     */
+    public static final String BACKFILL_MAX_UTILISATION_PROPERTY = "cb.backfill.max.utilisation";
+    static final double DEFAULT_BACKFILL_MAX_UTILISATION = 0.5;
+
+    /**
+     * System property which sets the interval in milliseconds at which
+     * the benchmark schedules are checked for builds that are due.
+     */
+    public static final String SCHEDULE_CHECK_INTERVAL_PROPERTY = "cb.schedule.check.interval";
+    static final long DEFAULT_SCHEDULE_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The name of the time series of the build as a whole, i.e. of its compilation time,
+     * and of its benchmark time if the Runner did not report any metrics per benchmark.
+     */
+    static final String BUILD_SERIES_NAME = "build";
+    static final String METRIC_BENCHMARK_TIME = "benchmarkTime";
+    static final String METRIC_COMPILATION_TIME = "compilationTime";
+
+    /**
+     * The metrics of each benchmark which are tracked for change points.
+     */
+    static final List<String> CHANGE_POINT_METRICS = Arrays.asList(
+            BuildStats.METRIC_OPS_PER_SEC,
+            BuildStats.METRIC_P50,
+            BuildStats.METRIC_P95,
+            BuildStats.METRIC_P99,
+            BuildStats.METRIC_P99_9,
+            BuildStats.METRIC_P99_99
+    );
     private static final AtomicReference<JMSServiceState> STATE = new AtomicReference<>(JMSServiceState.IDLE);
 
     private final Settings settings;
     private final WebHookQueueMessageListener webHookQueueMessageListener = new WebHookQueueMessageListener();
     private final BuildResponseQueueMessageListener buildResponseQueueMessageListener = new BuildResponseQueueMessageListener();
     private final PublishResponseQueueMessageListener publishResponseQueueMessageListener = new PublishResponseQueueMessageListener();
+    private final BisectRequestQueueMessageListener bisectRequestQueueMessageListener = new BisectRequestQueueMessageListener();
+    private final BackfillRequestQueueMessageListener backfillRequestQueueMessageListener = new BackfillRequestQueueMessageListener();
+    private final RunnerHeartbeatQueueMessageListener runnerHeartbeatQueueMessageListener = new RunnerHeartbeatQueueMessageListener();
+    private final BenchmarkProgressQueueMessageListener benchmarkProgressQueueMessageListener = new BenchmarkProgressQueueMessageListener();
 
-    // TODO(AR) internal state needs to be persisted somewhere -- load and resume after restart
-    private final Map<String, Map<UUID, Build>> builds = new ConcurrentHashMap<>();
+    private final BuildStateMachine builds = new BuildStateMachine();
     private final Map<String, BuildRequest> buildBacklog = new ConcurrentHashMap<>();
+    private volatile BuildStore buildStore = new NoOpBuildStore();
+    private final BuildReaper buildReaper = BuildReaper.fromSystemProperties(this::reapBuild);
 
-    private static class Build {
-        final BuildRequest request;
-        final BuildState state;
+    // build request id -> attempt number, for builds that were re-queued after their deadline expired
+    private final Map<UUID, Integer> buildAttempts = new ConcurrentHashMap<>();
 
-        public Build(final BuildRequest request, final BuildState state) {
-            this.request = request;
-            this.state = state;
+    // build request id -> bisect job which dispatched the build
+    private final Map<UUID, BisectJob> bisectBuilds = new ConcurrentHashMap<>();
+
+    // backfill campaigns which have commits remaining, in the order that they were requested
+    private final ConcurrentLinkedQueue<BackfillCampaign> backfillCampaigns = new ConcurrentLinkedQueue<>();
+
+    // build request id -> workflow which the build request was expanded into
+    private final Map<UUID, Workflow> workflows = new ConcurrentHashMap<>();
+
+    // stage build request id -> workflow of the stage
+    private final Map<UUID, Workflow> workflowStages = new ConcurrentHashMap<>();
+
+    // build request ids of the builds which were asked to cancel, because a newer commit superseded them
+    private final Set<UUID> cancelledBuilds = ConcurrentHashMap.newKeySet();
+
+    // schedule name -> time that the schedule last requested a build
+    private final Map<String, ZonedDateTime> scheduleFiredTimes = new ConcurrentHashMap<>();
+
+    private final ChangePointDetector changePointDetector = new ChangePointDetector(
+            Integer.getInteger(CHANGE_POINT_WINDOW_PROPERTY, ChangePointDetector.DEFAULT_WINDOW),
+            Double.parseDouble(System.getProperty(CHANGE_POINT_SIGNIFICANCE_PROPERTY, String.valueOf(ChangePointDetector.DEFAULT_SIGNIFICANCE))),
+            Double.parseDouble(System.getProperty(CHANGE_POINT_MIN_RELATIVE_CHANGE_PROPERTY, String.valueOf(ChangePointDetector.DEFAULT_MIN_RELATIVE_CHANGE))));
+
+    private final RunnerRegistry runnerRegistry;
+    private final CommitSampler commitSampler = CommitSampler.fromSystemProperties(new CommitSampler.SkippedListener() {
+        @Override
+        public void skipped(final BuildRequest buildRequest) {
+            persistSkipped(buildRequest);
         }
-    }
+
+        @Override
+        public void forgotten(final BuildRequest buildRequest) {
+            persistSkippedRemoval(buildRequest.getId());
+        }
+    });
+    private final ResultCache resultCache = ResultCache.fromSystemProperties();
+    private final ThroughputBaselines throughputBaselines = ThroughputBaselines.fromSystemProperties();
+    private final BuildMetrics buildMetrics = new BuildMetrics();
+    private final BenchmarkProgressTracker benchmarkProgressTracker = BenchmarkProgressTracker.fromSystemProperties();
+    private @Nullable ScheduledExecutorService scheduledExecutorService;
 
     public Orchestrator(final Settings settings) {
         this.settings = settings;
+        this.runnerRegistry = new RunnerRegistry(settings.refHardwareClasses);
+    }
+
+    @Override
+    public JMSServiceInstance runAsync() {
+        if (getState().get() != JMSServiceState.IDLE) {
+            throw new java.lang.IllegalStateException("Already running");
+        }
+
+        // load and resume the internal state from before any restart
+        final BuildStore buildStore = openBuildStore();
+        final List<BuildRequest> unsentBuildRequests = new ArrayList<>();
+        try {
+            recoverState(buildStore, unsentBuildRequests);
+        } catch (final BuildStoreException e) {
+            buildStore.close();
+            throw new RuntimeException("Unable to recover Orchestrator state: " + e.getMessage(), e);
+        }
+        this.buildStore = buildStore;
+
+        final JMSServiceInstance instance;
+        try {
+            instance = super.runAsync();
+        } catch (final RuntimeException e) {
+            closeBuildStore();
+            throw e;
+        }
+
+        buildReaper.start(getClientId() + "-BuildReaper-Thread");
+
+        final long livenessCheckInterval = Long.getLong(RUNNER_LIVENESS_CHECK_INTERVAL_PROPERTY, DEFAULT_RUNNER_LIVENESS_CHECK_INTERVAL);
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, getClientId() + "-Scheduler-Thread"));
+        this.scheduledExecutorService.scheduleWithFixedDelay(this::checkRunnerLiveness, livenessCheckInterval, livenessCheckInterval, TimeUnit.MILLISECONDS);
+        if (settings.adaptiveSampling) {
+            final long backfillInterval = Long.getLong(CommitSampler.BACKFILL_INTERVAL_PROPERTY, CommitSampler.DEFAULT_BACKFILL_INTERVAL);
+            this.scheduledExecutorService.scheduleWithFixedDelay(this::backfillSkippedCommits, backfillInterval, backfillInterval, TimeUnit.MILLISECONDS);
+        }
+        final long backfillCampaignInterval = Long.getLong(BACKFILL_INTERVAL_PROPERTY, DEFAULT_BACKFILL_INTERVAL);
+        this.scheduledExecutorService.scheduleWithFixedDelay(this::dispatchBackfill, backfillCampaignInterval, backfillCampaignInterval, TimeUnit.MILLISECONDS);
+        if (!settings.schedules.isEmpty()) {
+            // checks immediately, so that any builds which were due whilst the Orchestrator was stopped are caught up
+            final long scheduleCheckInterval = Long.getLong(SCHEDULE_CHECK_INTERVAL_PROPERTY, DEFAULT_SCHEDULE_CHECK_INTERVAL);
+            this.scheduledExecutorService.scheduleWithFixedDelay(this::fireSchedules, 0, scheduleCheckInterval, TimeUnit.MILLISECONDS);
+        }
+
+        // resend any build requests that may not have been sent before the restart
+        for (final BuildRequest buildRequest : unsentBuildRequests) {
+            try {
+                sendBuildRequest(buildRequest);
+                LOGGER.info("Resent recovered BuildRequest for ref: {} id: {}", buildRequest.getRef(), buildRequest.getId());
+            } catch (final IOException | JMSException e) {
+                LOGGER.error("Unable to resend recovered BuildRequest to Queue: {}. Error: {}", settings.buildRequestQueueName, e.getMessage(), e);
+            }
+        }
+
+        return instance;
+    }
+
+    private BuildStore openBuildStore() {
+        if (settings.dataDir == null) {
+            LOGGER.warn("No data directory configured, Orchestrator state will not survive a restart");
+            return new NoOpBuildStore();
+        }
+
+        try {
+            return RocksDBBuildStore.open(settings.dataDir);
+        } catch (final BuildStoreException e) {
+            throw new RuntimeException("Unable to open Build Store: " + e.getMessage(), e);
+        }
+    }
+
+    private void recoverState(final BuildStore buildStore, final List<BuildRequest> unsentBuildRequests) throws BuildStoreException {
+        builds.clear();
+        buildBacklog.clear();
+        backfillCampaigns.clear();
+        scheduleFiredTimes.clear();
+        workflows.clear();
+        workflowStages.clear();
+
+        final long start = System.nanoTime();
+        buildStore.recover(
+                (buildRequest, buildState) -> {
+                    builds.insert(buildRequest, buildState);
+                    buildReaper.arm(buildRequest, buildState);
+                    // the bisect job of a bisect build does not survive a restart, so it is left to be reaped rather than resent
+                    if (buildState == BuildState.REQUESTING && !buildRequest.isBisect()) {
+                        unsentBuildRequests.add(buildRequest);
+                    }
+                },
+                buildRequest -> buildBacklog.put(buildRequest.getRef(), buildRequest)
+        );
+        final List<UUID> staleWorkflows = new ArrayList<>();
+        buildStore.recoverWorkflows((buildRequest, stageBuildRequests, stageResponses) -> {
+            @Nullable final BuildState buildState = builds.getState(buildRequest.getRef(), buildRequest.getId());
+            if (buildState == null || buildState == BuildState.REQUESTING) {
+                // the build has finished, or it is resent and expanded into a new workflow
+                staleWorkflows.add(buildRequest.getId());
+                return;
+            }
+            final Workflow workflow = new Workflow(buildRequest, stageBuildRequests, stageResponses);
+            workflows.put(buildRequest.getId(), workflow);
+            for (final BuildRequest stageBuildRequest : stageBuildRequests) {
+                workflowStages.put(stageBuildRequest.getId(), workflow);
+            }
+        });
+        for (final UUID staleWorkflow : staleWorkflows) {
+            buildStore.removeWorkflow(staleWorkflow);
+        }
+        final List<BuildRequest> skippedBuildRequests = new ArrayList<>();
+        buildStore.recoverSkipped(skippedBuildRequests::add);
+        for (final BuildRequest forgotten : commitSampler.restoreSkipped(skippedBuildRequests)) {
+            buildStore.removeSkipped(forgotten.getId());
+        }
+        buildStore.recoverBackfills((backfillRequest, commits, dispatched) -> backfillCampaigns.add(new BackfillCampaign(backfillRequest, commits, dispatched)));
+        buildStore.recoverSchedules(scheduleFiredTimes::put);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOGGER.info("Recovered {} build(s), {} backlogged build request(s), {} workflow(s), {} skipped commit(s), and {} backfill campaign(s) in {} ms", builds.buildCount(), buildBacklog.size(), workflows.size(), commitSampler.skippedCount(), backfillCampaigns.size(), elapsedMillis);
+    }
+
+    @Override
+    protected void onStopped() {
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+            scheduledExecutorService = null;
+        }
+        buildReaper.close();
+        closeBuildStore();
+    }
+
+    private void closeBuildStore() {
+        final BuildStore buildStore = this.buildStore;
+        this.buildStore = new NoOpBuildStore();
+        buildStore.close();
+    }
+
+    private void onBuildStateChanged(final BuildRequest buildRequest, @Nullable final BuildState fromState, final BuildState toState) {
+        persistBuild(buildRequest, fromState, toState);
+        buildReaper.arm(buildRequest, toState);
+        buildMetrics.buildStateChanged(buildRequest, toState);
+        if (toState == BuildState.UPDATING_SOURCE) {
+            commitSampler.buildStarted(buildRequest.getId());
+        }
+    }
+
+    private void onBuildRemoved(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) {
+        persistBuildRemoval(buildRequest, fromState, finalState);
+        buildReaper.disarm(buildRequest.getId());
+        buildAttempts.remove(buildRequest.getId());
+        cancelledBuilds.remove(buildRequest.getId());
+        buildMetrics.buildRemoved(buildRequest, finalState);
+        benchmarkProgressTracker.remove(buildRequest.getId());
+        commitSampler.buildFinished(buildRequest.getId(), finalState == BuildState.BENCHMARKING_COMPLETE);
+    }
+
+    /**
+     * The status port, when set, is the port of the metrics
+     * HTTP server, which also serves the status resources.
+     */
+    @Override
+    protected int getMetricsHttpPort() {
+        return settings.statusPort >= 0 ? settings.statusPort : super.getMetricsHttpPort();
+    }
+
+    @Override
+    protected Map<String, HttpHandler> getHttpHandlers() {
+        final Map<String, HttpHandler> handlers = new HashMap<>();
+        for (final Map.Entry<String, StatusHandler.StatusWriter> resource : statusResources().entrySet()) {
+            handlers.put(resource.getKey(), new StatusHandler(resource.getKey(), resource.getValue()));
+        }
+        return handlers;
+    }
+
+    /**
+     * The resources of the status server.
+     *
+     * Each is written from the lock-free in-memory state of the Orchestrator,
+     * so that answering a query never contends with the message listeners.
+     */
+    private Map<String, StatusHandler.StatusWriter> statusResources() {
+        final Map<String, StatusHandler.StatusWriter> resources = new HashMap<>();
+        resources.put("/builds", generator -> writeObject(generator, this::writeBuilds));
+        resources.put("/backlog", generator -> writeObject(generator, this::writeBacklog));
+        resources.put("/counts", generator -> writeObject(generator, this::writeCounts));
+        resources.put("/latencies", generator -> writeObject(generator, this::writeLatencies));
+        resources.put("/completions", generator -> writeObject(generator, this::writeCompletions));
+        resources.put("/workflows", generator -> writeObject(generator, this::writeWorkflows));
+        resources.put("/progress", generator -> writeObject(generator, benchmarkProgressTracker::write));
+        resources.put("/status", generator -> writeObject(generator, g -> {
+            g.writeNumberField("liveRunners", runnerRegistry.liveRunnerCount());
+            g.writeNumberField("backfillCampaigns", backfillCampaigns.size());
+            g.writeObjectFieldStart("resultCache");
+            g.writeNumberField("hits", resultCache.getHits());
+            g.writeNumberField("misses", resultCache.getMisses());
+            g.writeNumberField("reruns", resultCache.getReruns());
+            g.writeEndObject();
+            writeBuilds(g);
+            writeBacklog(g);
+            writeCounts(g);
+            writeLatencies(g);
+            writeCompletions(g);
+            writeWorkflows(g);
+            benchmarkProgressTracker.write(g);
+        }));
+        return resources;
+    }
+
+    private static void writeObject(final JsonGenerator generator, final StatusHandler.StatusWriter fieldsWriter) throws IOException {
+        generator.writeStartObject();
+        fieldsWriter.write(generator);
+        generator.writeEndObject();
+    }
+
+    private void writeBuilds(final JsonGenerator generator) throws IOException {
+        // ref -> builds of the ref, the state machine is read only once so the snapshot is consistent
+        final SortedMap<String, List<Map.Entry<BuildRequest, BuildState>>> refBuilds = new TreeMap<>();
+        builds.forEach((buildRequest, buildState) -> refBuilds.computeIfAbsent(buildRequest.getRef(), ref -> new ArrayList<>()).add(new AbstractMap.SimpleImmutableEntry<>(buildRequest, buildState)));
+
+        generator.writeObjectFieldStart("builds");
+        for (final Map.Entry<String, List<Map.Entry<BuildRequest, BuildState>>> refBuild : refBuilds.entrySet()) {
+            generator.writeArrayFieldStart(refBuild.getKey());
+            for (final Map.Entry<BuildRequest, BuildState> build : refBuild.getValue()) {
+                generator.writeStartObject();
+                writeBuildRequestFields(generator, build.getKey());
+                generator.writeStringField("state", build.getValue().name());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeBacklog(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart("backlog");
+        for (final BuildRequest buildRequest : buildBacklog.values()) {
+            generator.writeStartObject();
+            writeBuildRequestFields(generator, buildRequest);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeCounts(final JsonGenerator generator) throws IOException {
+        final Map<BuildState, Integer> counts = new EnumMap<>(BuildState.class);
+        builds.forEach((buildRequest, buildState) -> counts.merge(buildState, 1, Integer::sum));
+
+        generator.writeObjectFieldStart("counts");
+        for (final BuildState buildState : BuildState.values()) {
+            generator.writeNumberField(buildState.name(), counts.getOrDefault(buildState, 0));
+        }
+        generator.writeEndObject();
+        generator.writeNumberField("backlogged", buildBacklog.size());
+    }
+
+    private void writeLatencies(final JsonGenerator generator) throws IOException {
+        generator.writeObjectFieldStart("latencies");
+        writeSummary(generator, "queueToStart", buildMetrics.getQueueToStart());
+        for (final BuildState stage : BuildMetrics.STAGES) {
+            writeSummary(generator, stage.name(), buildMetrics.getStage(stage));
+        }
+        writeSummary(generator, "total", buildMetrics.getTotal());
+        generator.writeEndObject();
+    }
+
+    private static void writeSummary(final JsonGenerator generator, final String name, final BuildMetrics.Summary summary) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("count", summary.count);
+        generator.writeNumberField("mean", summary.mean);
+        generator.writeNumberField("p50", summary.p50);
+        generator.writeNumberField("p95", summary.p95);
+        generator.writeNumberField("p99", summary.p99);
+        generator.writeNumberField("max", summary.max);
+        generator.writeEndObject();
+    }
+
+    private void writeCompletions(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart("completions");
+        for (final BuildMetrics.Completion completion : buildMetrics.getRecentCompletions()) {
+            generator.writeStartObject();
+            writeBuildRequestFields(generator, completion.buildRequest);
+            generator.writeStringField("state", completion.finalState.name());
+            generator.writeStringField("completed", Instant.ofEpochMilli(completion.completedTime).toString());
+            generator.writeNumberField("duration", completion.duration);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeWorkflows(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart("workflows");
+        for (final Workflow workflow : workflows.values()) {
+            generator.writeStartObject();
+            writeBuildRequestFields(generator, workflow.getBuildRequest());
+            generator.writeStringField("state", workflow.getState().name());
+            generator.writeArrayFieldStart("stages");
+            for (final BuildRequest stageBuildRequest : workflow.getStageBuildRequests()) {
+                generator.writeStartObject();
+                writeBuildRequestFields(generator, stageBuildRequest);
+                generator.writeStringField("state", workflow.getStageState(stageBuildRequest.getId()).name());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeBuildRequestFields(final JsonGenerator generator, final BuildRequest buildRequest) throws IOException {
+        generator.writeStringField("id", buildRequest.getId().toString());
+        generator.writeStringField("ref", buildRequest.getRef());
+        generator.writeStringField("commit", buildRequest.getCommit());
+        generator.writeStringField("author", buildRequest.getAuthor());
+        if (buildRequest.isScheduled()) {
+            generator.writeStringField("schedule", buildRequest.getSchedule());
+        }
+        if (buildRequest.getBenchmark() != null) {
+            generator.writeStringField("benchmark", buildRequest.getBenchmark());
+        }
+    }
+
+    /**
+     * Get the port that the status server is listening on.
+     *
+     * @return the port, or -1 if the status server is not running
+     */
+    int getStatusPort() {
+        return getMetricsHttpServerPort();
+    }
+
+    private void persistBuild(final BuildRequest buildRequest, @Nullable final BuildState fromState, final BuildState toState) {
+        try {
+            buildStore.putBuild(buildRequest, fromState, toState);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist Build State for ref: {} id: {}. Error: {}", buildRequest.getRef(), buildRequest.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void persistBuildRemoval(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) {
+        try {
+            buildStore.removeBuild(buildRequest, fromState, finalState);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist removal of Build State for ref: {} id: {}. Error: {}", buildRequest.getRef(), buildRequest.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void persistBacklog(final BuildRequest buildRequest) {
+        try {
+            buildStore.putBacklog(buildRequest);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist backlog for ref: {}. Error: {}", buildRequest.getRef(), e.getMessage(), e);
+        }
+    }
+
+    private void persistBacklogRemoval(final String ref) {
+        try {
+            buildStore.removeBacklog(ref);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist removal of backlog for ref: {}. Error: {}", ref, e.getMessage(), e);
+        }
+    }
+
+    private void persistWorkflow(final Workflow workflow) {
+        final BuildRequest buildRequest = workflow.getBuildRequest();
+        try {
+            buildStore.putWorkflow(buildRequest, workflow.getStageBuildRequests(), workflow.getStageResponses());
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist workflow for ref: {} id: {}. Error: {}", buildRequest.getRef(), buildRequest.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void persistWorkflowRemoval(final UUID buildRequestId) {
+        try {
+            buildStore.removeWorkflow(buildRequestId);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist removal of workflow id: {}. Error: {}", buildRequestId, e.getMessage(), e);
+        }
+    }
+
+    private void persistSkipped(final BuildRequest buildRequest) {
+        try {
+            buildStore.putSkipped(buildRequest);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist skipped commit: {} for ref: {}. Error: {}", buildRequest.getCommit(), buildRequest.getRef(), e.getMessage(), e);
+        }
+    }
+
+    private void persistSkippedRemoval(final UUID buildRequestId) {
+        try {
+            buildStore.removeSkipped(buildRequestId);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist removal of skipped commit id: {}. Error: {}", buildRequestId, e.getMessage(), e);
+        }
+    }
+
+    private void persistSchedule(final String scheduleName, final ZonedDateTime firedTime) {
+        try {
+            buildStore.putSchedule(scheduleName, firedTime);
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist schedule: {}. Error: {}", scheduleName, e.getMessage(), e);
+        }
+    }
+
+    private void persistBackfill(final BackfillCampaign backfillCampaign) {
+        final BackfillRequest backfillRequest = backfillCampaign.getBackfillRequest();
+        try {
+            if (backfillCampaign.isFinished()) {
+                buildStore.removeBackfill(backfillRequest.getId());
+            } else {
+                buildStore.putBackfill(backfillRequest, backfillCampaign.getCommits(), backfillCampaign.getDispatched());
+            }
+        } catch (final BuildStoreException e) {
+            LOGGER.error("Unable to persist progress of BackfillRequest(id={}). Error: {}", backfillRequest.getId(), e.getMessage(), e);
+        }
     }
 
     @Override
@@ -58,11 +592,8 @@ public class Orchestrator extends AbstractJMSService {
     }
 
     @Override
-    protected Map<String, Object> getTransportConfigurationParameters() {
-        return MapUtil.Map(
-                Entry("host", settings.artemisBrokerHost),
-                Entry("port", settings.artemisBrokerPort)
-        );
+    protected List<BrokerEndpoint> getBrokerEndpoints() {
+        return settings.artemisBrokers;
     }
 
     @Override
@@ -77,10 +608,21 @@ public class Orchestrator extends AbstractJMSService {
                 settings.buildRequestQueueName,
                 settings.buildResponseQueueName,
                 settings.publishRequestQueueName,
-                settings.publishResponseQueueName
+                settings.publishResponseQueueName,
+                settings.bisectRequestQueueName,
+                settings.bisectResponseQueueName,
+                settings.backfillRequestQueueName,
+                settings.changePointQueueName,
+                settings.runnerHeartbeatQueueName,
+                settings.benchmarkProgressQueueName
         );
     }
 
+    @Override
+    protected List<String> getTopicNames() {
+        return Collections.singletonList(settings.controlTopicName);
+    }
+
     @Nullable
     @Override
     protected MessageListener getListener(final String queueName) {
@@ -92,6 +634,18 @@ public class Orchestrator extends AbstractJMSService {
 
         } else if (settings.publishResponseQueueName.equals(queueName)) {
             return publishResponseQueueMessageListener;
+
+        } else if (settings.bisectRequestQueueName.equals(queueName)) {
+            return bisectRequestQueueMessageListener;
+
+        } else if (settings.backfillRequestQueueName.equals(queueName)) {
+            return backfillRequestQueueMessageListener;
+
+        } else if (settings.runnerHeartbeatQueueName.equals(queueName)) {
+            return runnerHeartbeatQueueMessageListener;
+
+        } else if (settings.benchmarkProgressQueueName.equals(queueName)) {
+            return benchmarkProgressQueueMessageListener;
         }
 
         return null;
@@ -124,7 +678,7 @@ public class Orchestrator extends AbstractJMSService {
             // attempt to parse as WebHookPayloadSummary
             final WebHookPayloadSummary webHookPayloadSummary;
             try {
-                webHookPayloadSummary = new WebHookPayloadSummary().deserialize(content);
+                webHookPayloadSummary = deserialize(new WebHookPayloadSummary(), content);
             } catch (final IOException e) {
                 // unable to deserialize, acknowledge invalid message so that it is removed from the queue
                 if (acknowledgeMessage(message)) {
@@ -144,6 +698,15 @@ public class Orchestrator extends AbstractJMSService {
             }
 
             final BuildRequest buildRequest = new BuildRequest(webHookPayloadSummary.getRepository(), webHookPayloadSummary.getRef(), webHookPayloadSummary.getAfter(), webHookPayloadSummary.getSender());
+
+            // when the Runners are overloaded only a sample of the commits are built now, the others are built once the Runners are idle
+            if (settings.adaptiveSampling && !commitSampler.sample(buildRequest, builds.buildCount(), liveRunnerCount())) {
+                if (acknowledgeMessage(message)) {
+                    LOGGER.debug("Skipped WebHookPayloadSummary(id={}) from Queue: {}.", webHookPayloadSummary.getId(), settings.webHookQueueName);
+                }
+                return;
+            }
+
             if (processBuildRequest(buildRequest)) {
                 // acknowledge processed message so that it is removed from the queue
                 if (acknowledgeMessage(message)) {
@@ -168,12 +731,20 @@ public class Orchestrator extends AbstractJMSService {
     }
 
     private boolean processBuildRequest(final BuildRequest buildRequest) {
+        // has the same source already been benchmarked on the same hardware class? if so, there is no need to build it again
+        // scheduled builds run a different benchmark profile, so are never answered from the cache
+        if (settings.resultCache && !buildRequest.isScheduled() && publishCachedResult(buildRequest)) {
+            return true;
+        }
+
         // should we create builds for all requests that come in?
         if (settings.allBuilds) {
             // always send the build request...
 
             // record that we are requesting a build
-            insertBuildState(builds, buildRequest, BuildState.REQUESTING);
+            if (builds.insert(buildRequest, BuildState.REQUESTING)) {
+                onBuildStateChanged(buildRequest, null, BuildState.REQUESTING);
+            }
 
             // send it...
             try {
@@ -187,9 +758,11 @@ public class Orchestrator extends AbstractJMSService {
             // only build when there isn't a build happening for the ref
 
             // is there a build request in progress, if not record that we are requesting a build
-            final boolean noExistingBuildForRef = insertBuildStateIfAbsent(builds, buildRequest, BuildState.REQUESTING);
+            final boolean noExistingBuildForRef = builds.insertIfAbsent(buildRequest, BuildState.REQUESTING);
 
             if (noExistingBuildForRef) {
+                onBuildStateChanged(buildRequest, null, BuildState.REQUESTING);
+
                 // this is a the first build request for this ref, so send it...
                 try {
                     sendBuildRequest(buildRequest);
@@ -200,7 +773,7 @@ public class Orchestrator extends AbstractJMSService {
 
             } else {
                 // there is an existing build request for this ref, so place this one on the backlog (if it is newer)
-                buildBacklog.compute(buildRequest.getRef(), (k,v) -> {
+                final BuildRequest backloggedBuildRequest = buildBacklog.compute(buildRequest.getRef(), (k,v) -> {
                     if (v == null) {
                         return buildRequest;
                     }
@@ -212,217 +785,1102 @@ public class Orchestrator extends AbstractJMSService {
 
                     return v;
                 });
+
+                if (backloggedBuildRequest == buildRequest) {
+                    persistBacklog(buildRequest);
+
+                    if (settings.cancelSuperseded) {
+                        cancelSupersededBuilds(buildRequest);
+                    }
+                }
             }
         }
 
         return true;
     }
 
-    private void sendBuildRequest(final BuildRequest buildRequest) throws IOException, JMSException {
-        // send the message
-        final Queue buildRequestQueue = getQueue(settings.buildRequestQueueName);
-        sendMessage(buildRequest, buildRequestQueue);
-
-        // record the updated state from `REQUESTING` to `REQUESTED`
-        updateBuildState(builds, buildRequest, BuildState.REQUESTING, BuildState.REQUESTED);
-    }
-
-    private void sendPublishRequest(final PublishRequest publishRequest) throws IOException, JMSException {
-        // send the message
-        final Queue outputQueue = getQueue(settings.publishRequestQueueName);
-        sendMessage(publishRequest, outputQueue);
-    }
-
-    private class BuildResponseQueueMessageListener implements MessageListener {
-        @Override
-        public void onMessage(final Message message) {
-            if (!(message instanceof TextMessage)) {
-                // acknowledge invalid message so that it is removed from the queue
-                if (Orchestrator.this.acknowledgeMessage(message)) {
-                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.buildResponseQueueName);
-                }
-
-                // can't process non-text message, so DONE
-                return;
+    /**
+     * Ask the Runners to cancel the builds of a ref which are updating their source
+     * or building, as the newer build request which is waiting on the backlog will
+     * supersede their results. Once a Runner reports that a build was cancelled,
+     * the backlogged build request is dispatched.
+     *
+     * Benchmarking is not cancelled as its result is nearly complete, and
+     * scheduled, backfill, and bisect builds are never superseded.
+     */
+    private void cancelSupersededBuilds(final BuildRequest buildRequest) {
+        for (final BuildStateMachine.Build build : builds.getBuilds(buildRequest.getRef())) {
+            final BuildRequest supersededBuildRequest = build.request;
+            if (build.state != BuildState.UPDATING_SOURCE && build.state != BuildState.BUILDING) {
+                continue;
             }
-
-            final TextMessage textMessage = (TextMessage) message;
-            final String content;
-            try {
-                content = textMessage.getText();
-            } catch (final JMSException e) {
-                LOGGER.error("Could not get content of TextMessage from Queue: {}. Error: {}", settings.buildResponseQueueName, e.getMessage(), e);
-
-                // can't access message content, so DONE
-                return;
+            if (supersededBuildRequest.isScheduled()
+                    || supersededBuildRequest.isBackfill()
+                    || supersededBuildRequest.isBisect()
+                    || !supersededBuildRequest.getTimeStamp().isBefore(buildRequest.getTimeStamp())) {
+                continue;
             }
-
-            // attempt to parse as BuildResponse
-            final BuildResponse buildResponse;
-            try {
-                buildResponse = new BuildResponse().deserialize(content);
-            } catch (final IOException e) {
-                // unable to deserialize, acknowledge invalid message so that it is removed from the queue
-                if (acknowledgeMessage(message)) {
-                    LOGGER.error("Discarded message with unexpected format from Queue: {}. Error: {}. Content: '{}'", settings.buildResponseQueueName, e.getMessage(), content);
-                }
-                return;
+            if (!cancelledBuilds.add(supersededBuildRequest.getId())) {
+                continue;  // already asked to cancel
             }
 
-            // does the response indicate an update to the state of the build which is OK, or that the build completed, or encountered an error?
-            if (BuildState.isStateUpdateSuccessState(buildResponse.getBuildState())) {
-                // record the updated success state from `prev` to `next`
-                updateBuildState(builds, buildResponse.getBuildRequest(), buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildState());
-
-            } else if (BuildState.isStateFinalSuccessState(buildResponse.getBuildState())
-                    || BuildState.isStateFailureState(buildResponse.getBuildState())) {
-
-                // record the final state, i.e. DONE so remove it!
-                if (!removeBuildState(builds, buildResponse.getBuildRequest(), buildResponse.getBuildState().getPrevBuildState())) {
-                    LOGGER.error("Unable to remove Build State {} for ref: {} id: {}", buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId());
-                }
+            final String reason = "Superseded by commit " + buildRequest.getCommit();
 
-                // is there a build in the backlog? if so dispatch it
-                final BuildRequest backloggedBuildRequest = buildBacklog.remove(buildResponse.getBuildRequest().getRef());
-                if (backloggedBuildRequest != null) {
-                    processBuildRequest(backloggedBuildRequest);
+            // the stages of a workflow are each built by their own Runner
+            @Nullable final Workflow workflow = workflows.get(supersededBuildRequest.getId());
+            final List<UUID> cancelIds = new ArrayList<>();
+            if (workflow != null) {
+                for (final BuildRequest stageBuildRequest : workflow.getStageBuildRequests()) {
+                    cancelIds.add(stageBuildRequest.getId());
                 }
+            } else {
+                cancelIds.add(supersededBuildRequest.getId());
+            }
 
-                // TODO(AR) improve data sent to output queue
-
-                // dispatch the results to the output queue
-                final PublishRequest publishRequest = new PublishRequest(buildResponse);
+            for (final UUID cancelId : cancelIds) {
                 try {
-                    sendPublishRequest(publishRequest);
+                    sendCancelRequest(new CancelRequest(cancelId, supersededBuildRequest.getRef(), reason));
                 } catch (final IOException | JMSException e) {
-                    LOGGER.error("Unable to send PublishRequest to Queue: {}. Error: ", settings.publishRequestQueueName, e.getMessage(), e);
+                    // the build is not cancelled, so it will just complete as normal
+                    LOGGER.error("Unable to send CancelRequest to Topic: {}. Error: {}", settings.controlTopicName, e.getMessage(), e);
                 }
             }
 
-            acknowledgeMessage(message);
+            LOGGER.info("Cancelling BuildRequest(id={}) in {} state for ref: {}. {}", supersededBuildRequest.getId(), build.state.name(), supersededBuildRequest.getRef(), reason);
         }
     }
 
-    static boolean insertBuildState(final Map<String, Map<UUID, Build>> builds, final BuildRequest buildRequest, final BuildState insertState) {
-        final Map<UUID, Build> existingBuildsForRef = builds.compute(buildRequest.getRef(), (k, v) -> {
-            if (v == null) {
-                v = new HashMap<>();
-            }
-
-            final Build existingBuild = v.get(buildRequest.getId());
-            if (existingBuild != null) {
-                if (insertState == existingBuild.state) {
-                    LOGGER.warn("Found existing build for ref: {} with id: {} and same expected state: {}. Ignoring...", buildRequest.getRef(), buildRequest.getId(), existingBuild.state.name());
-                    return v;
-                } else {
-                    LOGGER.error("Found existing build for ref: {} with id: {} but state: {} != insert state: {}. Ignoring...", buildRequest.getRef(), buildRequest.getId(), existingBuild.state.name(), insertState.name());
-                    return v;
-                }
-            }
-
-            v.put(buildRequest.getId(), new Build(buildRequest, insertState));
-            return v;
-        });
+    private void sendCancelRequest(final CancelRequest cancelRequest) throws IOException, JMSException {
+        // send the message to all Runners, only the Runner building the build request acts on it
+        final Topic controlTopic = getTopic(settings.controlTopicName);
+        if (controlTopic == null) {
+            throw new java.lang.IllegalStateException("Not connected to Topic: " + settings.controlTopicName);
+        }
+        sendMessage(cancelRequest, controlTopic);
+    }
 
-        //TODO(AR) below... get() is performed on Map existingBuildsForRef which can be mutated by another thread accessing builds Map
+    private void sendBuildRequest(final BuildRequest buildRequest) throws IOException, JMSException {
+        // send the message, or when there are benchmarks to fan out, a message for each stage of a workflow
+        if (!settings.workflowBenchmarks.isEmpty() && buildRequest.getBenchmark() == null) {
+            sendWorkflow(buildRequest);
+        } else {
+            routeBuildRequest(buildRequest);
+        }
 
-        // were we able to insert the build for the ref
-        final Build existingBuild = existingBuildsForRef.get(buildRequest.getId());
-        final boolean inserted = existingBuild != null && existingBuild.state == insertState;
-        if (inserted) {
-            LOGGER.trace("Inserted Build State for ref: {} id: {}, {}", buildRequest.getRef(), buildRequest.getId(), insertState.name());
+        // record the updated state from `REQUESTING` to `REQUESTED`
+        if (builds.update(buildRequest, BuildState.REQUESTING, BuildState.REQUESTED)) {
+            onBuildStateChanged(buildRequest, BuildState.REQUESTING, BuildState.REQUESTED);
         }
-        return inserted;
     }
 
-    static boolean insertBuildStateIfAbsent(final Map<String, Map<UUID, Build>> builds, final BuildRequest buildRequest, final BuildState insertState) {
-        final Map<UUID, Build> existingBuildsForRef = builds.computeIfAbsent(buildRequest.getRef(), k -> {
-            final Map<UUID, Build> v = new HashMap<>();
-            v.put(buildRequest.getId(), new Build(buildRequest, insertState));
-            return v;
-        });
+    /**
+     * Expand a build request into a workflow, and send the build request
+     * of each of its stages, so that its benchmarks run in parallel.
+     */
+    private void sendWorkflow(final BuildRequest buildRequest) throws IOException, JMSException {
+        final Workflow workflow = new Workflow(buildRequest, settings.workflowBenchmarks);
+        workflows.put(buildRequest.getId(), workflow);
+        for (final BuildRequest stageBuildRequest : workflow.getStageBuildRequests()) {
+            workflowStages.put(stageBuildRequest.getId(), workflow);
+        }
 
-        //TODO(AR) below... containsKey() is performed on Map existingBuildsForRef which can be mutated by another thread accessing builds Map
+        try {
+            for (final BuildRequest stageBuildRequest : workflow.getStageBuildRequests()) {
+                routeBuildRequest(stageBuildRequest);
+            }
+        } catch (final IOException | JMSException e) {
+            // the responses of any stages which were already sent are discarded
+            forgetWorkflow(buildRequest.getId());
+            throw e;
+        }
 
-        // were we able to insert the build for the ref
-        final boolean inserted = existingBuildsForRef.containsKey(buildRequest.getId());
-        if (inserted) {
-            LOGGER.trace("Inserted Build State for ref: {} id: {}, {}", buildRequest.getRef(), buildRequest.getId(), insertState.name());
+        // the stages are recorded once they have all been sent, until then a restart resends the build request
+        synchronized (workflow) {
+            if (workflows.containsKey(buildRequest.getId())) {
+                persistWorkflow(workflow);
+            }
         }
-        return inserted;
+
+        LOGGER.info("Expanded BuildRequest(id={}) for ref: {} into a workflow of {} stage(s)", buildRequest.getId(), buildRequest.getRef(), workflow.getStageBuildRequests().size());
     }
 
-    static boolean updateBuildState(final Map<String, Map<UUID, Build>> builds, final BuildRequest buildRequest, final BuildState fromState, final BuildState toState) {
-        // record the updated state fromState -> toState
-        final Map<UUID, Build> existingBuildsForRef = builds.compute(buildRequest.getRef(), (k, v) -> {
-            if (v == null) {
-                LOGGER.warn("Expecting at least 1 build for ref: {} in {} state, but found null. Will create with state: {}", buildRequest.getRef(), fromState.name(), toState.name());
-                v = new HashMap<>();
-                v.put(buildRequest.getId(), new Build(buildRequest, toState));
-                return v;
+    private void forgetWorkflow(final UUID buildRequestId) {
+        @Nullable final Workflow workflow = workflows.remove(buildRequestId);
+        if (workflow != null) {
+            for (final BuildRequest stageBuildRequest : workflow.getStageBuildRequests()) {
+                workflowStages.remove(stageBuildRequest.getId());
             }
+            persistWorkflowRemoval(buildRequestId);
+        }
+    }
 
-            final Build existingBuild = v.get(buildRequest.getId());
-            if (existingBuild == null) {
-                LOGGER.warn("Expecting build for ref: {} with id: {} not found. Will create with state: {}", buildRequest.getRef(), buildRequest.getId(), toState.name());
-                v.put(buildRequest.getId(), new Build(buildRequest, toState));
-                return v;
-            }
+    /**
+     * Send a build request to the Runners of the hardware class that
+     * its ref is pinned to, or to any Runner if there are no healthy
+     * hardware classes.
+     */
+    private void routeBuildRequest(BuildRequest buildRequest) throws IOException, JMSException {
+        @Nullable final String hardwareClass = runnerRegistry.route(buildRequest.getRef());
+
+        // attach the benchmark profile, the baselines against which the Runner may abort a regressed benchmark, and the hardware class of those baselines
+        @Nullable final BenchmarkSpec benchmarkSpec = getBenchmarkSpec(buildRequest);
+        final Map<String, Double> baselines = getBaselines(buildRequest, hardwareClass);
+        if (benchmarkSpec != buildRequest.getBenchmarkSpec() || !baselines.equals(buildRequest.getBaselines()) || !Objects.equals(hardwareClass, buildRequest.getHardwareClass())) {
+            // the copy keeps the id so that the response still matches the build
+            buildRequest = buildRequest.toBuilder()
+                    .benchmarkSpec(benchmarkSpec)
+                    .baselines(baselines)
+                    .hardwareClass(hardwareClass)
+                    .build();
+        }
 
-            if (fromState == existingBuild.state) {
-                v.put(buildRequest.getId(), new Build(existingBuild.request, toState));
-            } else {
-                LOGGER.error("Expected build for ref: {} with id: {} to be in {} state, but was in {} state. Ignoring...", buildRequest.getRef(), buildRequest.getId(), fromState.name(), existingBuild.state.name());
+        final Map<String, String> properties;
+        if (hardwareClass == null) {
+            properties = null;
+        } else {
+            @Nullable final String pinnedHardwareClass = runnerRegistry.getPinnedHardwareClass(buildRequest.getRef());
+            if (!hardwareClass.equals(pinnedHardwareClass)) {
+                LOGGER.warn("Hardware class: {} of ref: {} has no healthy Runners, re-routing BuildRequest(id={}) to hardware class: {}", pinnedHardwareClass, buildRequest.getRef(), buildRequest.getId(), hardwareClass);
             }
-            return v;
-        });
+            properties = Collections.singletonMap(BuildRequest.HARDWARE_CLASS_PROPERTY, hardwareClass);
+        }
+
+        final Queue buildRequestQueue = getQueue(settings.buildRequestQueueName);
+        sendMessage(buildRequest, buildRequestQueue, properties);
+    }
 
-        //TODO(AR) below... get() is performed on Map existingBuildsForRef which can be mutated by another thread accessing builds Map
+    /**
+     * Get the benchmark profile that a build request will run.
+     *
+     * @return the benchmark profile of the build request, or else the default of the Orchestrator,
+     *     or null for the Runner's default benchmark
+     */
+    private @Nullable BenchmarkSpec getBenchmarkSpec(final BuildRequest buildRequest) {
+        return buildRequest.getBenchmarkSpec() != null ? buildRequest.getBenchmarkSpec() : settings.benchmarkSpec;
+    }
+
+    /**
+     * Get the baselines of the benchmarks that a build request will run.
+     *
+     * Scheduled builds may run a heavier benchmark profile, so have no baselines.
+     */
+    private Map<String, Double> getBaselines(final BuildRequest buildRequest, @Nullable final String hardwareClass) {
+        if (buildRequest.isScheduled()) {
+            return Collections.emptyMap();
+        }
 
-        // were we able to insert the build for the ref
-        final Build existingBuild = existingBuildsForRef.get(buildRequest.getId());
-        final boolean updated = existingBuild != null && existingBuild.state == toState;
-        if (updated) {
-            LOGGER.trace("Update Build State for ref: {} id: {}, {} -> {}", buildRequest.getRef(), buildRequest.getId(), fromState.name(), toState.name());
+        final Map<String, Double> baselines = throughputBaselines.get(buildRequest.getRef(), hardwareClass);
+        @Nullable final String benchmark = buildRequest.getBenchmark();
+        if (benchmark != null) {
+            @Nullable final Double baseline = baselines.get(benchmark);
+            return baseline != null ? Collections.singletonMap(benchmark, baseline) : Collections.emptyMap();
         }
-        return updated;
+        return baselines;
     }
 
-    static boolean removeBuildState(final Map<String, Map<UUID, Build>> builds, final BuildRequest buildRequest, final BuildState removeState) {
-        @Nullable final Map<UUID, Build> existingBuildsForRef = builds.compute(buildRequest.getRef(), (k, v) -> {
-            if (v == null) {
-                return v;
+    /**
+     * Expire any Runners that have stopped sending heartbeats, and re-route
+     * any build requests waiting for a hardware class that no longer has
+     * any live Runners, so that they are built elsewhere.
+     */
+    private void checkRunnerLiveness() {
+        try {
+            for (final String hardwareClass : runnerRegistry.expire()) {
+                LOGGER.warn("Hardware class: {} has no live Runners, re-routing its waiting build requests", hardwareClass);
+
+                final int rerouted = drainQueue(settings.buildRequestQueueName, BuildRequest.hardwareClassSelector(hardwareClass), content -> routeBuildRequest(new BuildRequest().deserialize(content)));
+                if (rerouted > 0) {
+                    LOGGER.info("Re-routed {} build request(s) of hardware class: {}", rerouted, hardwareClass);
+                }
             }
+        } catch (final IOException | JMSException | RuntimeException e) {
+            // must not throw, or no further checks will be scheduled
+            LOGGER.error("Unable to re-route build requests: {}", e.getMessage(), e);
+        }
+    }
 
-            final Build existingBuild = v.get(buildRequest.getId());
-            if (existingBuild != null) {
-                if (removeState != existingBuild.state) {
-                    LOGGER.error("Found existing build for ref: {} with id: {} but state: {} != remove state: {}. Ignoring...", buildRequest.getRef(), buildRequest.getId(), existingBuild.state.name(), removeState.name());
-                    return v;
-                }
+    /**
+     * The number of live Runners, assuming that there is at least one.
+     */
+    private int liveRunnerCount() {
+        return Math.max(1, runnerRegistry.liveRunnerCount());
+    }
+
+    /**
+     * Give any idle Runners the commits that were skipped
+     * whilst the Runners were overloaded.
+     */
+    private void backfillSkippedCommits() {
+        try {
+            final int idleRunners = liveRunnerCount() - builds.buildCount();
+            if (idleRunners <= 0) {
+                return;
             }
 
-            v.remove(buildRequest.getId());
-            return v;
-        });
+            for (final BuildRequest skippedBuildRequest : commitSampler.pollSkipped(idleRunners)) {
+                LOGGER.info("Runners are idle, building previously skipped commit: {} of ref: {}", skippedBuildRequest.getCommit(), skippedBuildRequest.getRef());
 
-        //TODO(AR) below... containsKey() is performed on Map existingBuildsForRef which can be mutated by another thread accessing builds Map
+                // a skipped commit is older than the commits built since, so is a backfill, and is kept out of the time series of the ref
+                final BuildRequest buildRequest = skippedBuildRequest.toBuilder().backfill(true).build();
+                processBuildRequest(buildRequest);
 
-        // were we able to insert the build for the ref
-        final boolean removed = existingBuildsForRef == null || !existingBuildsForRef.containsKey(buildRequest.getId());
-        if (removed) {
-            LOGGER.trace("Removed Build State for ref: {} id: {}, {}", buildRequest.getRef(), buildRequest.getId(), removeState.name());
+                // only forgotten once it is a build, so that it is not lost by a restart in between
+                persistSkippedRemoval(skippedBuildRequest.getId());
+            }
+        } catch (final RuntimeException e) {
+            // must not throw, or no further backfills will be scheduled
+            LOGGER.error("Unable to build skipped commits: {}", e.getMessage(), e);
         }
-        return removed;
     }
 
-    private class PublishResponseQueueMessageListener implements MessageListener {
+    private class RunnerHeartbeatQueueMessageListener implements MessageListener {
         @Override
         public void onMessage(final Message message) {
             if (!(message instanceof TextMessage)) {
                 // acknowledge invalid message so that it is removed from the queue
-                if (Orchestrator.this.acknowledgeMessage(message)) {
-                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.publishResponseQueueName);
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.runnerHeartbeatQueueName);
+                }
+
+                // can't process non-text message, so DONE
+                return;
+            }
+
+            final TextMessage textMessage = (TextMessage) message;
+            final String content;
+            try {
+                content = textMessage.getText();
+            } catch (final JMSException e) {
+                LOGGER.error("Could not get content of TextMessage from Queue: {}. Error: {}", settings.runnerHeartbeatQueueName, e.getMessage(), e);
+
+                // can't access message content, so DONE
+                return;
+            }
+
+            // attempt to parse as RunnerHeartbeat
+            final RunnerHeartbeat runnerHeartbeat;
+            try {
+                runnerHeartbeat = deserialize(new RunnerHeartbeat(), content);
+            } catch (final IOException e) {
+                // unable to deserialize, acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected format from Queue: {}. Error: {}. Content: '{}'", settings.runnerHeartbeatQueueName, e.getMessage(), content);
+                }
+                return;
+            }
+
+            if (runnerHeartbeat.getTimeStamp().plus(Duration.ofMillis(runnerHeartbeat.getHeartbeatInterval() * RunnerRegistry.MISSED_HEARTBEATS)).isBefore(ZonedDateTime.now(ZoneId.of("UTC")))) {
+                // a stale heartbeat, e.g. queued whilst we were down, is not evidence that the runner is alive
+                acknowledgeMessage(message);
+                return;
+            }
+
+            if (runnerRegistry.heartbeat(runnerHeartbeat)) {
+                LOGGER.info("Runner: {} of hardware class: {} is alive ({} cores, {} MB memory, {} disk, CPU: {})", runnerHeartbeat.getRunnerId(), runnerHeartbeat.getHardwareClass(), runnerHeartbeat.getCpuCores(), runnerHeartbeat.getMemory() / (1024 * 1024), runnerHeartbeat.getDiskType(), runnerHeartbeat.getCpuModel());
+            }
+
+            acknowledgeMessage(message);
+        }
+    }
+
+    private class BenchmarkProgressQueueMessageListener implements MessageListener {
+        @Override
+        public void onMessage(final Message message) {
+            if (!(message instanceof TextMessage)) {
+                // acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.benchmarkProgressQueueName);
+                }
+
+                // can't process non-text message, so DONE
+                return;
+            }
+
+            final TextMessage textMessage = (TextMessage) message;
+            final String content;
+            try {
+                content = textMessage.getText();
+            } catch (final JMSException e) {
+                LOGGER.error("Could not get content of TextMessage from Queue: {}. Error: {}", settings.benchmarkProgressQueueName, e.getMessage(), e);
+
+                // can't access message content, so DONE
+                return;
+            }
+
+            // attempt to parse as BenchmarkProgress
+            final BenchmarkProgress benchmarkProgress;
+            try {
+                benchmarkProgress = deserialize(new BenchmarkProgress(), content);
+            } catch (final IOException e) {
+                // unable to deserialize, acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected format from Queue: {}. Error: {}. Content: '{}'", settings.benchmarkProgressQueueName, e.getMessage(), content);
+                }
+                return;
+            }
+
+            // progress which arrives after the benchmark has finished, e.g. queued whilst we were down, is of no interest
+            if (builds.getState(benchmarkProgress.getRef(), benchmarkProgress.getBuildRequestId()) == BuildState.BENCHMARKING) {
+                if (benchmarkProgressTracker.progress(benchmarkProgress)) {
+                    LOGGER.warn("Benchmark: {} of build request: {} for ref: {} on Runner: {} has stalled, thread: {} managed only {} ops/sec after {} seconds", benchmarkProgress.getWorkload(), benchmarkProgress.getBuildRequestId(), benchmarkProgress.getRef(), benchmarkProgress.getRunnerId(), benchmarkProgress.getThread(), benchmarkProgress.getIntervalOpsPerSec(), benchmarkProgress.getElapsedSeconds());
+                }
+            }
+
+            acknowledgeMessage(message);
+        }
+    }
+
+    private void sendPublishRequest(final PublishRequest publishRequest) throws IOException, JMSException {
+        // send the message
+        final Queue outputQueue = getQueue(settings.publishRequestQueueName);
+        sendMessage(publishRequest, outputQueue);
+    }
+
+    private class BuildResponseQueueMessageListener implements MessageListener {
+        @Override
+        public void onMessage(final Message message) {
+            if (!(message instanceof TextMessage)) {
+                // acknowledge invalid message so that it is removed from the queue
+                if (Orchestrator.this.acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.buildResponseQueueName);
+                }
+
+                // can't process non-text message, so DONE
+                return;
+            }
+
+            final TextMessage textMessage = (TextMessage) message;
+            final String content;
+            try {
+                content = textMessage.getText();
+            } catch (final JMSException e) {
+                LOGGER.error("Could not get content of TextMessage from Queue: {}. Error: {}", settings.buildResponseQueueName, e.getMessage(), e);
+
+                // can't access message content, so DONE
+                return;
+            }
+
+            // attempt to parse as BuildResponse
+            final BuildResponse buildResponse;
+            try {
+                buildResponse = deserialize(new BuildResponse(), content);
+            } catch (final IOException e) {
+                // unable to deserialize, acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected format from Queue: {}. Error: {}. Content: '{}'", settings.buildResponseQueueName, e.getMessage(), content);
+                }
+                return;
+            }
+
+            // is the response for a stage of a workflow? if so, it advances the workflow rather than being a build by itself
+            @Nullable final Workflow workflow = workflowStages.get(buildResponse.getBuildRequest().getId());
+            if (workflow != null) {
+                processWorkflowBuildResponse(workflow, buildResponse);
+                acknowledgeMessage(message);
+                return;
+            }
+            if (buildResponse.getBuildRequest().getBenchmark() != null && builds.getState(buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId()) == null) {
+                // a stage of a workflow which has already finished or been abandoned
+                if (acknowledgeMessage(message)) {
+                    LOGGER.debug("Discarded {} BuildResponse for stage: {} of a workflow which is no longer in progress for ref: {}", buildResponse.getBuildState().name(), buildResponse.getBuildRequest().getId(), buildResponse.getBuildRequest().getRef());
+                }
+                return;
+            }
+
+            // does the response indicate an update to the state of the build which is OK, or that the build completed, or encountered an error?
+            if (buildResponse.getBuildState() == BuildState.CANCELLED) {
+                // a build may be cancelled from any state, so there is no previous state to check
+                @Nullable final BuildState fromState = builds.getState(buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId());
+                if (fromState == null) {
+                    LOGGER.warn("Discarded CANCELLED BuildResponse for build which is no longer in progress for ref: {} id: {}", buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId());
+                } else if (builds.expire(buildResponse.getBuildRequest(), fromState, BuildState.CANCELLED)) {
+                    onBuildRemoved(buildResponse.getBuildRequest(), fromState, BuildState.CANCELLED);
+                    completeBuild(buildResponse);
+                } else {
+                    LOGGER.error("Unable to remove Build State {} for ref: {} id: {}", fromState.name(), buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId());
+                }
+
+            } else if (BuildState.isStateUpdateSuccessState(buildResponse.getBuildState())) {
+                // record the updated success state from `prev` to `next`
+                if (builds.update(buildResponse.getBuildRequest(), buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildState())) {
+                    onBuildStateChanged(buildResponse.getBuildRequest(), buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildState());
+                }
+
+            } else if (BuildState.isStateFinalSuccessState(buildResponse.getBuildState())
+                    || BuildState.isStateFailureState(buildResponse.getBuildState())) {
+
+                // record the final state, i.e. DONE so remove it!
+                if (builds.remove(buildResponse.getBuildRequest(), buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildState())) {
+                    onBuildRemoved(buildResponse.getBuildRequest(), buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildState());
+                } else {
+                    LOGGER.error("Unable to remove Build State {} for ref: {} id: {}", buildResponse.getBuildState().getPrevBuildState(), buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId());
+                }
+
+                completeBuild(buildResponse);
+            }
+
+            acknowledgeMessage(message);
+        }
+    }
+
+    /**
+     * Advance the build request which was expanded into a workflow to the
+     * state of the workflow, and once the workflow finishes, complete the
+     * build request with the aggregated result of the stages.
+     */
+    private void processWorkflowBuildResponse(final Workflow workflow, final BuildResponse stageResponse) {
+        synchronized (workflow) {
+            if (!workflow.stageChanged(stageResponse)) {
+                return;
+            }
+
+            final BuildRequest buildRequest = workflow.getBuildRequest();
+            @Nullable final BuildState buildState = builds.getState(buildRequest.getRef(), buildRequest.getId());
+            if (buildState == null) {
+                // the build was reaped whilst its stages were in progress
+                forgetWorkflow(buildRequest.getId());
+                return;
+            }
+
+            @Nullable final BuildResponse buildResponse = workflow.getResponse();
+            if (buildResponse == null) {
+                persistWorkflow(workflow);
+                advanceWorkflowBuild(buildRequest, buildState, workflow.getState());
+                return;
+            }
+
+            forgetWorkflow(buildRequest.getId());
+
+            final BuildState finalState = buildResponse.getBuildState();
+            final BuildState fromState;
+            final boolean removed;
+            if (BuildState.isStateFailureState(finalState)) {
+                // the first stage to fail fails the workflow, whatever the state of the other stages
+                fromState = buildState;
+                removed = builds.expire(buildRequest, fromState, finalState);
+            } else {
+                fromState = advanceWorkflowBuild(buildRequest, buildState, finalState.getPrevBuildState());
+                removed = builds.remove(buildRequest, fromState, finalState);
+            }
+
+            if (removed) {
+                onBuildRemoved(buildRequest, fromState, finalState);
+                completeBuild(buildResponse);
+            } else {
+                LOGGER.error("Unable to remove Build State {} for ref: {} id: {}", fromState.name(), buildRequest.getRef(), buildRequest.getId());
+            }
+        }
+    }
+
+    /**
+     * Advance a build one state at a time, so that each state is
+     * persisted and timed just as for a build which is not expanded.
+     *
+     * @return the state that the build was advanced to
+     */
+    private BuildState advanceWorkflowBuild(final BuildRequest buildRequest, final BuildState fromState, final BuildState toState) {
+        BuildState buildState = fromState;
+        while (buildState.compareTo(toState) < 0) {
+            @Nullable final BuildState nextState = Workflow.nextSuccessState(buildState);
+            if (nextState == null || !builds.update(buildRequest, buildState, nextState)) {
+                break;
+            }
+            onBuildStateChanged(buildRequest, buildState, nextState);
+            buildState = nextState;
+        }
+        return buildState;
+    }
+
+    /**
+     * Process the outcome of a build which has been removed from the builds in progress.
+     */
+    private void completeBuild(final BuildResponse buildResponse) {
+        // is there a build in the backlog? if so dispatch it
+        final BuildRequest backloggedBuildRequest = buildBacklog.remove(buildResponse.getBuildRequest().getRef());
+        if (backloggedBuildRequest != null) {
+            persistBacklogRemoval(backloggedBuildRequest.getRef());
+            processBuildRequest(backloggedBuildRequest);
+        }
+
+        // a cancelled build was superseded by the backlogged build request, so has no result to publish
+        if (buildResponse.getBuildState() == BuildState.CANCELLED) {
+            LOGGER.info("Build for ref: {} id: {} was cancelled", buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId());
+            return;
+        }
+
+        // was the build dispatched by a bisect job? if so, the result belongs to the bisect job and is not published
+        final BisectJob bisectJob = bisectBuilds.remove(buildResponse.getBuildRequest().getId());
+        if (bisectJob != null) {
+            processBisectBuildResponse(bisectJob, buildResponse);
+
+        } else if (buildResponse.getBuildRequest().isBisect()) {
+            // the bisect job was lost when the Orchestrator restarted, its result would pollute the time series of the ref
+            LOGGER.warn("Discarding result of build for ref: {} id: {} as its BisectRequest(id={}) is no longer in progress", buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getId(), buildResponse.getBuildRequest().getBisectRequestId());
+
+        } else {
+            @Nullable final BuildStats buildStats = buildResponse.getBuildStats();
+            if (settings.resultCache && !buildResponse.getBuildRequest().isScheduled() && buildResponse.getBuildState() == BuildState.BENCHMARKING_COMPLETE && buildStats != null) {
+                resultCache.put(resultCacheKey(buildResponse.getBuildRequest(), buildResponse.getBuildRequest().getHardwareClass()), buildStats);
+            }
+
+            // backfilled commits are older than those already in the time series of the ref, so would distort it
+            final boolean isBackfillBuild = buildResponse.getBuildRequest().isBackfill();
+
+            // recorded against the hardware class that the build was routed to, which is also the hardware class of its baselines
+            if (!isBackfillBuild && !buildResponse.getBuildRequest().isScheduled() && buildResponse.getBuildState() == BuildState.BENCHMARKING_COMPLETE && buildStats != null) {
+                throughputBaselines.record(buildResponse.getBuildRequest().getRef(), buildResponse.getBuildRequest().getHardwareClass(), buildStats);
+            }
+            publishBuild(buildResponse, !isBackfillBuild);
+        }
+    }
+
+    /**
+     * Publish the outcome of a build.
+     *
+     * @param buildResponse the outcome of the build
+     * @param detectChangePoints true if a successful result should be added to the time series of its ref
+     */
+    private void publishBuild(final BuildResponse buildResponse, final boolean detectChangePoints) {
+        if (detectChangePoints && buildResponse.getBuildState() == BuildState.BENCHMARKING_COMPLETE) {
+            detectChangePoints(buildResponse);
+        }
+
+        // TODO(AR) improve data sent to output queue
+
+        // dispatch the results to the output queue
+        final PublishRequest publishRequest = new PublishRequest(buildResponse);
+        try {
+            sendPublishRequest(publishRequest);
+        } catch (final IOException | JMSException e) {
+            LOGGER.error("Unable to send PublishRequest to Queue: {}. Error: ", settings.publishRequestQueueName, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publish the cached result of a build request, if there is one.
+     *
+     * @return true if the cached result was published, false if the build request should be built
+     */
+    private boolean publishCachedResult(final BuildRequest buildRequest) {
+        final ResultCache.Key key = resultCacheKey(buildRequest, runnerRegistry.peekRoute(buildRequest.getRef()));
+        @Nullable final BuildStats buildStats = resultCache.get(key);
+        if (buildStats == null) {
+            return false;
+        }
+
+        LOGGER.info("Publishing cached result: {} for ref: {} instead of building BuildRequest(id={}) (hits: {}, misses: {}, re-runs: {})", key, buildRequest.getRef(), buildRequest.getId(), resultCache.getHits(), resultCache.getMisses(), resultCache.getReruns());
+        publishBuild(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, buildRequest, buildStats, null), !buildRequest.isBackfill());
+        return true;
+    }
+
+    /**
+     * @param buildRequest the build request
+     * @param hardwareClass the hardware class which builds, or built, the request, or null if unknown
+     */
+    private ResultCache.Key resultCacheKey(final BuildRequest buildRequest, @Nullable final String hardwareClass) {
+        return new ResultCache.Key(buildRequest.getCommit(), buildRequest.getBenchmark(), getBenchmarkSpec(buildRequest), hardwareClass);
+    }
+
+    /**
+     * Called when the deadline of a build expires, typically because its Runner
+     * died mid-build. The build is failed so that its ref is no longer blocked,
+     * and is then either re-queued for another Runner, or its failure is
+     * processed just as if its Runner had reported it.
+     */
+    private void reapBuild(final BuildRequest buildRequest, final BuildState buildState) {
+        @Nullable final BuildState currentState = builds.getState(buildRequest.getRef(), buildRequest.getId());
+        if (currentState != buildState) {
+            // the build moved on whilst its deadline was expiring
+            if (currentState != null) {
+                buildReaper.arm(buildRequest, currentState);
+            }
+            return;
+        }
+
+        final BuildState failureState = BuildReaper.failureStateFor(buildState);
+        if (!builds.expire(buildRequest, buildState, failureState)) {
+            return;
+        }
+        final int attempt = buildAttempts.getOrDefault(buildRequest.getId(), 1);
+        final boolean isCancelledBuild = cancelledBuilds.contains(buildRequest.getId());
+        onBuildRemoved(buildRequest, buildState, failureState);
+
+        // the stages of a workflow are abandoned, a retry is expanded into a new workflow
+        forgetWorkflow(buildRequest.getId());
+
+        final long deadline = buildReaper.getDeadline(buildState);
+        LOGGER.warn("Build for ref: {} id: {} exceeded its deadline of {} ms in {} state on attempt {}", buildRequest.getRef(), buildRequest.getId(), deadline, buildState.name(), attempt);
+
+        // bisect builds are not re-queued, the bisect job decides what to do about a failed build
+        final boolean isBisectBuild = buildRequest.isBisect();
+        final int maxRetries = Integer.getInteger(BUILD_DEADLINE_RETRIES_PROPERTY, DEFAULT_BUILD_DEADLINE_RETRIES);
+
+        // a build which was asked to cancel has been superseded, so is neither re-queued nor published
+        if (isCancelledBuild) {
+            completeBuild(new BuildResponse(BuildState.CANCELLED, buildRequest));
+            return;
+        }
+
+        // a newer backlogged build request for the ref supersedes a retry
+        if (!isBisectBuild && attempt <= maxRetries && (settings.allBuilds || !buildBacklog.containsKey(buildRequest.getRef()))) {
+            // keeps the timestamp of the original request, so that it is not superseded by older backlogged requests
+            final BuildRequest retryBuildRequest = buildRequest.toBuilder().id(UUID.randomUUID()).build();
+            buildAttempts.put(retryBuildRequest.getId(), attempt + 1);
+            LOGGER.info("Re-queueing build for ref: {} id: {} as BuildRequest(id={})", buildRequest.getRef(), buildRequest.getId(), retryBuildRequest.getId());
+
+            // if sending fails, the retry is itself reaped once its deadline expires
+            processBuildRequest(retryBuildRequest);
+            return;
+        }
+
+        final String reason = "Build exceeded its deadline of " + deadline + " ms in " + buildState.name() + " state, its Runner may have died";
+        final BuildResponse buildResponse = new BuildResponse(failureState, buildRequest, null, Collections.singletonList(BuildDetail.forException(new TimeoutException(reason))));
+        completeBuild(buildResponse);
+    }
+
+    private class BisectRequestQueueMessageListener implements MessageListener {
+        @Override
+        public void onMessage(final Message message) {
+            if (!(message instanceof TextMessage)) {
+                // acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.bisectRequestQueueName);
+                }
+
+                // can't process non-text message, so DONE
+                return;
+            }
+
+            final TextMessage textMessage = (TextMessage) message;
+            final String content;
+            try {
+                content = textMessage.getText();
+            } catch (final JMSException e) {
+                LOGGER.error("Could not get content of TextMessage from Queue: {}. Error: {}", settings.bisectRequestQueueName, e.getMessage(), e);
+
+                // can't access message content, so DONE
+                return;
+            }
+
+            // attempt to parse as BisectRequest
+            final BisectRequest bisectRequest;
+            try {
+                bisectRequest = deserialize(new BisectRequest(), content);
+            } catch (final IOException e) {
+                // unable to deserialize, acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected format from Queue: {}. Error: {}. Content: '{}'", settings.bisectRequestQueueName, e.getMessage(), content);
+                }
+                return;
+            }
+
+            // find the first-parent commits between the good and bad commit
+            final List<String> range;
+            try (final GitHelper gitHelper = openRepository(bisectRequest.getRepository())) {
+                range = gitHelper.listFirstParentCommits(bisectRequest.getGoodCommit(), bisectRequest.getBadCommit());
+            } catch (final GitHelperException e) {
+                LOGGER.error("Unable to find commits to bisect for BisectRequest(id={}). Error: {}", bisectRequest.getId(), e.getMessage(), e);
+                if (sendBisectResponse(new BisectResponse(BisectState.FAILED, bisectRequest, null, null, -1, -1, e.getMessage()))) {
+                    acknowledgeMessage(message);
+                }
+                return;
+            }
+
+            if (range.isEmpty()) {
+                if (sendBisectResponse(new BisectResponse(BisectState.FAILED, bisectRequest, null, null, -1, -1, "Good and bad commit are the same commit"))) {
+                    acknowledgeMessage(message);
+                }
+                return;
+            }
+
+            LOGGER.info("Starting bisect of {} commit(s) between {} and {} for BisectRequest(id={})", range.size(), bisectRequest.getGoodCommit(), bisectRequest.getBadCommit(), bisectRequest.getId());
+
+            final BisectJob bisectJob = new BisectJob(bisectRequest, range);
+            synchronized (bisectJob) {
+                dispatchBisectBuilds(bisectJob);
+            }
+
+            acknowledgeMessage(message);
+        }
+    }
+
+    private class BackfillRequestQueueMessageListener implements MessageListener {
+        @Override
+        public void onMessage(final Message message) {
+            if (!(message instanceof TextMessage)) {
+                // acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.backfillRequestQueueName);
+                }
+
+                // can't process non-text message, so DONE
+                return;
+            }
+
+            final TextMessage textMessage = (TextMessage) message;
+            final String content;
+            try {
+                content = textMessage.getText();
+            } catch (final JMSException e) {
+                LOGGER.error("Could not get content of TextMessage from Queue: {}. Error: {}", settings.backfillRequestQueueName, e.getMessage(), e);
+
+                // can't access message content, so DONE
+                return;
+            }
+
+            // attempt to parse as BackfillRequest
+            final BackfillRequest backfillRequest;
+            try {
+                backfillRequest = deserialize(new BackfillRequest(), content);
+            } catch (final IOException e) {
+                // unable to deserialize, acknowledge invalid message so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected format from Queue: {}. Error: {}. Content: '{}'", settings.backfillRequestQueueName, e.getMessage(), content);
+                }
+                return;
+            }
+
+            // find the commits to benchmark
+            final List<String> commits;
+            try (final GitHelper gitHelper = openRepository(backfillRequest.getRepository())) {
+                commits = listBackfillCommits(gitHelper, backfillRequest);
+            } catch (final GitHelperException e) {
+                // the request can never succeed, so acknowledge it so that it is removed from the queue
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded BackfillRequest(id={}), unable to find commits to backfill. Error: {}", backfillRequest.getId(), e.getMessage(), e);
+                }
+                return;
+            }
+
+            LOGGER.info("Starting backfill of {} commit(s) of ref: {} for BackfillRequest(id={})", commits.size(), backfillRequest.getRef(), backfillRequest.getId());
+
+            final BackfillCampaign backfillCampaign = new BackfillCampaign(backfillRequest, commits, 0);
+            persistBackfill(backfillCampaign);
+            backfillCampaigns.add(backfillCampaign);
+
+            acknowledgeMessage(message);
+        }
+    }
+
+    /**
+     * List the commits of a backfill request, oldest first for a range of commits,
+     * or in the order of the tags for a list of tags.
+     */
+    private static List<String> listBackfillCommits(final GitHelper gitHelper, final BackfillRequest backfillRequest) throws GitHelperException {
+        final List<String> commits = new ArrayList<>();
+        if (backfillRequest.isRange()) {
+            final String fromCommit = gitHelper.resolveCommit(backfillRequest.getFromCommit());
+            commits.add(fromCommit);
+            commits.addAll(gitHelper.listFirstParentCommits(fromCommit, backfillRequest.getToCommit()));
+        } else {
+            for (final String tag : backfillRequest.getTags()) {
+                commits.add(gitHelper.resolveCommit(tag));
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Dispatch the next commit of the oldest backfill campaign,
+     * but only whilst the Runners are under utilised, so that
+     * backfilling does not delay the builds of newly pushed commits.
+     */
+    private void dispatchBackfill() {
+        try {
+            final BackfillCampaign backfillCampaign = backfillCampaigns.peek();
+            if (backfillCampaign == null) {
+                return;
+            }
+
+            final double maxUtilisation = Double.parseDouble(System.getProperty(BACKFILL_MAX_UTILISATION_PROPERTY, String.valueOf(DEFAULT_BACKFILL_MAX_UTILISATION)));
+            final double utilisation = builds.buildCount() / (double) liveRunnerCount();
+            if (utilisation >= maxUtilisation) {
+                return;
+            }
+
+            final BackfillRequest backfillRequest = backfillCampaign.getBackfillRequest();
+            final String commit = backfillCampaign.nextCommit();
+            if (commit != null) {
+                // marked as a backfill, so that the result is still kept out of the time series of the ref after a restart
+                final BuildRequest buildRequest = new BuildRequest.Builder(backfillRequest.getRepository(), backfillRequest.getRef(), commit, backfillRequest.getAuthor())
+                        .backfill(true)
+                        .build();
+
+                // backfill builds bypass the backlog, as every commit must be built
+                dispatchBuildRequest(buildRequest);
+
+                backfillCampaign.dispatched();
+                LOGGER.info("Backfilling commit: {} of ref: {} for BackfillRequest(id={}), {} commit(s) remaining", commit, backfillRequest.getRef(), backfillRequest.getId(), backfillCampaign.getRemaining());
+            }
+
+            persistBackfill(backfillCampaign);
+            if (backfillCampaign.isFinished()) {
+                backfillCampaigns.remove(backfillCampaign);
+                LOGGER.info("Dispatched all commits for BackfillRequest(id={})", backfillRequest.getId());
+            }
+        } catch (final RuntimeException e) {
+            // must not throw, or no further backfills will be scheduled
+            LOGGER.error("Unable to dispatch backfill: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Dispatch a build request without regard to any build in progress
+     * for the same ref, and without replacing any backlogged build request.
+     *
+     * If sending fails, the build is re-queued once its deadline expires.
+     */
+    private void dispatchBuildRequest(final BuildRequest buildRequest) {
+        if (builds.insert(buildRequest, BuildState.REQUESTING)) {
+            onBuildStateChanged(buildRequest, null, BuildState.REQUESTING);
+        }
+
+        try {
+            sendBuildRequest(buildRequest);
+        } catch (final IOException | JMSException e) {
+            LOGGER.error("Unable to send BuildRequest to Queue: {}. Error: {}", settings.buildRequestQueueName, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Request a build for each benchmark schedule which is due.
+     *
+     * A schedule which was due more than once whilst the Orchestrator
+     * was stopped is caught up by a single build, rather than one
+     * build per missed occurrence.
+     */
+    private void fireSchedules() {
+        try {
+            final ZonedDateTime now = ZonedDateTime.now();
+            for (final BenchmarkSchedule schedule : settings.schedules) {
+                final ZonedDateTime firedTime = scheduleFiredTimes.get(schedule.getName());
+                if (firedTime == null) {
+                    // a new schedule, its first build is at its next occurrence
+                    scheduleFiredTimes.put(schedule.getName(), now);
+                    persistSchedule(schedule.getName(), now);
+                    continue;
+                }
+
+                @Nullable final ZonedDateTime dueTime = schedule.getCronSchedule().next(firedTime.withZoneSameInstant(now.getZone()));
+                if (dueTime == null || dueTime.isAfter(now)) {
+                    continue;
+                }
+
+                // if the build cannot be requested, the schedule is still due, and so is retried at the next check
+                if (requestScheduledBuild(schedule, dueTime)) {
+                    scheduleFiredTimes.put(schedule.getName(), now);
+                    persistSchedule(schedule.getName(), now);
+                }
+            }
+        } catch (final RuntimeException e) {
+            // must not throw, or no further checks will be scheduled
+            LOGGER.error("Unable to check benchmark schedules: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean requestScheduledBuild(final BenchmarkSchedule schedule, final ZonedDateTime dueTime) {
+        final String commit;
+        try (final GitHelper gitHelper = openRepository(schedule.getRepository())) {
+            commit = gitHelper.resolveCommit(remoteTrackingRef(schedule.getRef()));
+        } catch (final GitHelperException e) {
+            LOGGER.error("Unable to find the commit of ref: {} for schedule: {}. Error: {}", schedule.getRef(), schedule.getName(), e.getMessage(), e);
+            return false;
+        }
+
+        final BuildRequest buildRequest = new BuildRequest.Builder(schedule.getRepository(), schedule.getRef(), commit, SCHEDULE_AUTHOR)
+                .schedule(schedule.getName())
+                .build();
+        LOGGER.info("Requesting scheduled build of commit: {} of ref: {} for schedule: {} which was due at {}", commit, schedule.getRef(), schedule.getName(), dueTime);
+
+        // scheduled builds bypass the backlog, so that they neither supersede nor are superseded by pushes
+        dispatchBuildRequest(buildRequest);
+        return true;
+    }
+
+    /**
+     * Branches are only updated in the repository by fetching,
+     * so resolve a branch by its remote-tracking ref.
+     */
+    private static String remoteTrackingRef(final String ref) {
+        if (ref.startsWith(BRANCH_REF_PREFIX)) {
+            return REMOTE_TRACKING_REF_PREFIX + ref.substring(BRANCH_REF_PREFIX.length());
+        }
+        return ref;
+    }
+
+    /**
+     * Open the Git repository for bisecting, backfilling, or scheduled builds, cloning it if necessary.
+     *
+     * @param repository the name of the repository on GitHub
+     *
+     * @return the Git repository
+     *
+     * @throws GitHelperException if the repository cannot be opened
+     */
+    GitHelper openRepository(final String repository) throws GitHelperException {
+        if (settings.dataDir == null) {
+            throw new GitHelperException("Bisect, backfill, and schedules require a data directory in which to keep the Git repository");
+        }
+
+        final Path repoDir = settings.dataDir.resolve(REPO_DIR_NAME).resolve(repository);
+        if (!Files.exists(repoDir)) {
+            final String repoUri = "https://github.com/" + repository;
+            return JGitGitHelperImpl.clone(repoUri, repoDir, MAIN_GIT_BRANCH);
+        } else {
+            return JGitGitHelperImpl.open(repoDir).fetch();
+        }
+    }
+
+    /**
+     * Dispatch the builds for the commit under test of a bisect job.
+     *
+     * Must be called whilst holding the lock on the bisect job.
+     */
+    private void dispatchBisectBuilds(final BisectJob bisectJob) {
+        final BisectRequest bisectRequest = bisectJob.getBisectRequest();
+        for (int i = 0; i < bisectRequest.getRepetitions(); i++) {
+            final BuildRequest buildRequest = new BuildRequest.Builder(bisectRequest.getRepository(), bisectRequest.getRef(), bisectJob.getCommitUnderTest(), bisectRequest.getAuthor())
+                    .bisectRequestId(bisectRequest.getId())
+                    .build();
+            bisectJob.addPendingBuild(buildRequest.getId());
+            bisectBuilds.put(buildRequest.getId(), bisectJob);
+
+            // bisect builds bypass the backlog, as every repetition must be built
+            if (builds.insert(buildRequest, BuildState.REQUESTING)) {
+                onBuildStateChanged(buildRequest, null, BuildState.REQUESTING);
+            }
+
+            try {
+                sendBuildRequest(buildRequest);
+            } catch (final IOException | JMSException e) {
+                LOGGER.error("Unable to send BuildRequest to Queue: {}. Error: {}", settings.buildRequestQueueName, e.getMessage(), e);
+                bisectJob.fail("Unable to send BuildRequest for commit: " + bisectJob.getCommitUnderTest() + ". " + e.getMessage());
+                finishBisect(bisectJob);
+                return;
+            }
+        }
+    }
+
+    private void processBisectBuildResponse(final BisectJob bisectJob, final BuildResponse buildResponse) {
+        synchronized (bisectJob) {
+            final UUID buildRequestId = buildResponse.getBuildRequest().getId();
+            @Nullable final BuildStats buildStats = buildResponse.getBuildStats();
+
+            final boolean advanced;
+            if (buildResponse.getBuildState() == BuildState.BENCHMARKING_COMPLETE && buildStats != null) {
+                @Nullable final Double value = getBisectedMetric(bisectJob.getBisectRequest(), buildStats);
+                if (value != null) {
+                    advanced = bisectJob.addSample(buildRequestId, value);
+                } else if (bisectJob.getBisectRequest().getMetric() != null) {
+                    advanced = bisectJob.addFailure(buildRequestId, "no " + bisectJob.getBisectRequest().getMetric() + " for benchmark " + bisectJob.getBisectRequest().getBenchmark());
+                } else {
+                    advanced = bisectJob.addFailure(buildRequestId, "no benchmark time");
+                }
+            } else {
+                advanced = bisectJob.addFailure(buildRequestId, buildResponse.getBuildState().name());
+            }
+
+            if (!advanced) {
+                return;
+            }
+
+            if (bisectJob.isComplete()) {
+                finishBisect(bisectJob);
+            } else {
+                LOGGER.info("Bisect for BisectRequest(id={}) has {} commit(s) remaining, next testing: {}", bisectJob.getBisectRequest().getId(), bisectJob.getRemaining(), bisectJob.getCommitUnderTest());
+                dispatchBisectBuilds(bisectJob);
+            }
+        }
+    }
+
+    /**
+     * Get the value of the metric that a bisect request bisects.
+     *
+     * @return the metric of the benchmark, or else the benchmark time if the request has no metric,
+     *     or null if the build did not report the value
+     */
+    private static @Nullable Double getBisectedMetric(final BisectRequest bisectRequest, final BuildStats buildStats) {
+        if (bisectRequest.getBenchmark() != null && bisectRequest.getMetric() != null) {
+            return buildStats.getMetric(bisectRequest.getBenchmark(), bisectRequest.getMetric());
+        }
+        return buildStats.getBenchmarkTime() >= 0 ? (double) buildStats.getBenchmarkTime() : null;
+    }
+
+    private void finishBisect(final BisectJob bisectJob) {
+        final BisectResponse bisectResponse = bisectJob.getResponse();
+        LOGGER.info("Finished bisect for BisectRequest(id={}): {}, first bad commit: {}", bisectJob.getBisectRequest().getId(), bisectResponse.getBisectState(), bisectResponse.getFirstBadCommit());
+        sendBisectResponse(bisectResponse);
+    }
+
+    private boolean sendBisectResponse(final BisectResponse bisectResponse) {
+        try {
+            final Queue bisectResponseQueue = getQueue(settings.bisectResponseQueueName);
+            sendMessage(bisectResponse, bisectResponseQueue);
+            return true;
+        } catch (final IOException | JMSException e) {
+            LOGGER.error("Unable to send BisectResponse to Queue: {}. Error: {}", settings.bisectResponseQueueName, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Add the results of a build to the time series of its ref,
+     * and send an event for any regression or improvement that is detected.
+     */
+    private void detectChangePoints(final BuildResponse buildResponse) {
+        @Nullable final BuildStats buildStats = buildResponse.getBuildStats();
+        if (buildStats == null) {
+            return;
+        }
+
+        final BuildRequest buildRequest = buildResponse.getBuildRequest();
+        for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : buildStats.getMetrics().entrySet()) {
+            for (final String metric : CHANGE_POINT_METRICS) {
+                @Nullable final Double value = benchmarkMetrics.getValue().get(metric);
+                if (value != null) {
+                    detectChangePoint(buildRequest, benchmarkMetrics.getKey(), metric, value);
+                }
+            }
+        }
+
+        if (buildStats.getMetrics().isEmpty() && buildStats.getBenchmarkTime() >= 0) {
+            // the Runner's benchmark command did not report any metrics per benchmark
+            detectChangePoint(buildRequest, BUILD_SERIES_NAME, METRIC_BENCHMARK_TIME, buildStats.getBenchmarkTime());
+        }
+        if (buildStats.getCompilationTime() >= 0) {
+            detectChangePoint(buildRequest, BUILD_SERIES_NAME, METRIC_COMPILATION_TIME, buildStats.getCompilationTime());
+        }
+    }
+
+    private void detectChangePoint(final BuildRequest buildRequest, final String benchmark, final String metric, final double value) {
+        // the results of a schedule are a separate series, as scheduled builds may run a different benchmark profile
+        final String seriesBenchmark = buildRequest.isScheduled() ? buildRequest.getSchedule() + ':' + benchmark : benchmark;
+        final SeriesKey seriesKey = new SeriesKey(buildRequest.getRef(), seriesBenchmark, metric);
+        @Nullable final ChangePoint changePoint = changePointDetector.add(seriesKey, buildRequest.getCommit(), value);
+        if (changePoint == null) {
+            return;
+        }
+
+        // an increase in throughput is an improvement, whereas an increase in a time or latency is a regression
+        final ChangePointType changePointType = changePoint.isIncrease() != BuildStats.isHigherBetter(metric) ? ChangePointType.REGRESSION : ChangePointType.IMPROVEMENT;
+        LOGGER.warn("Detected {} of {} in {} at commit: {}, median {} -> {} (p={})", changePointType, String.format("%+.1f%%", changePoint.getRelativeChange() * 100), seriesKey, changePoint.getCommit(), changePoint.getBeforeMedian(), changePoint.getAfterMedian(), changePoint.getPValue());
+
+        final ChangePointEvent changePointEvent = new ChangePointEvent(changePointType, buildRequest, seriesKey.getBenchmark(), seriesKey.getMetric(), changePoint.getCommit(), changePoint.getBeforeMedian(), changePoint.getAfterMedian(), changePoint.getRelativeChange(), changePoint.getEffectSize(), 1.0 - changePoint.getPValue());
+        try {
+            final Queue changePointQueue = getQueue(settings.changePointQueueName);
+            sendMessage(changePointEvent, changePointQueue);
+        } catch (final IOException | JMSException e) {
+            LOGGER.error("Unable to send ChangePointEvent to Queue: {}. Error: {}", settings.changePointQueueName, e.getMessage(), e);
+        }
+    }
+
+    private class PublishResponseQueueMessageListener implements MessageListener {
+        @Override
+        public void onMessage(final Message message) {
+            if (!(message instanceof TextMessage)) {
+                // acknowledge invalid message so that it is removed from the queue
+                if (Orchestrator.this.acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Queue: {}.", message.getClass().getName(), settings.publishResponseQueueName);
                 }
 
                 // can't process non-text message, so DONE
@@ -443,7 +1901,7 @@ public class Orchestrator extends AbstractJMSService {
             // attempt to parse as BuildResponse
             final PublishResponse publishResponse;
             try {
-                publishResponse = new PublishResponse().deserialize(content);
+                publishResponse = deserialize(new PublishResponse(), content);
             } catch (final IOException e) {
                 // unable to deserialize, acknowledge invalid message so that it is removed from the queue
                 if (acknowledgeMessage(message)) {
@@ -463,26 +1921,228 @@ public class Orchestrator extends AbstractJMSService {
     }
 
     static class Settings {
-        final String artemisBrokerHost;
-        final int artemisBrokerPort;
+        static final String DEFAULT_BISECT_REQUEST_QUEUE_NAME = "BisectRequestQueue";
+        static final String DEFAULT_BISECT_RESPONSE_QUEUE_NAME = "BisectResponseQueue";
+        static final String DEFAULT_BACKFILL_REQUEST_QUEUE_NAME = "BackfillRequestQueue";
+        static final String DEFAULT_CHANGE_POINT_QUEUE_NAME = "ChangePointQueue";
+        static final String DEFAULT_RUNNER_HEARTBEAT_QUEUE_NAME = "RunnerHeartbeatQueue";
+        static final String DEFAULT_BENCHMARK_PROGRESS_QUEUE_NAME = "BenchmarkProgressQueue";
+        static final String DEFAULT_CONTROL_TOPIC_NAME = "ControlTopic";
+        static final int DEFAULT_STATUS_PORT = -1;
+
+        final List<BrokerEndpoint> artemisBrokers;
         final String webHookQueueName;
         final String buildRequestQueueName;
         final String buildResponseQueueName;
         final String publishRequestQueueName;
         final String publishResponseQueueName;
+        final String bisectRequestQueueName;
+        final String bisectResponseQueueName;
+        final String backfillRequestQueueName;
+        final String changePointQueueName;
+        final String runnerHeartbeatQueueName;
+        final String controlTopicName;
+        final String benchmarkProgressQueueName;
         final List<Pattern> refPatterns;
+        final Map<String, String> refHardwareClasses;
         final boolean allBuilds;
-
-        public Settings(final String artemisBrokerHost, final int artemisBrokerPort, final String webHookQueueName, final String buildRequestQueueName, final String buildResponseQueueName, final String publishRequestQueueName, final String publishResponseQueueName, final List<Pattern> refPatterns, final boolean allBuilds) {
-            this.artemisBrokerHost = artemisBrokerHost;
-            this.artemisBrokerPort = artemisBrokerPort;
+        final boolean adaptiveSampling;
+        final boolean resultCache;
+        final int statusPort;
+        final List<BenchmarkSchedule> schedules;
+        final List<String> workflowBenchmarks;
+        final boolean cancelSuperseded;
+        @Nullable final BenchmarkSpec benchmarkSpec;
+        @Nullable final Path dataDir;
+
+        public Settings(final List<BrokerEndpoint> artemisBrokers, final String webHookQueueName, final String buildRequestQueueName, final String buildResponseQueueName, final String publishRequestQueueName, final String publishResponseQueueName, final String bisectRequestQueueName, final String bisectResponseQueueName, final String backfillRequestQueueName, final String changePointQueueName, final String runnerHeartbeatQueueName, final String controlTopicName, final String benchmarkProgressQueueName, final List<Pattern> refPatterns, final Map<String, String> refHardwareClasses, final boolean allBuilds, final boolean adaptiveSampling, final boolean resultCache, final int statusPort, final List<BenchmarkSchedule> schedules, final List<String> workflowBenchmarks, final boolean cancelSuperseded, @Nullable final BenchmarkSpec benchmarkSpec, @Nullable final Path dataDir) {
+            this.artemisBrokers = artemisBrokers;
             this.webHookQueueName = webHookQueueName;
             this.buildRequestQueueName = buildRequestQueueName;
             this.buildResponseQueueName = buildResponseQueueName;
             this.publishRequestQueueName = publishRequestQueueName;
             this.publishResponseQueueName = publishResponseQueueName;
+            this.bisectRequestQueueName = bisectRequestQueueName;
+            this.bisectResponseQueueName = bisectResponseQueueName;
+            this.backfillRequestQueueName = backfillRequestQueueName;
+            this.changePointQueueName = changePointQueueName;
+            this.runnerHeartbeatQueueName = runnerHeartbeatQueueName;
+            this.controlTopicName = controlTopicName;
+            this.benchmarkProgressQueueName = benchmarkProgressQueueName;
             this.refPatterns = refPatterns;
+            this.refHardwareClasses = refHardwareClasses;
             this.allBuilds = allBuilds;
+            this.adaptiveSampling = adaptiveSampling;
+            this.resultCache = resultCache;
+            this.statusPort = statusPort;
+            this.schedules = schedules;
+            this.workflowBenchmarks = workflowBenchmarks;
+            this.cancelSuperseded = cancelSuperseded;
+            this.benchmarkSpec = benchmarkSpec;
+            this.dataDir = dataDir;
+        }
+
+        /**
+         * Builds {@link Settings}, where any setting which is not set has its default value.
+         */
+        static class Builder {
+            private final List<BrokerEndpoint> artemisBrokers;
+            private final String webHookQueueName;
+            private final String buildRequestQueueName;
+            private final String buildResponseQueueName;
+            private final String publishRequestQueueName;
+            private final String publishResponseQueueName;
+            private String bisectRequestQueueName = DEFAULT_BISECT_REQUEST_QUEUE_NAME;
+            private String bisectResponseQueueName = DEFAULT_BISECT_RESPONSE_QUEUE_NAME;
+            private String backfillRequestQueueName = DEFAULT_BACKFILL_REQUEST_QUEUE_NAME;
+            private String changePointQueueName = DEFAULT_CHANGE_POINT_QUEUE_NAME;
+            private String runnerHeartbeatQueueName = DEFAULT_RUNNER_HEARTBEAT_QUEUE_NAME;
+            private String controlTopicName = DEFAULT_CONTROL_TOPIC_NAME;
+            private String benchmarkProgressQueueName = DEFAULT_BENCHMARK_PROGRESS_QUEUE_NAME;
+            private List<Pattern> refPatterns = Collections.emptyList();
+            private Map<String, String> refHardwareClasses = Collections.emptyMap();
+            private boolean allBuilds;
+            private boolean adaptiveSampling;
+            private boolean resultCache;
+            private int statusPort = DEFAULT_STATUS_PORT;
+            private List<BenchmarkSchedule> schedules = Collections.emptyList();
+            private List<String> workflowBenchmarks = Collections.emptyList();
+            private boolean cancelSuperseded;
+            @Nullable private BenchmarkSpec benchmarkSpec;
+            @Nullable private Path dataDir;
+
+            public Builder(final List<BrokerEndpoint> artemisBrokers, final String webHookQueueName, final String buildRequestQueueName, final String buildResponseQueueName, final String publishRequestQueueName, final String publishResponseQueueName) {
+                this.artemisBrokers = artemisBrokers;
+                this.webHookQueueName = webHookQueueName;
+                this.buildRequestQueueName = buildRequestQueueName;
+                this.buildResponseQueueName = buildResponseQueueName;
+                this.publishRequestQueueName = publishRequestQueueName;
+                this.publishResponseQueueName = publishResponseQueueName;
+            }
+
+            public Builder bisectQueueNames(final String bisectRequestQueueName, final String bisectResponseQueueName) {
+                this.bisectRequestQueueName = bisectRequestQueueName;
+                this.bisectResponseQueueName = bisectResponseQueueName;
+                return this;
+            }
+
+            public Builder backfillRequestQueueName(final String backfillRequestQueueName) {
+                this.backfillRequestQueueName = backfillRequestQueueName;
+                return this;
+            }
+
+            public Builder changePointQueueName(final String changePointQueueName) {
+                this.changePointQueueName = changePointQueueName;
+                return this;
+            }
+
+            public Builder runnerHeartbeatQueueName(final String runnerHeartbeatQueueName) {
+                this.runnerHeartbeatQueueName = runnerHeartbeatQueueName;
+                return this;
+            }
+
+            public Builder controlTopicName(final String controlTopicName) {
+                this.controlTopicName = controlTopicName;
+                return this;
+            }
+
+            /**
+             * @param benchmarkProgressQueueName the queue on which the Runners report the progress of running benchmarks
+             */
+            public Builder benchmarkProgressQueueName(final String benchmarkProgressQueueName) {
+                this.benchmarkProgressQueueName = benchmarkProgressQueueName;
+                return this;
+            }
+
+            public Builder refPatterns(final List<Pattern> refPatterns) {
+                this.refPatterns = refPatterns;
+                return this;
+            }
+
+            /**
+             * @param refHardwareClasses refs which should always be built on Runners of a specific hardware class,
+             *     any other ref is pinned to a hardware class when it is first built
+             */
+            public Builder refHardwareClasses(final Map<String, String> refHardwareClasses) {
+                this.refHardwareClasses = refHardwareClasses;
+                return this;
+            }
+
+            public Builder allBuilds(final boolean allBuilds) {
+                this.allBuilds = allBuilds;
+                return this;
+            }
+
+            /**
+             * @param adaptiveSampling when the Runners are overloaded, build only a sample of the commits of each ref,
+             *     and build the skipped commits once the Runners are idle
+             */
+            public Builder adaptiveSampling(final boolean adaptiveSampling) {
+                this.adaptiveSampling = adaptiveSampling;
+                return this;
+            }
+
+            /**
+             * @param resultCache publish the remembered result of a commit which has already been benchmarked
+             *     on the same hardware class, instead of building it again
+             */
+            public Builder resultCache(final boolean resultCache) {
+                this.resultCache = resultCache;
+                return this;
+            }
+
+            /**
+             * @param statusPort the port of the HTTP server which reports the status and metrics of the Orchestrator,
+             *     0 for any free port, or -1 to leave the port to {@link AbstractJMSService#METRICS_HTTP_PORT_PROPERTY}
+             */
+            public Builder statusPort(final int statusPort) {
+                this.statusPort = statusPort;
+                return this;
+            }
+
+            /**
+             * @param schedules recurring benchmarks of refs, which require a data directory
+             */
+            public Builder schedules(final List<BenchmarkSchedule> schedules) {
+                this.schedules = schedules;
+                return this;
+            }
+
+            /**
+             * @param workflowBenchmarks the benchmarks to fan out to the Runners in parallel for each build request,
+             *     or an empty list for each Runner to run its default benchmarks
+             */
+            public Builder workflowBenchmarks(final List<String> workflowBenchmarks) {
+                this.workflowBenchmarks = workflowBenchmarks;
+                return this;
+            }
+
+            /**
+             * @param cancelSuperseded when a newer commit of a ref is backlogged, cancel the builds of the ref
+             *     which are still updating their source or building
+             */
+            public Builder cancelSuperseded(final boolean cancelSuperseded) {
+                this.cancelSuperseded = cancelSuperseded;
+                return this;
+            }
+
+            /**
+             * @param benchmarkSpec the workloads for the Runners to benchmark for each build request,
+             *     or null for each Runner to run its default benchmarks
+             */
+            public Builder benchmarkSpec(@Nullable final BenchmarkSpec benchmarkSpec) {
+                this.benchmarkSpec = benchmarkSpec;
+                return this;
+            }
+
+            public Builder dataDir(@Nullable final Path dataDir) {
+                this.dataDir = dataDir;
+                return this;
+            }
+
+            public Settings build() {
+                return new Settings(artemisBrokers, webHookQueueName, buildRequestQueueName, buildResponseQueueName, publishRequestQueueName, publishResponseQueueName, bisectRequestQueueName, bisectResponseQueueName, backfillRequestQueueName, changePointQueueName, runnerHeartbeatQueueName, controlTopicName, benchmarkProgressQueueName, refPatterns, refHardwareClasses, allBuilds, adaptiveSampling, resultCache, statusPort, schedules, workflowBenchmarks, cancelSuperseded, benchmarkSpec, dataDir);
+            }
         }
     }
 }
@@ -0,0 +1,205 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BenchmarkSpec;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Remembers the results of completed benchmarks, so that the same source
+ * benchmarked in the same way on the same hardware class, e.g. a commit which
+ * is pushed to a branch and then to {@code main}, is only built once.
+ *
+ * The least recently used results are forgotten once the cache is full.
+ *
+ * A fraction of the hits may instead be reported as misses, so that
+ * some of the results are re-run, to sample the noise of the benchmarks.
+ */
+@ThreadSafe
+class ResultCache {
+
+    /**
+     * System property which sets the most results that are remembered.
+     */
+    static final String MAX_ENTRIES_PROPERTY = "cb.result.cache.max.entries";
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    /**
+     * System property which sets the fraction of hits, between 0 and 1,
+     * that are re-run anyway to sample the noise of the benchmarks.
+     */
+    static final String RERUN_RATE_PROPERTY = "cb.result.cache.rerun.rate";
+    static final double DEFAULT_RERUN_RATE = 0;
+
+    private final int maxEntries;
+    private final double rerunRate;
+    private final DoubleSupplier random;
+
+    @GuardedBy("this") private final Map<Key, BuildStats> results;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reruns = new AtomicLong();
+
+    /**
+     * @param maxEntries the most results that are remembered
+     * @param rerunRate the fraction of hits that are re-run anyway
+     * @param random the source of random numbers between 0 (inclusive) and 1 (exclusive)
+     */
+    ResultCache(final int maxEntries, final double rerunRate, final DoubleSupplier random) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1, but was: " + maxEntries);
+        }
+        if (rerunRate < 0 || rerunRate > 1) {
+            throw new IllegalArgumentException("rerunRate must be between 0 and 1, but was: " + rerunRate);
+        }
+        this.maxEntries = maxEntries;
+        this.rerunRate = rerunRate;
+        this.random = random;
+        this.results = new LinkedHashMap<Key, BuildStats>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, BuildStats> eldest) {
+                return size() > ResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Create a Result Cache which is configured from system properties.
+     *
+     * @return the result cache
+     */
+    static ResultCache fromSystemProperties() {
+        return new ResultCache(
+                Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES),
+                Double.parseDouble(System.getProperty(RERUN_RATE_PROPERTY, String.valueOf(DEFAULT_RERUN_RATE))),
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Get the result of a benchmark.
+     *
+     * @param key the key of the benchmark
+     *
+     * @return the result, or null if there is no result, or the benchmark should be re-run
+     */
+    @Nullable BuildStats get(final Key key) {
+        final BuildStats buildStats;
+        synchronized (this) {
+            buildStats = results.get(key);
+        }
+
+        if (buildStats == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (rerunRate > 0 && random.getAsDouble() < rerunRate) {
+            reruns.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return buildStats;
+    }
+
+    /**
+     * Remember the result of a benchmark,
+     * replacing any previous result.
+     *
+     * @param key the key of the benchmark
+     * @param buildStats the result
+     */
+    synchronized void put(final Key key, final BuildStats buildStats) {
+        results.put(key, buildStats);
+    }
+
+    synchronized int size() {
+        return results.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of hits which were re-run anyway.
+     *
+     * @return the number of re-runs
+     */
+    long getReruns() {
+        return reruns.get();
+    }
+
+    /**
+     * Identifies the source, the benchmark, the benchmark profile, and the hardware class of a result.
+     */
+    @Immutable
+    static final class Key {
+        private final String commit;
+        @Nullable private final String benchmark;
+        @Nullable private final BenchmarkSpec benchmarkSpec;
+        @Nullable private final String hardwareClass;
+
+        /**
+         * @param commit the commit, which identifies the source tree
+         * @param benchmark the name of the benchmark, or null for all of the benchmarks
+         * @param hardwareClass the hardware class of the Runner, or null if unknown
+         */
+        Key(final String commit, @Nullable final String benchmark, @Nullable final String hardwareClass) {
+            this(commit, benchmark, null, hardwareClass);
+        }
+
+        /**
+         * @param commit the commit, which identifies the source tree
+         * @param benchmark the name of the benchmark, or null for all of the benchmarks
+         * @param benchmarkSpec the benchmark profile, or null for the Runner's default benchmark
+         * @param hardwareClass the hardware class of the Runner, or null if unknown
+         */
+        Key(final String commit, @Nullable final String benchmark, @Nullable final BenchmarkSpec benchmarkSpec, @Nullable final String hardwareClass) {
+            this.commit = commit;
+            this.benchmark = benchmark;
+            this.benchmarkSpec = benchmarkSpec;
+            this.hardwareClass = hardwareClass;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            final Key key = (Key) o;
+
+            if (!commit.equals(key.commit)) return false;
+            if (benchmark != null ? !benchmark.equals(key.benchmark) : key.benchmark != null) return false;
+            if (benchmarkSpec != null ? !benchmarkSpec.equals(key.benchmarkSpec) : key.benchmarkSpec != null) return false;
+            return hardwareClass != null ? hardwareClass.equals(key.hardwareClass) : key.hardwareClass == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = commit.hashCode();
+            result = 31 * result + (benchmark != null ? benchmark.hashCode() : 0);
+            result = 31 * result + (benchmarkSpec != null ? benchmarkSpec.hashCode() : 0);
+            result = 31 * result + (hardwareClass != null ? hardwareClass.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return commit + '/' + benchmark + '/' + (benchmarkSpec != null ? "spec@" + Integer.toHexString(benchmarkSpec.hashCode()) : null) + '/' + hardwareClass;
+        }
+    }
+}
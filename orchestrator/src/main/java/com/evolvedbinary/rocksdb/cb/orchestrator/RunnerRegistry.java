@@ -0,0 +1,216 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.RunnerHeartbeat;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * The Runners that are known to be alive, and the hardware class
+ * that the builds of each ref are pinned to.
+ *
+ * A Runner is alive whilst its heartbeats keep arriving, it is
+ * considered dead once {@link #MISSED_HEARTBEATS} consecutive
+ * heartbeats have been missed. A hardware class is healthy whilst
+ * it has at least one live Runner.
+ *
+ * A ref is pinned to a hardware class the first time it is routed,
+ * so that all of its builds are benchmarked on comparable hardware.
+ */
+@ThreadSafe
+class RunnerRegistry {
+
+    static final int MISSED_HEARTBEATS = 3;
+
+    private final ConcurrentMap<String, LiveRunner> runners = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> refHardwareClasses = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    @Immutable
+    private static final class LiveRunner {
+        final RunnerHeartbeat heartbeat;
+        final long lastSeen;
+
+        LiveRunner(final RunnerHeartbeat heartbeat, final long lastSeen) {
+            this.heartbeat = heartbeat;
+            this.lastSeen = lastSeen;
+        }
+
+        boolean isAlive(final long now) {
+            return now - lastSeen <= heartbeat.getHeartbeatInterval() * MISSED_HEARTBEATS;
+        }
+    }
+
+    /**
+     * @param refHardwareClasses refs which should be pinned to a specific hardware class
+     */
+    RunnerRegistry(final Map<String, String> refHardwareClasses) {
+        this(refHardwareClasses, System::currentTimeMillis);
+    }
+
+    /**
+     * @param refHardwareClasses refs which should be pinned to a specific hardware class
+     * @param clock the source of the current time in milliseconds
+     */
+    RunnerRegistry(final Map<String, String> refHardwareClasses, final LongSupplier clock) {
+        this.refHardwareClasses.putAll(refHardwareClasses);
+        this.clock = clock;
+    }
+
+    /**
+     * Record a heartbeat from a Runner.
+     *
+     * @param runnerHeartbeat the heartbeat
+     *
+     * @return true if the Runner was not previously known to be alive, false otherwise
+     */
+    boolean heartbeat(final RunnerHeartbeat runnerHeartbeat) {
+        final LiveRunner previous = runners.put(runnerHeartbeat.getRunnerId(), new LiveRunner(runnerHeartbeat, clock.getAsLong()));
+        return previous == null;
+    }
+
+    /**
+     * Forget any Runners which have missed too many heartbeats.
+     *
+     * @return the hardware classes which had live Runners, but no longer have any
+     */
+    Set<String> expire() {
+        final long now = clock.getAsLong();
+
+        final Set<String> expiredHardwareClasses = new TreeSet<>();
+        for (final Iterator<LiveRunner> it = runners.values().iterator(); it.hasNext(); ) {
+            final LiveRunner liveRunner = it.next();
+            if (!liveRunner.isAlive(now)) {
+                it.remove();
+                expiredHardwareClasses.add(liveRunner.heartbeat.getHardwareClass());
+            }
+        }
+
+        expiredHardwareClasses.removeIf(this::isHealthy);
+        return expiredHardwareClasses;
+    }
+
+    /**
+     * Determine if a hardware class has at least one live Runner.
+     *
+     * @param hardwareClass the hardware class
+     *
+     * @return true if the hardware class is healthy
+     */
+    boolean isHealthy(final String hardwareClass) {
+        return liveRunnerCount(hardwareClass) > 0;
+    }
+
+    /**
+     * Get the number of live Runners of all hardware classes.
+     *
+     * @return the number of live Runners
+     */
+    int liveRunnerCount() {
+        final long now = clock.getAsLong();
+        int count = 0;
+        for (final LiveRunner liveRunner : runners.values()) {
+            if (liveRunner.isAlive(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int liveRunnerCount(final String hardwareClass) {
+        final long now = clock.getAsLong();
+        int count = 0;
+        for (final LiveRunner liveRunner : runners.values()) {
+            if (liveRunner.heartbeat.getHardwareClass().equals(hardwareClass) && liveRunner.isAlive(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of live Runners of each healthy hardware class.
+     *
+     * @return the hardware classes and their number of live Runners, ordered by hardware class
+     */
+    SortedMap<String, Integer> getHealthyHardwareClasses() {
+        final long now = clock.getAsLong();
+        final SortedMap<String, Integer> hardwareClasses = new TreeMap<>();
+        for (final LiveRunner liveRunner : runners.values()) {
+            if (liveRunner.isAlive(now)) {
+                hardwareClasses.merge(liveRunner.heartbeat.getHardwareClass(), 1, Integer::sum);
+            }
+        }
+        return hardwareClasses;
+    }
+
+    @Nullable String getPinnedHardwareClass(final String ref) {
+        return refHardwareClasses.get(ref);
+    }
+
+    /**
+     * Choose the hardware class whose Runners should build a ref.
+     *
+     * If the ref is not yet pinned, then it is pinned to the healthy hardware
+     * class with the most live Runners. If the ref is pinned to a hardware
+     * class which is not healthy, then the build is re-routed to the healthy
+     * hardware class with the most live Runners, but the ref remains pinned.
+     *
+     * @param ref the ref to be built
+     *
+     * @return the hardware class, or null if there are no healthy hardware classes
+     */
+    @Nullable String route(final String ref) {
+        final String pinned = refHardwareClasses.get(ref);
+        if (pinned != null && isHealthy(pinned)) {
+            return pinned;
+        }
+
+        final String candidate = largestHealthyHardwareClass();
+        if (candidate == null) {
+            return null;
+        }
+
+        if (pinned == null) {
+            final String existing = refHardwareClasses.putIfAbsent(ref, candidate);
+            if (existing != null && isHealthy(existing)) {
+                return existing;  // lost a race to pin the ref
+            }
+        }
+
+        return candidate;
+    }
+
+    /**
+     * Get the hardware class whose Runners would build a ref,
+     * see {@link #route(String)}, without pinning the ref.
+     *
+     * @param ref the ref to be built
+     *
+     * @return the hardware class, or null if there are no healthy hardware classes
+     */
+    @Nullable String peekRoute(final String ref) {
+        final String pinned = refHardwareClasses.get(ref);
+        if (pinned != null && isHealthy(pinned)) {
+            return pinned;
+        }
+        return largestHealthyHardwareClass();
+    }
+
+    private @Nullable String largestHealthyHardwareClass() {
+        String largest = null;
+        int largestCount = 0;
+        for (final Map.Entry<String, Integer> hardwareClass : getHealthyHardwareClasses().entrySet()) {
+            if (hardwareClass.getValue() > largestCount) {
+                largest = hardwareClass.getKey();
+                largestCount = hardwareClass.getValue();
+            }
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,83 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers GET requests for a resource of the status
+ * of the Orchestrator with a JSON document.
+ *
+ * The handlers are served alongside the metrics of the
+ * Orchestrator by its metrics HTTP server, and each document
+ * is written on the thread of that server, so the writers must
+ * only read from state which is safe to read without taking locks.
+ */
+class StatusHandler implements HttpHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatusHandler.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String path;
+    private final StatusWriter statusWriter;
+
+    /**
+     * @param path the path of the resource
+     * @param statusWriter the writer of the JSON document of the resource
+     */
+    StatusHandler(final String path, final StatusWriter statusWriter) {
+        this.path = path;
+        this.statusWriter = statusWriter;
+    }
+
+    /**
+     * Writes the JSON document of a resource.
+     */
+    @FunctionalInterface
+    interface StatusWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            // contexts match on a path prefix, so only answer for the exact path of the resource
+            if (!path.equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (final JsonGenerator generator = JSON_FACTORY.createGenerator(content, JsonEncoding.UTF8)) {
+                statusWriter.write(generator);
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error("Unable to write status for: {}. Error: {}", path, e.getMessage(), e);
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            final byte[] body = content.toByteArray();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=" + StandardCharsets.UTF_8.name());
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
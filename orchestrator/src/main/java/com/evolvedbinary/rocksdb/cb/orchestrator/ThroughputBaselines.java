@@ -0,0 +1,160 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the recent throughput of each benchmark of each ref on each
+ * hardware class, so that a build request can carry a baseline for each
+ * benchmark, against which a Runner can detect a catastrophic regression
+ * whilst the benchmark is still running.
+ *
+ * The baseline of a benchmark is the median of its most recent results.
+ * The least recently used refs are forgotten once the limit is reached.
+ */
+@ThreadSafe
+class ThroughputBaselines {
+
+    /**
+     * System property which sets the number of the most recent results of a benchmark that its baseline is the median of.
+     */
+    static final String WINDOW_PROPERTY = "cb.baseline.window";
+    static final int DEFAULT_WINDOW = 8;
+
+    /**
+     * System property which sets the fewest results of a benchmark that are needed before it has a baseline.
+     */
+    static final String MIN_RESULTS_PROPERTY = "cb.baseline.min.results";
+    static final int DEFAULT_MIN_RESULTS = 3;
+
+    /**
+     * System property which sets the most refs and hardware classes that baselines are remembered for.
+     */
+    static final String MAX_ENTRIES_PROPERTY = "cb.baseline.max.entries";
+    static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+    private final int window;
+    private final int minResults;
+    private final int maxEntries;
+
+    // ref/hardwareClass -> benchmark -> ops/sec of the most recent results
+    @GuardedBy("this") private final Map<String, Map<String, ArrayDeque<Double>>> entries;
+
+    /**
+     * @param window the number of the most recent results of a benchmark that its baseline is the median of
+     * @param minResults the fewest results of a benchmark that are needed before it has a baseline
+     * @param maxEntries the most refs and hardware classes that baselines are remembered for
+     */
+    ThroughputBaselines(final int window, final int minResults, final int maxEntries) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1, but was: " + window);
+        }
+        if (minResults < 1 || minResults > window) {
+            throw new IllegalArgumentException("minResults must be between 1 and the window, but was: " + minResults);
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1, but was: " + maxEntries);
+        }
+        this.window = window;
+        this.minResults = minResults;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Map<String, ArrayDeque<Double>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Map<String, ArrayDeque<Double>>> eldest) {
+                return size() > ThroughputBaselines.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Create Throughput Baselines which are configured from system properties.
+     *
+     * @return the throughput baselines
+     */
+    static ThroughputBaselines fromSystemProperties() {
+        return new ThroughputBaselines(
+                Integer.getInteger(WINDOW_PROPERTY, DEFAULT_WINDOW),
+                Integer.getInteger(MIN_RESULTS_PROPERTY, DEFAULT_MIN_RESULTS),
+                Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * Record the throughput of each benchmark of a successful build.
+     *
+     * @param ref the ref which was built
+     * @param hardwareClass the hardware class of the Runner, or null if unknown
+     * @param buildStats the result of the build
+     */
+    synchronized void record(final String ref, @Nullable final String hardwareClass, final BuildStats buildStats) {
+        Map<String, ArrayDeque<Double>> benchmarks = null;
+        for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : buildStats.getMetrics().entrySet()) {
+            @Nullable final Double opsPerSec = benchmarkMetrics.getValue().get(BuildStats.METRIC_OPS_PER_SEC);
+            if (opsPerSec == null || opsPerSec <= 0) {
+                continue;
+            }
+
+            if (benchmarks == null) {
+                benchmarks = entries.computeIfAbsent(key(ref, hardwareClass), k -> new LinkedHashMap<>());
+            }
+            final ArrayDeque<Double> results = benchmarks.computeIfAbsent(benchmarkMetrics.getKey(), k -> new ArrayDeque<>());
+            results.addLast(opsPerSec);
+            if (results.size() > window) {
+                results.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Get the baselines of the benchmarks of a ref.
+     *
+     * @param ref the ref
+     * @param hardwareClass the hardware class of the Runners, or null if unknown
+     *
+     * @return benchmark name -> baseline operations per second, empty if there are no baselines
+     */
+    synchronized Map<String, Double> get(final String ref, @Nullable final String hardwareClass) {
+        @Nullable final Map<String, ArrayDeque<Double>> benchmarks = entries.get(key(ref, hardwareClass));
+        if (benchmarks == null) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, Double> baselines = new LinkedHashMap<>();
+        for (final Map.Entry<String, ArrayDeque<Double>> benchmark : benchmarks.entrySet()) {
+            if (benchmark.getValue().size() >= minResults) {
+                baselines.put(benchmark.getKey(), median(benchmark.getValue()));
+            }
+        }
+        return baselines;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static String key(final String ref, @Nullable final String hardwareClass) {
+        return ref + '/' + hardwareClass;
+    }
+
+    private static double median(final ArrayDeque<Double> results) {
+        final double[] values = new double[results.size()];
+        int i = 0;
+        for (final Double result : results) {
+            values[i++] = result;
+        }
+        Arrays.sort(values);
+
+        final int mid = values.length / 2;
+        if (values.length % 2 == 0) {
+            return (values[mid - 1] + values[mid]) / 2;
+        }
+        return values[mid];
+    }
+}
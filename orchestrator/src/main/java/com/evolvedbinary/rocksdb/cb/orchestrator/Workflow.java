@@ -0,0 +1,286 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildDetail;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The stages of a build request which has been expanded into a workflow.
+ *
+ * Each benchmark is a stage of the workflow, and is sent to the Runners
+ * as its own build request, so that the benchmarks run in parallel on
+ * different Runners. Each Runner updates the source and builds it before
+ * running the benchmark of its stage.
+ *
+ * The state of the workflow is the state of its least progressed stage,
+ * so the build request which was expanded moves through the same states
+ * as a build which is not expanded. The workflow fails as soon as any
+ * of its stages fails, and completes once all of its stages have completed,
+ * when their results are aggregated into a single result.
+ */
+@ThreadSafe
+class Workflow {
+
+    // the states of a build which has not failed, in order
+    private static final List<BuildState> SUCCESS_STATES = Arrays.asList(
+            BuildState.REQUESTING,
+            BuildState.REQUESTED,
+            BuildState.UPDATING_SOURCE,
+            BuildState.UPDATING_SOURCE_COMPLETE,
+            BuildState.BUILDING,
+            BuildState.BUILDING_COMPLETE,
+            BuildState.BENCHMARKING,
+            BuildState.BENCHMARKING_COMPLETE);
+
+    private final BuildRequest buildRequest;
+    private final List<BuildRequest> stageBuildRequests;
+
+    // stage build request id -> state of the stage, readable without holding the lock
+    private final Map<UUID, BuildState> stageStates = new ConcurrentHashMap<>();
+
+    // stage build request id -> latest response of the stage
+    @GuardedBy("this") private final Map<UUID, BuildResponse> stageResponses = new HashMap<>();
+    @GuardedBy("this") @Nullable private BuildResponse response;
+
+    /**
+     * @param buildRequest the build request to expand
+     * @param benchmarks the benchmarks to run, one per stage
+     */
+    Workflow(final BuildRequest buildRequest, final List<String> benchmarks) {
+        this(buildRequest, expand(buildRequest, benchmarks), Collections.emptyList());
+    }
+
+    /**
+     * Recover a workflow whose stages have already been sent to the Runners.
+     *
+     * @param buildRequest the build request which was expanded
+     * @param stageBuildRequests the build requests of the stages, in the order of their benchmarks
+     * @param stageResponses the latest response of each stage which has responded
+     */
+    Workflow(final BuildRequest buildRequest, final List<BuildRequest> stageBuildRequests, final List<BuildResponse> stageResponses) {
+        if (stageBuildRequests.isEmpty()) {
+            throw new IllegalArgumentException("A workflow must have at least one benchmark");
+        }
+        this.buildRequest = buildRequest;
+        this.stageBuildRequests = Collections.unmodifiableList(new ArrayList<>(stageBuildRequests));
+        for (final BuildRequest stageBuildRequest : stageBuildRequests) {
+            stageStates.put(stageBuildRequest.getId(), BuildState.REQUESTED);
+        }
+        for (final BuildResponse stageResponse : stageResponses) {
+            stageChanged(stageResponse);
+        }
+    }
+
+    private static List<BuildRequest> expand(final BuildRequest buildRequest, final List<String> benchmarks) {
+        final List<BuildRequest> stageBuildRequests = new ArrayList<>(benchmarks.size());
+        for (final String benchmark : benchmarks) {
+            stageBuildRequests.add(buildRequest.toBuilder()
+                    .id(UUID.randomUUID())
+                    .benchmark(benchmark)
+                    .build());
+        }
+        return stageBuildRequests;
+    }
+
+    /**
+     * Get the build request which was expanded into the workflow.
+     *
+     * @return the build request
+     */
+    BuildRequest getBuildRequest() {
+        return buildRequest;
+    }
+
+    /**
+     * Get the build requests of the stages, in the order of their benchmarks.
+     *
+     * @return the build requests of the stages
+     */
+    List<BuildRequest> getStageBuildRequests() {
+        return stageBuildRequests;
+    }
+
+    /**
+     * Get the state of a stage.
+     *
+     * @param stageId the id of the build request of the stage
+     *
+     * @return the state of the stage, or null if it is not a stage of this workflow
+     */
+    @Nullable BuildState getStageState(final UUID stageId) {
+        return stageStates.get(stageId);
+    }
+
+    /**
+     * Get the state of the workflow, i.e. the state of its least progressed stage,
+     * or the failure state of the first stage which failed.
+     *
+     * @return the state of the workflow
+     */
+    BuildState getState() {
+        int min = SUCCESS_STATES.size() - 1;
+        for (final BuildState stageState : stageStates.values()) {
+            final int idx = SUCCESS_STATES.indexOf(stageState);
+            if (idx == -1) {
+                return stageState;  // failed
+            }
+            min = Math.min(min, idx);
+        }
+        return SUCCESS_STATES.get(min);
+    }
+
+    /**
+     * Get the state which follows a state when a build does not fail.
+     *
+     * @param buildState the state of a build
+     *
+     * @return the next state, or null if the state is a final or failure state
+     */
+    static @Nullable BuildState nextSuccessState(final BuildState buildState) {
+        final int idx = SUCCESS_STATES.indexOf(buildState);
+        if (idx == -1 || idx == SUCCESS_STATES.size() - 1) {
+            return null;
+        }
+        return SUCCESS_STATES.get(idx + 1);
+    }
+
+    /**
+     * Record the response of a Runner to the build request of a stage.
+     *
+     * @param stageResponse the response of a Runner
+     *
+     * @return true if the response was recorded, false if the response is not
+     *     for a stage of this workflow, or the workflow has already finished
+     */
+    synchronized boolean stageChanged(final BuildResponse stageResponse) {
+        final UUID stageId = stageResponse.getBuildRequest().getId();
+        if (response != null || !stageStates.containsKey(stageId)) {
+            return false;
+        }
+
+        final BuildState stageState = stageResponse.getBuildState();
+        stageStates.put(stageId, stageState);
+
+        if (BuildState.isStateFailureState(stageState)) {
+            // fail fast, the results of the other stages would be incomplete, but keep the partial results of an aborted benchmark
+            @Nullable final BuildStats buildStats = stageState == BuildState.BENCHMARKING_ABORTED ? stageResponse.getBuildStats() : null;
+            response = new BuildResponse(stageState, buildRequest, buildStats, stageResponse.getBuildDetails());
+
+        } else {
+            stageResponses.put(stageId, stageResponse);
+            if (getState() == BuildState.BENCHMARKING_COMPLETE) {
+                response = aggregate();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Aggregate the results of the stages.
+     *
+     * The stages update the source and build in parallel, so their longest times are taken,
+     * whereas the benchmark times are summed so that they remain comparable with those of
+     * a build which ran all of the benchmarks one after the other. Each stage runs
+     * different benchmarks, so the metrics of their benchmarks are merged. The result
+     * is only isolated if every stage was isolated, and only has a hardware class if
+     * every stage was routed to the same hardware class.
+     */
+    @GuardedBy("this")
+    private BuildResponse aggregate() {
+        long updateSourceTime = -1;
+        long compilationTime = -1;
+        long benchmarkTime = -1;
+        final List<BuildDetail> buildDetails = new ArrayList<>();
+        final Map<String, Map<String, Double>> metrics = new LinkedHashMap<>();
+        @Nullable Boolean isolated = null;
+        @Nullable String hardwareClass = null;
+        boolean sameHardwareClass = true;
+
+        for (final BuildRequest stageBuildRequest : stageBuildRequests) {
+            final BuildResponse stageResponse = stageResponses.get(stageBuildRequest.getId());
+
+            @Nullable final String stageHardwareClass = stageResponse.getBuildRequest().getHardwareClass();
+            if (stageHardwareClass == null || (hardwareClass != null && !hardwareClass.equals(stageHardwareClass))) {
+                sameHardwareClass = false;
+            }
+            hardwareClass = stageHardwareClass;
+
+            @Nullable final BuildStats stageStats = stageResponse.getBuildStats();
+            if (stageStats != null) {
+                updateSourceTime = Math.max(updateSourceTime, stageStats.getUpdateSourceTime());
+                compilationTime = Math.max(compilationTime, stageStats.getCompilationTime());
+                if (stageStats.getBenchmarkTime() > -1) {
+                    benchmarkTime = (benchmarkTime == -1 ? 0 : benchmarkTime) + stageStats.getBenchmarkTime();
+                }
+                metrics.putAll(stageStats.getMetrics());
+                if (stageStats.getIsolated() != null) {
+                    isolated = (isolated == null || isolated) && stageStats.getIsolated();
+                }
+            }
+
+            @Nullable final List<BuildDetail> stageDetails = stageResponse.getBuildDetails();
+            if (stageDetails != null) {
+                buildDetails.addAll(stageDetails);
+            }
+        }
+
+        final BuildStats buildStats = new BuildStats(updateSourceTime, compilationTime, benchmarkTime);
+        for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : metrics.entrySet()) {
+            for (final Map.Entry<String, Double> metric : benchmarkMetrics.getValue().entrySet()) {
+                buildStats.setMetric(benchmarkMetrics.getKey(), metric.getKey(), metric.getValue());
+            }
+        }
+
+        buildStats.setIsolated(isolated);
+
+        // the copy keeps the id so that the response still matches the build
+        final BuildRequest routedBuildRequest = buildRequest.toBuilder().hardwareClass(sameHardwareClass ? hardwareClass : null).build();
+
+        return new BuildResponse(BuildState.BENCHMARKING_COMPLETE, routedBuildRequest, buildStats, buildDetails.isEmpty() ? null : buildDetails);
+    }
+
+    /**
+     * Get the latest response of each stage which has responded,
+     * so that the progress of the workflow can be recovered.
+     *
+     * @return the latest responses of the stages, in the order of their benchmarks
+     */
+    synchronized List<BuildResponse> getStageResponses() {
+        final List<BuildResponse> latestStageResponses = new ArrayList<>(stageResponses.size());
+        for (final BuildRequest stageBuildRequest : stageBuildRequests) {
+            @Nullable final BuildResponse stageResponse = stageResponses.get(stageBuildRequest.getId());
+            if (stageResponse != null) {
+                latestStageResponses.add(stageResponse);
+            }
+        }
+        return latestStageResponses;
+    }
+
+    /**
+     * Determine if the workflow has finished, either because all of its
+     * stages have completed, or because one of its stages failed.
+     *
+     * @return true if the workflow has finished
+     */
+    synchronized boolean isFinished() {
+        return response != null;
+    }
+
+    /**
+     * Get the result of the workflow.
+     *
+     * @return the aggregated result, or null if the workflow has not yet finished
+     */
+    synchronized @Nullable BuildResponse getResponse() {
+        return response;
+    }
+}
@@ -0,0 +1,87 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.changepoint;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A change in the distribution of a benchmark time series.
+ */
+@Immutable
+public final class ChangePoint {
+    private final SeriesKey seriesKey;
+    private final String commit;
+    private final double beforeMedian;
+    private final double afterMedian;
+    private final double effectSize;
+    private final double pValue;
+
+    ChangePoint(final SeriesKey seriesKey, final String commit, final double beforeMedian, final double afterMedian, final double effectSize, final double pValue) {
+        this.seriesKey = seriesKey;
+        this.commit = commit;
+        this.beforeMedian = beforeMedian;
+        this.afterMedian = afterMedian;
+        this.effectSize = effectSize;
+        this.pValue = pValue;
+    }
+
+    public SeriesKey getSeriesKey() {
+        return seriesKey;
+    }
+
+    /**
+     * The first commit after the change.
+     *
+     * @return the commit
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    public double getBeforeMedian() {
+        return beforeMedian;
+    }
+
+    public double getAfterMedian() {
+        return afterMedian;
+    }
+
+    /**
+     * The change in the median, relative to the median before the change.
+     *
+     * @return the relative change, e.g. 0.1 for an increase of 10%
+     */
+    public double getRelativeChange() {
+        return beforeMedian == 0 ? 0 : (afterMedian - beforeMedian) / beforeMedian;
+    }
+
+    /**
+     * Cliff's delta of the values after the change against those before.
+     *
+     * @return the effect size, between -1 and 1
+     */
+    public double getEffectSize() {
+        return effectSize;
+    }
+
+    public double getPValue() {
+        return pValue;
+    }
+
+    /**
+     * @return true if the values increased after the change
+     */
+    public boolean isIncrease() {
+        return afterMedian > beforeMedian;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangePoint{" +
+                "seriesKey=" + seriesKey +
+                ", commit='" + commit + '\'' +
+                ", beforeMedian=" + beforeMedian +
+                ", afterMedian=" + afterMedian +
+                ", effectSize=" + effectSize +
+                ", pValue=" + pValue +
+                '}';
+    }
+}
@@ -0,0 +1,177 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.changepoint;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Incremental change-point detection over many benchmark time series.
+ *
+ * Each series keeps a sliding window of its most recent {@code 2 * window}
+ * values. When a value is added and the window is full, the older half is
+ * compared with the newer half using a {@link MannWhitneyU} test. If the
+ * difference is significant, and the medians differ by at least the minimum
+ * relative change, then the best split point within the window is located,
+ * i.e. the split with the lowest p-value, and reported as a change point.
+ *
+ * After a change point is reported, the values before it are discarded so
+ * that the new level becomes the baseline, and the same change is not
+ * reported again.
+ */
+@ThreadSafe
+public class ChangePointDetector {
+
+    public static final int DEFAULT_WINDOW = 8;
+    public static final double DEFAULT_SIGNIFICANCE = 0.01;
+    public static final double DEFAULT_MIN_RELATIVE_CHANGE = 0.05;
+
+    private final int window;
+    private final int minSegment;
+    private final double significance;
+    private final double minRelativeChange;
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+    public ChangePointDetector() {
+        this(DEFAULT_WINDOW, DEFAULT_SIGNIFICANCE, DEFAULT_MIN_RELATIVE_CHANGE);
+    }
+
+    /**
+     * @param window the number of values either side of a change point that are compared
+     * @param significance the p-value below which a difference is significant
+     * @param minRelativeChange the minimum relative change of the median to report
+     */
+    public ChangePointDetector(final int window, final double significance, final double minRelativeChange) {
+        if (window < 3) {
+            throw new IllegalArgumentException("window must be at least 3");
+        }
+        if (significance <= 0 || significance >= 1) {
+            throw new IllegalArgumentException("significance must be between 0 and 1");
+        }
+        this.window = window;
+        this.minSegment = Math.max(3, window / 2);
+        this.significance = significance;
+        this.minRelativeChange = minRelativeChange;
+    }
+
+    private static class Observation {
+        final String commit;
+        final double value;
+
+        Observation(final String commit, final double value) {
+            this.commit = commit;
+            this.value = value;
+        }
+    }
+
+    private static class Series {
+        @GuardedBy("this") final ArrayDeque<Observation> observations = new ArrayDeque<>();
+    }
+
+    /**
+     * Add a value to a series, and detect whether it completes a change point.
+     *
+     * @param seriesKey the series
+     * @param commit the commit that the value was measured for
+     * @param value the value
+     *
+     * @return the change point, or null if no change was detected
+     */
+    public @Nullable ChangePoint add(final SeriesKey seriesKey, final String commit, final double value) {
+        final Series s = series.computeIfAbsent(seriesKey, k -> new Series());
+        synchronized (s) {
+            s.observations.addLast(new Observation(commit, value));
+            if (s.observations.size() > 2 * window) {
+                s.observations.removeFirst();
+            }
+            if (s.observations.size() < 2 * window) {
+                return null;
+            }
+
+            final Observation[] observations = s.observations.toArray(new Observation[0]);
+            final double[] values = new double[observations.length];
+            for (int i = 0; i < observations.length; i++) {
+                values[i] = observations[i].value;
+            }
+
+            // is there a significant difference between the two halves of the window?
+            if (!isSignificantChange(values, window)) {
+                return null;
+            }
+
+            // find the best split
+            int bestSplit = window;
+            MannWhitneyU.Result bestResult = null;
+            for (int split = minSegment; split <= values.length - minSegment; split++) {
+                final MannWhitneyU.Result result = MannWhitneyU.test(Arrays.copyOfRange(values, split, values.length), Arrays.copyOfRange(values, 0, split));
+                if (bestResult == null || result.pValue < bestResult.pValue
+                        || (result.pValue == bestResult.pValue && Math.abs(result.effectSize) > Math.abs(bestResult.effectSize))) {
+                    bestSplit = split;
+                    bestResult = result;
+                }
+            }
+
+            final double[] before = Arrays.copyOfRange(values, 0, bestSplit);
+            final double[] after = Arrays.copyOfRange(values, bestSplit, values.length);
+            final ChangePoint changePoint = new ChangePoint(seriesKey, observations[bestSplit].commit, median(before), median(after), bestResult.effectSize, bestResult.pValue);
+
+            // the new level becomes the baseline
+            final Iterator<Observation> it = s.observations.iterator();
+            for (int i = 0; i < bestSplit; i++) {
+                it.next();
+                it.remove();
+            }
+
+            return changePoint;
+        }
+    }
+
+    /**
+     * Forget a series, e.g. when its ref is deleted.
+     *
+     * @param seriesKey the series
+     */
+    public void remove(final SeriesKey seriesKey) {
+        series.remove(seriesKey);
+    }
+
+    /**
+     * Get the number of series being tracked.
+     *
+     * @return the number of series
+     */
+    public int size() {
+        return series.size();
+    }
+
+    private boolean isSignificantChange(final double[] values, final int split) {
+        final double[] before = Arrays.copyOfRange(values, 0, split);
+        final double[] after = Arrays.copyOfRange(values, split, values.length);
+        final MannWhitneyU.Result result = MannWhitneyU.test(after, before);
+        if (result.pValue >= significance) {
+            return false;
+        }
+
+        final double beforeMedian = median(before);
+        if (beforeMedian == 0) {
+            return true;
+        }
+        final double relativeChange = Math.abs(median(after) - beforeMedian) / Math.abs(beforeMedian);
+        return relativeChange >= minRelativeChange;
+    }
+
+    static double median(final double[] values) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        final int mid = sorted.length / 2;
+        if (sorted.length % 2 == 1) {
+            return sorted[mid];
+        }
+        return (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+}
@@ -0,0 +1,198 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.changepoint;
+
+import java.util.Arrays;
+
+/**
+ * The Mann-Whitney U test, a non-parametric test of whether
+ * two independent samples come from the same distribution.
+ *
+ * Benchmark timings are rarely normally distributed, and tend to have
+ * outliers, so a rank based test is a better fit than a t-test.
+ */
+public interface MannWhitneyU {
+
+    /**
+     * When both samples are no larger than this, and there are no ties,
+     * the exact distribution of U is used; otherwise the normal
+     * approximation with a tie correction is used.
+     */
+    int EXACT_MAX_SAMPLE_SIZE = 25;
+
+    /**
+     * The result of a Mann-Whitney U test.
+     */
+    class Result {
+        /**
+         * The U statistic of the first sample, i.e. the number of pairs
+         * in which the value from the first sample is greater than the
+         * value from the second sample, counting ties as one half.
+         */
+        public final double u;
+
+        /**
+         * The two-sided p-value.
+         */
+        public final double pValue;
+
+        /**
+         * Cliff's delta, from -1 where every value of the first sample is less
+         * than every value of the second, to +1 where every value is greater.
+         */
+        public final double effectSize;
+
+        /**
+         * True if the p-value was computed from the exact distribution of U.
+         */
+        public final boolean exact;
+
+        Result(final double u, final double pValue, final double effectSize, final boolean exact) {
+            this.u = u;
+            this.pValue = pValue;
+            this.effectSize = effectSize;
+            this.exact = exact;
+        }
+    }
+
+    /**
+     * Test whether two samples come from the same distribution.
+     *
+     * @param x the first sample
+     * @param y the second sample
+     *
+     * @return the result of the test
+     */
+    static Result test(final double[] x, final double[] y) {
+        final int m = x.length;
+        final int n = y.length;
+        if (m == 0 || n == 0) {
+            throw new IllegalArgumentException("Both samples must be non-empty");
+        }
+
+        // rank the combined samples, assigning tied values their average rank
+        final int total = m + n;
+        final double[][] values = new double[total][];
+        for (int i = 0; i < m; i++) {
+            values[i] = new double[] { x[i], 0 };
+        }
+        for (int i = 0; i < n; i++) {
+            values[m + i] = new double[] { y[i], 1 };
+        }
+        Arrays.sort(values, (a, b) -> Double.compare(a[0], b[0]));
+
+        double rankSumX = 0;
+        double tieCorrection = 0;
+        int i = 0;
+        while (i < total) {
+            int j = i;
+            while (j + 1 < total && values[j + 1][0] == values[i][0]) {
+                j++;
+            }
+            final double averageRank = (i + j + 2) / 2.0;
+            for (int k = i; k <= j; k++) {
+                if (values[k][1] == 0) {
+                    rankSumX += averageRank;
+                }
+            }
+            final int ties = j - i + 1;
+            tieCorrection += (double) ties * ties * ties - ties;
+            i = j + 1;
+        }
+
+        final double u = rankSumX - m * (m + 1) / 2.0;
+        final double mn = (double) m * n;
+        final double effectSize = (2.0 * u / mn) - 1.0;
+
+        final double pValue;
+        final boolean exact = tieCorrection == 0 && m <= EXACT_MAX_SAMPLE_SIZE && n <= EXACT_MAX_SAMPLE_SIZE;
+        if (exact) {
+            pValue = exactPValue(m, n, (int) u);
+        } else {
+            final double mean = mn / 2.0;
+            final double variance = (mn / 12.0) * ((total + 1) - tieCorrection / ((double) total * (total - 1)));
+            if (variance <= 0) {
+                // every value is the same
+                pValue = 1.0;
+            } else {
+                // continuity correction
+                final double z = (Math.abs(u - mean) - 0.5) / Math.sqrt(variance);
+                pValue = Math.min(1.0, 2.0 * upperTailProbability(Math.max(0, z)));
+            }
+        }
+
+        return new Result(u, pValue, effectSize, exact);
+    }
+
+    /**
+     * The two-sided p-value of U from the exact distribution of U
+     * under the null hypothesis, for samples without ties.
+     */
+    static double exactPValue(final int m, final int n, final int u) {
+        final double[] frequencies = uFrequencies(m, n);
+        double total = 0;
+        double lower = 0;
+        double upper = 0;
+        for (int k = 0; k < frequencies.length; k++) {
+            total += frequencies[k];
+            if (k <= u) {
+                lower += frequencies[k];
+            }
+            if (k >= u) {
+                upper += frequencies[k];
+            }
+        }
+        return Math.min(1.0, 2.0 * Math.min(lower, upper) / total);
+    }
+
+    /**
+     * The number of arrangements of two samples of size m and n giving each value of U,
+     * from the recurrence f(m, n, u) = f(m - 1, n, u - n) + f(m, n - 1, u).
+     */
+    static double[] uFrequencies(final int m, final int n) {
+        // f[i][j] is the frequency distribution for sample sizes i and j
+        final double[][][] f = new double[m + 1][n + 1][];
+        for (int i = 0; i <= m; i++) {
+            for (int j = 0; j <= n; j++) {
+                final double[] fij = new double[i * j + 1];
+                if (i == 0 || j == 0) {
+                    fij[0] = 1;
+                } else {
+                    final double[] fPrevI = f[i - 1][j];
+                    final double[] fPrevJ = f[i][j - 1];
+                    for (int u = 0; u < fij.length; u++) {
+                        double count = 0;
+                        if (u - j >= 0 && u - j < fPrevI.length) {
+                            count += fPrevI[u - j];
+                        }
+                        if (u < fPrevJ.length) {
+                            count += fPrevJ[u];
+                        }
+                        fij[u] = count;
+                    }
+                }
+                f[i][j] = fij;
+            }
+        }
+        return f[m][n];
+    }
+
+    /**
+     * P(Z &gt; z) for the standard normal distribution.
+     */
+    static double upperTailProbability(final double z) {
+        return 0.5 * erfc(z / Math.sqrt(2.0));
+    }
+
+    /**
+     * The complementary error function, with a fractional error of less than 1.2e-7.
+     *
+     * See Numerical Recipes in C, 2nd Edition, section 6.2.
+     */
+    static double erfc(final double x) {
+        final double z = Math.abs(x);
+        final double t = 1.0 / (1.0 + 0.5 * z);
+        final double ans = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? ans : 2.0 - ans;
+    }
+}
@@ -0,0 +1,56 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.changepoint;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Identifies a time series of benchmark results.
+ */
+@Immutable
+public final class SeriesKey {
+    private final String ref;
+    private final String benchmark;
+    private final String metric;
+
+    public SeriesKey(final String ref, final String benchmark, final String metric) {
+        this.ref = ref;
+        this.benchmark = benchmark;
+        this.metric = metric;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final SeriesKey seriesKey = (SeriesKey) o;
+
+        if (!ref.equals(seriesKey.ref)) return false;
+        if (!benchmark.equals(seriesKey.benchmark)) return false;
+        return metric.equals(seriesKey.metric);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = ref.hashCode();
+        result = 31 * result + benchmark.hashCode();
+        result = 31 * result + metric.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return ref + '/' + benchmark + '/' + metric;
+    }
+}
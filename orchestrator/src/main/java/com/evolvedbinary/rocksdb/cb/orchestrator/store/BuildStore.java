@@ -0,0 +1,202 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.store;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BackfillRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+
+import javax.annotation.Nullable;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Durable storage for the state of the Orchestrator,
+ * i.e. the builds which are in progress, the backlog
+ * of build requests waiting for a build of the same ref to finish,
+ * the stages of the build requests which were expanded into workflows,
+ * the commits which were skipped whilst the Runners were overloaded,
+ * the progress of any backfill campaigns, and when each
+ * benchmark schedule last requested a build.
+ *
+ * Every change of {@link BuildState} is also recorded
+ * as a transition, so that the history of each build
+ * is retained after it has completed.
+ */
+public interface BuildStore extends AutoCloseable {
+
+    /**
+     * Record that a build has entered a state.
+     *
+     * @param buildRequest the build request
+     * @param fromState the previous state of the build, or null if this is a new build
+     * @param toState the new state of the build
+     *
+     * @throws BuildStoreException if the state cannot be stored
+     */
+    void putBuild(final BuildRequest buildRequest, @Nullable final BuildState fromState, final BuildState toState) throws BuildStoreException;
+
+    /**
+     * Record that a build has finished, and is
+     * therefore no longer in progress.
+     *
+     * @param buildRequest the build request
+     * @param fromState the previous state of the build
+     * @param finalState the final state of the build
+     *
+     * @throws BuildStoreException if the state cannot be stored
+     */
+    void removeBuild(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) throws BuildStoreException;
+
+    /**
+     * Store the backlogged build request for a ref,
+     * replacing any existing backlogged build request for the same ref.
+     *
+     * @param buildRequest the build request
+     *
+     * @throws BuildStoreException if the build request cannot be stored
+     */
+    void putBacklog(final BuildRequest buildRequest) throws BuildStoreException;
+
+    /**
+     * Remove the backlogged build request for a ref.
+     *
+     * @param ref the ref
+     *
+     * @throws BuildStoreException if the build request cannot be removed
+     */
+    void removeBacklog(final String ref) throws BuildStoreException;
+
+    /**
+     * Read back the builds which are in progress, and the backlog.
+     *
+     * @param buildConsumer receives each build in progress and its current state
+     * @param backlogConsumer receives each backlogged build request
+     *
+     * @throws BuildStoreException if the state cannot be read
+     */
+    void recover(final BiConsumer<BuildRequest, BuildState> buildConsumer, final Consumer<BuildRequest> backlogConsumer) throws BuildStoreException;
+
+    /**
+     * Store the stages of a build request which was expanded into a workflow,
+     * and the progress of each stage, replacing any existing progress of the same workflow.
+     *
+     * @param buildRequest the build request which was expanded
+     * @param stageBuildRequests the build requests of the stages
+     * @param stageResponses the latest response of each stage which has responded
+     *
+     * @throws BuildStoreException if the workflow cannot be stored
+     */
+    void putWorkflow(final BuildRequest buildRequest, final List<BuildRequest> stageBuildRequests, final List<BuildResponse> stageResponses) throws BuildStoreException;
+
+    /**
+     * Remove a workflow.
+     *
+     * @param buildRequestId the id of the build request which was expanded
+     *
+     * @throws BuildStoreException if the workflow cannot be removed
+     */
+    void removeWorkflow(final UUID buildRequestId) throws BuildStoreException;
+
+    /**
+     * Read back the workflows which have not finished.
+     *
+     * @param workflowConsumer receives each workflow and the progress of its stages
+     *
+     * @throws BuildStoreException if the workflows cannot be read
+     */
+    void recoverWorkflows(final WorkflowConsumer workflowConsumer) throws BuildStoreException;
+
+    /**
+     * Store the build request for a commit which was skipped
+     * whilst the Runners were overloaded.
+     *
+     * @param buildRequest the build request
+     *
+     * @throws BuildStoreException if the build request cannot be stored
+     */
+    void putSkipped(final BuildRequest buildRequest) throws BuildStoreException;
+
+    /**
+     * Remove the build request for a skipped commit.
+     *
+     * @param buildRequestId the id of the build request
+     *
+     * @throws BuildStoreException if the build request cannot be removed
+     */
+    void removeSkipped(final UUID buildRequestId) throws BuildStoreException;
+
+    /**
+     * Read back the build requests for the skipped commits, in no particular order.
+     *
+     * @param skippedConsumer receives each build request
+     *
+     * @throws BuildStoreException if the build requests cannot be read
+     */
+    void recoverSkipped(final Consumer<BuildRequest> skippedConsumer) throws BuildStoreException;
+
+    /**
+     * Store a backfill campaign and its progress,
+     * replacing any existing progress of the same campaign.
+     *
+     * @param backfillRequest the backfill request
+     * @param commits the commits of the campaign, in the order that they are dispatched
+     * @param dispatched the number of commits that have been dispatched
+     *
+     * @throws BuildStoreException if the campaign cannot be stored
+     */
+    void putBackfill(final BackfillRequest backfillRequest, final List<String> commits, final int dispatched) throws BuildStoreException;
+
+    /**
+     * Remove a backfill campaign.
+     *
+     * @param backfillRequestId the id of the backfill request
+     *
+     * @throws BuildStoreException if the campaign cannot be removed
+     */
+    void removeBackfill(final UUID backfillRequestId) throws BuildStoreException;
+
+    /**
+     * Read back the backfill campaigns which have not finished.
+     *
+     * @param backfillConsumer receives each backfill campaign and its progress
+     *
+     * @throws BuildStoreException if the campaigns cannot be read
+     */
+    void recoverBackfills(final BackfillConsumer backfillConsumer) throws BuildStoreException;
+
+    /**
+     * Record the time that a benchmark schedule last requested a build,
+     * replacing any earlier time.
+     *
+     * @param scheduleName the name of the schedule
+     * @param firedTime the time that the schedule requested a build
+     *
+     * @throws BuildStoreException if the time cannot be stored
+     */
+    void putSchedule(final String scheduleName, final ZonedDateTime firedTime) throws BuildStoreException;
+
+    /**
+     * Read back the times that the benchmark schedules last requested a build.
+     *
+     * @param scheduleConsumer receives the name of each schedule and the time that it last requested a build
+     *
+     * @throws BuildStoreException if the times cannot be read
+     */
+    void recoverSchedules(final BiConsumer<String, ZonedDateTime> scheduleConsumer) throws BuildStoreException;
+
+    @Override
+    void close();
+
+    @FunctionalInterface
+    interface BackfillConsumer {
+        void accept(final BackfillRequest backfillRequest, final List<String> commits, final int dispatched);
+    }
+
+    @FunctionalInterface
+    interface WorkflowConsumer {
+        void accept(final BuildRequest buildRequest, final List<BuildRequest> stageBuildRequests, final List<BuildResponse> stageResponses);
+    }
+}
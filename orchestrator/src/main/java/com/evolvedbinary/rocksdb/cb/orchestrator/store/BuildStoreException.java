@@ -0,0 +1,11 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.store;
+
+public class BuildStoreException extends Exception {
+    public BuildStoreException(final String message) {
+        super(message);
+    }
+
+    public BuildStoreException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,89 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.store;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BackfillRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+
+import javax.annotation.Nullable;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A Build Store which does not store anything,
+ * used when the Orchestrator is not configured
+ * with a data directory.
+ */
+public class NoOpBuildStore implements BuildStore {
+
+    @Override
+    public void putBuild(final BuildRequest buildRequest, @Nullable final BuildState fromState, final BuildState toState) {
+    }
+
+    @Override
+    public void removeBuild(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) {
+    }
+
+    @Override
+    public void putBacklog(final BuildRequest buildRequest) {
+    }
+
+    @Override
+    public void removeBacklog(final String ref) {
+    }
+
+    @Override
+    public void recover(final BiConsumer<BuildRequest, BuildState> buildConsumer, final Consumer<BuildRequest> backlogConsumer) {
+    }
+
+    @Override
+    public void putWorkflow(final BuildRequest buildRequest, final List<BuildRequest> stageBuildRequests, final List<BuildResponse> stageResponses) {
+    }
+
+    @Override
+    public void removeWorkflow(final UUID buildRequestId) {
+    }
+
+    @Override
+    public void recoverWorkflows(final WorkflowConsumer workflowConsumer) {
+    }
+
+    @Override
+    public void putSkipped(final BuildRequest buildRequest) {
+    }
+
+    @Override
+    public void removeSkipped(final UUID buildRequestId) {
+    }
+
+    @Override
+    public void recoverSkipped(final Consumer<BuildRequest> skippedConsumer) {
+    }
+
+    @Override
+    public void putBackfill(final BackfillRequest backfillRequest, final List<String> commits, final int dispatched) {
+    }
+
+    @Override
+    public void removeBackfill(final UUID backfillRequestId) {
+    }
+
+    @Override
+    public void recoverBackfills(final BackfillConsumer backfillConsumer) {
+    }
+
+    @Override
+    public void putSchedule(final String scheduleName, final ZonedDateTime firedTime) {
+    }
+
+    @Override
+    public void recoverSchedules(final BiConsumer<String, ZonedDateTime> scheduleConsumer) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
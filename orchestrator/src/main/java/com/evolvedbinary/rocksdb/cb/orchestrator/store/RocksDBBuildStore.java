@@ -0,0 +1,455 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.store;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BackfillRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import org.rocksdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A Build Store backed by an embedded RocksDB database.
+ *
+ * The database has seven Column Families:
+ * <ul>
+ *     <li>{@code builds} - the builds in progress, keyed by ref and build id</li>
+ *     <li>{@code backlog} - the backlogged build requests, keyed by ref</li>
+ *     <li>{@code transitions} - an append only record of every state transition, keyed by sequence number</li>
+ *     <li>{@code backfills} - the backfill campaigns which have not finished, keyed by backfill request id</li>
+ *     <li>{@code schedules} - the time that each benchmark schedule last requested a build, keyed by schedule name</li>
+ *     <li>{@code workflows} - the stages of the build requests which were expanded into workflows, keyed by build request id</li>
+ *     <li>{@code skipped} - the build requests for the commits which were skipped whilst the Runners were overloaded, keyed by build request id</li>
+ * </ul>
+ *
+ * Each state change writes the build and its transition record in a single
+ * atomic {@link WriteBatch} through the RocksDB write-ahead-log. Concurrent
+ * writers are grouped into a single WAL write by RocksDB itself.
+ *
+ * Recovery only scans the {@code builds}, {@code backlog}, {@code backfills}, {@code schedules}, {@code workflows}, and {@code skipped} Column Families,
+ * so its cost depends on the number of builds in progress and not
+ * on the number of historical builds.
+ */
+public class RocksDBBuildStore implements BuildStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBBuildStore.class);
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    static final byte[] BUILDS_CF_NAME = "builds".getBytes(UTF_8);
+    static final byte[] BACKLOG_CF_NAME = "backlog".getBytes(UTF_8);
+    static final byte[] TRANSITIONS_CF_NAME = "transitions".getBytes(UTF_8);
+    static final byte[] BACKFILLS_CF_NAME = "backfills".getBytes(UTF_8);
+    static final byte[] SCHEDULES_CF_NAME = "schedules".getBytes(UTF_8);
+    static final byte[] WORKFLOWS_CF_NAME = "workflows".getBytes(UTF_8);
+    static final byte[] SKIPPED_CF_NAME = "skipped".getBytes(UTF_8);
+
+    private static final char FIELD_SEPARATOR = '\n';
+    private static final char COMMIT_SEPARATOR = ' ';
+
+    private final DBOptions dbOptions;
+    private final ColumnFamilyOptions columnFamilyOptions;
+    private final WriteOptions writeOptions;
+    private final RocksDB db;
+    private final List<ColumnFamilyHandle> columnFamilyHandles;
+    private final ColumnFamilyHandle buildsCf;
+    private final ColumnFamilyHandle backlogCf;
+    private final ColumnFamilyHandle transitionsCf;
+    private final ColumnFamilyHandle backfillsCf;
+    private final ColumnFamilyHandle schedulesCf;
+    private final ColumnFamilyHandle workflowsCf;
+    private final ColumnFamilyHandle skippedCf;
+    private final AtomicLong transitionSequence;
+
+    private RocksDBBuildStore(final DBOptions dbOptions, final ColumnFamilyOptions columnFamilyOptions, final WriteOptions writeOptions, final RocksDB db, final List<ColumnFamilyHandle> columnFamilyHandles, final long lastTransitionSequence) {
+        this.dbOptions = dbOptions;
+        this.columnFamilyOptions = columnFamilyOptions;
+        this.writeOptions = writeOptions;
+        this.db = db;
+        this.columnFamilyHandles = columnFamilyHandles;
+        this.buildsCf = columnFamilyHandles.get(1);
+        this.backlogCf = columnFamilyHandles.get(2);
+        this.transitionsCf = columnFamilyHandles.get(3);
+        this.backfillsCf = columnFamilyHandles.get(4);
+        this.schedulesCf = columnFamilyHandles.get(5);
+        this.workflowsCf = columnFamilyHandles.get(6);
+        this.skippedCf = columnFamilyHandles.get(7);
+        this.transitionSequence = new AtomicLong(lastTransitionSequence);
+    }
+
+    /**
+     * Open (or create) a Build Store.
+     *
+     * @param dir the directory for the database
+     *
+     * @return the build store
+     *
+     * @throws BuildStoreException if the database cannot be opened
+     */
+    public static RocksDBBuildStore open(final Path dir) throws BuildStoreException {
+        try {
+            Files.createDirectories(dir);
+        } catch (final IOException e) {
+            throw new BuildStoreException("Unable to create directory for Build Store: " + dir + ". " + e.getMessage(), e);
+        }
+
+        final DBOptions dbOptions = new DBOptions()
+                .setCreateIfMissing(true)
+                .setCreateMissingColumnFamilies(true);
+        final ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions();
+
+        // the WAL is written for every batch, but not fsync'd, so a crash of the process loses nothing
+        final WriteOptions writeOptions = new WriteOptions()
+                .setSync(false)
+                .setDisableWAL(false);
+
+        final List<ColumnFamilyDescriptor> columnFamilyDescriptors = Arrays.asList(
+                new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions),
+                new ColumnFamilyDescriptor(BUILDS_CF_NAME, columnFamilyOptions),
+                new ColumnFamilyDescriptor(BACKLOG_CF_NAME, columnFamilyOptions),
+                new ColumnFamilyDescriptor(TRANSITIONS_CF_NAME, columnFamilyOptions),
+                new ColumnFamilyDescriptor(BACKFILLS_CF_NAME, columnFamilyOptions),
+                new ColumnFamilyDescriptor(SCHEDULES_CF_NAME, columnFamilyOptions),
+                new ColumnFamilyDescriptor(WORKFLOWS_CF_NAME, columnFamilyOptions),
+                new ColumnFamilyDescriptor(SKIPPED_CF_NAME, columnFamilyOptions)
+        );
+        final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(columnFamilyDescriptors.size());
+
+        try {
+            final RocksDB db = RocksDB.open(dbOptions, dir.toAbsolutePath().toString(), columnFamilyDescriptors, columnFamilyHandles);
+
+            // find the last transition sequence number
+            long lastTransitionSequence = 0;
+            try (final RocksIterator iterator = db.newIterator(columnFamilyHandles.get(3))) {
+                iterator.seekToLast();
+                if (iterator.isValid()) {
+                    lastTransitionSequence = ByteBuffer.wrap(iterator.key()).getLong();
+                }
+            }
+
+            LOGGER.info("Opened Build Store: {}", dir);
+            return new RocksDBBuildStore(dbOptions, columnFamilyOptions, writeOptions, db, columnFamilyHandles, lastTransitionSequence);
+
+        } catch (final RocksDBException e) {
+            for (final ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
+                columnFamilyHandle.close();
+            }
+            writeOptions.close();
+            columnFamilyOptions.close();
+            dbOptions.close();
+            throw new BuildStoreException("Unable to open Build Store: " + dir + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putBuild(final BuildRequest buildRequest, @Nullable final BuildState fromState, final BuildState toState) throws BuildStoreException {
+        try (final WriteBatch writeBatch = new WriteBatch()) {
+            writeBatch.put(buildsCf, buildKey(buildRequest), buildValue(buildRequest, toState));
+            writeBatch.put(transitionsCf, nextTransitionKey(), transitionValue(buildRequest, fromState, toState));
+            db.write(writeOptions, writeBatch);
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to store Build State for ref: " + buildRequest.getRef() + " id: " + buildRequest.getId() + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void removeBuild(final BuildRequest buildRequest, final BuildState fromState, final BuildState finalState) throws BuildStoreException {
+        try (final WriteBatch writeBatch = new WriteBatch()) {
+            writeBatch.delete(buildsCf, buildKey(buildRequest));
+            writeBatch.put(transitionsCf, nextTransitionKey(), transitionValue(buildRequest, fromState, finalState));
+            db.write(writeOptions, writeBatch);
+        } catch (final RocksDBException e) {
+            throw new BuildStoreException("Unable to remove Build State for ref: " + buildRequest.getRef() + " id: " + buildRequest.getId() + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putBacklog(final BuildRequest buildRequest) throws BuildStoreException {
+        try {
+            db.put(backlogCf, writeOptions, buildRequest.getRef().getBytes(UTF_8), buildRequest.serialize().getBytes(UTF_8));
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to store backlog for ref: " + buildRequest.getRef() + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void removeBacklog(final String ref) throws BuildStoreException {
+        try {
+            db.delete(backlogCf, writeOptions, ref.getBytes(UTF_8));
+        } catch (final RocksDBException e) {
+            throw new BuildStoreException("Unable to remove backlog for ref: " + ref + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recover(final BiConsumer<BuildRequest, BuildState> buildConsumer, final Consumer<BuildRequest> backlogConsumer) throws BuildStoreException {
+        try (final RocksIterator iterator = db.newIterator(buildsCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final String value = new String(iterator.value(), UTF_8);
+                final int idxSeparator = value.indexOf(FIELD_SEPARATOR);
+                final BuildState buildState = BuildState.valueOf(value.substring(0, idxSeparator));
+                final BuildRequest buildRequest = new BuildRequest().deserialize(value.substring(idxSeparator + 1));
+                buildConsumer.accept(buildRequest, buildState);
+            }
+            iterator.status();
+        } catch (final IOException | IllegalArgumentException | RocksDBException e) {
+            throw new BuildStoreException("Unable to recover builds: " + e.getMessage(), e);
+        }
+
+        try (final RocksIterator iterator = db.newIterator(backlogCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final BuildRequest buildRequest = new BuildRequest().deserialize(new String(iterator.value(), UTF_8));
+                backlogConsumer.accept(buildRequest);
+            }
+            iterator.status();
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to recover backlog: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putWorkflow(final BuildRequest buildRequest, final List<BuildRequest> stageBuildRequests, final List<BuildResponse> stageResponses) throws BuildStoreException {
+        try {
+            db.put(workflowsCf, writeOptions, idKey(buildRequest.getId()), workflowValue(buildRequest, stageBuildRequests, stageResponses));
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to store workflow for ref: " + buildRequest.getRef() + " id: " + buildRequest.getId() + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void removeWorkflow(final UUID buildRequestId) throws BuildStoreException {
+        try {
+            db.delete(workflowsCf, writeOptions, idKey(buildRequestId));
+        } catch (final RocksDBException e) {
+            throw new BuildStoreException("Unable to remove workflow id: " + buildRequestId + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recoverWorkflows(final WorkflowConsumer workflowConsumer) throws BuildStoreException {
+        try (final RocksIterator iterator = db.newIterator(workflowsCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final String[] lines = new String(iterator.value(), UTF_8).split(String.valueOf(FIELD_SEPARATOR));
+                final BuildRequest buildRequest = new BuildRequest().deserialize(lines[0]);
+                final int stages = Integer.parseInt(lines[1]);
+                final List<BuildRequest> stageBuildRequests = new ArrayList<>(stages);
+                for (int i = 0; i < stages; i++) {
+                    stageBuildRequests.add(new BuildRequest().deserialize(lines[2 + i]));
+                }
+                final List<BuildResponse> stageResponses = new ArrayList<>(lines.length - 2 - stages);
+                for (int i = 2 + stages; i < lines.length; i++) {
+                    stageResponses.add(new BuildResponse().deserialize(lines[i]));
+                }
+                workflowConsumer.accept(buildRequest, stageBuildRequests, stageResponses);
+            }
+            iterator.status();
+        } catch (final IOException | IllegalArgumentException | IndexOutOfBoundsException | RocksDBException e) {
+            throw new BuildStoreException("Unable to recover workflows: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putSkipped(final BuildRequest buildRequest) throws BuildStoreException {
+        try {
+            db.put(skippedCf, writeOptions, idKey(buildRequest.getId()), buildRequest.serialize().getBytes(UTF_8));
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to store skipped commit: " + buildRequest.getCommit() + " for ref: " + buildRequest.getRef() + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void removeSkipped(final UUID buildRequestId) throws BuildStoreException {
+        try {
+            db.delete(skippedCf, writeOptions, idKey(buildRequestId));
+        } catch (final RocksDBException e) {
+            throw new BuildStoreException("Unable to remove skipped commit id: " + buildRequestId + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recoverSkipped(final Consumer<BuildRequest> skippedConsumer) throws BuildStoreException {
+        try (final RocksIterator iterator = db.newIterator(skippedCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final BuildRequest buildRequest = new BuildRequest().deserialize(new String(iterator.value(), UTF_8));
+                skippedConsumer.accept(buildRequest);
+            }
+            iterator.status();
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to recover skipped commits: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putBackfill(final BackfillRequest backfillRequest, final List<String> commits, final int dispatched) throws BuildStoreException {
+        try {
+            db.put(backfillsCf, writeOptions, idKey(backfillRequest.getId()), backfillValue(backfillRequest, commits, dispatched));
+        } catch (final IOException | RocksDBException e) {
+            throw new BuildStoreException("Unable to store backfill id: " + backfillRequest.getId() + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void removeBackfill(final UUID backfillRequestId) throws BuildStoreException {
+        try {
+            db.delete(backfillsCf, writeOptions, idKey(backfillRequestId));
+        } catch (final RocksDBException e) {
+            throw new BuildStoreException("Unable to remove backfill id: " + backfillRequestId + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recoverBackfills(final BackfillConsumer backfillConsumer) throws BuildStoreException {
+        try (final RocksIterator iterator = db.newIterator(backfillsCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final String value = new String(iterator.value(), UTF_8);
+                final int idxSeparator1 = value.indexOf(FIELD_SEPARATOR);
+                final int idxSeparator2 = value.indexOf(FIELD_SEPARATOR, idxSeparator1 + 1);
+                final int dispatched = Integer.parseInt(value.substring(0, idxSeparator1));
+                final String strCommits = value.substring(idxSeparator1 + 1, idxSeparator2);
+                final List<String> commits = strCommits.isEmpty() ? new ArrayList<>() : Arrays.asList(strCommits.split(String.valueOf(COMMIT_SEPARATOR)));
+                final BackfillRequest backfillRequest = new BackfillRequest().deserialize(value.substring(idxSeparator2 + 1));
+                backfillConsumer.accept(backfillRequest, commits, dispatched);
+            }
+            iterator.status();
+        } catch (final IOException | IllegalArgumentException | IndexOutOfBoundsException | RocksDBException e) {
+            throw new BuildStoreException("Unable to recover backfills: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putSchedule(final String scheduleName, final ZonedDateTime firedTime) throws BuildStoreException {
+        try {
+            db.put(schedulesCf, writeOptions, scheduleName.getBytes(UTF_8), firedTime.format(DateTimeFormatter.ISO_ZONED_DATE_TIME).getBytes(UTF_8));
+        } catch (final RocksDBException e) {
+            throw new BuildStoreException("Unable to store schedule: " + scheduleName + ". " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recoverSchedules(final BiConsumer<String, ZonedDateTime> scheduleConsumer) throws BuildStoreException {
+        try (final RocksIterator iterator = db.newIterator(schedulesCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                final String scheduleName = new String(iterator.key(), UTF_8);
+                final ZonedDateTime firedTime = ZonedDateTime.parse(new String(iterator.value(), UTF_8), DateTimeFormatter.ISO_ZONED_DATE_TIME);
+                scheduleConsumer.accept(scheduleName, firedTime);
+            }
+            iterator.status();
+        } catch (final DateTimeParseException | RocksDBException e) {
+            throw new BuildStoreException("Unable to recover schedules: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the number of state transitions that have been recorded.
+     *
+     * @return the number of transitions
+     */
+    public long getTransitionCount() {
+        return transitionSequence.get();
+    }
+
+    @Override
+    public void close() {
+        // flush the memtables, so that a clean restart does not have to replay the WAL
+        try (final FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+            db.flush(flushOptions, columnFamilyHandles);
+        } catch (final RocksDBException e) {
+            LOGGER.warn("Unable to flush Build Store on close, the WAL will be replayed on next open: {}", e.getMessage(), e);
+        }
+
+        for (final ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
+            columnFamilyHandle.close();
+        }
+        db.close();
+        writeOptions.close();
+        columnFamilyOptions.close();
+        dbOptions.close();
+    }
+
+    /**
+     * Key of a build in the builds Column Family,
+     * the UTF-8 encoded ref, a zero byte, and then the 16 byte build id.
+     */
+    static byte[] buildKey(final BuildRequest buildRequest) {
+        final byte[] ref = buildRequest.getRef().getBytes(UTF_8);
+        final UUID id = buildRequest.getId();
+        return ByteBuffer.allocate(ref.length + 1 + 16)
+                .put(ref)
+                .put((byte) 0)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] buildValue(final BuildRequest buildRequest, final BuildState buildState) throws IOException {
+        return (buildState.name() + FIELD_SEPARATOR + buildRequest.serialize()).getBytes(UTF_8);
+    }
+
+    /**
+     * Key of a backfill campaign in the backfills Column Family, of a workflow
+     * in the workflows Column Family, or of a skipped commit in the skipped
+     * Column Family, the 16 byte id of its request.
+     */
+    private static byte[] idKey(final UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] backfillValue(final BackfillRequest backfillRequest, final List<String> commits, final int dispatched) throws IOException {
+        return (dispatched + String.valueOf(FIELD_SEPARATOR)
+                + String.join(String.valueOf(COMMIT_SEPARATOR), commits) + FIELD_SEPARATOR
+                + backfillRequest.serialize()).getBytes(UTF_8);
+    }
+
+    /**
+     * Value of a workflow in the workflows Column Family, the build request,
+     * the number of stages, the build request of each stage, and then the
+     * latest response of each stage which has responded, one per line.
+     */
+    private static byte[] workflowValue(final BuildRequest buildRequest, final List<BuildRequest> stageBuildRequests, final List<BuildResponse> stageResponses) throws IOException {
+        final StringBuilder builder = new StringBuilder()
+                .append(buildRequest.serialize()).append(FIELD_SEPARATOR)
+                .append(stageBuildRequests.size());
+        for (final BuildRequest stageBuildRequest : stageBuildRequests) {
+            builder.append(FIELD_SEPARATOR).append(stageBuildRequest.serialize());
+        }
+        for (final BuildResponse stageResponse : stageResponses) {
+            builder.append(FIELD_SEPARATOR).append(stageResponse.serialize());
+        }
+        return builder.toString().getBytes(UTF_8);
+    }
+
+    private byte[] nextTransitionKey() {
+        return ByteBuffer.allocate(8).putLong(transitionSequence.incrementAndGet()).array();
+    }
+
+    private static byte[] transitionValue(final BuildRequest buildRequest, @Nullable final BuildState fromState, final BuildState toState) {
+        return (ZonedDateTime.now().format(DateTimeFormatter.ISO_ZONED_DATE_TIME) + FIELD_SEPARATOR
+                + buildRequest.getRef() + FIELD_SEPARATOR
+                + buildRequest.getId() + FIELD_SEPARATOR
+                + (fromState == null ? "" : fromState.name()) + FIELD_SEPARATOR
+                + toState.name()).getBytes(UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BackfillRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackfillCampaignTest {
+
+    private static final BackfillRequest BACKFILL_REQUEST = new BackfillRequest("repo", "refs/heads/main", "c1", "c3", "author");
+    private static final List<String> COMMITS = Arrays.asList("c1", "c2", "c3");
+
+    @Test
+    public void dispatchesCommitsInOrder() {
+        final BackfillCampaign campaign = new BackfillCampaign(BACKFILL_REQUEST, COMMITS, 0);
+        for (final String commit : COMMITS) {
+            assertFalse(campaign.isFinished());
+            assertEquals(commit, campaign.nextCommit());
+            campaign.dispatched();
+        }
+
+        assertTrue(campaign.isFinished());
+        assertEquals(0, campaign.getRemaining());
+        assertNull(campaign.nextCommit());
+        assertThrows(IllegalStateException.class, campaign::dispatched);
+    }
+
+    @Test
+    public void resumesFromProgress() {
+        final BackfillCampaign campaign = new BackfillCampaign(BACKFILL_REQUEST, COMMITS, 2);
+        assertEquals(1, campaign.getRemaining());
+        assertEquals("c3", campaign.nextCommit());
+
+        assertThrows(IllegalArgumentException.class, () -> new BackfillCampaign(BACKFILL_REQUEST, COMMITS, 4));
+    }
+}
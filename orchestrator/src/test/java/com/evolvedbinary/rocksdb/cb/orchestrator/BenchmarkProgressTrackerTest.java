@@ -0,0 +1,80 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BenchmarkProgress;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkProgressTrackerTest {
+
+    private static final String REF = "refs/heads/main";
+    private static final String RUNNER = "runner-1";
+    private static final String WORKLOAD = "readwhilewriting";
+
+    @Test
+    public void detectsStall() {
+        final BenchmarkProgressTracker tracker = new BenchmarkProgressTracker(0.5, 10);
+        final UUID buildRequestId = UUID.randomUUID();
+
+        assertFalse(tracker.progress(progress(buildRequestId, 0, 10, 1000)));
+        assertFalse(tracker.progress(progress(buildRequestId, 0, 20, 600)));
+        assertTrue(tracker.progress(progress(buildRequestId, 0, 30, 400)));
+
+        // each thread has its own curve
+        assertFalse(tracker.progress(progress(buildRequestId, 1, 10, 400)));
+
+        // recovers
+        assertFalse(tracker.progress(progress(buildRequestId, 0, 40, 900)));
+
+        assertEquals(1, tracker.getStalls());
+    }
+
+    @Test
+    public void removesBuild() {
+        final BenchmarkProgressTracker tracker = new BenchmarkProgressTracker(0.5, 10);
+        final UUID buildRequestId1 = UUID.randomUUID();
+        final UUID buildRequestId2 = UUID.randomUUID();
+
+        tracker.progress(progress(buildRequestId1, 0, 10, 1000));
+        tracker.progress(progress(buildRequestId2, 0, 10, 1000));
+        assertEquals(2, tracker.buildCount());
+
+        tracker.remove(buildRequestId1);
+        assertEquals(1, tracker.buildCount());
+    }
+
+    @Test
+    public void writesBoundedCurve() throws IOException {
+        final BenchmarkProgressTracker tracker = new BenchmarkProgressTracker(0.5, 2);
+        final UUID buildRequestId = UUID.randomUUID();
+
+        tracker.progress(progress(buildRequestId, 0, 10, 1000));
+        tracker.progress(progress(buildRequestId, 0, 20, 800));
+        tracker.progress(progress(buildRequestId, 0, 30, 100));
+
+        final StringWriter writer = new StringWriter();
+        try (final JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            tracker.write(generator);
+            generator.writeEndObject();
+        }
+
+        assertEquals("{\"progress\":{\"stalls\":1,\"builds\":{\"" + buildRequestId + "\":{\"" + WORKLOAD + "/0\":[[20.0,800.0],[30.0,100.0]]}}}}", writer.toString());
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkProgressTracker(1.5, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkProgressTracker(0.5, 0));
+    }
+
+    private static BenchmarkProgress progress(final UUID buildRequestId, final int thread, final double elapsedSeconds, final double intervalOpsPerSec) {
+        return new BenchmarkProgress(buildRequestId, REF, RUNNER, WORKLOAD, thread, elapsedSeconds, (long) (intervalOpsPerSec * 10), (long) (intervalOpsPerSec * elapsedSeconds), intervalOpsPerSec, intervalOpsPerSec);
+    }
+}
@@ -0,0 +1,161 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BisectRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BisectResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BisectState;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BisectJobTest {
+
+    private static final long GOOD_TIME = 1000;
+    private static final long BAD_TIME = 1200;
+
+    @Test
+    public void findsFirstBadCommit() {
+        final List<String> range = commits(1, 100);
+        for (final int firstBad : new int[] { 1, 2, 37, 50, 99, 100 }) {
+            final BisectJob bisectJob = new BisectJob(request("c0", "c100", 0.1, 1), range);
+            final int builds = run(bisectJob, firstBad);
+
+            final BisectResponse response = bisectJob.getResponse();
+            assertNotNull(response);
+            assertEquals(BisectState.COMPLETE, response.getBisectState());
+            assertEquals("c" + firstBad, response.getFirstBadCommit());
+            assertEquals("c" + (firstBad - 1), response.getLastGoodCommit());
+            assertEquals(GOOD_TIME, response.getGoodMedian());
+            assertEquals(BAD_TIME, response.getBadMedian());
+
+            // good + bad + ceil(log2(100))
+            assertTrue(builds <= 2 + 7, "Too many builds: " + builds);
+        }
+    }
+
+    @Test
+    public void noRegression() {
+        final BisectJob bisectJob = new BisectJob(request("c0", "c10", 0.1, 1), commits(1, 10));
+        run(bisectJob, Integer.MAX_VALUE);
+
+        final BisectResponse response = bisectJob.getResponse();
+        assertNotNull(response);
+        assertEquals(BisectState.NO_REGRESSION, response.getBisectState());
+        assertNull(response.getFirstBadCommit());
+    }
+
+    @Test
+    public void singleCommitRange() {
+        final BisectJob bisectJob = new BisectJob(request("c0", "c1", 0.1, 1), commits(1, 1));
+        assertEquals(2, run(bisectJob, 1));
+        assertEquals("c1", bisectJob.getResponse().getFirstBadCommit());
+    }
+
+    @Test
+    public void usesMedianOfRepetitions() {
+        final BisectJob bisectJob = new BisectJob(request("c0", "c1", 0.1, 3), commits(1, 1));
+
+        // good commit, with one outlier
+        assertEquals("c0", bisectJob.getCommitUnderTest());
+        assertFalse(sample(bisectJob, 1000));
+        assertFalse(sample(bisectJob, 5000));
+        assertTrue(sample(bisectJob, 1010));
+
+        // bad commit, with one outlier, median 1050 is within the threshold of 1010
+        assertEquals("c1", bisectJob.getCommitUnderTest());
+        assertFalse(sample(bisectJob, 1050));
+        assertFalse(sample(bisectJob, 100));
+        assertTrue(sample(bisectJob, 1060));
+
+        assertTrue(bisectJob.isComplete());
+        assertEquals(BisectState.NO_REGRESSION, bisectJob.getResponse().getBisectState());
+        assertEquals(1010, bisectJob.getResponse().getGoodMedian());
+        assertEquals(1050, bisectJob.getResponse().getBadMedian());
+    }
+
+    @Test
+    public void throughputRegressionIsADecrease() {
+        final BisectRequest bisectRequest = new BisectRequest("facebook/rocksdb", "refs/heads/master", "c0", "c10", "person1", 0.1, 1, "readrandom", BuildStats.METRIC_OPS_PER_SEC);
+        final BisectJob bisectJob = new BisectJob(bisectRequest, commits(1, 10));
+        while (!bisectJob.isComplete()) {
+            final int commit = Integer.parseInt(bisectJob.getCommitUnderTest().substring(1));
+            sample(bisectJob, commit >= 7 ? 250_000.5 : 300_000.5);
+        }
+
+        final BisectResponse response = bisectJob.getResponse();
+        assertEquals(BisectState.COMPLETE, response.getBisectState());
+        assertEquals("c7", response.getFirstBadCommit());
+        assertEquals(300_000.5, response.getGoodMedian());
+        assertEquals(250_000.5, response.getBadMedian());
+
+        // an increase in throughput is not a regression
+        final BisectJob improvedBisectJob = new BisectJob(bisectRequest, commits(1, 1));
+        sample(improvedBisectJob, 300_000);
+        sample(improvedBisectJob, 400_000);
+        assertEquals(BisectState.NO_REGRESSION, improvedBisectJob.getResponse().getBisectState());
+    }
+
+    @Test
+    public void ignoresUnknownBuilds() {
+        final BisectJob bisectJob = new BisectJob(request("c0", "c1", 0.1, 1), commits(1, 1));
+        assertFalse(bisectJob.addSample(UUID.randomUUID(), GOOD_TIME));
+        assertFalse(bisectJob.addFailure(UUID.randomUUID(), "BUILDING_FAILED"));
+        assertFalse(bisectJob.isComplete());
+    }
+
+    @Test
+    public void failure() {
+        final BisectJob bisectJob = new BisectJob(request("c0", "c1", 0.1, 2), commits(1, 1));
+        final UUID build1 = UUID.randomUUID();
+        final UUID build2 = UUID.randomUUID();
+        bisectJob.addPendingBuild(build1);
+        bisectJob.addPendingBuild(build2);
+
+        assertTrue(bisectJob.addFailure(build1, "BUILDING_FAILED"));
+        assertTrue(bisectJob.isComplete());
+        assertEquals(BisectState.FAILED, bisectJob.getResponse().getBisectState());
+
+        // late results are ignored
+        assertFalse(bisectJob.addSample(build2, GOOD_TIME));
+    }
+
+    @Test
+    public void median() {
+        assertEquals(5, BisectJob.median(Arrays.asList(5.0)));
+        assertEquals(5, BisectJob.median(Arrays.asList(9.0, 1.0, 5.0)));
+        assertEquals(4, BisectJob.median(Arrays.asList(9.0, 1.0, 3.0, 5.0)));
+        assertEquals(2.5, BisectJob.median(Arrays.asList(3.0, 2.0)));
+    }
+
+    private static int run(final BisectJob bisectJob, final int firstBad) {
+        int builds = 0;
+        while (!bisectJob.isComplete()) {
+            final int commit = Integer.parseInt(bisectJob.getCommitUnderTest().substring(1));
+            for (int i = 0; i < bisectJob.getBisectRequest().getRepetitions(); i++) {
+                sample(bisectJob, commit >= firstBad ? BAD_TIME : GOOD_TIME);
+            }
+            builds++;
+        }
+        return builds;
+    }
+
+    private static boolean sample(final BisectJob bisectJob, final double value) {
+        final UUID buildRequestId = UUID.randomUUID();
+        bisectJob.addPendingBuild(buildRequestId);
+        return bisectJob.addSample(buildRequestId, value);
+    }
+
+    private static BisectRequest request(final String good, final String bad, final double threshold, final int repetitions) {
+        return new BisectRequest("facebook/rocksdb", "refs/heads/master", good, bad, "person1", threshold, repetitions);
+    }
+
+    private static List<String> commits(final int from, final int to) {
+        final List<String> commits = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            commits.add("c" + i);
+        }
+        return commits;
+    }
+}
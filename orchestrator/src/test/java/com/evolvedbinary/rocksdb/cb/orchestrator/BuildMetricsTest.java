@@ -0,0 +1,98 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildMetricsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void measuresQueueToStartAndStages() {
+        final BuildMetrics buildMetrics = new BuildMetrics(16, 4, clock::get);
+        final BuildRequest buildRequest = new BuildRequest("repo", "refs/heads/main", "abc", "author");
+
+        advance(buildMetrics, buildRequest, 0, BuildState.REQUESTING);
+        advance(buildMetrics, buildRequest, 1, BuildState.REQUESTED);
+        advance(buildMetrics, buildRequest, 10, BuildState.UPDATING_SOURCE);
+        advance(buildMetrics, buildRequest, 20, BuildState.UPDATING_SOURCE_COMPLETE);
+        advance(buildMetrics, buildRequest, 20, BuildState.BUILDING);
+        advance(buildMetrics, buildRequest, 120, BuildState.BUILDING_COMPLETE);
+        advance(buildMetrics, buildRequest, 120, BuildState.BENCHMARKING);
+        clock.set(1120);
+        buildMetrics.buildRemoved(buildRequest, BuildState.BENCHMARKING_COMPLETE);
+
+        assertEquals(10, buildMetrics.getQueueToStart().max);
+        assertEquals(10, buildMetrics.getStage(BuildState.UPDATING_SOURCE).max);
+        assertEquals(100, buildMetrics.getStage(BuildState.BUILDING).max);
+        assertEquals(1000, buildMetrics.getStage(BuildState.BENCHMARKING).max);
+        assertEquals(1120, buildMetrics.getTotal().max);
+
+        final List<BuildMetrics.Completion> completions = buildMetrics.getRecentCompletions();
+        assertEquals(1, completions.size());
+        assertEquals(BuildState.BENCHMARKING_COMPLETE, completions.get(0).finalState);
+        assertEquals(1120, completions.get(0).duration);
+    }
+
+    @Test
+    public void doesNotMeasureFailedStages() {
+        final BuildMetrics buildMetrics = new BuildMetrics(16, 4, clock::get);
+        final BuildRequest buildRequest = new BuildRequest("repo", "refs/heads/main", "abc", "author");
+
+        advance(buildMetrics, buildRequest, 0, BuildState.REQUESTING);
+        advance(buildMetrics, buildRequest, 5, BuildState.UPDATING_SOURCE);
+        clock.set(50);
+        buildMetrics.buildRemoved(buildRequest, BuildState.UPDATING_SOURCE_FAILED);
+
+        assertEquals(1, buildMetrics.getQueueToStart().count);
+        assertEquals(0, buildMetrics.getStage(BuildState.UPDATING_SOURCE).count);
+        assertEquals(-1, buildMetrics.getStage(BuildState.UPDATING_SOURCE).p50);
+        assertEquals(0, buildMetrics.getTotal().count);
+        assertEquals(50, buildMetrics.getRecentCompletions().get(0).duration);
+        assertThrows(IllegalArgumentException.class, () -> buildMetrics.getStage(BuildState.REQUESTED));
+    }
+
+    @Test
+    public void summarisesMostRecentSamples() {
+        final long[] values = new long[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values.length - i;
+        }
+        final BuildMetrics.Summary summary = BuildMetrics.Summary.of(150, values);
+        assertEquals(150, summary.count);
+        assertEquals(50, summary.mean);
+        assertEquals(50, summary.p50);
+        assertEquals(95, summary.p95);
+        assertEquals(99, summary.p99);
+        assertEquals(100, summary.max);
+    }
+
+    @Test
+    public void remembersMostRecentCompletionsFirst() {
+        final BuildMetrics buildMetrics = new BuildMetrics(16, 2, clock::get);
+        final BuildRequest buildRequest1 = new BuildRequest("repo", "refs/heads/main", "c1", "author");
+        final BuildRequest buildRequest2 = new BuildRequest("repo", "refs/heads/main", "c2", "author");
+        final BuildRequest buildRequest3 = new BuildRequest("repo", "refs/heads/main", "c3", "author");
+
+        buildMetrics.buildRemoved(buildRequest1, BuildState.BENCHMARKING_COMPLETE);
+        buildMetrics.buildRemoved(buildRequest2, BuildState.BUILDING_FAILED);
+        buildMetrics.buildRemoved(buildRequest3, BuildState.BENCHMARKING_COMPLETE);
+
+        final List<BuildMetrics.Completion> completions = buildMetrics.getRecentCompletions();
+        assertEquals(2, completions.size());
+        assertSame(buildRequest3, completions.get(0).buildRequest);
+        assertSame(buildRequest2, completions.get(1).buildRequest);
+        assertEquals(-1, completions.get(0).duration);
+    }
+
+    private void advance(final BuildMetrics buildMetrics, final BuildRequest buildRequest, final long time, final BuildState toState) {
+        clock.set(time);
+        buildMetrics.buildStateChanged(buildRequest, toState);
+    }
+}
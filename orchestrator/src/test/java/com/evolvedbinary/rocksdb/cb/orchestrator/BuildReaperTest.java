@@ -0,0 +1,105 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildReaperTest {
+
+    private static final long TICK = 100;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 16, now::get);
+    private final List<BuildState> expired = new ArrayList<>();
+
+    private BuildReaper newBuildReaper() {
+        final Map<BuildState, Long> deadlines = new EnumMap<>(BuildState.class);
+        deadlines.put(BuildState.BUILDING, 1000L);
+        deadlines.put(BuildState.BENCHMARKING, 2000L);
+        return new BuildReaper(deadlines, timerWheel, (buildRequest, buildState) -> expired.add(buildState));
+    }
+
+    @Test
+    public void expiresBuildStuckInState() {
+        final BuildReaper buildReaper = newBuildReaper();
+        final BuildRequest buildRequest = new BuildRequest("repo", "refs/heads/main", "commit1", "author");
+
+        buildReaper.arm(buildRequest, BuildState.BUILDING);
+        assertEquals(1, buildReaper.armedCount());
+
+        now.addAndGet(1000 + TICK);
+        timerWheel.advance();
+        assertEquals(List.of(BuildState.BUILDING), expired);
+        assertEquals(0, buildReaper.armedCount());
+    }
+
+    @Test
+    public void rearmingReplacesDeadline() {
+        final BuildReaper buildReaper = newBuildReaper();
+        final BuildRequest buildRequest = new BuildRequest("repo", "refs/heads/main", "commit1", "author");
+
+        buildReaper.arm(buildRequest, BuildState.BUILDING);
+        now.addAndGet(900);
+        timerWheel.advance();
+        buildReaper.arm(buildRequest, BuildState.BENCHMARKING);
+        assertEquals(1, buildReaper.armedCount());
+
+        // the deadline of the previous state no longer applies
+        now.addAndGet(1000);
+        timerWheel.advance();
+        assertTrue(expired.isEmpty());
+
+        now.addAndGet(1000 + TICK);
+        timerWheel.advance();
+        assertEquals(List.of(BuildState.BENCHMARKING), expired);
+    }
+
+    @Test
+    public void disarmedOrUnlimitedBuildsNeverExpire() {
+        final BuildReaper buildReaper = newBuildReaper();
+        final BuildRequest buildRequest1 = new BuildRequest("repo", "refs/heads/main", "commit1", "author");
+        final BuildRequest buildRequest2 = new BuildRequest("repo", "refs/heads/main", "commit2", "author");
+
+        buildReaper.arm(buildRequest1, BuildState.BUILDING);
+        buildReaper.disarm(buildRequest1.getId());
+
+        // no deadline is configured for the state
+        buildReaper.arm(buildRequest2, BuildState.BUILDING);
+        buildReaper.arm(buildRequest2, BuildState.BUILDING_COMPLETE);
+        assertEquals(0, buildReaper.armedCount());
+
+        now.addAndGet(10_000);
+        timerWheel.advance();
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    public void failureStateFor() {
+        assertEquals(BuildState.UPDATING_SOURCE_FAILED, BuildReaper.failureStateFor(BuildState.REQUESTING));
+        assertEquals(BuildState.UPDATING_SOURCE_FAILED, BuildReaper.failureStateFor(BuildState.REQUESTED));
+        assertEquals(BuildState.UPDATING_SOURCE_FAILED, BuildReaper.failureStateFor(BuildState.UPDATING_SOURCE));
+        assertEquals(BuildState.BUILDING_FAILED, BuildReaper.failureStateFor(BuildState.UPDATING_SOURCE_COMPLETE));
+        assertEquals(BuildState.BUILDING_FAILED, BuildReaper.failureStateFor(BuildState.BUILDING));
+        assertEquals(BuildState.BENCHMARKING_FAILED, BuildReaper.failureStateFor(BuildState.BUILDING_COMPLETE));
+        assertEquals(BuildState.BENCHMARKING_FAILED, BuildReaper.failureStateFor(BuildState.BENCHMARKING));
+        assertThrows(IllegalArgumentException.class, () -> BuildReaper.failureStateFor(BuildState.BENCHMARKING_COMPLETE));
+    }
+
+    @Test
+    public void everyNonFinalStateHasDefaultDeadline() {
+        final Map<BuildState, Long> defaultDeadlines = BuildReaper.defaultDeadlines();
+        for (final BuildState buildState : BuildState.values()) {
+            final boolean isFinal = BuildState.isStateFailureState(buildState) || BuildState.isStateFinalSuccessState(buildState);
+            assertEquals(!isFinal, defaultDeadlines.containsKey(buildState), buildState.name());
+        }
+        assertEquals("cb.build.deadline.updating.source.complete", BuildReaper.deadlineProperty(BuildState.UPDATING_SOURCE_COMPLETE));
+    }
+}
@@ -0,0 +1,164 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for {@link BuildStateMachine} in the style of jcstress.
+ *
+ * Each test repeatedly starts a small number of actors at the same
+ * instant against a fresh state machine, and then checks that the
+ * outcome is one of those permitted.
+ */
+public class BuildStateMachineStressTest {
+
+    private static final int ROUNDS = 2_000;
+    private static final int ACTORS = 4;
+    private static final String REF = "refs/heads/main";
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    public void setup() {
+        this.executorService = Executors.newFixedThreadPool(ACTORS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Only one of several concurrent requests for the same ref may start a build.
+     */
+    @Test
+    public void insertIfAbsentHasSingleWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final BuildStateMachine builds = new BuildStateMachine();
+            final List<Boolean> results = race(actor -> () -> builds.insertIfAbsent(new BuildRequest("repo", REF, "commit" + actor, "author"), BuildState.REQUESTING));
+
+            assertEquals(1, results.stream().filter(Boolean::booleanValue).count(), "round " + round);
+            assertEquals(1, builds.buildCount(), "round " + round);
+        }
+    }
+
+    /**
+     * Only one of several concurrent identical transitions of the same build may succeed.
+     */
+    @Test
+    public void updateHasSingleWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final BuildStateMachine builds = new BuildStateMachine();
+            final BuildRequest buildRequest = new BuildRequest("repo", REF, "commit", "author");
+            builds.insert(buildRequest, BuildState.REQUESTING);
+
+            final List<Boolean> results = race(actor -> () -> builds.update(buildRequest, BuildState.REQUESTING, BuildState.REQUESTED));
+
+            assertEquals(1, results.stream().filter(Boolean::booleanValue).count(), "round " + round);
+            assertEquals(BuildState.REQUESTED, builds.getState(REF, buildRequest.getId()), "round " + round);
+        }
+    }
+
+    /**
+     * Removing the last build of a ref must never lose a build
+     * that is concurrently inserted for the same ref.
+     */
+    @Test
+    public void removeDoesNotLoseConcurrentInsert() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final BuildStateMachine builds = new BuildStateMachine();
+            final BuildRequest finishing = new BuildRequest("repo", REF, "commit", "author");
+            builds.insert(finishing, BuildState.BENCHMARKING);
+
+            final List<BuildRequest> inserted = new ArrayList<>();
+            for (int actor = 1; actor < ACTORS; actor++) {
+                inserted.add(new BuildRequest("repo", REF, "commit" + actor, "author"));
+            }
+
+            final List<Boolean> results = race(actor -> () -> {
+                if (actor == 0) {
+                    return builds.remove(finishing, BuildState.BENCHMARKING, BuildState.BENCHMARKING_COMPLETE);
+                } else {
+                    return builds.insert(inserted.get(actor - 1), BuildState.REQUESTING);
+                }
+            });
+
+            assertTrue(results.stream().allMatch(Boolean::booleanValue), "round " + round);
+            assertNull(builds.getState(REF, finishing.getId()), "round " + round);
+            for (final BuildRequest buildRequest : inserted) {
+                assertEquals(BuildState.REQUESTING, builds.getState(REF, buildRequest.getId()), "round " + round);
+            }
+            assertEquals(inserted.size(), builds.buildCount(), "round " + round);
+        }
+    }
+
+    /**
+     * Many builds across a few refs, each driven through its whole lifecycle concurrently,
+     * must each make every transition exactly once and leave no state behind.
+     */
+    @Test
+    public void concurrentLifecyclesLeaveNoState() throws Exception {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final int buildsPerActor = 5_000;
+        final int refs = 3;
+        final AtomicInteger failedTransitions = new AtomicInteger();
+
+        race(actor -> () -> {
+            for (int i = 0; i < buildsPerActor; i++) {
+                final BuildRequest buildRequest = new BuildRequest("repo", "refs/heads/branch-" + (i % refs), "commit-" + actor + "-" + i, "author");
+                if (!builds.insert(buildRequest, BuildState.REQUESTING)) {
+                    failedTransitions.incrementAndGet();
+                }
+
+                BuildState state = BuildState.REQUESTING;
+                for (final BuildState next : new BuildState[] { BuildState.REQUESTED, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING }) {
+                    if (!builds.update(buildRequest, state, next)) {
+                        failedTransitions.incrementAndGet();
+                    }
+                    state = next;
+                }
+
+                if (!builds.remove(buildRequest, state, BuildState.BENCHMARKING_COMPLETE)) {
+                    failedTransitions.incrementAndGet();
+                }
+            }
+            return true;
+        });
+
+        assertEquals(0, failedTransitions.get());
+        assertEquals(0, builds.buildCount());
+        assertEquals(0, builds.refCount());
+    }
+
+    /**
+     * Start all actors at the same instant and wait for their results.
+     */
+    private List<Boolean> race(final IntFunction<Callable<Boolean>> actorFactory) throws InterruptedException, ExecutionException {
+        final CyclicBarrier startBarrier = new CyclicBarrier(ACTORS);
+        final List<Future<Boolean>> futures = new ArrayList<>(ACTORS);
+        for (int actor = 0; actor < ACTORS; actor++) {
+            final Callable<Boolean> callable = actorFactory.apply(actor);
+            futures.add(executorService.submit(() -> {
+                startBarrier.await();
+                return callable.call();
+            }));
+        }
+
+        final List<Boolean> results = new ArrayList<>(ACTORS);
+        for (final Future<Boolean> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,122 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildStateMachineTest {
+
+    private static final String REF = "refs/heads/main";
+
+    @Test
+    public void insert() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest1 = new BuildRequest("repo", REF, "commit1", "author");
+        final BuildRequest buildRequest2 = new BuildRequest("repo", REF, "commit2", "author");
+
+        assertTrue(builds.insert(buildRequest1, BuildState.REQUESTING));
+        assertFalse(builds.insert(buildRequest1, BuildState.REQUESTING));
+        assertTrue(builds.insert(buildRequest2, BuildState.REQUESTING));
+
+        assertEquals(1, builds.refCount());
+        assertEquals(2, builds.buildCount());
+        assertEquals(2, builds.getBuilds(REF).size());
+    }
+
+    @Test
+    public void insertIfAbsent() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest1 = new BuildRequest("repo", REF, "commit1", "author");
+        final BuildRequest buildRequest2 = new BuildRequest("repo", REF, "commit2", "author");
+
+        assertTrue(builds.insertIfAbsent(buildRequest1, BuildState.REQUESTING));
+        assertFalse(builds.insertIfAbsent(buildRequest2, BuildState.REQUESTING));
+        assertNull(builds.getState(REF, buildRequest2.getId()));
+
+        // once the first build has finished, the ref is free again
+        assertTrue(builds.update(buildRequest1, BuildState.REQUESTING, BuildState.REQUESTED));
+        assertTrue(builds.remove(buildRequest1, BuildState.REQUESTED, BuildState.UPDATING_SOURCE));
+        assertTrue(builds.insertIfAbsent(buildRequest2, BuildState.REQUESTING));
+    }
+
+    @Test
+    public void updateValidTransition() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest = new BuildRequest("repo", REF, "commit1", "author");
+
+        assertTrue(builds.insert(buildRequest, BuildState.REQUESTING));
+        assertTrue(builds.update(buildRequest, BuildState.REQUESTING, BuildState.REQUESTED));
+        assertEquals(BuildState.REQUESTED, builds.getState(REF, buildRequest.getId()));
+
+        // already in REQUESTED
+        assertFalse(builds.update(buildRequest, BuildState.REQUESTING, BuildState.REQUESTED));
+        assertEquals(BuildState.REQUESTED, builds.getState(REF, buildRequest.getId()));
+    }
+
+    @Test
+    public void updateInvalidTransition() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest = new BuildRequest("repo", REF, "commit1", "author");
+
+        assertTrue(builds.insert(buildRequest, BuildState.REQUESTING));
+        assertFalse(builds.update(buildRequest, BuildState.REQUESTING, BuildState.BUILDING));
+        assertEquals(BuildState.REQUESTING, builds.getState(REF, buildRequest.getId()));
+    }
+
+    @Test
+    public void updateUnknownBuildCreatesIt() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest = new BuildRequest("repo", REF, "commit1", "author");
+
+        assertTrue(builds.update(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE));
+        assertEquals(BuildState.UPDATING_SOURCE_COMPLETE, builds.getState(REF, buildRequest.getId()));
+    }
+
+    @Test
+    public void removeCleansUpRef() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest1 = new BuildRequest("repo", REF, "commit1", "author");
+        final BuildRequest buildRequest2 = new BuildRequest("repo", REF, "commit2", "author");
+
+        assertTrue(builds.insert(buildRequest1, BuildState.REQUESTED));
+        assertTrue(builds.insert(buildRequest2, BuildState.REQUESTED));
+
+        assertTrue(builds.remove(buildRequest1, BuildState.REQUESTED, BuildState.UPDATING_SOURCE));
+        assertEquals(1, builds.refCount());
+
+        assertTrue(builds.remove(buildRequest2, BuildState.REQUESTED, BuildState.UPDATING_SOURCE));
+        assertEquals(0, builds.refCount());
+        assertTrue(builds.getBuilds(REF).isEmpty());
+    }
+
+    @Test
+    public void removeRejectsWrongState() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest = new BuildRequest("repo", REF, "commit1", "author");
+
+        assertTrue(builds.insert(buildRequest, BuildState.REQUESTED));
+        assertFalse(builds.remove(buildRequest, BuildState.BUILDING, BuildState.BUILDING_FAILED));
+        assertFalse(builds.remove(buildRequest, BuildState.REQUESTED, BuildState.BUILDING_FAILED));
+        assertEquals(BuildState.REQUESTED, builds.getState(REF, buildRequest.getId()));
+
+        final BuildRequest unknown = new BuildRequest("repo", REF, "commit2", "author");
+        assertFalse(builds.remove(unknown, BuildState.BUILDING, BuildState.BUILDING_FAILED));
+    }
+
+    @Test
+    public void expireFromAnyState() {
+        final BuildStateMachine builds = new BuildStateMachine();
+        final BuildRequest buildRequest = new BuildRequest("repo", REF, "commit1", "author");
+
+        assertTrue(builds.insert(buildRequest, BuildState.BUILDING_COMPLETE));
+        assertFalse(builds.expire(buildRequest, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING_COMPLETE));
+        assertFalse(builds.expire(buildRequest, BuildState.BENCHMARKING, BuildState.BENCHMARKING_FAILED));
+        assertEquals(BuildState.BUILDING_COMPLETE, builds.getState(REF, buildRequest.getId()));
+
+        assertTrue(builds.expire(buildRequest, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING_FAILED));
+        assertEquals(0, builds.refCount());
+        assertFalse(builds.expire(buildRequest, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING_FAILED));
+    }
+}
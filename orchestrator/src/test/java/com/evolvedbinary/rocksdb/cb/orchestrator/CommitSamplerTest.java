@@ -0,0 +1,152 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommitSamplerTest {
+
+    private static final long TARGET_DRAIN_TIME = 4000;
+    private static final long INITIAL_BUILD_DURATION = 1000;
+    private static final String REF_MAIN = "refs/heads/main";
+    private static final String REF_OTHER = "refs/heads/other";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final List<BuildRequest> skipped = new ArrayList<>();
+    private final List<BuildRequest> forgotten = new ArrayList<>();
+
+    private CommitSampler newCommitSampler(final int maxSkipped) {
+        return new CommitSampler(TARGET_DRAIN_TIME, INITIAL_BUILD_DURATION, 8, maxSkipped, now::get, new CommitSampler.SkippedListener() {
+            @Override
+            public void skipped(final BuildRequest buildRequest) {
+                skipped.add(buildRequest);
+            }
+
+            @Override
+            public void forgotten(final BuildRequest buildRequest) {
+                forgotten.add(buildRequest);
+            }
+        });
+    }
+
+    private static BuildRequest buildRequest(final String ref, final String commit) {
+        return new BuildRequest("repo", ref, commit, "author");
+    }
+
+    @Test
+    public void strideGrowsWithOverload() {
+        final CommitSampler commitSampler = newCommitSampler(100);
+
+        // keeping up
+        assertEquals(1, commitSampler.stride(0, 1));
+        assertEquals(1, commitSampler.stride(4, 1));
+        assertEquals(1, commitSampler.stride(8, 2));
+
+        // overloaded
+        assertEquals(2, commitSampler.stride(5, 1));
+        assertEquals(3, commitSampler.stride(12, 1));
+        assertEquals(2, commitSampler.stride(12, 2));
+
+        // bounded
+        assertEquals(8, commitSampler.stride(1000, 1));
+    }
+
+    @Test
+    public void buildsEveryCommitWhilstKeepingUp() {
+        final CommitSampler commitSampler = newCommitSampler(100);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(commitSampler.sample(buildRequest(REF_MAIN, "commit" + i), 1, 1));
+        }
+        assertEquals(0, commitSampler.skippedCount());
+    }
+
+    @Test
+    public void buildsEveryNthCommitOfEachRefWhenOverloaded() {
+        final CommitSampler commitSampler = newCommitSampler(100);
+
+        // stride of 3
+        assertFalse(commitSampler.sample(buildRequest(REF_MAIN, "main1"), 12, 1));
+        assertFalse(commitSampler.sample(buildRequest(REF_OTHER, "other1"), 12, 1));
+        assertFalse(commitSampler.sample(buildRequest(REF_MAIN, "main2"), 12, 1));
+        assertTrue(commitSampler.sample(buildRequest(REF_MAIN, "main3"), 12, 1));
+        assertFalse(commitSampler.sample(buildRequest(REF_MAIN, "main4"), 12, 1));
+        assertEquals(4, commitSampler.skippedCount());
+
+        // once the overload has passed, the next commit is built
+        assertTrue(commitSampler.sample(buildRequest(REF_OTHER, "other2"), 0, 1));
+    }
+
+    @Test
+    public void pollsMostRecentlySkippedFirst() {
+        final CommitSampler commitSampler = newCommitSampler(100);
+        final BuildRequest buildRequest1 = buildRequest(REF_MAIN, "commit1");
+        final BuildRequest buildRequest2 = buildRequest(REF_MAIN, "commit2");
+        final BuildRequest buildRequest3 = buildRequest(REF_OTHER, "commit3");
+        assertFalse(commitSampler.sample(buildRequest1, 100, 1));
+        assertFalse(commitSampler.sample(buildRequest2, 100, 1));
+        assertFalse(commitSampler.sample(buildRequest3, 100, 1));
+
+        assertEquals(List.of(buildRequest3, buildRequest2), commitSampler.pollSkipped(2));
+        assertEquals(List.of(buildRequest1), commitSampler.pollSkipped(2));
+        assertTrue(commitSampler.pollSkipped(2).isEmpty());
+    }
+
+    @Test
+    public void forgetsOldestSkippedBeyondLimit() {
+        final CommitSampler commitSampler = newCommitSampler(2);
+        final BuildRequest buildRequest1 = buildRequest(REF_MAIN, "commit1");
+        final BuildRequest buildRequest2 = buildRequest(REF_MAIN, "commit2");
+        final BuildRequest buildRequest3 = buildRequest(REF_MAIN, "commit3");
+        assertFalse(commitSampler.sample(buildRequest1, 100, 1));
+        assertFalse(commitSampler.sample(buildRequest2, 100, 1));
+        assertFalse(commitSampler.sample(buildRequest3, 100, 1));
+
+        assertEquals(2, commitSampler.skippedCount());
+        assertEquals(List.of(buildRequest1, buildRequest2, buildRequest3), skipped);
+        assertEquals(List.of(buildRequest1), forgotten);
+        assertEquals(List.of(buildRequest3, buildRequest2), commitSampler.pollSkipped(10));
+    }
+
+    @Test
+    public void restoresSkippedInTheOrderTheyWereRequested() {
+        final CommitSampler commitSampler = newCommitSampler(2);
+        final ZonedDateTime timeStamp = ZonedDateTime.now();
+        final BuildRequest buildRequest1 = new BuildRequest.Builder("repo", REF_MAIN, "commit1", "author").timeStamp(timeStamp).build();
+        final BuildRequest buildRequest2 = new BuildRequest.Builder("repo", REF_MAIN, "commit2", "author").timeStamp(timeStamp.plusSeconds(1)).build();
+        final BuildRequest buildRequest3 = new BuildRequest.Builder("repo", REF_OTHER, "commit3", "author").timeStamp(timeStamp.plusSeconds(2)).build();
+
+        // the oldest beyond the limit are forgotten
+        assertEquals(List.of(buildRequest1), commitSampler.restoreSkipped(List.of(buildRequest3, buildRequest1, buildRequest2)));
+        assertEquals(2, commitSampler.skippedCount());
+        assertTrue(forgotten.isEmpty());
+
+        assertEquals(List.of(buildRequest3, buildRequest2), commitSampler.pollSkipped(10));
+    }
+
+    @Test
+    public void estimatesBuildDurationFromCompletedBuilds() {
+        final CommitSampler commitSampler = newCommitSampler(100);
+        final BuildRequest buildRequest1 = buildRequest(REF_MAIN, "commit1");
+        final BuildRequest buildRequest2 = buildRequest(REF_MAIN, "commit2");
+
+        commitSampler.buildStarted(buildRequest1.getId());
+        commitSampler.buildStarted(buildRequest2.getId());
+        now.addAndGet(6000);
+
+        // failed builds do not count
+        commitSampler.buildFinished(buildRequest2.getId(), false);
+        assertEquals(INITIAL_BUILD_DURATION, commitSampler.getEstimatedBuildDuration(), 0.001);
+
+        commitSampler.buildFinished(buildRequest1.getId(), true);
+        assertEquals(2000, commitSampler.getEstimatedBuildDuration(), 0.001);
+
+        // so longer builds mean that the Runners are overloaded sooner
+        assertEquals(2, commitSampler.stride(4, 1));
+    }
+}
@@ -0,0 +1,67 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CronScheduleTest {
+
+    // a Wednesday
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2021, 3, 17, 10, 30, 15, 0, ZoneOffset.UTC);
+
+    @Test
+    public void nightly() {
+        final CronSchedule cronSchedule = CronSchedule.parse("0 2 * * *");
+        assertEquals(ZonedDateTime.of(2021, 3, 18, 2, 0, 0, 0, ZoneOffset.UTC), cronSchedule.next(NOW));
+        assertEquals(ZonedDateTime.of(2021, 3, 19, 2, 0, 0, 0, ZoneOffset.UTC), cronSchedule.next(cronSchedule.next(NOW)));
+        assertEquals(ZonedDateTime.of(2021, 3, 18, 0, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("@daily").next(NOW));
+    }
+
+    @Test
+    public void isStrictlyAfter() {
+        final CronSchedule cronSchedule = CronSchedule.parse("30 10 * * *");
+        assertEquals(ZonedDateTime.of(2021, 3, 18, 10, 30, 0, 0, ZoneOffset.UTC), cronSchedule.next(NOW.withSecond(0)));
+        assertEquals(ZonedDateTime.of(2021, 3, 17, 10, 30, 0, 0, ZoneOffset.UTC), cronSchedule.next(NOW.withMinute(29)));
+    }
+
+    @Test
+    public void stepsRangesAndLists() {
+        assertEquals(ZonedDateTime.of(2021, 3, 17, 10, 45, 0, 0, ZoneOffset.UTC), CronSchedule.parse("*/15 * * * *").next(NOW));
+        assertEquals(ZonedDateTime.of(2021, 3, 17, 12, 5, 0, 0, ZoneOffset.UTC), CronSchedule.parse("5 12-14,20 * * *").next(NOW));
+        assertEquals(ZonedDateTime.of(2021, 3, 17, 20, 5, 0, 0, ZoneOffset.UTC), CronSchedule.parse("5 12-14,20 * * *").next(NOW.withHour(14).withMinute(5)));
+    }
+
+    @Test
+    public void weekly() {
+        // Saturday
+        assertEquals(ZonedDateTime.of(2021, 3, 20, 3, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("0 3 * * 6").next(NOW));
+        // Sunday, as both 0 and 7
+        assertEquals(ZonedDateTime.of(2021, 3, 21, 0, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("@weekly").next(NOW));
+        assertEquals(ZonedDateTime.of(2021, 3, 21, 0, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("0 0 * * 7").next(NOW));
+    }
+
+    @Test
+    public void dayOfMonthOrDayOfWeek() {
+        // the 1st of the month, or a Friday, whichever is first
+        assertEquals(ZonedDateTime.of(2021, 3, 19, 0, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("0 0 1 * 5").next(NOW));
+        assertEquals(ZonedDateTime.of(2021, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("0 0 1 * *").next(NOW));
+    }
+
+    @Test
+    public void neverMatches() {
+        assertNull(CronSchedule.parse("0 0 30 2 *").next(NOW));
+        assertEquals(ZonedDateTime.of(2024, 2, 29, 0, 0, 0, 0, ZoneOffset.UTC), CronSchedule.parse("0 0 29 2 *").next(NOW));
+    }
+
+    @Test
+    public void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("0 2 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("60 2 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("0 5-2 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("*/0 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("a * * * *"));
+    }
+}
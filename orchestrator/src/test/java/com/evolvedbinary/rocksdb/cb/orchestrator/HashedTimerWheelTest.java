@@ -0,0 +1,126 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedTimerWheelTest {
+
+    private static final long TICK = 100;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    public void expiresWithinOneTickOfDeadline() {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 8, now::get);
+        final AtomicInteger fired = new AtomicInteger();
+        final HashedTimerWheel.Timeout timeout = timerWheel.newTimeout(fired::incrementAndGet, 250);
+
+        now.addAndGet(249);
+        assertEquals(0, timerWheel.advance());
+        assertFalse(timeout.isExpired());
+
+        now.addAndGet(TICK);
+        assertEquals(1, timerWheel.advance());
+        assertTrue(timeout.isExpired());
+        assertEquals(1, fired.get());
+
+        // only fires once
+        now.addAndGet(TICK * 8);
+        assertEquals(0, timerWheel.advance());
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotExpire() {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 8, now::get);
+        final AtomicInteger fired = new AtomicInteger();
+        final HashedTimerWheel.Timeout timeout1 = timerWheel.newTimeout(fired::incrementAndGet, 250);
+        final HashedTimerWheel.Timeout timeout2 = timerWheel.newTimeout(fired::incrementAndGet, 250);
+
+        // cancel one whilst pending, and the other once it is in the wheel
+        assertTrue(timeout1.cancel());
+        now.addAndGet(TICK);
+        timerWheel.advance();
+        assertTrue(timeout2.cancel());
+        assertFalse(timeout2.cancel());
+
+        now.addAndGet(TICK * 8);
+        assertEquals(0, timerWheel.advance());
+        assertEquals(0, fired.get());
+        assertTrue(timeout1.isCancelled());
+        assertTrue(timeout2.isCancelled());
+    }
+
+    @Test
+    public void expiredTimeoutCannotBeCancelled() {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 8, now::get);
+        final HashedTimerWheel.Timeout timeout = timerWheel.newTimeout(() -> {}, 0);
+
+        now.addAndGet(TICK);
+        assertEquals(1, timerWheel.advance());
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    public void deadlineBeyondOneRevolution() {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 4, now::get);
+        final HashedTimerWheel.Timeout timeout = timerWheel.newTimeout(() -> {}, TICK * 10 - 50);
+
+        // passes the bucket of the timeout twice before it is due
+        now.addAndGet(TICK * 10 - 51);
+        assertEquals(0, timerWheel.advance());
+        assertFalse(timeout.isExpired());
+
+        now.addAndGet(TICK);
+        assertEquals(1, timerWheel.advance());
+        assertTrue(timeout.isExpired());
+    }
+
+    @Test
+    public void expiresInDeadlineOrder() {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 4, now::get);
+        final List<Integer> order = new ArrayList<>();
+        for (final int delay : new int[] { 900, 100, 500, 300, 700 }) {
+            timerWheel.newTimeout(() -> order.add(delay), delay);
+        }
+
+        // catches up on all of the elapsed ticks at once
+        now.addAndGet(TICK * 10);
+        assertEquals(5, timerWheel.advance());
+        assertEquals(List.of(100, 300, 500, 700, 900), order);
+    }
+
+    @Test
+    public void failingTaskDoesNotStopOtherTimeouts() {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK, 8, now::get);
+        final AtomicInteger fired = new AtomicInteger();
+        timerWheel.newTimeout(() -> { throw new RuntimeException("test"); }, 50);
+        timerWheel.newTimeout(fired::incrementAndGet, 50);
+
+        now.addAndGet(TICK);
+        assertEquals(2, timerWheel.advance());
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void workerThreadAdvancesWheel() throws InterruptedException {
+        final HashedTimerWheel timerWheel = new HashedTimerWheel(10, 8);
+        final CountDownLatch latch = new CountDownLatch(1);
+        timerWheel.start("test-timer-wheel");
+        try {
+            timerWheel.newTimeout(latch::countDown, 50);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            timerWheel.close();
+        }
+    }
+}
@@ -2,25 +2,45 @@ package com.evolvedbinary.rocksdb.cb.orchestrator;
 
 import com.evolvedbinary.rocksdb.cb.Constants;
 import com.evolvedbinary.rocksdb.cb.dataobject.*;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
 import com.evolvedbinary.rocksdb.cb.jms.JMSServiceInstance;
 import com.evolvedbinary.rocksdb.cb.junit.JUnit5ExternalResourceAdapter;
+import com.evolvedbinary.rocksdb.cb.orchestrator.store.BuildStoreException;
+import com.evolvedbinary.rocksdb.cb.orchestrator.store.RocksDBBuildStore;
+import com.evolvedbinary.rocksdb.cb.scm.GitHelper;
+import com.evolvedbinary.rocksdb.cb.scm.GitHelperException;
+import com.evolvedbinary.rocksdb.cb.scm.JGitGitHelperImpl;
 import org.apache.activemq.artemis.api.core.TransportConfiguration;
 import org.apache.activemq.artemis.api.jms.ActiveMQJMSClient;
 import org.apache.activemq.artemis.api.jms.JMSFactoryType;
 import org.apache.activemq.artemis.core.remoting.impl.netty.NettyConnectorFactory;
 import org.apache.activemq.artemis.junit.EmbeddedJMSResource;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.jms.*;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +51,12 @@ public class OrchestratorIT {
     private static final String BUILD_RESPONSE_QUEUE_NAME = "TestBuildResponseQueue";
     private static final String PUBLISH_REQUEST_QUEUE_NAME = "TestPublishRequestQueue";
     private static final String PUBLISH_RESPONSE_QUEUE_NAME = "TestPublishResponseQueue";
+    private static final String BISECT_REQUEST_QUEUE_NAME = "TestBisectRequestQueue";
+    private static final String BISECT_RESPONSE_QUEUE_NAME = "TestBisectResponseQueue";
+    private static final String BACKFILL_REQUEST_QUEUE_NAME = "TestBackfillRequestQueue";
+    private static final String CHANGE_POINT_QUEUE_NAME = "TestChangePointQueue";
+    private static final String RUNNER_HEARTBEAT_QUEUE_NAME = "TestRunnerHeartbeatQueue";
+    private static final String CONTROL_TOPIC_NAME = "TestControlTopic";
 
     private static final int IMMEDIATE_TIMEOUT = -1;
     private static final int MESSAGE_RECEIVE_TIMEOUT = 1000;  // 1 second
@@ -97,7 +123,9 @@ public class OrchestratorIT {
 
     @Test
     public void fromHookToPublishRequestNoRefFiltersAllBuilds() throws IOException, JMSException {
-        final Orchestrator.Settings settings = new Orchestrator.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME, Collections.emptyList(), true);
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .allBuilds(true)
+                .build();
         final Orchestrator orchestrator = new Orchestrator(settings);
 
         final JMSServiceInstance instance = orchestrator.runAsync();
@@ -170,7 +198,9 @@ public class OrchestratorIT {
 
     @Test
     public void fromHookToPublishRequestNoRefFiltersAllBuildsUpdatingSourceFailed() throws IOException, JMSException {
-        final Orchestrator.Settings settings = new Orchestrator.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME, Collections.emptyList(), true);
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .allBuilds(true)
+                .build();
         final Orchestrator orchestrator = new Orchestrator(settings);
 
         final JMSServiceInstance instance = orchestrator.runAsync();
@@ -243,7 +273,9 @@ public class OrchestratorIT {
 
     @Test
     public void fromHookToPublishRequestNoRefFiltersAllBuildsBuildingFailed() throws IOException, JMSException {
-        final Orchestrator.Settings settings = new Orchestrator.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME, Collections.emptyList(), true);
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .allBuilds(true)
+                .build();
         final Orchestrator orchestrator = new Orchestrator(settings);
 
         final JMSServiceInstance instance = orchestrator.runAsync();
@@ -316,7 +348,9 @@ public class OrchestratorIT {
 
     @Test
     public void fromHookToPublishRequestNoRefFiltersAllBuildsBenchmarkingFailed() throws IOException, JMSException {
-        final Orchestrator.Settings settings = new Orchestrator.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME, Collections.emptyList(), true);
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .allBuilds(true)
+                .build();
         final Orchestrator orchestrator = new Orchestrator(settings);
 
         final JMSServiceInstance instance = orchestrator.runAsync();
@@ -387,4 +421,849 @@ public class OrchestratorIT {
             instance.close();
         }
     }
+
+    @Test
+    public void bisect(@TempDir final Path tempDir) throws IOException, JMSException, GitAPIException {
+        // create a local repo with a linear history, where the regression is introduced at commit 6
+        final int commitCount = 9;
+        final int firstBadCommitIdx = 6;
+        final List<String> commits = new ArrayList<>();
+        final Path repoDir = tempDir.resolve("repo");
+        try (final Git git = Git.init().setDirectory(repoDir.toFile()).setInitialBranch("master").call()) {
+            for (int i = 0; i < commitCount; i++) {
+                Files.write(repoDir.resolve("file.txt"), ("commit" + i).getBytes(UTF_8));
+                git.add().addFilepattern("file.txt").call();
+                commits.add(git.commit().setMessage("commit" + i).setAuthor("test", "test@example.com").call().getName());
+            }
+        }
+
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings) {
+            @Override
+            GitHelper openRepository(final String repository) throws GitHelperException {
+                return JGitGitHelperImpl.open(repoDir);
+            }
+        };
+
+        final Queue bisectRequestQueue = session.createQueue(BISECT_REQUEST_QUEUE_NAME);
+        final Queue bisectResponseQueue = session.createQueue(BISECT_RESPONSE_QUEUE_NAME);
+        final MessageConsumer bisectResponseQueueConsumer = session.createConsumer(bisectResponseQueue);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final BisectRequest bisectRequest = new BisectRequest("facebook/rocksdb", "refs/heads/master", commits.get(0), commits.get(commitCount - 1), "person1", 0.1, 2);
+            producer.send(bisectRequestQueue, session.createTextMessage(bisectRequest.serialize()));
+
+            // act as the Runner, until the bisect completes
+            final List<BuildState> updateBuildStates = Arrays.asList(
+                    BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE,
+                    BuildState.BUILDING, BuildState.BUILDING_COMPLETE,
+                    BuildState.BENCHMARKING);
+            int builds = 0;
+            BisectResponse bisectResponse = null;
+            while (bisectResponse == null) {
+                final Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+                if (message == null) {
+                    final Message bisectResponseMessage = bisectResponseQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+                    assertNotNull(bisectResponseMessage, "Expected either a BuildRequest or a BisectResponse");
+                    bisectResponse = new BisectResponse().deserialize(((TextMessage) bisectResponseMessage).getText());
+                    break;
+                }
+
+                final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+                assertEquals(bisectRequest.getRef(), buildRequest.getRef());
+                builds++;
+                assertTrue(builds <= 2 * 5, "Too many builds requested");
+
+                for (final BuildState updateBuildState : updateBuildStates) {
+                    producer.send(buildResponseQueue, session.createTextMessage(new BuildResponse(updateBuildState, buildRequest).serialize()));
+                }
+
+                final long benchmarkTime = commits.indexOf(buildRequest.getCommit()) >= firstBadCommitIdx ? 1500 : 1000;
+                final BuildResponse buildResponse = new BuildResponse(BuildState.BENCHMARKING_COMPLETE, buildRequest, new BuildStats(1, 1, benchmarkTime), null);
+                producer.send(buildResponseQueue, session.createTextMessage(buildResponse.serialize()));
+            }
+
+            assertEquals(BisectState.COMPLETE, bisectResponse.getBisectState());
+            assertEquals(bisectRequest, bisectResponse.getBisectRequest());
+            assertEquals(commits.get(firstBadCommitIdx), bisectResponse.getFirstBadCommit());
+            assertEquals(commits.get(firstBadCommitIdx - 1), bisectResponse.getLastGoodCommit());
+            assertEquals(1000, bisectResponse.getGoodMedian(), 0);
+            assertEquals(1500, bisectResponse.getBadMedian(), 0);
+
+            // bisect builds are not published
+            assertNull(publishRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+
+        } finally {
+            instance.close();
+            bisectResponseQueueConsumer.close();
+        }
+    }
+
+    @Test
+    public void recoveredBisectBuildIsNotPublished(@TempDir final Path tempDir) throws IOException, JMSException, BuildStoreException {
+        // a bisect build was in progress when the Orchestrator stopped, its bisect job is lost on restart
+        final BuildRequest bisectBuildRequest = new BuildRequest.Builder("facebook/rocksdb", "refs/heads/master", "abc", "person1")
+                .bisectRequestId(UUID.randomUUID())
+                .build();
+        final Path dataDir = tempDir.resolve("data");
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            buildStore.putBuild(bisectBuildRequest, null, BuildState.BUILDING);
+        }
+
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .allBuilds(true)
+                .dataDir(dataDir)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            sendBuildResponses(bisectBuildRequest, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            final BuildResponse buildResponse = new BuildResponse(BuildState.BENCHMARKING_COMPLETE, bisectBuildRequest, new BuildStats(1, 1, 1000), null);
+            producer.send(buildResponseQueue, session.createTextMessage(buildResponse.serialize()));
+
+            // the result of the bisect build is discarded rather than published to the time series of the ref
+            assertNull(publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+        } finally {
+            instance.close();
+        }
+
+        // the bisect build did complete
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            final List<BuildRequest> recovered = new ArrayList<>();
+            buildStore.recover((buildRequest, buildState) -> recovered.add(buildRequest), recovered::add);
+            assertTrue(recovered.isEmpty());
+        }
+    }
+
+    @Test
+    public void routesToHardwareClassAndReroutesWhenRunnersDie() throws IOException, JMSException, InterruptedException {
+        final String hardwareClass = "test-class";
+        final long heartbeatInterval = 500;
+
+        System.setProperty(Orchestrator.RUNNER_LIVENESS_CHECK_INTERVAL_PROPERTY, "100");
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .allBuilds(true)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        // consumers which behave like a runner of the hardware class, and a runner of no hardware class
+        // NOTE: the new consumers are created before the old one is closed, otherwise the auto-created queue may be deleted in between
+        final MessageConsumer unclassifiedConsumer = session.createConsumer(buildRequestQueue, BuildRequest.HARDWARE_CLASS_PROPERTY + " IS NULL");
+        buildRequestQueueConsumer.close();
+        buildRequestQueueConsumer = unclassifiedConsumer;
+        final MessageConsumer hardwareClassConsumer = session.createConsumer(buildRequestQueue, BuildRequest.hardwareClassSelector(hardwareClass));
+        final Queue runnerHeartbeatQueue = session.createQueue(RUNNER_HEARTBEAT_QUEUE_NAME);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            // a runner of the hardware class announces itself
+            final RunnerHeartbeat runnerHeartbeat = new RunnerHeartbeat("runner-1", hardwareClass, "cpu", 4, 1024, "ssd", heartbeatInterval);
+            producer.send(runnerHeartbeatQueue, session.createTextMessage(runnerHeartbeat.serialize()));
+            Thread.sleep(heartbeatInterval / 2);
+
+            // the first build of a ref pins it to the hardware class
+            final WebHookPayloadSummary webHookPayloadSummary1 = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary1.serialize()));
+
+            Message message = hardwareClassConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            assertEquals(hardwareClass, message.getStringProperty(BuildRequest.HARDWARE_CLASS_PROPERTY));
+            final BuildRequest buildRequest1 = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(webHookPayloadSummary1.getAfter(), buildRequest1.getCommit());
+            assertNull(buildRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+
+            // the runner goes away whilst a build request is waiting for it
+            hardwareClassConsumer.close();
+            final WebHookPayloadSummary webHookPayloadSummary2 = new WebHookPayloadSummary("refs/heads/main", "def", "ghi", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary2.serialize()));
+
+            // once the runner has missed its heartbeats the waiting build request is re-routed to any runner
+            message = buildRequestQueueConsumer.receive(heartbeatInterval * RunnerRegistry.MISSED_HEARTBEATS + 5 * MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            assertNull(message.getStringProperty(BuildRequest.HARDWARE_CLASS_PROPERTY));
+            final BuildRequest buildRequest2 = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(webHookPayloadSummary2.getAfter(), buildRequest2.getCommit());
+
+        } finally {
+            instance.close();
+            System.clearProperty(Orchestrator.RUNNER_LIVENESS_CHECK_INTERVAL_PROPERTY);
+        }
+    }
+
+    @Test
+    public void reapsStuckBuildsRequeueingThenFailingThem() throws IOException, JMSException {
+        final long buildingDeadline = 500;
+
+        System.setProperty(BuildReaper.DEADLINE_TICK_PROPERTY, "50");
+        System.setProperty(BuildReaper.deadlineProperty(BuildState.BUILDING), String.valueOf(buildingDeadline));
+        System.setProperty(Orchestrator.BUILD_DEADLINE_RETRIES_PROPERTY, "1");
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final WebHookPayloadSummary webHookPayloadSummary1 = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary1.serialize()));
+
+            Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+
+            // the runner starts building, and then dies
+            sendBuildResponses(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING);
+
+            // once the deadline expires, the build is re-queued for another runner
+            message = buildRequestQueueConsumer.receive(buildingDeadline + 5 * MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest retryBuildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertNotEquals(buildRequest.getId(), retryBuildRequest.getId());
+            assertEquals(buildRequest.getTimeStamp(), retryBuildRequest.getTimeStamp());
+            assertEquals(buildRequest.getCommit(), retryBuildRequest.getCommit());
+            assertNull(publishRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+
+            // the next runner also dies whilst building, and meanwhile a newer commit is pushed to the ref
+            sendBuildResponses(retryBuildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING);
+            final WebHookPayloadSummary webHookPayloadSummary2 = new WebHookPayloadSummary("refs/heads/main", "def", "ghi", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary2.serialize()));
+
+            // out of retries, so the build is failed...
+            message = publishRequestQueueConsumer.receive(buildingDeadline + 5 * MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BUILDING_FAILED, publishRequest.getBuildResponse().getBuildState());
+            assertEquals(retryBuildRequest, publishRequest.getBuildResponse().getBuildRequest());
+            assertEquals(BuildDetailType.EXCEPTION_MESSAGE, publishRequest.getBuildResponse().getBuildDetails().get(0).getBuildDetailType());
+
+            // ...and the ref is no longer blocked, so the backlogged build is dispatched
+            message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest backloggedBuildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(webHookPayloadSummary2.getAfter(), backloggedBuildRequest.getCommit());
+
+        } finally {
+            instance.close();
+            System.clearProperty(BuildReaper.DEADLINE_TICK_PROPERTY);
+            System.clearProperty(BuildReaper.deadlineProperty(BuildState.BUILDING));
+            System.clearProperty(Orchestrator.BUILD_DEADLINE_RETRIES_PROPERTY);
+        }
+    }
+
+    @Test
+    public void adaptiveSamplingSkipsCommitsWhenOverloadedAndBuildsThemWhenIdle() throws IOException, JMSException {
+        System.setProperty(CommitSampler.INITIAL_BUILD_DURATION_PROPERTY, "1000");
+        System.setProperty(CommitSampler.TARGET_DRAIN_TIME_PROPERTY, "1000");
+        System.setProperty(CommitSampler.BACKFILL_INTERVAL_PROPERTY, "100");
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .allBuilds(true)
+                .adaptiveSampling(true)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            /*
+                With a single runner, and builds that take as long as the target drain time,
+                every commit is built until two builds are outstanding, after which every
+                2nd commit is built.
+            */
+            final List<BuildRequest> buildRequests = new ArrayList<>();
+            for (final String commit : Arrays.asList("c1", "c2", "c3", "c4")) {
+                final WebHookPayloadSummary webHookPayloadSummary = new WebHookPayloadSummary("refs/heads/main", "before", commit, "facebook/rocksdb", "pusher", "sender");
+                producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary.serialize()));
+
+                if (!commit.equals("c3")) {
+                    final Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+                    assertNotNull(message);
+                    final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+                    assertEquals(commit, buildRequest.getCommit());
+                    buildRequests.add(buildRequest);
+                }
+            }
+
+            // c3 was skipped
+            assertNull(buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+            // once the runner has completed the outstanding builds, the skipped commit is built
+            for (final BuildRequest buildRequest : buildRequests) {
+                sendBuildResponses(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING, BuildState.BENCHMARKING_COMPLETE);
+            }
+            final Message message = buildRequestQueueConsumer.receive(5 * MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest backfilledBuildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("c3", backfilledBuildRequest.getCommit());
+
+        } finally {
+            instance.close();
+            System.clearProperty(CommitSampler.INITIAL_BUILD_DURATION_PROPERTY);
+            System.clearProperty(CommitSampler.TARGET_DRAIN_TIME_PROPERTY);
+            System.clearProperty(CommitSampler.BACKFILL_INTERVAL_PROPERTY);
+        }
+    }
+
+    @Test
+    public void skippedCommitsAreBuiltAfterRestart(@TempDir final Path tempDir) throws IOException, JMSException, BuildStoreException {
+        // a commit was skipped whilst the Runners were overloaded, and then the Orchestrator stopped
+        final BuildRequest skippedBuildRequest = new BuildRequest("facebook/rocksdb", "refs/heads/main", "c3", "person1");
+        final Path dataDir = tempDir.resolve("data");
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            buildStore.putSkipped(skippedBuildRequest);
+        }
+
+        System.setProperty(CommitSampler.BACKFILL_INTERVAL_PROPERTY, "100");
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .allBuilds(true)
+                .adaptiveSampling(true)
+                .dataDir(dataDir)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            // the skipped commit is built once the Runners are idle
+            final Message message = buildRequestQueueConsumer.receive(5 * MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest backfilledBuildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("c3", backfilledBuildRequest.getCommit());
+            assertTrue(backfilledBuildRequest.isBackfill());
+
+        } finally {
+            instance.close();
+            System.clearProperty(CommitSampler.BACKFILL_INTERVAL_PROPERTY);
+        }
+
+        // the skipped commit is no longer recorded, as it is now a build
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            final List<BuildRequest> skipped = new ArrayList<>();
+            buildStore.recoverSkipped(skipped::add);
+            assertTrue(skipped.isEmpty());
+        }
+    }
+
+    @Test
+    public void backfillDispatchesCommitsWhenRunnersAreIdle(@TempDir final Path tempDir) throws IOException, JMSException, GitAPIException {
+        // create a local repo with a linear history
+        final List<String> commits = new ArrayList<>();
+        final Path repoDir = tempDir.resolve("repo");
+        try (final Git git = Git.init().setDirectory(repoDir.toFile()).setInitialBranch("master").call()) {
+            for (int i = 0; i < 5; i++) {
+                Files.write(repoDir.resolve("file.txt"), ("commit" + i).getBytes(UTF_8));
+                git.add().addFilepattern("file.txt").call();
+                commits.add(git.commit().setMessage("commit" + i).setAuthor("test", "test@example.com").call().getName());
+            }
+        }
+
+        System.setProperty(Orchestrator.BACKFILL_INTERVAL_PROPERTY, "100");
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings) {
+            @Override
+            GitHelper openRepository(final String repository) throws GitHelperException {
+                return JGitGitHelperImpl.open(repoDir);
+            }
+        };
+
+        final Queue backfillRequestQueue = session.createQueue(BACKFILL_REQUEST_QUEUE_NAME);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final BackfillRequest backfillRequest = new BackfillRequest("facebook/rocksdb", "refs/heads/master", commits.get(1), commits.get(3), "person1");
+            producer.send(backfillRequestQueue, session.createTextMessage(backfillRequest.serialize()));
+
+            // the range is inclusive, and is dispatched oldest first, one commit at a time whilst the runner is busy
+            for (final String commit : commits.subList(1, 4)) {
+                final Message message = buildRequestQueueConsumer.receive(5 * MESSAGE_RECEIVE_TIMEOUT);
+                assertNotNull(message);
+                final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+                assertEquals(commit, buildRequest.getCommit());
+                assertEquals(backfillRequest.getRef(), buildRequest.getRef());
+                assertNull(buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT / 2));
+
+                sendBuildResponses(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+                final BuildResponse buildResponse = new BuildResponse(BuildState.BENCHMARKING_COMPLETE, buildRequest, new BuildStats(1, 1, 1000), null);
+                producer.send(buildResponseQueue, session.createTextMessage(buildResponse.serialize()));
+
+                // backfilled results are published
+                final Message publishMessage = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+                assertNotNull(publishMessage);
+                final PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) publishMessage).getText());
+                assertEquals(buildRequest, publishRequest.getBuildResponse().getBuildRequest());
+            }
+
+            // the campaign is finished
+            assertNull(buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+        } finally {
+            instance.close();
+            System.clearProperty(Orchestrator.BACKFILL_INTERVAL_PROPERTY);
+        }
+    }
+
+    @Test
+    public void scheduleCatchesUpMissedBuildOnce(@TempDir final Path tempDir) throws IOException, JMSException, GitAPIException, BuildStoreException {
+        // create a local repo with a tagged release
+        final Path repoDir = tempDir.resolve("repo");
+        final String releaseCommit;
+        try (final Git git = Git.init().setDirectory(repoDir.toFile()).setInitialBranch("master").call()) {
+            Files.write(repoDir.resolve("file.txt"), "release".getBytes(UTF_8));
+            git.add().addFilepattern("file.txt").call();
+            releaseCommit = git.commit().setMessage("release").setAuthor("test", "test@example.com").call().getName();
+            git.tag().setName("v1.0").call();
+        }
+
+        // the nightly schedule last ran days ago, whereas the weekly schedule has never run
+        final Path dataDir = tempDir.resolve("data");
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            buildStore.putSchedule("nightly", ZonedDateTime.now().minusDays(3));
+        }
+
+        System.setProperty(Orchestrator.SCHEDULE_CHECK_INTERVAL_PROPERTY, "100");
+        final List<BenchmarkSchedule> schedules = Arrays.asList(
+                BenchmarkSchedule.parse("nightly;facebook/rocksdb;refs/tags/v1.0;@daily"),
+                BenchmarkSchedule.parse("weekly;facebook/rocksdb;refs/tags/v1.0;@weekly"));
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .schedules(schedules)
+                .dataDir(dataDir)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings) {
+            @Override
+            GitHelper openRepository(final String repository) throws GitHelperException {
+                return JGitGitHelperImpl.open(repoDir);
+            }
+        };
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            // the missed nightly builds are caught up by a single build
+            final Message message = buildRequestQueueConsumer.receive(5 * MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("refs/tags/v1.0", buildRequest.getRef());
+            assertEquals(releaseCommit, buildRequest.getCommit());
+            assertEquals("nightly", buildRequest.getSchedule());
+
+            assertNull(buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+        } finally {
+            instance.close();
+            System.clearProperty(Orchestrator.SCHEDULE_CHECK_INTERVAL_PROPERTY);
+        }
+
+        // the time that each schedule fired is persisted, so they are not due again after a restart
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            final Map<String, ZonedDateTime> firedTimes = new HashMap<>();
+            buildStore.recoverSchedules(firedTimes::put);
+            assertEquals(2, firedTimes.size());
+            assertTrue(firedTimes.get("nightly").isAfter(ZonedDateTime.now().minusMinutes(1)));
+        }
+    }
+
+    @Test
+    public void publishesCachedResultOfCommitPushedToAnotherRef() throws IOException, JMSException {
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .allBuilds(true)
+                .resultCache(true)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            // the commit is first pushed to a branch, and is built
+            final WebHookPayloadSummary webHookPayloadSummary1 = new WebHookPayloadSummary("refs/heads/feature", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary1.serialize()));
+
+            Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            final BuildStats buildStats = new BuildStats(1, 2, 3);
+            sendBuildResponses(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            producer.send(buildResponseQueue, session.createTextMessage(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, buildRequest, buildStats, null).serialize()));
+
+            message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+
+            // the same commit is then pushed to main, and the result is published without building it again
+            final WebHookPayloadSummary webHookPayloadSummary2 = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary2.serialize()));
+
+            message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BENCHMARKING_COMPLETE, publishRequest.getBuildResponse().getBuildState());
+            assertEquals(webHookPayloadSummary2.getRef(), publishRequest.getBuildResponse().getBuildRequest().getRef());
+            assertEquals(webHookPayloadSummary2.getAfter(), publishRequest.getBuildResponse().getBuildRequest().getCommit());
+            assertEquals(buildStats, publishRequest.getBuildResponse().getBuildStats());
+            assertNull(buildRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+
+            // a different commit is built
+            final WebHookPayloadSummary webHookPayloadSummary3 = new WebHookPayloadSummary("refs/heads/main", "def", "ghi", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary3.serialize()));
+            assertNotNull(buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+        } finally {
+            instance.close();
+        }
+    }
+
+    @Test
+    public void reportsStatusOverHttp() throws IOException, JMSException {
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .allBuilds(true)
+                .statusPort(0)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final int statusPort = orchestrator.getStatusPort();
+            assertTrue(statusPort > 0);
+
+            final WebHookPayloadSummary webHookPayloadSummary = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary.serialize()));
+
+            Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+
+            String builds = httpGet(statusPort, "/builds", 200);
+            assertTrue(builds.contains("\"refs/heads/main\":[{\"id\":\"" + buildRequest.getId() + "\""), builds);
+            assertTrue(builds.contains("\"commit\":\"def\""), builds);
+            assertTrue(httpGet(statusPort, "/counts", 200).contains("\"backlogged\":0"));
+
+            sendBuildResponses(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            producer.send(buildResponseQueue, session.createTextMessage(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, buildRequest, new BuildStats(1, 2, 3), null).serialize()));
+            assertNotNull(publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+            builds = httpGet(statusPort, "/builds", 200);
+            assertEquals("{\"builds\":{}}", builds);
+            final String completions = httpGet(statusPort, "/completions", 200);
+            assertTrue(completions.contains("\"id\":\"" + buildRequest.getId() + "\""), completions);
+            assertTrue(completions.contains("\"state\":\"BENCHMARKING_COMPLETE\""), completions);
+            final String latencies = httpGet(statusPort, "/latencies", 200);
+            assertTrue(latencies.contains("\"queueToStart\":{\"count\":1,"), latencies);
+            assertTrue(latencies.contains("\"total\":{\"count\":1,"), latencies);
+
+            final String status = httpGet(statusPort, "/status", 200);
+            assertTrue(status.contains("\"counts\":{\"REQUESTING\":0,"), status);
+            assertTrue(status.contains("\"backlog\":[]"), status);
+
+            httpGet(statusPort, "/unknown", 404);
+            httpGet(statusPort, "/status/unknown", 404);
+
+            // the metrics are served by the same server
+            final HttpURLConnection metricsConnection = (HttpURLConnection) new URL("http", "localhost", statusPort, "/metrics").openConnection();
+            try {
+                assertEquals(200, metricsConnection.getResponseCode());
+                assertTrue(metricsConnection.getContentType().startsWith("text/plain"));
+            } finally {
+                metricsConnection.disconnect();
+            }
+
+        } finally {
+            instance.close();
+        }
+
+        assertEquals(-1, orchestrator.getStatusPort());
+    }
+
+    @Test
+    public void fansOutWorkflowStagesAndAggregatesTheirResults() throws IOException, JMSException {
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .allBuilds(true)
+                .statusPort(0)
+                .workflowBenchmarks(Arrays.asList("fillseq", "readrandom"))
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final int statusPort = orchestrator.getStatusPort();
+
+            // the build request is sent as a stage per benchmark
+            final WebHookPayloadSummary webHookPayloadSummary1 = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary1.serialize()));
+
+            Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest fillseqStage = new BuildRequest().deserialize(((TextMessage) message).getText());
+            message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest readrandomStage = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("fillseq", fillseqStage.getBenchmark());
+            assertEquals("readrandom", readrandomStage.getBenchmark());
+            assertEquals("def", fillseqStage.getCommit());
+            assertEquals("def", readrandomStage.getCommit());
+            assertNotEquals(fillseqStage.getId(), readrandomStage.getId());
+
+            final String workflows = httpGet(statusPort, "/workflows", 200);
+            assertTrue(workflows.contains("\"id\":\"" + fillseqStage.getId() + "\""), workflows);
+            assertTrue(workflows.contains("\"benchmark\":\"readrandom\""), workflows);
+
+            // the result is published once, after all of the stages have completed
+            sendBuildResponses(fillseqStage, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            producer.send(buildResponseQueue, session.createTextMessage(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, fillseqStage, new BuildStats(1, 2, 3), null).serialize()));
+            sendBuildResponses(readrandomStage, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            assertNull(publishRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+            producer.send(buildResponseQueue, session.createTextMessage(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, readrandomStage, new BuildStats(4, 1, 5), null).serialize()));
+
+            message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BENCHMARKING_COMPLETE, publishRequest.getBuildResponse().getBuildState());
+            assertEquals("def", publishRequest.getBuildResponse().getBuildRequest().getCommit());
+            assertNull(publishRequest.getBuildResponse().getBuildRequest().getBenchmark());
+            assertEquals(new BuildStats(4, 2, 8), publishRequest.getBuildResponse().getBuildStats());
+            assertNull(publishRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+            assertEquals("{\"builds\":{}}", httpGet(statusPort, "/builds", 200));
+
+            // the first stage to fail fails the workflow, and the other stages are ignored
+            final WebHookPayloadSummary webHookPayloadSummary2 = new WebHookPayloadSummary("refs/heads/main", "def", "ghi", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary2.serialize()));
+
+            message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest failingStage = new BuildRequest().deserialize(((TextMessage) message).getText());
+            message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest otherStage = new BuildRequest().deserialize(((TextMessage) message).getText());
+
+            sendBuildResponses(failingStage, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_FAILED);
+
+            message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BUILDING_FAILED, publishRequest.getBuildResponse().getBuildState());
+            assertEquals("ghi", publishRequest.getBuildResponse().getBuildRequest().getCommit());
+            assertNull(publishRequest.getBuildResponse().getBuildRequest().getBenchmark());
+
+            sendBuildResponses(otherStage, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING, BuildState.BENCHMARKING_COMPLETE);
+            assertNull(publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+            assertEquals("{\"builds\":{}}", httpGet(statusPort, "/builds", 200));
+            assertEquals("{\"workflows\":[]}", httpGet(statusPort, "/workflows", 200));
+
+        } finally {
+            instance.close();
+        }
+    }
+
+    @Test
+    public void recoveredWorkflowAggregatesStagesCompletedBeforeRestart(@TempDir final Path tempDir) throws IOException, JMSException, BuildStoreException {
+        // a workflow was in progress when the Orchestrator stopped, one of its stages had already completed
+        final BuildRequest buildRequest = new BuildRequest("facebook/rocksdb", "refs/heads/main", "abc", "person1");
+        final BuildRequest fillseqStage = buildRequest.toBuilder().id(UUID.randomUUID()).benchmark("fillseq").build();
+        final BuildRequest readrandomStage = buildRequest.toBuilder().id(UUID.randomUUID()).benchmark("readrandom").build();
+        final Path dataDir = tempDir.resolve("data");
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            buildStore.putBuild(buildRequest, null, BuildState.BUILDING);
+            buildStore.putWorkflow(buildRequest, Arrays.asList(fillseqStage, readrandomStage), Arrays.asList(
+                    new BuildResponse(BuildState.BENCHMARKING_COMPLETE, fillseqStage, new BuildStats(1, 2, 3), null),
+                    new BuildResponse(BuildState.BUILDING, readrandomStage)));
+        }
+
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .allBuilds(true)
+                .workflowBenchmarks(Arrays.asList("fillseq", "readrandom"))
+                .dataDir(dataDir)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            sendBuildResponses(readrandomStage, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            assertNull(publishRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+            producer.send(buildResponseQueue, session.createTextMessage(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, readrandomStage, new BuildStats(4, 1, 5), null).serialize()));
+
+            // the responses of the stages are not discarded, and the result includes the stage which completed before the restart
+            final Message message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BENCHMARKING_COMPLETE, publishRequest.getBuildResponse().getBuildState());
+            assertEquals(buildRequest.getId(), publishRequest.getBuildResponse().getBuildRequest().getId());
+            assertEquals(new BuildStats(4, 2, 8), publishRequest.getBuildResponse().getBuildStats());
+
+        } finally {
+            instance.close();
+        }
+
+        // the workflow did complete
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(dataDir)) {
+            final List<BuildRequest> recovered = new ArrayList<>();
+            buildStore.recover((recoveredBuildRequest, buildState) -> recovered.add(recoveredBuildRequest), recovered::add);
+            buildStore.recoverWorkflows((recoveredBuildRequest, stageBuildRequests, stageResponses) -> recovered.add(recoveredBuildRequest));
+            assertTrue(recovered.isEmpty());
+        }
+    }
+
+    @Test
+    public void cancelsSupersededBuilds() throws IOException, JMSException {
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .controlTopicName(CONTROL_TOPIC_NAME)
+                .cancelSuperseded(true)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        // subscribe as a Runner would, before anything is published to the topic
+        final MessageConsumer controlTopicConsumer = session.createConsumer(session.createTopic(CONTROL_TOPIC_NAME));
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final WebHookPayloadSummary webHookPayloadSummary1 = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary1.serialize()));
+
+            Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest1 = new BuildRequest().deserialize(((TextMessage) message).getText());
+            sendBuildResponses(buildRequest1, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING);
+
+            // a newer commit supersedes the build whilst it is building
+            final WebHookPayloadSummary webHookPayloadSummary2 = new WebHookPayloadSummary("refs/heads/main", "def", "ghi", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary2.serialize()));
+
+            message = controlTopicConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final CancelRequest cancelRequest = new CancelRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(buildRequest1.getId(), cancelRequest.getBuildRequestId());
+            assertEquals("refs/heads/main", cancelRequest.getRef());
+            assertTrue(cancelRequest.getReason().contains("ghi"), cancelRequest.getReason());
+            assertNull(buildRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+
+            // once the Runner reports the build as cancelled, the newer commit is built, and nothing is published
+            sendBuildResponses(buildRequest1, BuildState.CANCELLED);
+
+            message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest2 = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("ghi", buildRequest2.getCommit());
+            assertNull(publishRequestQueueConsumer.receive(IMMEDIATE_TIMEOUT));
+
+            // a build which is benchmarking is not cancelled
+            sendBuildResponses(buildRequest2, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING);
+            final WebHookPayloadSummary webHookPayloadSummary3 = new WebHookPayloadSummary("refs/heads/main", "ghi", "jkl", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary3.serialize()));
+            assertNull(controlTopicConsumer.receive(MESSAGE_RECEIVE_TIMEOUT));
+
+            sendBuildResponses(buildRequest2, BuildState.BENCHMARKING_COMPLETE);
+
+            message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BENCHMARKING_COMPLETE, publishRequest.getBuildResponse().getBuildState());
+            assertEquals("ghi", publishRequest.getBuildResponse().getBuildRequest().getCommit());
+
+            message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest3 = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("jkl", buildRequest3.getCommit());
+
+        } finally {
+            instance.close();
+            controlTopicConsumer.close();
+        }
+    }
+
+    @Test
+    public void attachesBenchmarkSpecToBuildRequests() throws IOException, JMSException {
+        final BenchmarkSpec benchmarkSpec = new BenchmarkSpec(Collections.emptyList(), Arrays.asList(
+                new BenchmarkWorkload("fillseq", Collections.emptyList(), Collections.emptyMap(), 1000000, 20, 400, CacheMode.WARM),
+                new BenchmarkWorkload("readrandom", Collections.emptyList(), Collections.emptyMap(), -1, -1, -1, CacheMode.COLD)
+        ));
+        final Orchestrator.Settings settings = new Orchestrator.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), WEB_HOOK_QUEUE_NAME, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, PUBLISH_REQUEST_QUEUE_NAME, PUBLISH_RESPONSE_QUEUE_NAME)
+                .bisectQueueNames(BISECT_REQUEST_QUEUE_NAME, BISECT_RESPONSE_QUEUE_NAME)
+                .backfillRequestQueueName(BACKFILL_REQUEST_QUEUE_NAME)
+                .changePointQueueName(CHANGE_POINT_QUEUE_NAME)
+                .runnerHeartbeatQueueName(RUNNER_HEARTBEAT_QUEUE_NAME)
+                .controlTopicName(CONTROL_TOPIC_NAME)
+                .allBuilds(true)
+                .benchmarkSpec(benchmarkSpec)
+                .build();
+        final Orchestrator orchestrator = new Orchestrator(settings);
+
+        final JMSServiceInstance instance = orchestrator.runAsync();
+        try {
+            final WebHookPayloadSummary webHookPayloadSummary = new WebHookPayloadSummary("refs/heads/main", "abc", "def", "facebook/rocksdb", "pusher", "sender");
+            producer.send(webHookQueue, session.createTextMessage(webHookPayloadSummary.serialize()));
+
+            Message message = buildRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final BuildRequest buildRequest = new BuildRequest().deserialize(((TextMessage) message).getText());
+            assertEquals("def", buildRequest.getCommit());
+            assertEquals(benchmarkSpec, buildRequest.getBenchmarkSpec());
+
+            // the response of the Runner echoes the spec, and still matches the build
+            sendBuildResponses(buildRequest, BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING, BuildState.BENCHMARKING_COMPLETE);
+
+            message = publishRequestQueueConsumer.receive(MESSAGE_RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            final PublishRequest publishRequest = new PublishRequest().deserialize(((TextMessage) message).getText());
+            assertEquals(BuildState.BENCHMARKING_COMPLETE, publishRequest.getBuildResponse().getBuildState());
+            assertEquals("def", publishRequest.getBuildResponse().getBuildRequest().getCommit());
+
+        } finally {
+            instance.close();
+        }
+    }
+
+    private static String httpGet(final int port, final String path, final int expectedResponseCode) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+        try {
+            assertEquals(expectedResponseCode, connection.getResponseCode());
+            if (expectedResponseCode != 200) {
+                return null;
+            }
+            assertTrue(connection.getContentType().startsWith("application/json"));
+            try (final InputStream is = connection.getInputStream()) {
+                return new String(is.readAllBytes(), UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void sendBuildResponses(final BuildRequest buildRequest, final BuildState... buildStates) throws IOException, JMSException {
+        for (final BuildState buildState : buildStates) {
+            final BuildResponse buildResponse = new BuildResponse(buildState, buildRequest);
+            producer.send(buildResponseQueue, session.createTextMessage(buildResponse.serialize()));
+        }
+    }
 }
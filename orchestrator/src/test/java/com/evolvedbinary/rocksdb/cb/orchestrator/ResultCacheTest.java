@@ -0,0 +1,93 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BenchmarkSpec;
+import com.evolvedbinary.rocksdb.cb.dataobject.BenchmarkWorkload;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+
+    private static final String BENCHMARK = "db_bench";
+    private static final String CLASS_A = "class-a";
+    private static final String CLASS_B = "class-b";
+
+    private final AtomicReference<Double> random = new AtomicReference<>(0.5);
+
+    @Test
+    public void hitsOnlyForSameCommitBenchmarkAndHardwareClass() {
+        final ResultCache resultCache = new ResultCache(10, 0, random::get);
+        final BuildStats buildStats = new BuildStats(1, 2, 3);
+        resultCache.put(new ResultCache.Key("commit1", BENCHMARK, CLASS_A), buildStats);
+
+        assertEquals(buildStats, resultCache.get(new ResultCache.Key("commit1", BENCHMARK, CLASS_A)));
+        assertNull(resultCache.get(new ResultCache.Key("commit2", BENCHMARK, CLASS_A)));
+        assertNull(resultCache.get(new ResultCache.Key("commit1", "other_bench", CLASS_A)));
+        assertNull(resultCache.get(new ResultCache.Key("commit1", BENCHMARK, CLASS_B)));
+        assertNull(resultCache.get(new ResultCache.Key("commit1", BENCHMARK, null)));
+
+        assertEquals(1, resultCache.getHits());
+        assertEquals(4, resultCache.getMisses());
+    }
+
+    @Test
+    public void hitsOnlyForSameBenchmarkSpec() {
+        final ResultCache resultCache = new ResultCache(10, 0, random::get);
+        final BuildStats buildStats = new BuildStats(1, 2, 3);
+        final BenchmarkSpec benchmarkSpec = new BenchmarkSpec(Collections.emptyList(), Collections.singletonList(new BenchmarkWorkload("fillseq")));
+        resultCache.put(new ResultCache.Key("commit1", null, benchmarkSpec, CLASS_A), buildStats);
+
+        final BenchmarkSpec sameBenchmarkSpec = new BenchmarkSpec(Collections.emptyList(), Collections.singletonList(new BenchmarkWorkload("fillseq")));
+        assertEquals(buildStats, resultCache.get(new ResultCache.Key("commit1", null, sameBenchmarkSpec, CLASS_A)));
+
+        final BenchmarkSpec otherBenchmarkSpec = new BenchmarkSpec(Collections.emptyList(), Arrays.asList(new BenchmarkWorkload("fillseq"), new BenchmarkWorkload("readrandom")));
+        assertNull(resultCache.get(new ResultCache.Key("commit1", null, otherBenchmarkSpec, CLASS_A)));
+        assertNull(resultCache.get(new ResultCache.Key("commit1", null, null, CLASS_A)));
+        assertNull(resultCache.get(new ResultCache.Key("commit1", "fillseq", benchmarkSpec, CLASS_A)));
+    }
+
+    @Test
+    public void forgetsLeastRecentlyUsed() {
+        final ResultCache resultCache = new ResultCache(2, 0, random::get);
+        final ResultCache.Key key1 = new ResultCache.Key("commit1", BENCHMARK, CLASS_A);
+        final ResultCache.Key key2 = new ResultCache.Key("commit2", BENCHMARK, CLASS_A);
+        final ResultCache.Key key3 = new ResultCache.Key("commit3", BENCHMARK, CLASS_A);
+        resultCache.put(key1, new BuildStats(1, 1, 1));
+        resultCache.put(key2, new BuildStats(2, 2, 2));
+
+        // using key1 makes key2 the least recently used
+        assertNotNull(resultCache.get(key1));
+        resultCache.put(key3, new BuildStats(3, 3, 3));
+
+        assertEquals(2, resultCache.size());
+        assertNotNull(resultCache.get(key1));
+        assertNull(resultCache.get(key2));
+        assertNotNull(resultCache.get(key3));
+    }
+
+    @Test
+    public void rerunsFractionOfHits() {
+        final ResultCache resultCache = new ResultCache(10, 0.25, random::get);
+        final ResultCache.Key key = new ResultCache.Key("commit1", BENCHMARK, CLASS_A);
+        resultCache.put(key, new BuildStats(1, 1, 1));
+
+        random.set(0.2);
+        assertNull(resultCache.get(key));
+        random.set(0.25);
+        assertNotNull(resultCache.get(key));
+
+        assertEquals(1, resultCache.getReruns());
+        assertEquals(1, resultCache.getHits());
+        assertEquals(0, resultCache.getMisses());
+    }
+
+    @Test
+    public void invalidRerunRate() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(10, 1.5, random::get));
+    }
+}
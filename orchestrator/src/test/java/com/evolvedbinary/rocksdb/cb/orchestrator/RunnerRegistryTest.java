@@ -0,0 +1,159 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.RunnerHeartbeat;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
+import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunnerRegistryTest {
+
+    private static final long HEARTBEAT_INTERVAL = 1000;
+    private static final String CLASS_A = "class-a";
+    private static final String CLASS_B = "class-b";
+    private static final String REF_MAIN = "refs/heads/main";
+    private static final String REF_OTHER = "refs/heads/other";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private static RunnerHeartbeat heartbeat(final String runnerId, final String hardwareClass) {
+        return new RunnerHeartbeat(runnerId, hardwareClass, "cpu", 4, 1024, "ssd", HEARTBEAT_INTERVAL);
+    }
+
+    @Test
+    public void heartbeatRegistersRunner() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        assertFalse(registry.isHealthy(CLASS_A));
+
+        assertTrue(registry.heartbeat(heartbeat("runner-1", CLASS_A)));
+        assertFalse(registry.heartbeat(heartbeat("runner-1", CLASS_A)));
+        assertTrue(registry.heartbeat(heartbeat("runner-2", CLASS_A)));
+
+        assertTrue(registry.isHealthy(CLASS_A));
+        assertEquals(2, registry.liveRunnerCount(CLASS_A));
+        assertEquals(Map(Entry(CLASS_A, 2)), registry.getHealthyHardwareClasses());
+    }
+
+    @Test
+    public void runnerExpiresAfterMissedHeartbeats() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        registry.heartbeat(heartbeat("runner-1", CLASS_A));
+        registry.heartbeat(heartbeat("runner-2", CLASS_B));
+
+        now.addAndGet(HEARTBEAT_INTERVAL * RunnerRegistry.MISSED_HEARTBEATS);
+        registry.heartbeat(heartbeat("runner-2", CLASS_B));
+        assertTrue(registry.expire().isEmpty());
+        assertTrue(registry.isHealthy(CLASS_A));
+
+        now.incrementAndGet();
+        assertFalse(registry.isHealthy(CLASS_A));
+        assertEquals(Collections.singleton(CLASS_A), registry.expire());
+        assertTrue(registry.isHealthy(CLASS_B));
+
+        // already expired
+        assertTrue(registry.expire().isEmpty());
+
+        // a runner which comes back is new again
+        assertTrue(registry.heartbeat(heartbeat("runner-1", CLASS_A)));
+    }
+
+    @Test
+    public void classRemainsHealthyWhilstAnyRunnerIsAlive() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        registry.heartbeat(heartbeat("runner-1", CLASS_A));
+        registry.heartbeat(heartbeat("runner-2", CLASS_A));
+
+        now.addAndGet(HEARTBEAT_INTERVAL * 2);
+        registry.heartbeat(heartbeat("runner-2", CLASS_A));
+        now.addAndGet(HEARTBEAT_INTERVAL * 2);
+
+        assertTrue(registry.expire().isEmpty());
+        assertEquals(1, registry.liveRunnerCount(CLASS_A));
+    }
+
+    @Test
+    public void liveRunnerCountOfAllClasses() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        assertEquals(0, registry.liveRunnerCount());
+
+        registry.heartbeat(heartbeat("runner-1", CLASS_A));
+        registry.heartbeat(heartbeat("runner-2", CLASS_B));
+        registry.heartbeat(heartbeat("runner-3", CLASS_B));
+        assertEquals(3, registry.liveRunnerCount());
+
+        now.addAndGet(HEARTBEAT_INTERVAL * RunnerRegistry.MISSED_HEARTBEATS + 1);
+        assertEquals(0, registry.liveRunnerCount());
+    }
+
+    @Test
+    public void routeWithoutRunners() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        assertNull(registry.route(REF_MAIN));
+        assertNull(registry.getPinnedHardwareClass(REF_MAIN));
+    }
+
+    @Test
+    public void routePinsToLargestClass() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        registry.heartbeat(heartbeat("runner-1", CLASS_A));
+        registry.heartbeat(heartbeat("runner-2", CLASS_B));
+        registry.heartbeat(heartbeat("runner-3", CLASS_B));
+
+        assertEquals(CLASS_B, registry.route(REF_MAIN));
+        assertEquals(CLASS_B, registry.getPinnedHardwareClass(REF_MAIN));
+
+        // stays pinned even when another class becomes larger
+        registry.heartbeat(heartbeat("runner-4", CLASS_A));
+        registry.heartbeat(heartbeat("runner-5", CLASS_A));
+        assertEquals(CLASS_B, registry.route(REF_MAIN));
+        assertEquals(CLASS_A, registry.route(REF_OTHER));
+    }
+
+    @Test
+    public void routeUsesConfiguredPin() {
+        final RunnerRegistry registry = new RunnerRegistry(Map(Entry(REF_MAIN, CLASS_A)), now::get);
+        registry.heartbeat(heartbeat("runner-1", CLASS_A));
+        registry.heartbeat(heartbeat("runner-2", CLASS_B));
+        registry.heartbeat(heartbeat("runner-3", CLASS_B));
+
+        assertEquals(CLASS_A, registry.route(REF_MAIN));
+    }
+
+    @Test
+    public void routeAroundUnhealthyPinnedClass() {
+        final RunnerRegistry registry = new RunnerRegistry(Map(Entry(REF_MAIN, CLASS_A)), now::get);
+        registry.heartbeat(heartbeat("runner-1", CLASS_B));
+
+        // pinned class has no runners, so re-routed, but remains pinned
+        assertEquals(CLASS_B, registry.route(REF_MAIN));
+        assertEquals(CLASS_A, registry.getPinnedHardwareClass(REF_MAIN));
+
+        // once the pinned class is healthy it is used again
+        registry.heartbeat(heartbeat("runner-2", CLASS_A));
+        assertEquals(CLASS_A, registry.route(REF_MAIN));
+    }
+
+    @Test
+    public void peekRouteDoesNotPin() {
+        final RunnerRegistry registry = new RunnerRegistry(Collections.emptyMap(), now::get);
+        assertNull(registry.peekRoute(REF_MAIN));
+
+        registry.heartbeat(heartbeat("runner-1", CLASS_A));
+        assertEquals(CLASS_A, registry.peekRoute(REF_MAIN));
+        assertNull(registry.getPinnedHardwareClass(REF_MAIN));
+
+        assertEquals(CLASS_A, registry.route(REF_MAIN));
+        assertEquals(CLASS_A, registry.getPinnedHardwareClass(REF_MAIN));
+
+        // the pinned class wins over a larger class
+        registry.heartbeat(heartbeat("runner-2", CLASS_B));
+        registry.heartbeat(heartbeat("runner-3", CLASS_B));
+        assertEquals(CLASS_A, registry.peekRoute(REF_MAIN));
+        assertEquals(CLASS_B, registry.peekRoute(REF_OTHER));
+        assertNull(registry.getPinnedHardwareClass(REF_OTHER));
+    }
+}
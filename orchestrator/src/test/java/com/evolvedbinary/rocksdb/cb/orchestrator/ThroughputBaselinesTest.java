@@ -0,0 +1,84 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThroughputBaselinesTest {
+
+    private static final String REF = "refs/heads/main";
+    private static final String CLASS_A = "class-a";
+    private static final String CLASS_B = "class-b";
+
+    @Test
+    public void baselineIsMedianOfRecentResults() {
+        final ThroughputBaselines baselines = new ThroughputBaselines(4, 3, 10);
+
+        baselines.record(REF, CLASS_A, stats("fillseq", 1000));
+        baselines.record(REF, CLASS_A, stats("fillseq", 3000));
+        assertTrue(baselines.get(REF, CLASS_A).isEmpty());
+
+        baselines.record(REF, CLASS_A, stats("fillseq", 2000));
+        assertEquals(2000, baselines.get(REF, CLASS_A).get("fillseq"));
+
+        baselines.record(REF, CLASS_A, stats("fillseq", 5000));
+        assertEquals(2500, baselines.get(REF, CLASS_A).get("fillseq"));
+
+        // the oldest result falls out of the window
+        baselines.record(REF, CLASS_A, stats("fillseq", 6000));
+        assertEquals(4000, baselines.get(REF, CLASS_A).get("fillseq"));
+    }
+
+    @Test
+    public void separatesRefsAndHardwareClasses() {
+        final ThroughputBaselines baselines = new ThroughputBaselines(4, 1, 10);
+
+        baselines.record(REF, CLASS_A, stats("fillseq", 1000));
+        baselines.record(REF, CLASS_B, stats("fillseq", 2000));
+        baselines.record("refs/heads/other", CLASS_A, stats("fillseq", 3000));
+
+        assertEquals(1000, baselines.get(REF, CLASS_A).get("fillseq"));
+        assertEquals(2000, baselines.get(REF, CLASS_B).get("fillseq"));
+        assertEquals(3000, baselines.get("refs/heads/other", CLASS_A).get("fillseq"));
+        assertTrue(baselines.get(REF, null).isEmpty());
+    }
+
+    @Test
+    public void ignoresBenchmarksWithoutThroughput() {
+        final ThroughputBaselines baselines = new ThroughputBaselines(4, 1, 10);
+
+        final BuildStats buildStats = stats("fillseq", 1000);
+        buildStats.setMetric("readrandom", BuildStats.METRIC_P99, 12.5);
+        baselines.record(REF, CLASS_A, buildStats);
+
+        final Map<String, Double> refBaselines = baselines.get(REF, CLASS_A);
+        assertEquals(1, refBaselines.size());
+        assertEquals(1000, refBaselines.get("fillseq"));
+
+        baselines.record("refs/heads/other", CLASS_A, new BuildStats(1, 2, 3));
+        assertEquals(1, baselines.size());
+    }
+
+    @Test
+    public void forgetsLeastRecentlyUsed() {
+        final ThroughputBaselines baselines = new ThroughputBaselines(4, 1, 2);
+
+        baselines.record("ref1", CLASS_A, stats("fillseq", 1000));
+        baselines.record("ref2", CLASS_A, stats("fillseq", 1000));
+        baselines.get("ref1", CLASS_A);
+        baselines.record("ref3", CLASS_A, stats("fillseq", 1000));
+
+        assertEquals(2, baselines.size());
+        assertFalse(baselines.get("ref1", CLASS_A).isEmpty());
+        assertTrue(baselines.get("ref2", CLASS_A).isEmpty());
+    }
+
+    private static BuildStats stats(final String benchmark, final double opsPerSec) {
+        final BuildStats buildStats = new BuildStats(1, 2, 3);
+        buildStats.setMetric(benchmark, BuildStats.METRIC_OPS_PER_SEC, opsPerSec);
+        return buildStats;
+    }
+}
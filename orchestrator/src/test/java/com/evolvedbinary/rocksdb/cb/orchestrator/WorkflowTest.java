@@ -0,0 +1,197 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildDetail;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkflowTest {
+
+    private final BuildRequest buildRequest = new BuildRequest.Builder("repo", "refs/heads/main", "abc", "author").schedule("nightly").build();
+
+    @Test
+    public void stagePerBenchmark() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+
+        final List<BuildRequest> stages = workflow.getStageBuildRequests();
+        assertEquals(2, stages.size());
+        assertEquals("fillseq", stages.get(0).getBenchmark());
+        assertEquals("readrandom", stages.get(1).getBenchmark());
+        for (final BuildRequest stage : stages) {
+            assertNotEquals(buildRequest.getId(), stage.getId());
+            assertEquals(buildRequest.getTimeStamp(), stage.getTimeStamp());
+            assertEquals(buildRequest.getRef(), stage.getRef());
+            assertEquals(buildRequest.getCommit(), stage.getCommit());
+            assertEquals(buildRequest.getSchedule(), stage.getSchedule());
+            assertEquals(BuildState.REQUESTED, workflow.getStageState(stage.getId()));
+        }
+        assertEquals(BuildState.REQUESTED, workflow.getState());
+
+        assertThrows(IllegalArgumentException.class, () -> new Workflow(buildRequest, Collections.emptyList()));
+    }
+
+    @Test
+    public void recoversProgressOfStages() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        final BuildRequest stage1 = workflow.getStageBuildRequests().get(0);
+        final BuildRequest stage2 = workflow.getStageBuildRequests().get(1);
+        final BuildStats stats1 = new BuildStats(20, 120, 1000);
+        final BuildStats stats2 = new BuildStats(30, 100, 500);
+
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, stage1, stats1, null)));
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.BUILDING, stage2)));
+        assertEquals(2, workflow.getStageResponses().size());
+
+        final Workflow recovered = new Workflow(buildRequest, workflow.getStageBuildRequests(), workflow.getStageResponses());
+        assertEquals(workflow.getStageBuildRequests(), recovered.getStageBuildRequests());
+        assertEquals(BuildState.BENCHMARKING_COMPLETE, recovered.getStageState(stage1.getId()));
+        assertEquals(BuildState.BUILDING, recovered.getStageState(stage2.getId()));
+        assertEquals(BuildState.BUILDING, recovered.getState());
+        assertFalse(recovered.isFinished());
+
+        // the result of the stage which completed before the restart is still aggregated
+        assertTrue(recovered.stageChanged(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, stage2, stats2, null)));
+        assertTrue(recovered.isFinished());
+        assertEquals(new BuildStats(30, 120, 1500), recovered.getResponse().getBuildStats());
+    }
+
+    @Test
+    public void stateIsLeastProgressedStage() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        final BuildRequest stage1 = workflow.getStageBuildRequests().get(0);
+        final BuildRequest stage2 = workflow.getStageBuildRequests().get(1);
+
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE, stage1)));
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE_COMPLETE, stage1)));
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.BUILDING, stage1)));
+        assertEquals(BuildState.BUILDING, workflow.getStageState(stage1.getId()));
+        assertEquals(BuildState.REQUESTED, workflow.getState());
+
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE, stage2)));
+        assertEquals(BuildState.UPDATING_SOURCE, workflow.getState());
+
+        // not a stage of the workflow
+        assertFalse(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE, buildRequest)));
+
+        assertEquals(BuildState.UPDATING_SOURCE, Workflow.nextSuccessState(BuildState.REQUESTED));
+        assertEquals(BuildState.BENCHMARKING_COMPLETE, Workflow.nextSuccessState(BuildState.BENCHMARKING));
+        assertNull(Workflow.nextSuccessState(BuildState.BENCHMARKING_COMPLETE));
+        assertNull(Workflow.nextSuccessState(BuildState.BUILDING_FAILED));
+    }
+
+    @Test
+    public void aggregatesOnceAllStagesComplete() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        final BuildRequest stage1 = workflow.getStageBuildRequests().get(0);
+        final BuildRequest stage2 = workflow.getStageBuildRequests().get(1);
+        final BuildDetail detail1 = BuildDetail.forStdOut("fillseq".getBytes(UTF_8));
+        final BuildDetail detail2 = BuildDetail.forStdOut("readrandom".getBytes(UTF_8));
+
+        final BuildStats stats1 = new BuildStats(20, 120, 1000);
+        stats1.setMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC, 426439);
+        final BuildStats stats2 = new BuildStats(30, 100, 500);
+        stats2.setMetric("readrandom", BuildStats.METRIC_OPS_PER_SEC, 289352);
+
+        // the later stage completes first, but the details are in the order of the benchmarks
+        complete(workflow, stage2, stats2, detail2);
+        assertFalse(workflow.isFinished());
+        assertNull(workflow.getResponse());
+        assertEquals(BuildState.REQUESTED, workflow.getState());
+
+        complete(workflow, stage1, stats1, detail1);
+        assertTrue(workflow.isFinished());
+        assertEquals(BuildState.BENCHMARKING_COMPLETE, workflow.getState());
+
+        final BuildResponse response = workflow.getResponse();
+        assertNotNull(response);
+        assertEquals(BuildState.BENCHMARKING_COMPLETE, response.getBuildState());
+        assertEquals(buildRequest, response.getBuildRequest());
+        final BuildStats expectedStats = new BuildStats(30, 120, 1500);
+        expectedStats.setMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC, 426439);
+        expectedStats.setMetric("readrandom", BuildStats.METRIC_OPS_PER_SEC, 289352);
+        assertEquals(expectedStats, response.getBuildStats());
+        assertEquals(Arrays.asList(detail1, detail2), response.getBuildDetails());
+
+        // responses after the workflow finished are ignored
+        assertFalse(workflow.stageChanged(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, stage1)));
+    }
+
+    @Test
+    public void aggregateHasHardwareClassOfStages() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        final BuildRequest stage1 = routed(workflow.getStageBuildRequests().get(0), "class-a");
+        final BuildRequest stage2 = routed(workflow.getStageBuildRequests().get(1), "class-a");
+
+        complete(workflow, stage1, new BuildStats(20, 120, 1000), BuildDetail.forStdOut("fillseq".getBytes(UTF_8)));
+        complete(workflow, stage2, new BuildStats(30, 100, 500), BuildDetail.forStdOut("readrandom".getBytes(UTF_8)));
+
+        final BuildResponse response = workflow.getResponse();
+        assertNotNull(response);
+        assertEquals(buildRequest.getId(), response.getBuildRequest().getId());
+        assertEquals("class-a", response.getBuildRequest().getHardwareClass());
+
+        // stages which were routed to different hardware classes have no single hardware class
+        final Workflow mixedWorkflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        complete(mixedWorkflow, routed(mixedWorkflow.getStageBuildRequests().get(0), "class-a"), new BuildStats(20, 120, 1000), BuildDetail.forStdOut("fillseq".getBytes(UTF_8)));
+        complete(mixedWorkflow, routed(mixedWorkflow.getStageBuildRequests().get(1), "class-b"), new BuildStats(30, 100, 500), BuildDetail.forStdOut("readrandom".getBytes(UTF_8)));
+        assertNull(mixedWorkflow.getResponse().getBuildRequest().getHardwareClass());
+    }
+
+    private static BuildRequest routed(final BuildRequest stage, final String hardwareClass) {
+        return stage.toBuilder().hardwareClass(hardwareClass).build();
+    }
+
+    @Test
+    public void failsOnFirstFailedStage() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        final BuildRequest stage1 = workflow.getStageBuildRequests().get(0);
+        final BuildRequest stage2 = workflow.getStageBuildRequests().get(1);
+        final List<BuildDetail> details = Collections.singletonList(BuildDetail.forStdErr("error".getBytes(UTF_8)));
+
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE, stage1)));
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE_FAILED, stage1, null, details)));
+        assertTrue(workflow.isFinished());
+        assertEquals(BuildState.UPDATING_SOURCE_FAILED, workflow.getState());
+
+        final BuildResponse response = workflow.getResponse();
+        assertNotNull(response);
+        assertEquals(BuildState.UPDATING_SOURCE_FAILED, response.getBuildState());
+        assertEquals(buildRequest, response.getBuildRequest());
+        assertEquals(details, response.getBuildDetails());
+
+        assertFalse(workflow.stageChanged(new BuildResponse(BuildState.UPDATING_SOURCE, stage2)));
+    }
+
+    @Test
+    public void keepsPartialResultsOfAbortedStage() {
+        final Workflow workflow = new Workflow(buildRequest, Arrays.asList("fillseq", "readrandom"));
+        final BuildRequest stage1 = workflow.getStageBuildRequests().get(0);
+        final BuildStats buildStats = new BuildStats(10, 20, 30);
+        buildStats.setMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC, 100);
+
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.BENCHMARKING, stage1)));
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.BENCHMARKING_ABORTED, stage1, buildStats, null)));
+        assertTrue(workflow.isFinished());
+
+        final BuildResponse response = workflow.getResponse();
+        assertNotNull(response);
+        assertEquals(BuildState.BENCHMARKING_ABORTED, response.getBuildState());
+        assertEquals(buildStats, response.getBuildStats());
+    }
+
+    private static void complete(final Workflow workflow, final BuildRequest stage, final BuildStats buildStats, final BuildDetail buildDetail) {
+        for (final BuildState buildState : Arrays.asList(BuildState.UPDATING_SOURCE, BuildState.UPDATING_SOURCE_COMPLETE, BuildState.BUILDING, BuildState.BUILDING_COMPLETE, BuildState.BENCHMARKING)) {
+            assertTrue(workflow.stageChanged(new BuildResponse(buildState, stage)));
+        }
+        assertTrue(workflow.stageChanged(new BuildResponse(BuildState.BENCHMARKING_COMPLETE, stage, buildStats, Collections.singletonList(buildDetail))));
+    }
+}
@@ -0,0 +1,91 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.changepoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangePointDetectorTest {
+
+    private static final SeriesKey SERIES_KEY = new SeriesKey("refs/heads/master", "db_bench", "benchmarkTime");
+
+    @Test
+    public void noChangeInNoise() {
+        final ChangePointDetector detector = new ChangePointDetector();
+        final Random random = new Random(1234);
+        for (int i = 0; i < 500; i++) {
+            final ChangePoint changePoint = detector.add(SERIES_KEY, "c" + i, 1000 + random.nextGaussian() * 10);
+            assertNull(changePoint, "Unexpected change point at: " + i);
+        }
+    }
+
+    @Test
+    public void detectsRegressionAtCommit() {
+        final ChangePointDetector detector = new ChangePointDetector();
+        final Random random = new Random(5678);
+
+        ChangePoint detected = null;
+        int detectedAt = -1;
+        for (int i = 0; i < 60 && detected == null; i++) {
+            final double level = i < 30 ? 1000 : 1200;
+            detected = detector.add(SERIES_KEY, "c" + i, level + random.nextGaussian() * 10);
+            detectedAt = i;
+        }
+
+        assertNotNull(detected);
+        assertEquals("c30", detected.getCommit());
+        assertTrue(detected.isIncrease());
+        assertEquals(0.2, detected.getRelativeChange(), 0.03);
+        assertEquals(1.0, detected.getEffectSize(), 0.01);
+        assertTrue(detected.getPValue() < ChangePointDetector.DEFAULT_SIGNIFICANCE);
+
+        // detected within a window of the change
+        assertTrue(detectedAt < 30 + ChangePointDetector.DEFAULT_WINDOW, "Detected late at: " + detectedAt);
+
+        // the new level is the baseline, so the same change is not reported again
+        for (int i = detectedAt + 1; i < 200; i++) {
+            assertNull(detector.add(SERIES_KEY, "c" + i, 1200 + random.nextGaussian() * 10), "Unexpected change point at: " + i);
+        }
+    }
+
+    @Test
+    public void detectsImprovement() {
+        final ChangePointDetector detector = new ChangePointDetector();
+        ChangePoint detected = null;
+        for (int i = 0; i < 40 && detected == null; i++) {
+            detected = detector.add(SERIES_KEY, "c" + i, i < 20 ? 1000 + (i % 3) : 700 + (i % 3));
+        }
+        assertNotNull(detected);
+        assertFalse(detected.isIncrease());
+        assertEquals("c20", detected.getCommit());
+    }
+
+    @Test
+    public void ignoresSmallSignificantChange() {
+        // a very consistent 2% change is significant, but below the minimum relative change
+        final ChangePointDetector detector = new ChangePointDetector();
+        for (int i = 0; i < 40; i++) {
+            assertNull(detector.add(SERIES_KEY, "c" + i, (i < 20 ? 1000 : 1020) + (i % 3)));
+        }
+    }
+
+    @Test
+    public void seriesAreIndependent() {
+        final ChangePointDetector detector = new ChangePointDetector();
+        final SeriesKey otherSeriesKey = new SeriesKey("refs/heads/other", "db_bench", "benchmarkTime");
+        ChangePoint detected = null;
+        for (int i = 0; i < 16; i++) {
+            assertNull(detector.add(SERIES_KEY, "c" + i, 1000 + (i % 3)));
+            detected = detector.add(otherSeriesKey, "c" + i, (i < 8 ? 2000 : 1000) + (i % 3));
+        }
+        assertNotNull(detected);
+        assertEquals(otherSeriesKey, detected.getSeriesKey());
+        assertEquals(2, detector.size());
+    }
+
+    @Test
+    public void invalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new ChangePointDetector(2, 0.01, 0.05));
+    }
+}
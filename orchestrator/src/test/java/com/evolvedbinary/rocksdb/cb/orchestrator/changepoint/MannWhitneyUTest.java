@@ -0,0 +1,60 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.changepoint;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MannWhitneyUTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void exactCompletelySeparated() {
+        final MannWhitneyU.Result result = MannWhitneyU.test(new double[] { 1, 2, 3, 4, 5 }, new double[] { 6, 7, 8, 9, 10 });
+        assertTrue(result.exact);
+        assertEquals(0, result.u, DELTA);
+        assertEquals(2.0 / 252.0, result.pValue, DELTA);
+        assertEquals(-1.0, result.effectSize, DELTA);
+    }
+
+    @Test
+    public void exactOverlapping() {
+        final MannWhitneyU.Result result = MannWhitneyU.test(new double[] { 19, 22, 16, 29, 24 }, new double[] { 20, 11, 17, 12 });
+        assertTrue(result.exact);
+        assertEquals(17, result.u, DELTA);
+        assertEquals(0.1111111, result.pValue, DELTA);
+        assertEquals(0.7, result.effectSize, DELTA);
+    }
+
+    @Test
+    public void normalApproximationWithTies() {
+        final MannWhitneyU.Result result = MannWhitneyU.test(new double[] { 1, 2, 2, 3, 4, 5, 5, 6 }, new double[] { 3, 4, 5, 6, 6, 7, 8, 9, 9, 10 });
+        assertFalse(result.exact);
+        assertEquals(11, result.u, DELTA);
+        assertEquals(0.0108306, result.pValue, 1e-5);
+    }
+
+    @Test
+    public void identicalSamples() {
+        final MannWhitneyU.Result result = MannWhitneyU.test(new double[] { 5, 5, 5 }, new double[] { 5, 5, 5 });
+        assertEquals(1.0, result.pValue, DELTA);
+        assertEquals(0, result.effectSize, DELTA);
+    }
+
+    @Test
+    public void uFrequenciesSumToCombinations() {
+        final double[] frequencies = MannWhitneyU.uFrequencies(8, 8);
+        double total = 0;
+        for (final double frequency : frequencies) {
+            total += frequency;
+        }
+        assertEquals(12870, total, DELTA);  // 16 choose 8
+        assertEquals(1, frequencies[0], DELTA);
+        assertEquals(1, frequencies[64], DELTA);
+    }
+
+    @Test
+    public void emptySample() {
+        assertThrows(IllegalArgumentException.class, () -> MannWhitneyU.test(new double[0], new double[] { 1 }));
+    }
+}
@@ -0,0 +1,123 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.store;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of recording state transitions,
+ * and the time taken to recover after a restart
+ * when there are many historical builds.
+ */
+public class RocksDBBuildStoreBenchmarkIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBBuildStoreBenchmarkIT.class);
+
+    private static final int HISTORICAL_BUILDS = 100_000;
+    private static final int ACTIVE_BUILDS = 1_000;
+    private static final int REFS = 50;
+    private static final int WRITER_THREADS = 4;
+
+    /**
+     * The transitions of a build that completes successfully.
+     */
+    private static final BuildState[] COMPLETE_BUILD_STATES = {
+            BuildState.REQUESTING,
+            BuildState.REQUESTED,
+            BuildState.UPDATING_SOURCE,
+            BuildState.UPDATING_SOURCE_COMPLETE,
+            BuildState.BUILDING,
+            BuildState.BUILDING_COMPLETE,
+            BuildState.BENCHMARKING,
+            BuildState.BENCHMARKING_COMPLETE
+    };
+
+    @Test
+    public void transitionThroughputAndRecoveryTime(@TempDir final Path tempDir) throws Exception {
+        final long expectedTransitions = (long) HISTORICAL_BUILDS * COMPLETE_BUILD_STATES.length + ACTIVE_BUILDS * 3L;
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final ExecutorService executorService = Executors.newFixedThreadPool(WRITER_THREADS);
+            try {
+                final AtomicInteger nextBuild = new AtomicInteger();
+                final long start = System.nanoTime();
+
+                final List<Future<Void>> writers = new ArrayList<>();
+                for (int i = 0; i < WRITER_THREADS; i++) {
+                    writers.add(executorService.submit(() -> {
+                        int build;
+                        while ((build = nextBuild.getAndIncrement()) < HISTORICAL_BUILDS + ACTIVE_BUILDS) {
+                            final BuildRequest buildRequest = new BuildRequest("repo", "refs/heads/branch-" + (build % REFS), "commit-" + build, "author");
+                            if (build < HISTORICAL_BUILDS) {
+                                writeCompleteBuild(buildStore, buildRequest);
+                            } else {
+                                writeActiveBuild(buildStore, buildRequest);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (final Future<Void> writer : writers) {
+                    writer.get();
+                }
+
+                final long elapsedNanos = System.nanoTime() - start;
+                final double transitionsPerSecond = expectedTransitions / (elapsedNanos / 1_000_000_000.0);
+                LOGGER.info("Recorded {} transitions for {} builds using {} threads in {} ms ({} transitions/s)",
+                        expectedTransitions, HISTORICAL_BUILDS + ACTIVE_BUILDS, WRITER_THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), String.format("%.0f", transitionsPerSecond));
+
+                assertEquals(expectedTransitions, buildStore.getTransitionCount());
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        // simulate a restart
+        final long start = System.nanoTime();
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final AtomicInteger recoveredBuilds = new AtomicInteger();
+            final AtomicInteger recoveredBacklog = new AtomicInteger();
+            buildStore.recover((buildRequest, buildState) -> {
+                assertEquals(BuildState.UPDATING_SOURCE, buildState);
+                recoveredBuilds.incrementAndGet();
+            }, buildRequest -> recoveredBacklog.incrementAndGet());
+
+            final long elapsedNanos = System.nanoTime() - start;
+            LOGGER.info("Reopened and recovered {} active builds from {} historical builds in {} ms",
+                    recoveredBuilds.get(), HISTORICAL_BUILDS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+            assertEquals(ACTIVE_BUILDS, recoveredBuilds.get());
+            assertEquals(0, recoveredBacklog.get());
+            assertEquals(expectedTransitions, buildStore.getTransitionCount());
+        }
+    }
+
+    private static void writeCompleteBuild(final BuildStore buildStore, final BuildRequest buildRequest) throws BuildStoreException {
+        BuildState fromState = null;
+        for (int i = 0; i < COMPLETE_BUILD_STATES.length - 1; i++) {
+            buildStore.putBuild(buildRequest, fromState, COMPLETE_BUILD_STATES[i]);
+            fromState = COMPLETE_BUILD_STATES[i];
+        }
+        buildStore.removeBuild(buildRequest, fromState, COMPLETE_BUILD_STATES[COMPLETE_BUILD_STATES.length - 1]);
+    }
+
+    private static void writeActiveBuild(final BuildStore buildStore, final BuildRequest buildRequest) throws BuildStoreException {
+        buildStore.putBuild(buildRequest, null, BuildState.REQUESTING);
+        buildStore.putBuild(buildRequest, BuildState.REQUESTING, BuildState.REQUESTED);
+        buildStore.putBuild(buildRequest, BuildState.REQUESTED, BuildState.UPDATING_SOURCE);
+    }
+}
@@ -0,0 +1,192 @@
+package com.evolvedbinary.rocksdb.cb.orchestrator.store;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BackfillRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildRequest;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildResponse;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildState;
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RocksDBBuildStoreTest {
+
+    @Test
+    public void recoverEmpty(@TempDir final Path tempDir) throws BuildStoreException {
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final Map<UUID, BuildState> recoveredBuilds = new HashMap<>();
+            final Map<String, BuildRequest> recoveredBacklog = new HashMap<>();
+            buildStore.recover((buildRequest, buildState) -> recoveredBuilds.put(buildRequest.getId(), buildState), buildRequest -> recoveredBacklog.put(buildRequest.getRef(), buildRequest));
+
+            assertTrue(recoveredBuilds.isEmpty());
+            assertTrue(recoveredBacklog.isEmpty());
+            assertEquals(0, buildStore.getTransitionCount());
+        }
+    }
+
+    @Test
+    public void recoverAfterReopen(@TempDir final Path tempDir) throws BuildStoreException {
+        final BuildRequest inProgress = new BuildRequest("repo1", "refs/heads/main", "commit1", "author1");
+        final BuildRequest completed = new BuildRequest("repo1", "refs/heads/main", "commit2", "author1");
+        final BuildRequest otherRef = new BuildRequest("repo1", "refs/heads/other", "commit3", "author2");
+        final BuildRequest backlogged = new BuildRequest("repo1", "refs/heads/main", "commit4", "author1");
+        final BuildRequest replacedBacklog = new BuildRequest("repo1", "refs/heads/other", "commit5", "author2");
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            buildStore.putBuild(inProgress, null, BuildState.REQUESTING);
+            buildStore.putBuild(inProgress, BuildState.REQUESTING, BuildState.REQUESTED);
+            buildStore.putBuild(inProgress, BuildState.REQUESTED, BuildState.UPDATING_SOURCE);
+
+            buildStore.putBuild(completed, null, BuildState.REQUESTING);
+            buildStore.putBuild(completed, BuildState.REQUESTING, BuildState.REQUESTED);
+            buildStore.removeBuild(completed, BuildState.REQUESTED, BuildState.UPDATING_SOURCE_FAILED);
+
+            buildStore.putBuild(otherRef, null, BuildState.REQUESTING);
+
+            buildStore.putBacklog(backlogged);
+            buildStore.putBacklog(replacedBacklog);
+            buildStore.removeBacklog(replacedBacklog.getRef());
+
+            assertEquals(7, buildStore.getTransitionCount());
+        }
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final Map<UUID, BuildState> recoveredBuilds = new HashMap<>();
+            final Map<String, BuildRequest> recoveredBacklog = new HashMap<>();
+            buildStore.recover((buildRequest, buildState) -> recoveredBuilds.put(buildRequest.getId(), buildState), buildRequest -> recoveredBacklog.put(buildRequest.getRef(), buildRequest));
+
+            assertEquals(2, recoveredBuilds.size());
+            assertEquals(BuildState.UPDATING_SOURCE, recoveredBuilds.get(inProgress.getId()));
+            assertEquals(BuildState.REQUESTING, recoveredBuilds.get(otherRef.getId()));
+            assertFalse(recoveredBuilds.containsKey(completed.getId()));
+
+            assertEquals(1, recoveredBacklog.size());
+            assertEquals(backlogged, recoveredBacklog.get(backlogged.getRef()));
+
+            // sequence numbers continue after reopening
+            assertEquals(7, buildStore.getTransitionCount());
+            buildStore.putBuild(otherRef, BuildState.REQUESTING, BuildState.REQUESTED);
+            assertEquals(8, buildStore.getTransitionCount());
+        }
+    }
+
+    @Test
+    public void recoverBackfillsAfterReopen(@TempDir final Path tempDir) throws BuildStoreException {
+        final BackfillRequest inProgress = new BackfillRequest("repo1", "refs/heads/main", "commit1", "commit3", "author1");
+        final List<String> inProgressCommits = Arrays.asList("commit1", "commit2", "commit3");
+        final BackfillRequest tags = new BackfillRequest("repo1", "refs/heads/main", Arrays.asList("v1", "v2"), "author1");
+        final List<String> tagsCommits = Arrays.asList("commit4", "commit5");
+        final BackfillRequest finished = new BackfillRequest("repo1", "refs/heads/main", "commit1", "commit2", "author1");
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            buildStore.putBackfill(inProgress, inProgressCommits, 0);
+            buildStore.putBackfill(inProgress, inProgressCommits, 2);
+            buildStore.putBackfill(tags, tagsCommits, 0);
+            buildStore.putBackfill(finished, Arrays.asList("commit1", "commit2"), 0);
+            buildStore.removeBackfill(finished.getId());
+        }
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final Map<BackfillRequest, List<String>> recoveredCommits = new HashMap<>();
+            final Map<BackfillRequest, Integer> recoveredDispatched = new HashMap<>();
+            buildStore.recoverBackfills((backfillRequest, commits, dispatched) -> {
+                recoveredCommits.put(backfillRequest, commits);
+                recoveredDispatched.put(backfillRequest, dispatched);
+            });
+
+            assertEquals(2, recoveredCommits.size());
+            assertEquals(inProgressCommits, recoveredCommits.get(inProgress));
+            assertEquals(2, recoveredDispatched.get(inProgress));
+            assertEquals(tagsCommits, recoveredCommits.get(tags));
+            assertEquals(0, recoveredDispatched.get(tags));
+        }
+    }
+
+    @Test
+    public void recoverWorkflowsAfterReopen(@TempDir final Path tempDir) throws BuildStoreException {
+        final BuildRequest inProgress = new BuildRequest("repo1", "refs/heads/main", "commit1", "author1");
+        final BuildRequest fillseqStage = inProgress.toBuilder().id(UUID.randomUUID()).benchmark("fillseq").build();
+        final BuildRequest readrandomStage = inProgress.toBuilder().id(UUID.randomUUID()).benchmark("readrandom").build();
+        final BuildResponse fillseqResponse = new BuildResponse(BuildState.BENCHMARKING_COMPLETE, fillseqStage, new BuildStats(1, 2, 3), null);
+        final BuildRequest finished = new BuildRequest("repo1", "refs/heads/main", "commit2", "author1");
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            buildStore.putWorkflow(inProgress, Arrays.asList(fillseqStage, readrandomStage), Collections.emptyList());
+            buildStore.putWorkflow(inProgress, Arrays.asList(fillseqStage, readrandomStage), Collections.singletonList(fillseqResponse));
+            buildStore.putWorkflow(finished, Collections.singletonList(finished.toBuilder().id(UUID.randomUUID()).benchmark("fillseq").build()), Collections.emptyList());
+            buildStore.removeWorkflow(finished.getId());
+        }
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final Map<BuildRequest, List<BuildRequest>> recoveredStages = new HashMap<>();
+            final Map<BuildRequest, List<BuildResponse>> recoveredResponses = new HashMap<>();
+            buildStore.recoverWorkflows((buildRequest, stageBuildRequests, stageResponses) -> {
+                recoveredStages.put(buildRequest, stageBuildRequests);
+                recoveredResponses.put(buildRequest, stageResponses);
+            });
+
+            assertEquals(1, recoveredStages.size());
+            assertEquals(Arrays.asList(fillseqStage, readrandomStage), recoveredStages.get(inProgress));
+            assertEquals(Collections.singletonList(fillseqResponse), recoveredResponses.get(inProgress));
+        }
+    }
+
+    @Test
+    public void recoverSkippedAfterReopen(@TempDir final Path tempDir) throws BuildStoreException {
+        final BuildRequest skipped = new BuildRequest("repo1", "refs/heads/main", "commit1", "author1");
+        final BuildRequest built = new BuildRequest("repo1", "refs/heads/main", "commit2", "author1");
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            buildStore.putSkipped(skipped);
+            buildStore.putSkipped(built);
+            buildStore.removeSkipped(built.getId());
+        }
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final List<BuildRequest> recovered = new ArrayList<>();
+            buildStore.recoverSkipped(recovered::add);
+
+            assertEquals(Collections.singletonList(skipped), recovered);
+        }
+    }
+
+    @Test
+    public void buildKeyIsNotAmbiguousBetweenRefs() {
+        final UUID id = UUID.randomUUID();
+        final BuildRequest a = new BuildRequest(id, ZonedDateTime.now(), "repo1", "refs/heads/a", "commit1", "author1");
+        final BuildRequest ab = new BuildRequest(id, ZonedDateTime.now(), "repo1", "refs/heads/ab", "commit1", "author1");
+        assertFalse(Arrays.equals(RocksDBBuildStore.buildKey(a), RocksDBBuildStore.buildKey(ab)));
+    }
+
+    @Test
+    public void recoverSchedulesAfterReopen(@TempDir final Path tempDir) throws BuildStoreException {
+        final ZonedDateTime firedTime1 = ZonedDateTime.parse("2021-03-17T02:00:05Z");
+        final ZonedDateTime firedTime2 = ZonedDateTime.parse("2021-03-18T02:00:07Z");
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            buildStore.putSchedule("nightly", firedTime1);
+            buildStore.putSchedule("nightly", firedTime2);
+            buildStore.putSchedule("weekly", firedTime1);
+        }
+
+        try (final RocksDBBuildStore buildStore = RocksDBBuildStore.open(tempDir)) {
+            final Map<String, ZonedDateTime> recovered = new HashMap<>();
+            buildStore.recoverSchedules(recovered::put);
+
+            assertEquals(2, recovered.size());
+            assertEquals(firedTime2, recovered.get("nightly"));
+            assertEquals(firedTime1, recovered.get("weekly"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancels the processes which are started on behalf of a build.
+ *
+ * When cancelled, each process which was started with the cancellation
+ * is terminated along with all of its descendant processes, see
+ * {@link ProcessHelper#terminateTree(Process)}. A process which is
+ * started after the cancellation is terminated immediately.
+ *
+ * A child cancellation cancels just the processes started with it, e.g.
+ * those of a single benchmark, and is cancelled along with its parent.
+ */
+@ThreadSafe
+public class Cancellation {
+
+    @GuardedBy("this") private final List<Process> processes = new ArrayList<>();
+    @GuardedBy("this") private final List<Cancellation> children = new ArrayList<>();
+    @GuardedBy("this") private boolean cancelled;
+
+    /**
+     * Cancel, terminating the process trees which were started with the cancellation.
+     *
+     * Blocks until the processes have exited, which may take up to
+     * the grace period that they are given to exit after SIGTERM.
+     *
+     * @return true if this call cancelled, false if it was already cancelled
+     */
+    public boolean cancel() {
+        final List<Process> cancelledProcesses;
+        final List<Cancellation> cancelledChildren;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+
+            cancelledProcesses = new ArrayList<>(processes);
+            processes.clear();
+            cancelledChildren = new ArrayList<>(children);
+            children.clear();
+        }
+
+        // terminate outside of the lock, as it may take up to the grace period
+        for (final Process process : cancelledProcesses) {
+            ProcessHelper.terminateTree(process);
+        }
+        for (final Cancellation child : cancelledChildren) {
+            child.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Create a child cancellation, which may be cancelled without
+     * cancelling this, but which is cancelled when this is cancelled.
+     *
+     * @return the child cancellation, already cancelled if this has been cancelled
+     */
+    public synchronized Cancellation newChild() {
+        final Cancellation child = new Cancellation();
+        if (cancelled) {
+            child.cancel();
+        } else {
+            children.add(child);
+        }
+        return child;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    void register(final Process process) {
+        synchronized (this) {
+            if (!cancelled) {
+                processes.add(process);
+                return;
+            }
+        }
+        ProcessHelper.terminateTree(process);
+    }
+}
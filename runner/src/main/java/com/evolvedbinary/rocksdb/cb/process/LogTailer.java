@@ -0,0 +1,89 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Incrementally reads the lines which are appended to a log file
+ * whilst it is being written.
+ *
+ * Each poll reads only from where the previous poll finished,
+ * so the log file is never re-read from its start. A line which
+ * has not yet been terminated is held back until it is complete.
+ */
+public class LogTailer {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Path logFile;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private long position;
+
+    public LogTailer(final Path logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Read the lines which have been completed since the previous poll.
+     *
+     * @return the completed lines, empty if there are none or the log file does not yet exist
+     *
+     * @throws IOException if the log file cannot be read
+     */
+    public List<String> poll() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        if (!Files.exists(logFile)) {
+            return lines;
+        }
+
+        try (final FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            if (channel.size() < position) {
+                // the log file was truncated, so start again
+                position = 0;
+                partialLine.reset();
+            }
+
+            channel.position(position);
+            int read;
+            while ((read = channel.read(buffer)) > 0) {
+                position += read;
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    final byte b = buffer.get();
+                    if (b == '\n') {
+                        lines.add(stripCarriageReturn(new String(partialLine.toByteArray(), UTF_8)));
+                        partialLine.reset();
+                    } else {
+                        partialLine.write(b);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * Get the position in the log file that has been read up to.
+     *
+     * @return the number of bytes read
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    private static String stripCarriageReturn(final String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
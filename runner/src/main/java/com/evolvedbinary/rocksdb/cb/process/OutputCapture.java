@@ -0,0 +1,170 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Captures an output stream of a process, e.g. its stdout, without
+ * the output ever being held in memory or on disk in its entirety.
+ *
+ * A dedicated thread pumps the output as it is produced into both
+ * a zstd compressed log file, see {@link ZstdFrameOutputStream}, and
+ * a {@link RingBuffer} which holds only the last of the output, so
+ * that a failure can be reported without reading back the log file.
+ *
+ * If the log file cannot be written, e.g. the disk is full, then the
+ * output is still drained into the tail until it ends, so that the
+ * process never blocks on a full pipe.
+ */
+public class OutputCapture {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutputCapture.class);
+
+    /**
+     * System property which sets the number of bytes at the end of the output that are held in memory.
+     */
+    public static final String TAIL_SIZE_PROPERTY = "cb.runner.output.tail.size";
+    public static final int DEFAULT_TAIL_SIZE = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path logFile;
+    private final RingBuffer tail;
+    private final Thread pump;
+    @Nullable private volatile IOException error;
+
+    private OutputCapture(final InputStream in, final Path logFile, final int tailSize, final String threadName) {
+        this.logFile = logFile;
+        this.tail = new RingBuffer(tailSize);
+        this.pump = new Thread(() -> pump(in), threadName);
+        this.pump.setDaemon(true);
+    }
+
+    /**
+     * Start capturing an output stream of a process.
+     *
+     * @param in the output stream of the process
+     * @param logFile the file to write the compressed output to
+     * @param tailSize the number of bytes at the end of the output to hold in memory
+     * @param threadName the name of the thread which pumps the output
+     *
+     * @return the output capture
+     */
+    public static OutputCapture start(final InputStream in, final Path logFile, final int tailSize, final String threadName) {
+        final OutputCapture outputCapture = new OutputCapture(in, logFile, tailSize, threadName);
+        outputCapture.pump.start();
+        return outputCapture;
+    }
+
+    private void pump(final InputStream in) {
+        @Nullable OutputStream os;
+        try {
+            os = new ZstdFrameOutputStream(new BufferedOutputStream(Files.newOutputStream(logFile)));
+        } catch (final IOException e) {
+            writeFailed(null, e);
+            os = null;
+        }
+
+        try (final InputStream is = in) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                tail.write(buffer, 0, read);
+                if (os != null) {
+                    try {
+                        os.write(buffer, 0, read);
+                    } catch (final IOException e) {
+                        writeFailed(os, e);
+                        os = null;  // keep draining into the tail
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Unable to read output for: {}. Error: {}", logFile.toAbsolutePath(), e.getMessage(), e);
+            error = e;
+        }
+
+        if (os != null) {
+            try {
+                os.close();
+            } catch (final IOException e) {
+                writeFailed(null, e);
+            }
+        }
+    }
+
+    /**
+     * Record a failure to write the log file, and close it.
+     *
+     * @param os the stream of the log file, or null if it is not open
+     * @param e the failure
+     */
+    private void writeFailed(@Nullable final OutputStream os, final IOException e) {
+        LOGGER.error("Unable to write output to: {}, only its tail will be kept. Error: {}", logFile.toAbsolutePath(), e.getMessage(), e);
+        if (error == null) {
+            error = e;
+        }
+        if (os != null) {
+            try {
+                os.close();
+            } catch (final IOException ce) {
+                // already failed
+            }
+        }
+    }
+
+    /**
+     * Wait for the output to end, i.e. for the process and any
+     * descendants which inherited the output stream to exit,
+     * and for the log file to be completely written.
+     *
+     * @param timeout the most milliseconds to wait
+     *
+     * @return true if the output ended, false if the timeout elapsed first
+     *
+     * @throws IOException if the log file could not be written, or the output could not be read
+     * @throws InterruptedException if interrupted whilst waiting
+     */
+    public boolean await(final long timeout) throws IOException, InterruptedException {
+        pump.join(timeout);
+        if (pump.isAlive()) {
+            return false;
+        }
+
+        @Nullable final IOException error = this.error;
+        if (error != null) {
+            throw error;
+        }
+        return true;
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Get the end of the output.
+     *
+     * @return the last bytes of the output, at most the tail size
+     */
+    public byte[] getTail() {
+        return tail.toByteArray();
+    }
+
+    /**
+     * Get the size of the output.
+     *
+     * @return the number of bytes of output, before compression
+     */
+    public long getSize() {
+        return tail.getWritten();
+    }
+}
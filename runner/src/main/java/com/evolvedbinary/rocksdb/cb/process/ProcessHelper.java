@@ -11,8 +11,13 @@ import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.INTERRUPTED_EXIT_CODE;
 import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
@@ -23,14 +28,66 @@ public class ProcessHelper {
 
     private static final DateTimeFormatter BASIC_ISO_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
 
+    /**
+     * The most time to wait, after a process has exited, for its captured output to end,
+     * e.g. whilst a descendant process which inherited its output is still running.
+     */
+    private static final long OUTPUT_DRAIN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * A timeout for {@link #waitFor(ProcessInfo, long)} which waits for as long as the process runs.
+     */
+    public static final long NO_TIMEOUT = 0;
+
+    /**
+     * System property which sets the milliseconds that a process tree which has timed out,
+     * or been cancelled, is given to exit after SIGTERM, before it is sent SIGKILL.
+     */
+    public static final String TERMINATE_GRACE_PERIOD_PROPERTY = "cb.runner.terminate.grace.period";
+    public static final long DEFAULT_TERMINATE_GRACE_PERIOD = TimeUnit.SECONDS.toMillis(10);
+
     public static ProcessInfo start(final Path workingDirectory, @Nullable final Map<String, String> environmentVariables,
             final String command, final List<String> arguments, final Path logDir, final String logFilePrefix) throws IOException {
+        return start(workingDirectory, environmentVariables, command, arguments, logDir, logFilePrefix, null);
+    }
+
+    /**
+     * @param cancellation if not null, the process is terminated along with its descendants when it is cancelled
+     */
+    public static ProcessInfo start(final Path workingDirectory, @Nullable final Map<String, String> environmentVariables,
+            final String command, final List<String> arguments, final Path logDir, final String logFilePrefix,
+            @Nullable final Cancellation cancellation) throws IOException {
+        return start(workingDirectory, environmentVariables, command, arguments, logDir, logFilePrefix, cancellation, false);
+    }
+
+    /**
+     * @param cancellation if not null, the process is terminated along with its descendants when it is cancelled
+     * @param sampleResources true to sample the resource usage of the process tree until {@link #waitFor(ProcessInfo)} returns,
+     *     see {@link ResourceSampler}
+     */
+    public static ProcessInfo start(final Path workingDirectory, @Nullable final Map<String, String> environmentVariables,
+            final String command, final List<String> arguments, final Path logDir, final String logFilePrefix,
+            @Nullable final Cancellation cancellation, final boolean sampleResources) throws IOException {
+        return start(workingDirectory, environmentVariables, command, arguments, logDir, logFilePrefix, cancellation, sampleResources, false);
+    }
+
+    /**
+     * @param cancellation if not null, the process is terminated along with its descendants when it is cancelled
+     * @param sampleResources true to sample the resource usage of the process tree until {@link #waitFor(ProcessInfo)} returns,
+     *     see {@link ResourceSampler}
+     * @param captureOutput true to capture the output of the process into zstd compressed log files and
+     *     in-memory tails, see {@link OutputCapture}, or false to redirect it to plain log files
+     */
+    public static ProcessInfo start(final Path workingDirectory, @Nullable final Map<String, String> environmentVariables,
+            final String command, final List<String> arguments, final Path logDir, final String logFilePrefix,
+            @Nullable final Cancellation cancellation, final boolean sampleResources, final boolean captureOutput) throws IOException {
 
         final LocalDateTime localDateTime = LocalDateTime.now();
         final String dateTimeStamp = localDateTime.format(BASIC_ISO_DATE_TIME);
 
-        final Path stdOutputLogFile = logDir.resolve(logFilePrefix + ".stdout." + dateTimeStamp + ".log");
-        final Path stdErrorLogFile = logDir.resolve(logFilePrefix + ".stderr." + dateTimeStamp + ".log");
+        final String logFileSuffix = captureOutput ? ".log.zst" : ".log";
+        final Path stdOutputLogFile = logDir.resolve(logFilePrefix + ".stdout." + dateTimeStamp + logFileSuffix);
+        final Path stdErrorLogFile = logDir.resolve(logFilePrefix + ".stderr." + dateTimeStamp + logFileSuffix);
 
         final ProcessBuilder processBuilder = new ProcessBuilder()
                 .directory(workingDirectory.toFile());
@@ -44,24 +101,143 @@ public class ProcessHelper {
         commandAndArgs.addAll(arguments);
         processBuilder.command(commandAndArgs);
 
-        processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(stdOutputLogFile.toFile()));
-        processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(stdErrorLogFile.toFile()));
+        if (!captureOutput) {
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(stdOutputLogFile.toFile()));
+            processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(stdErrorLogFile.toFile()));
+        }
 
         LOGGER.info("Executing: {} with environment [{}] and arguments [{}]", command, MapUtil.asString(environmentVariables), ListUtil.asString(arguments));
 
         final Process process = processBuilder.start();
-        return new ProcessInfo(stdOutputLogFile, stdErrorLogFile, process);
+        if (cancellation != null) {
+            cancellation.register(process);
+        }
+        final ResourceSampler resourceSampler = sampleResources ? ResourceSampler.start(process) : null;
+
+        OutputCapture stdOutputCapture = null;
+        OutputCapture stdErrorCapture = null;
+        if (captureOutput) {
+            final int tailSize = Integer.getInteger(OutputCapture.TAIL_SIZE_PROPERTY, OutputCapture.DEFAULT_TAIL_SIZE);
+            stdOutputCapture = OutputCapture.start(process.getInputStream(), stdOutputLogFile, tailSize, logFilePrefix + ".stdout");
+            stdErrorCapture = OutputCapture.start(process.getErrorStream(), stdErrorLogFile, tailSize, logFilePrefix + ".stderr");
+        }
+
+        return new ProcessInfo(stdOutputLogFile, stdErrorLogFile, process, resourceSampler, stdOutputCapture, stdErrorCapture);
+    }
+
+    /**
+     * Terminate a process and all of its descendants, e.g. the compilers started by {@code make},
+     * with the grace period set by {@link #TERMINATE_GRACE_PERIOD_PROPERTY}.
+     *
+     * @param process the process
+     */
+    public static void terminateTree(final Process process) {
+        terminateTree(process, Long.getLong(TERMINATE_GRACE_PERIOD_PROPERTY, DEFAULT_TERMINATE_GRACE_PERIOD));
+    }
+
+    /**
+     * Terminate a process and all of its descendants, first gracefully with SIGTERM,
+     * and then forcibly with SIGKILL for any which have not exited within the grace period.
+     *
+     * The descendants are found before any process is terminated,
+     * as once terminated its children are re-parented and can no longer be found.
+     *
+     * @param process the process
+     * @param gracePeriod the milliseconds to wait for the processes to exit before they are killed
+     */
+    public static void terminateTree(final Process process, final long gracePeriod) {
+        final List<ProcessHandle> processHandles = tree(process.toHandle());
+        for (final ProcessHandle processHandle : processHandles) {
+            processHandle.destroy();
+        }
+
+        final long deadline = System.currentTimeMillis() + gracePeriod;
+        try {
+            for (final ProcessHandle processHandle : processHandles) {
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                processHandle.onExit().get(remaining, TimeUnit.MILLISECONDS);
+            }
+        } catch (final TimeoutException | ExecutionException e) {
+            // the survivors are killed below
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();  // reset the interrupted thread
+        }
+
+        // kill the survivors, along with any processes they started in the meantime
+        for (final ProcessHandle processHandle : processHandles) {
+            if (processHandle.isAlive()) {
+                for (final ProcessHandle survivor : tree(processHandle)) {
+                    if (survivor.destroyForcibly()) {
+                        LOGGER.info("Killed process: {}", survivor.pid());
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<ProcessHandle> tree(final ProcessHandle processHandle) {
+        final List<ProcessHandle> processHandles = new ArrayList<>();
+        processHandles.add(processHandle);
+        processHandles.addAll(processHandle.descendants().collect(Collectors.toList()));
+        return processHandles;
     }
 
     public static int waitFor(final ProcessInfo processInfo) {
+        return waitFor(processInfo, NO_TIMEOUT);
+    }
+
+    /**
+     * Wait for a process to exit, terminating it along with all of its descendants,
+     * see {@link #terminateTree(Process, long)}, if it runs for longer than the timeout.
+     *
+     * @param processInfo the process
+     * @param timeout the most milliseconds to wait for the process to exit, or {@link #NO_TIMEOUT}
+     *
+     * @return the exit code of the process, if it timed out then {@link ProcessInfo#isTimedOut()} is also set
+     */
+    public static int waitFor(final ProcessInfo processInfo, final long timeout) {
         int exitCode = NORMAL_EXIT_CODE;
         try {
-            exitCode = processInfo.process.waitFor();
+            if (timeout > NO_TIMEOUT) {
+                if (processInfo.process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+                    exitCode = processInfo.process.exitValue();
+                } else {
+                    LOGGER.warn("Process: {} did not exit within: {} ms, terminating it", processInfo.process.pid(), timeout);
+                    processInfo.setTimedOut();
+                    terminateTree(processInfo.process);
+                    exitCode = processInfo.process.waitFor();
+                }
+            } else {
+                exitCode = processInfo.process.waitFor();
+            }
         } catch (final InterruptedException e) {
             Thread.currentThread().interrupt();  // reset the interrupted thread
             exitCode = INTERRUPTED_EXIT_CODE;
         }
 
+        if (processInfo.resourceSampler != null) {
+            processInfo.resourceSampler.stop();
+        }
+
+        for (final OutputCapture outputCapture : Arrays.asList(processInfo.stdOutputCapture, processInfo.stdErrorCapture)) {
+            if (outputCapture == null) {
+                continue;
+            }
+            try {
+                if (!outputCapture.await(OUTPUT_DRAIN_TIMEOUT)) {
+                    LOGGER.warn("Output of process: {} has not ended, its log file: {} may be incomplete", processInfo.process.pid(), outputCapture.getLogFile().toAbsolutePath());
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();  // reset the interrupted thread
+                exitCode = INTERRUPTED_EXIT_CODE;
+            } catch (final IOException e) {
+                // already logged by the capture, the exit code of the process still stands
+            }
+        }
+
         return exitCode;
     }
 }
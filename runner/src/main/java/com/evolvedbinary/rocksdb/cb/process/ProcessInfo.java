@@ -1,15 +1,56 @@
 package com.evolvedbinary.rocksdb.cb.process;
 
+import javax.annotation.Nullable;
 import java.nio.file.Path;
 
 public class ProcessInfo {
     public final Path stdOutputLogFile;
     public final Path stdErrorLogFile;
     public final Process process;
+    @Nullable public final ResourceSampler resourceSampler;
+    /**
+     * The captures of the stdout and stderr of the process,
+     * or null if its output is redirected to plain log files.
+     */
+    @Nullable public final OutputCapture stdOutputCapture;
+    @Nullable public final OutputCapture stdErrorCapture;
+
+    private volatile boolean timedOut;
 
     public ProcessInfo(final Path stdOutputLogFile, final Path stdErrorLogFile, final Process process) {
+        this(stdOutputLogFile, stdErrorLogFile, process, null);
+    }
+
+    /**
+     * @param resourceSampler the sampler of the resource usage of the process, or null if it is not sampled
+     */
+    public ProcessInfo(final Path stdOutputLogFile, final Path stdErrorLogFile, final Process process, @Nullable final ResourceSampler resourceSampler) {
+        this(stdOutputLogFile, stdErrorLogFile, process, resourceSampler, null, null);
+    }
+
+    /**
+     * @param resourceSampler the sampler of the resource usage of the process, or null if it is not sampled
+     * @param stdOutputCapture the capture of the stdout of the process, or null if it is redirected to a plain log file
+     * @param stdErrorCapture the capture of the stderr of the process, or null if it is redirected to a plain log file
+     */
+    public ProcessInfo(final Path stdOutputLogFile, final Path stdErrorLogFile, final Process process, @Nullable final ResourceSampler resourceSampler, @Nullable final OutputCapture stdOutputCapture, @Nullable final OutputCapture stdErrorCapture) {
         this.stdOutputLogFile = stdOutputLogFile;
         this.stdErrorLogFile = stdErrorLogFile;
         this.process = process;
+        this.resourceSampler = resourceSampler;
+        this.stdOutputCapture = stdOutputCapture;
+        this.stdErrorCapture = stdErrorCapture;
+    }
+
+    /**
+     * @return true if the process was terminated by {@link ProcessHelper#waitFor(ProcessInfo, long)}
+     *     because it ran for longer than the timeout
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    void setTimedOut() {
+        this.timedOut = true;
     }
 }
@@ -0,0 +1,86 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+/**
+ * The resource usage of a process tree at a point in time.
+ *
+ * Apart from {@link #rssKb} and {@link #deviceUtilisation}, the values
+ * are cumulative since the process started, and include the usage of
+ * any descendant processes which have since exited.
+ */
+public class ResourceSample {
+    /** Milliseconds since sampling started. */
+    public final long time;
+    public final long cpuUserMillis;
+    public final long cpuSysMillis;
+    public final long rssKb;
+    public final long peakRssKb;
+    public final long readBytes;
+    public final long writeBytes;
+    public final long voluntaryContextSwitches;
+    public final long involuntaryContextSwitches;
+    /** The utilisation of the busiest block device since the previous sample, in tenths of a percent. */
+    public final long deviceUtilisation;
+
+    public ResourceSample(final long time, final long cpuUserMillis, final long cpuSysMillis, final long rssKb, final long peakRssKb, final long readBytes, final long writeBytes, final long voluntaryContextSwitches, final long involuntaryContextSwitches, final long deviceUtilisation) {
+        this.time = time;
+        this.cpuUserMillis = cpuUserMillis;
+        this.cpuSysMillis = cpuSysMillis;
+        this.rssKb = rssKb;
+        this.peakRssKb = peakRssKb;
+        this.readBytes = readBytes;
+        this.writeBytes = writeBytes;
+        this.voluntaryContextSwitches = voluntaryContextSwitches;
+        this.involuntaryContextSwitches = involuntaryContextSwitches;
+        this.deviceUtilisation = deviceUtilisation;
+    }
+
+    long[] toArray() {
+        return new long[] { time, cpuUserMillis, cpuSysMillis, rssKb, peakRssKb, readBytes, writeBytes, voluntaryContextSwitches, involuntaryContextSwitches, deviceUtilisation };
+    }
+
+    static ResourceSample fromArray(final long[] values) {
+        return new ResourceSample(values[0], values[1], values[2], values[3], values[4], values[5], values[6], values[7], values[8], values[9]);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final ResourceSample that = (ResourceSample) o;
+
+        if (time != that.time) return false;
+        if (cpuUserMillis != that.cpuUserMillis) return false;
+        if (cpuSysMillis != that.cpuSysMillis) return false;
+        if (rssKb != that.rssKb) return false;
+        if (peakRssKb != that.peakRssKb) return false;
+        if (readBytes != that.readBytes) return false;
+        if (writeBytes != that.writeBytes) return false;
+        if (voluntaryContextSwitches != that.voluntaryContextSwitches) return false;
+        if (involuntaryContextSwitches != that.involuntaryContextSwitches) return false;
+        return deviceUtilisation == that.deviceUtilisation;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (time ^ (time >>> 32));
+        result = 31 * result + (int) (cpuUserMillis ^ (cpuUserMillis >>> 32));
+        result = 31 * result + (int) (cpuSysMillis ^ (cpuSysMillis >>> 32));
+        result = 31 * result + (int) (rssKb ^ (rssKb >>> 32));
+        result = 31 * result + (int) (peakRssKb ^ (peakRssKb >>> 32));
+        result = 31 * result + (int) (readBytes ^ (readBytes >>> 32));
+        result = 31 * result + (int) (writeBytes ^ (writeBytes >>> 32));
+        result = 31 * result + (int) (voluntaryContextSwitches ^ (voluntaryContextSwitches >>> 32));
+        result = 31 * result + (int) (involuntaryContextSwitches ^ (involuntaryContextSwitches >>> 32));
+        result = 31 * result + (int) (deviceUtilisation ^ (deviceUtilisation >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceSample(time=" + time + ", cpuUserMillis=" + cpuUserMillis + ", cpuSysMillis=" + cpuSysMillis
+                + ", rssKb=" + rssKb + ", peakRssKb=" + peakRssKb + ", readBytes=" + readBytes + ", writeBytes=" + writeBytes
+                + ", voluntaryContextSwitches=" + voluntaryContextSwitches + ", involuntaryContextSwitches=" + involuntaryContextSwitches
+                + ", deviceUtilisation=" + deviceUtilisation + ")";
+    }
+}
@@ -0,0 +1,311 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Periodically samples the resource usage of a process tree from {@code /proc},
+ * until the process exits or the sampler is stopped.
+ *
+ * Each sample reads {@code /proc/<pid>/stat}, {@code /proc/<pid>/io}, and
+ * {@code /proc/<pid>/status} of the process and each of its descendants,
+ * and {@code /proc/diskstats}. The CPU time and I/O of descendants which
+ * have exited are included, as the kernel adds them to their parent
+ * once they are reaped.
+ *
+ * To keep the overhead of sampling below 1% of a CPU, the interval
+ * between samples is doubled whenever taking a sample costs more
+ * than 1% of the interval.
+ *
+ * Sampling requires Linux, on other platforms {@link #start(Process)}
+ * returns null.
+ */
+public class ResourceSampler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceSampler.class);
+
+    /**
+     * System property which sets the initial interval
+     * in milliseconds between samples.
+     */
+    public static final String INTERVAL_PROPERTY = "cb.runner.sampler.interval";
+    static final long DEFAULT_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    // the clock ticks of /proc/<pid>/stat are USER_HZ, which is 100 on all mainstream Linux platforms
+    private static final long MILLIS_PER_CLOCK_TICK = 10;
+
+    private static final Path PROC = Paths.get("/proc");
+    private static final Path DISKSTATS = PROC.resolve("diskstats");
+
+    private final Process process;
+    private final ResourceSeries series = new ResourceSeries();
+    private final Thread thread;
+    private final long startTime = System.currentTimeMillis();
+    private volatile boolean stopped;
+
+    private long interval;
+    private long peakRssKb;
+    @Nullable private Map<String, Long> lastDeviceIoTicks;
+    private long lastDeviceIoTime;
+
+    private ResourceSampler(final Process process, final long interval) {
+        this.process = process;
+        this.interval = interval;
+        this.thread = new Thread(this::run, "ResourceSampler-" + process.pid());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * @return true if resource sampling is supported on this platform
+     */
+    public static boolean isSupported() {
+        return Files.isReadable(PROC.resolve("self").resolve("stat"));
+    }
+
+    /**
+     * Start sampling the resource usage of a process tree.
+     *
+     * @param process the root process of the tree
+     *
+     * @return the sampler, or null if sampling is not supported on this platform
+     */
+    public static @Nullable ResourceSampler start(final Process process) {
+        if (!isSupported()) {
+            return null;
+        }
+        final ResourceSampler sampler = new ResourceSampler(process, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL));
+        sampler.thread.start();
+        return sampler;
+    }
+
+    /**
+     * Stop sampling, if the process has not already exited.
+     *
+     * May be called more than once.
+     *
+     * @return the samples which were taken
+     */
+    public ResourceSeries stop() {
+        stopped = true;
+        thread.interrupt();
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();  // reset the interrupted thread
+        }
+        return series;
+    }
+
+    private void run() {
+        while (!stopped && process.isAlive()) {
+            final long sampleStart = System.nanoTime();
+            final ResourceSample sample = sample();
+            if (sample != null) {
+                series.add(sample);
+            }
+            final long sampleCost = System.nanoTime() - sampleStart;
+
+            // back off if sampling costs more than 1% of the interval
+            if (sampleCost * 100 > TimeUnit.MILLISECONDS.toNanos(interval) && interval < MAX_INTERVAL) {
+                interval = Math.min(interval * 2, MAX_INTERVAL);
+                LOGGER.debug("Sampling process tree: {} took {}µs, increased the interval to {}ms", process.pid(), TimeUnit.NANOSECONDS.toMicros(sampleCost), interval);
+            }
+
+            try {
+                Thread.sleep(interval);
+            } catch (final InterruptedException e) {
+                return;  // stopped
+            }
+        }
+    }
+
+    /**
+     * Take a sample of the process tree.
+     *
+     * @return the sample, or null if the process has exited
+     */
+    private @Nullable ResourceSample sample() {
+        final List<ProcessHandle> processHandles = new ArrayList<>();
+        processHandles.add(process.toHandle());
+        processHandles.addAll(process.descendants().collect(Collectors.toList()));
+
+        long utime = 0;
+        long stime = 0;
+        long rssKb = 0;
+        long maxHwmKb = 0;
+        long readBytes = 0;
+        long writeBytes = 0;
+        long voluntaryContextSwitches = 0;
+        long involuntaryContextSwitches = 0;
+        boolean sampled = false;
+
+        for (final ProcessHandle processHandle : processHandles) {
+            final Path procDir = PROC.resolve(Long.toString(processHandle.pid()));
+            try {
+                final long[] stat = parseStat(readString(procDir.resolve("stat")));
+                utime += stat[0];
+                stime += stat[1];
+
+                final Map<String, Long> status = parseKeyValues(readString(procDir.resolve("status")));
+                rssKb += status.getOrDefault("VmRSS", 0L);
+                maxHwmKb = Math.max(maxHwmKb, status.getOrDefault("VmHWM", 0L));
+                voluntaryContextSwitches += status.getOrDefault("voluntary_ctxt_switches", 0L);
+                involuntaryContextSwitches += status.getOrDefault("nonvoluntary_ctxt_switches", 0L);
+
+                sampled = true;
+
+                // only readable by the owner of the process
+                final Map<String, Long> io = parseKeyValues(readString(procDir.resolve("io")));
+                readBytes += io.getOrDefault("read_bytes", 0L);
+                writeBytes += io.getOrDefault("write_bytes", 0L);
+
+            } catch (final IOException e) {
+                // the process exited whilst it was being sampled
+                LOGGER.trace("Unable to sample process: {}: {}", processHandle.pid(), e.getMessage());
+            }
+        }
+
+        if (!sampled) {
+            return null;
+        }
+
+        // the peak is at least the highest total seen, or the highest peak of any single process
+        peakRssKb = Math.max(peakRssKb, Math.max(rssKb, maxHwmKb));
+
+        return new ResourceSample(System.currentTimeMillis() - startTime, utime * MILLIS_PER_CLOCK_TICK, stime * MILLIS_PER_CLOCK_TICK, rssKb, peakRssKb, readBytes, writeBytes, voluntaryContextSwitches, involuntaryContextSwitches, sampleDeviceUtilisation());
+    }
+
+    /**
+     * Calculate the utilisation of the busiest block device since the previous sample.
+     *
+     * @return the utilisation in tenths of a percent
+     */
+    private long sampleDeviceUtilisation() {
+        final Map<String, Long> deviceIoTicks;
+        try {
+            deviceIoTicks = parseDiskStats(readString(DISKSTATS));
+        } catch (final IOException e) {
+            return 0;
+        }
+        final long now = System.currentTimeMillis();
+
+        long utilisation = 0;
+        if (lastDeviceIoTicks != null && now > lastDeviceIoTime) {
+            for (final Map.Entry<String, Long> device : deviceIoTicks.entrySet()) {
+                @Nullable final Long lastIoTicks = lastDeviceIoTicks.get(device.getKey());
+                if (lastIoTicks != null) {
+                    final long busy = device.getValue() - lastIoTicks;
+                    utilisation = Math.max(utilisation, Math.min(1000, busy * 1000 / (now - lastDeviceIoTime)));
+                }
+            }
+        }
+
+        lastDeviceIoTicks = deviceIoTicks;
+        lastDeviceIoTime = now;
+        return utilisation;
+    }
+
+    private static String readString(final Path path) throws IOException {
+        return new String(Files.readAllBytes(path), US_ASCII);
+    }
+
+    /**
+     * Parse the CPU times from the content of {@code /proc/<pid>/stat}.
+     *
+     * @return the user and system clock ticks, each including those of reaped children
+     */
+    static long[] parseStat(final String stat) throws IOException {
+        // the command name may contain spaces and parentheses, so the fields are after its last closing parenthesis
+        final int idxCommandEnd = stat.lastIndexOf(')');
+        if (idxCommandEnd < 0) {
+            throw new IOException("Malformed stat: " + stat);
+        }
+        final String[] fields = stat.substring(idxCommandEnd + 1).trim().split("\\s+");
+        if (fields.length < 15) {
+            throw new IOException("Malformed stat: " + stat);
+        }
+
+        // fields[0] is field 3 of proc(5), i.e. state
+        final long utime = Long.parseLong(fields[11]);
+        final long stime = Long.parseLong(fields[12]);
+        final long cutime = Long.parseLong(fields[13]);
+        final long cstime = Long.parseLong(fields[14]);
+        return new long[] { utime + cutime, stime + cstime };
+    }
+
+    /**
+     * Parse the content of {@code /proc/<pid>/status} or {@code /proc/<pid>/io}.
+     *
+     * @return the numeric value of each key, sizes are in KB
+     */
+    static Map<String, Long> parseKeyValues(final String content) throws IOException {
+        final Map<String, Long> values = new HashMap<>();
+        try (final BufferedReader reader = new BufferedReader(new StringReader(content))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int idxSeparator = line.indexOf(':');
+                if (idxSeparator < 1) {
+                    continue;
+                }
+                final String[] value = line.substring(idxSeparator + 1).trim().split("\\s+");
+                try {
+                    values.put(line.substring(0, idxSeparator), Long.parseLong(value[0]));
+                } catch (final NumberFormatException e) {
+                    // not a numeric value
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Parse the content of {@code /proc/diskstats}.
+     *
+     * @return the milliseconds spent doing I/O for each device, excluding loop and RAM devices
+     */
+    static Map<String, Long> parseDiskStats(final String diskStats) throws IOException {
+        final Map<String, Long> deviceIoTicks = new HashMap<>();
+        try (final BufferedReader reader = new BufferedReader(new StringReader(diskStats))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.trim().split("\\s+");
+                if (fields.length < 13) {
+                    continue;
+                }
+                final String device = fields[2];
+                if (device.startsWith("loop") || device.startsWith("ram")) {
+                    continue;
+                }
+                try {
+                    deviceIoTicks.put(device, Long.parseLong(fields[12]));
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Malformed diskstats: " + line);
+                }
+            }
+        }
+        return deviceIoTicks;
+    }
+}
@@ -0,0 +1,141 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A time-series of the resource usage of a process tree.
+ *
+ * The samples are held delta-encoded, each value of a sample is
+ * stored as the difference from the same value of the previous sample,
+ * as a zig-zag variable-length integer. As the values mostly grow slowly,
+ * a sample typically takes only a dozen or so bytes.
+ */
+public class ResourceSeries {
+
+    private static final int VALUES_PER_SAMPLE = 10;
+
+    private final ByteArrayOutputStream encoded;
+    private long[] last = new long[VALUES_PER_SAMPLE];
+    private int size;
+    @Nullable private ResourceSample lastSample;
+
+    public ResourceSeries() {
+        this.encoded = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Append a sample to the series.
+     *
+     * @param sample the sample
+     */
+    public void add(final ResourceSample sample) {
+        final long[] values = sample.toArray();
+        for (int i = 0; i < VALUES_PER_SAMPLE; i++) {
+            writeVarLong(encoded, zigZag(values[i] - last[i]));
+        }
+        last = values;
+        lastSample = sample;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the last sample of the series.
+     *
+     * @return the last sample, or null if the series is empty
+     */
+    public @Nullable ResourceSample getLast() {
+        return lastSample;
+    }
+
+    /**
+     * Get the highest resident set size of the process tree.
+     *
+     * @return the peak RSS in KB, or 0 if the series is empty
+     */
+    public long getPeakRssKb() {
+        return lastSample == null ? 0 : lastSample.peakRssKb;
+    }
+
+    /**
+     * Decode the samples of the series.
+     *
+     * @return the samples
+     */
+    public List<ResourceSample> getSamples() {
+        return decode(encoded.toByteArray());
+    }
+
+    /**
+     * Get the delta-encoded samples.
+     *
+     * @return the encoded samples, which may be decoded by {@link #decode(byte[])}
+     */
+    public byte[] toByteArray() {
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Decode the samples of a series.
+     *
+     * @param bytes the encoded samples, from {@link #toByteArray()}
+     *
+     * @return the samples
+     *
+     * @throws IllegalArgumentException if the bytes are not an encoded series
+     */
+    public static List<ResourceSample> decode(final byte[] bytes) {
+        final List<ResourceSample> samples = new ArrayList<>();
+        final long[] values = new long[VALUES_PER_SAMPLE];
+        final int[] offset = { 0 };
+        while (offset[0] < bytes.length) {
+            for (int i = 0; i < VALUES_PER_SAMPLE; i++) {
+                values[i] += unZigZag(readVarLong(bytes, offset));
+            }
+            samples.add(ResourceSample.fromArray(Arrays.copyOf(values, VALUES_PER_SAMPLE)));
+        }
+        return samples;
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(final ByteArrayOutputStream os, long value) {
+        while ((value & ~0x7FL) != 0) {
+            os.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        os.write((int) value);
+    }
+
+    private static long readVarLong(final byte[] bytes, final int[] offset) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (offset[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated resource series");
+            }
+            final byte b = bytes[offset[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed resource series");
+    }
+}
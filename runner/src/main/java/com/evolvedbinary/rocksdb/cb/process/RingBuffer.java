@@ -0,0 +1,77 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Holds the most recent bytes written to it, up to its capacity,
+ * overwriting the oldest bytes once it is full.
+ */
+@ThreadSafe
+public class RingBuffer {
+
+    @GuardedBy("this") private final byte[] buffer;
+    @GuardedBy("this") private int head;  // the next position to write to
+    @GuardedBy("this") private long written;
+
+    /**
+     * @param capacity the most bytes that are held
+     */
+    public RingBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, but was: " + capacity);
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    public synchronized void write(final byte[] data, int offset, int length) {
+        written += length;
+
+        // only the last capacity bytes can be held
+        if (length > buffer.length) {
+            offset += length - buffer.length;
+            length = buffer.length;
+        }
+
+        final int firstLength = Math.min(length, buffer.length - head);
+        System.arraycopy(data, offset, buffer, head, firstLength);
+        System.arraycopy(data, offset + firstLength, buffer, 0, length - firstLength);
+        head = (head + length) % buffer.length;
+    }
+
+    /**
+     * Get the bytes which are held, oldest first.
+     *
+     * @return the most recent bytes written
+     */
+    public synchronized byte[] toByteArray() {
+        if (written < buffer.length) {
+            final byte[] data = new byte[head];
+            System.arraycopy(buffer, 0, data, 0, head);
+            return data;
+        }
+
+        final byte[] data = new byte[buffer.length];
+        System.arraycopy(buffer, head, data, 0, buffer.length - head);
+        System.arraycopy(buffer, 0, data, buffer.length - head, head);
+        return data;
+    }
+
+    /**
+     * Get the number of bytes which have been written, including those which have since been overwritten.
+     *
+     * @return the number of bytes written
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * Determine if bytes have been overwritten, i.e. {@link #toByteArray()} no longer holds everything written.
+     *
+     * @return true if bytes have been overwritten
+     */
+    public synchronized boolean isTruncated() {
+        return written > buffer.length;
+    }
+}
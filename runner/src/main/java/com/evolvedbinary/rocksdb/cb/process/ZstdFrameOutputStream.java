@@ -0,0 +1,100 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses what is written to it with zstd, incrementally.
+ *
+ * Each chunk of bytes is compressed into its own zstd frame as soon
+ * as the chunk is full. Concatenated frames are a valid zstd stream,
+ * so the output can be decompressed with {@code zstd -d}, whilst only
+ * a single chunk is ever held in memory.
+ */
+public class ZstdFrameOutputStream extends OutputStream {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final OutputStream out;
+    private final ZstdCompressor compressor = new ZstdCompressor();
+    private final byte[] chunk;
+    private final byte[] compressed;
+    private int chunkLength;
+    private boolean closed;
+
+    public ZstdFrameOutputStream(final OutputStream out) {
+        this(out, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param out the stream to write the compressed frames to
+     * @param chunkSize the number of bytes which are compressed into each frame
+     */
+    public ZstdFrameOutputStream(final OutputStream out, final int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1, but was: " + chunkSize);
+        }
+        this.out = out;
+        this.chunk = new byte[chunkSize];
+        this.compressed = new byte[compressor.maxCompressedLength(chunkSize)];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] data, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        while (length > 0) {
+            final int copyLength = Math.min(length, chunk.length - chunkLength);
+            System.arraycopy(data, offset, chunk, chunkLength, copyLength);
+            chunkLength += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+
+            if (chunkLength == chunk.length) {
+                writeFrame();
+            }
+        }
+    }
+
+    /**
+     * Flushes the underlying stream.
+     *
+     * A partial chunk is not compressed until it is full or the stream is closed,
+     * as compressing many small frames would compress poorly.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (chunkLength > 0) {
+                writeFrame();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeFrame() throws IOException {
+        final int compressedLength = compressor.compress(chunk, 0, chunkLength, compressed, 0, compressed.length);
+        out.write(compressed, 0, compressedLength);
+        chunkLength = 0;
+    }
+}
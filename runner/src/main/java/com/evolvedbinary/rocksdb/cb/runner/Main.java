@@ -2,6 +2,10 @@ package com.evolvedbinary.rocksdb.cb.runner;
 
 import com.evolvedbinary.rocksdb.cb.Constants;
 import com.evolvedbinary.rocksdb.cb.common.ExitCodes;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
+import com.evolvedbinary.rocksdb.cb.process.OutputCapture;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.BenchmarkIsolation;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.RegressionGuard;
 import se.softhouse.jargo.Argument;
 import se.softhouse.jargo.ArgumentException;
 import se.softhouse.jargo.CommandLineParser;
@@ -9,12 +13,17 @@ import se.softhouse.jargo.ParsedArguments;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
 
 import static se.softhouse.jargo.Arguments.*;
 
 public class Main {
+    private static final Pattern HARDWARE_CLASS_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
+
     private static final Argument<?> HELP_ARG = helpArgument("-h", "--help");
     private static final Argument<String> ARTEMIS_BROKER_HOST_ARG = stringArgument("--artemis-broker-host")
             .defaultValue(Constants.DEFAULT_ARTEMIS_HOST)
@@ -24,6 +33,9 @@ public class Main {
             .defaultValue(Constants.DEFAULT_ARTEMIS_PORT)
             .description("The port of the Artemis Broker")
             .build();
+    private static final Argument<String> ARTEMIS_BROKERS_ARG = stringArgument("--artemis-brokers")
+            .description("A comma separated list of host:port for each Artemis Broker of a cluster. Overrides --artemis-broker-host and --artemis-broker-port")
+            .build();
     private static final Argument<String> BUILD_REQUEST_QUEUE_NAME_ARG = stringArgument("-b", "--build-request-queue-name")
             .defaultValue("BuildRequestQueue")
             .description("The name of the JMS Queue for Build request messages")
@@ -32,6 +44,21 @@ public class Main {
             .defaultValue("BuildResponseQueue")
             .description("The name of the JMS Queue for Build response messages")
             .build();
+    private static final Argument<String> RUNNER_HEARTBEAT_QUEUE_NAME_ARG = stringArgument("--runner-heartbeat-queue-name")
+            .defaultValue(Runner.Settings.DEFAULT_RUNNER_HEARTBEAT_QUEUE_NAME)
+            .description("The name of the JMS Queue for Runner heartbeat messages")
+            .build();
+    private static final Argument<String> CONTROL_TOPIC_NAME_ARG = stringArgument("--control-topic-name")
+            .defaultValue(Runner.Settings.DEFAULT_CONTROL_TOPIC_NAME)
+            .description("The name of the JMS Topic for control messages from the Orchestrator, e.g. cancelling a build")
+            .build();
+    private static final Argument<String> BENCHMARK_PROGRESS_QUEUE_NAME_ARG = stringArgument("--benchmark-progress-queue-name")
+            .defaultValue(Runner.Settings.DEFAULT_BENCHMARK_PROGRESS_QUEUE_NAME)
+            .description("The name of the JMS Queue for the progress of running benchmarks")
+            .build();
+    private static final Argument<String> HARDWARE_CLASS_ARG = stringArgument("--hardware-class")
+            .description("A label for the hardware of this Runner, Runners with the same label should produce comparable benchmark results. By default the label is derived from the CPU model, number of cores, memory, and disk type.")
+            .build();
     private static final Argument<File> DATA_DIR_ARG = fileArgument("-d", "--data-dir")
             .required()
             .description("The path to the data directory where the Runner should keep its data")
@@ -50,27 +77,94 @@ public class Main {
     private static final Argument<Boolean> KEEP_DATA_ARG = optionArgument("--keep-data")
             .description("Keep data and wal files from benchmarks. Without this flag data and WAL files are removed.")
             .build();
+    private static final Argument<String> ISOLATE_CPUS_ARG = stringArgument("--isolate-cpus")
+            .description("Isolate benchmarks on the given CPUs, e.g. 4-7, and move the Runner off of them. Requires a cgroup v2 delegated to the Runner, see --isolate-cgroup. If isolation is unavailable, benchmarks run without it and their results are marked as non-isolated.")
+            .build();
+    private static final Argument<Integer> ISOLATE_NUMA_NODE_ARG = integerArgument("--isolate-numa-node")
+            .defaultValue(-1)
+            .description("Restrict isolated benchmarks to the memory of the given NUMA node, which should be local to the CPUs of --isolate-cpus. By default any memory may be used.")
+            .build();
+    private static final Argument<File> ISOLATE_CGROUP_ARG = fileArgument("--isolate-cgroup")
+            .defaultValue(BenchmarkIsolation.DEFAULT_CGROUP_DIR.toFile())
+            .description("The cgroup v2 directory delegated to the Runner for isolating benchmarks.")
+            .build();
+    private static final Argument<BigDecimal> ISOLATE_LOAD_THRESHOLD_ARG = bigDecimalArgument("--isolate-load-threshold")
+            .defaultValue(BigDecimal.valueOf(BenchmarkIsolation.DEFAULT_LOAD_THRESHOLD))
+            .description("Before each isolated benchmark, wait for the load average of the system to settle below this threshold.")
+            .build();
+    private static final Argument<BigDecimal> ABORT_REGRESSION_FRACTION_ARG = bigDecimalArgument("--abort-regression-fraction")
+            .defaultValue(BigDecimal.valueOf(RegressionGuard.DEFAULT_FRACTION))
+            .description("Abort a benchmark whose throughput stays below this fraction of the baseline sent by the Orchestrator, see --abort-regression-seconds. 0 never aborts.")
+            .build();
+    private static final Argument<Integer> ABORT_REGRESSION_SECONDS_ARG = integerArgument("--abort-regression-seconds")
+            .defaultValue((int) RegressionGuard.DEFAULT_SUSTAIN_SECONDS)
+            .description("How long the throughput of a benchmark must stay below --abort-regression-fraction of its baseline before it is aborted.")
+            .build();
+    private static final Argument<Integer> BUILD_TIMEOUT_ARG = integerArgument("--build-timeout")
+            .defaultValue((int) Runner.Settings.DEFAULT_BUILD_TIMEOUT_SECONDS)
+            .description("The most seconds a build may take, after which its processes are terminated and the build is reported as timed out. 0 never times out.")
+            .build();
+    private static final Argument<Integer> BENCHMARK_TIMEOUT_ARG = integerArgument("--benchmark-timeout")
+            .defaultValue((int) Runner.Settings.DEFAULT_BENCHMARK_TIMEOUT_SECONDS)
+            .description("The most seconds each benchmark workload may take, after which its processes are terminated and the benchmark is reported as timed out. 0 never times out.")
+            .build();
+    private static final Argument<Boolean> COMPRESS_BUILD_LOGS_ARG = optionArgument("--compress-build-logs")
+            .description("Capture the output of builds into zstd compressed log files. Only the end of the logs of a failed build, see the system property " + OutputCapture.TAIL_SIZE_PROPERTY + ", is sent to the orchestrator.")
+            .build();
 
     public static void main(final String args[]) {
         final CommandLineParser parser = CommandLineParser.withArguments(
                 HELP_ARG,
                 ARTEMIS_BROKER_HOST_ARG,
                 ARTEMIS_BROKER_PORT_ARG,
+                ARTEMIS_BROKERS_ARG,
                 BUILD_REQUEST_QUEUE_NAME_ARG,
                 BUILD_RESPONSE_QUEUE_NAME_ARG,
+                RUNNER_HEARTBEAT_QUEUE_NAME_ARG,
+                CONTROL_TOPIC_NAME_ARG,
+                BENCHMARK_PROGRESS_QUEUE_NAME_ARG,
+                HARDWARE_CLASS_ARG,
                 DATA_DIR_ARG,
                 BUILD_COMMAND_ARG,
                 BENCHMARK_COMMAND_ARG,
                 KEEP_LOGS_ARG,
-                KEEP_DATA_ARG);
+                KEEP_DATA_ARG,
+                ISOLATE_CPUS_ARG,
+                ISOLATE_NUMA_NODE_ARG,
+                ISOLATE_CGROUP_ARG,
+                ISOLATE_LOAD_THRESHOLD_ARG,
+                ABORT_REGRESSION_FRACTION_ARG,
+                ABORT_REGRESSION_SECONDS_ARG,
+                COMPRESS_BUILD_LOGS_ARG,
+                BUILD_TIMEOUT_ARG,
+                BENCHMARK_TIMEOUT_ARG);
 
         try {
             final ParsedArguments parsedArguments = parser.parse(args);
 
-            final String artemisBrokerHost = parsedArguments.get(ARTEMIS_BROKER_HOST_ARG);
-            final int artemisBrokerPort = parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue();
+            final List<BrokerEndpoint> artemisBrokers;
+            try {
+                artemisBrokers = BrokerEndpoint.parseList(parsedArguments.get(ARTEMIS_BROKERS_ARG), parsedArguments.get(ARTEMIS_BROKER_HOST_ARG), parsedArguments.get(ARTEMIS_BROKER_PORT_ARG).intValue());
+            } catch (final IllegalArgumentException e) {
+                System.out.println("Invalid Artemis broker specified: " + e.getMessage());
+                System.exit(ExitCodes.INVALID_ARGUMENT);
+                return;
+            }
             final String buildRequestQueueName = parsedArguments.get(BUILD_REQUEST_QUEUE_NAME_ARG);
             final String buildResponseQueueName = parsedArguments.get(BUILD_RESPONSE_QUEUE_NAME_ARG);
+            final String runnerHeartbeatQueueName = parsedArguments.get(RUNNER_HEARTBEAT_QUEUE_NAME_ARG);
+            final String controlTopicName = parsedArguments.get(CONTROL_TOPIC_NAME_ARG);
+            final String benchmarkProgressQueueName = parsedArguments.get(BENCHMARK_PROGRESS_QUEUE_NAME_ARG);
+            String hardwareClass = parsedArguments.get(HARDWARE_CLASS_ARG);
+            if (hardwareClass != null && hardwareClass.isEmpty()) {
+                hardwareClass = null;
+            }
+            if (hardwareClass != null && !HARDWARE_CLASS_PATTERN.matcher(hardwareClass).matches()) {
+                System.out.println("Invalid --hardware-class specified: " + hardwareClass);
+                System.out.println("Must only contain letters, digits, '.', '_', or '-'");
+                System.exit(ExitCodes.INVALID_ARGUMENT);
+                return;
+            }
             final Path dataDir = parsedArguments.get(DATA_DIR_ARG).toPath();
             try {
                 // make sure the data dir exists
@@ -84,7 +178,37 @@ public class Main {
             final boolean keepLogs = parsedArguments.get(KEEP_LOGS_ARG);
             final boolean keepData = parsedArguments.get(KEEP_DATA_ARG);
 
-            final Runner.Settings runnerSettings = new Runner.Settings(artemisBrokerHost, artemisBrokerPort, buildRequestQueueName, buildResponseQueueName, dataDir, buildCommand, benchmarkCommand, keepLogs, keepData);
+            final String isolateCpus = parsedArguments.get(ISOLATE_CPUS_ARG);
+            BenchmarkIsolation isolation = null;
+            if (isolateCpus != null) {
+                final Path isolateCgroup = parsedArguments.get(ISOLATE_CGROUP_ARG).toPath();
+                final int isolateNumaNode = parsedArguments.get(ISOLATE_NUMA_NODE_ARG);
+                final double isolateLoadThreshold = parsedArguments.get(ISOLATE_LOAD_THRESHOLD_ARG).doubleValue();
+                isolation = new BenchmarkIsolation(isolateCgroup, isolateCpus, isolateNumaNode, isolateLoadThreshold);
+            }
+
+            final double abortRegressionFraction = parsedArguments.get(ABORT_REGRESSION_FRACTION_ARG).doubleValue();
+            final int abortRegressionSeconds = parsedArguments.get(ABORT_REGRESSION_SECONDS_ARG);
+
+            final boolean compressBuildLogs = parsedArguments.get(COMPRESS_BUILD_LOGS_ARG);
+            final int buildTimeout = parsedArguments.get(BUILD_TIMEOUT_ARG);
+            final int benchmarkTimeout = parsedArguments.get(BENCHMARK_TIMEOUT_ARG);
+
+            final Runner.Settings runnerSettings = new Runner.Settings.Builder(artemisBrokers, buildRequestQueueName, buildResponseQueueName, dataDir)
+                    .runnerHeartbeatQueueName(runnerHeartbeatQueueName)
+                    .controlTopicName(controlTopicName)
+                    .benchmarkProgressQueueName(benchmarkProgressQueueName)
+                    .hardwareClass(hardwareClass)
+                    .buildCommand(buildCommand)
+                    .benchmarkCommand(benchmarkCommand)
+                    .keepLogs(keepLogs)
+                    .keepData(keepData)
+                    .isolation(isolation)
+                    .abortRegression(abortRegressionFraction, abortRegressionSeconds)
+                    .compressBuildLogs(compressBuildLogs)
+                    .buildTimeoutSeconds(buildTimeout)
+                    .benchmarkTimeoutSeconds(benchmarkTimeout)
+                    .build();
             final Runner runner = new Runner(runnerSettings);
             runner.runSync();
 
@@ -1,16 +1,26 @@
 package com.evolvedbinary.rocksdb.cb.runner;
 
-import com.evolvedbinary.rocksdb.cb.common.MapUtil;
 import com.evolvedbinary.rocksdb.cb.common.PathUtil;
 import com.evolvedbinary.rocksdb.cb.dataobject.*;
 import com.evolvedbinary.rocksdb.cb.jms.AbstractJMSService;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
+import com.evolvedbinary.rocksdb.cb.jms.JMSServiceInstance;
 import com.evolvedbinary.rocksdb.cb.jms.JMSServiceState;
+import com.evolvedbinary.rocksdb.cb.process.Cancellation;
+import com.evolvedbinary.rocksdb.cb.process.OutputCapture;
+import com.evolvedbinary.rocksdb.cb.process.ResourceSample;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.BenchmarkIsolation;
 import com.evolvedbinary.rocksdb.cb.runner.benchmarker.BenchmarkResult;
 import com.evolvedbinary.rocksdb.cb.runner.benchmarker.Benchmarker;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.CgroupStats;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.DbBenchResultParser;
 import com.evolvedbinary.rocksdb.cb.runner.benchmarker.JavaProcessBenchmarkerImpl;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.RegressionGuard;
+import com.evolvedbinary.rocksdb.cb.runner.benchmarker.RocksDbLogParser;
 import com.evolvedbinary.rocksdb.cb.runner.builder.BuildResult;
 import com.evolvedbinary.rocksdb.cb.runner.builder.Builder;
 import com.evolvedbinary.rocksdb.cb.runner.builder.JavaProcessBuilderImpl;
+import com.evolvedbinary.rocksdb.cb.runner.capability.HardwareCapabilities;
 import com.evolvedbinary.rocksdb.cb.scm.GitHelper;
 import com.evolvedbinary.rocksdb.cb.scm.GitHelperException;
 import com.evolvedbinary.rocksdb.cb.scm.JGitGitHelperImpl;
@@ -21,41 +31,134 @@ import javax.annotation.Nullable;
 import javax.jms.*;
 import java.io.IOException;
 import java.lang.IllegalStateException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Entry;
 import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Map;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 class Runner extends AbstractJMSService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Runner.class);
     private static final AtomicReference<JMSServiceState> STATE = new AtomicReference<>(JMSServiceState.IDLE);
 
+    /**
+     * System property which sets the interval in milliseconds
+     * at which the Runner sends heartbeats to the Orchestrator.
+     */
+    public static final String HEARTBEAT_INTERVAL_PROPERTY = "cb.runner.heartbeat.interval";
+    static final long DEFAULT_HEARTBEAT_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
     private static final String MAIN_GIT_BRANCH = "master";
     private static final String REPO_DIR_NAME = "repo";
     private static final String LOG_DIR_NAME = "log";
     private static final String DB_DIR_NAME = "db";
     private static final String WAL_DIR_NAME = "wal";
+    private static final String NUM_KEYS_ENV_VAR_NAME = "NUM_KEYS";
+    private static final String KEY_SIZE_ENV_VAR_NAME = "KEY_SIZE";
+    private static final String VALUE_SIZE_ENV_VAR_NAME = "VALUE_SIZE";
+    // asks the benchmark command to run db_bench with --statistics, a workload may disable it by setting it to 0
+    private static final String STATISTICS_ENV_VAR_NAME = "STATISTICS";
+    // asks the benchmark command to run db_bench with --stats_interval_seconds, so that its progress can be followed
+    private static final String STATS_INTERVAL_SECONDS_ENV_VAR_NAME = "STATS_INTERVAL_SECONDS";
     private static final List<String> DEFAULT_MAKE_TARGETS = Arrays.asList("db_bench");
-    private static final Map<String, String> DEFAULT_BENCHMARK_ENV = Map(Entry("NUM_KEYS", "10000"));
+    private static final Map<String, String> DEFAULT_BENCHMARK_ENV = Map(Entry(NUM_KEYS_ENV_VAR_NAME, "10000"), Entry(STATISTICS_ENV_VAR_NAME, "1"), Entry(STATS_INTERVAL_SECONDS_ENV_VAR_NAME, "10"));
     private static final List<String> DEFAULT_BENCHMARK_ARGS = Arrays.asList("fillseq_enable_wal");
 
+    // a build and benchmark can take a long time, so give it a chance to finish before shutdown
+    private static final long DEFAULT_SHUTDOWN_DRAIN_TIMEOUT = TimeUnit.HOURS.toMillis(2);
+
     private final Settings settings;
     private final String clientId;
     private final BuildRequestQueueMessageListener buildRequestQueueMessageListener = new BuildRequestQueueMessageListener();
+    private final ControlTopicMessageListener controlTopicMessageListener = new ControlTopicMessageListener();
+
+    // the build which is currently in progress, if any
+    private volatile @Nullable InFlightBuild inFlightBuild;
+
+    private volatile @Nullable HardwareCapabilities hardwareCapabilities;
+    private volatile @Nullable String hardwareClass;
+    private @Nullable ScheduledExecutorService heartbeatExecutorService;
 
     public Runner(final Settings settings) {
         this.settings = settings;
         this.clientId = "runner-" + UUID.randomUUID();
     }
 
+    @Override
+    public JMSServiceInstance runAsync() {
+        if (getState().get() != JMSServiceState.IDLE) {
+            throw new IllegalStateException("Already running");
+        }
+
+        // the hardware class determines which build requests we receive, so must be known before connecting
+        final HardwareCapabilities hardwareCapabilities = HardwareCapabilities.detect(settings.dataDir);
+        this.hardwareCapabilities = hardwareCapabilities;
+        this.hardwareClass = settings.hardwareClass != null ? settings.hardwareClass : hardwareCapabilities.deriveHardwareClass();
+        LOGGER.info("Runner has hardware class: {} {}", hardwareClass, hardwareCapabilities);
+
+        // move the Runner off of the CPUs dedicated to benchmarks before it starts any other threads
+        if (settings.isolation != null) {
+            settings.isolation.setup();
+        }
+
+        final JMSServiceInstance instance = super.runAsync();
+
+        final long heartbeatInterval = getHeartbeatInterval();
+        this.heartbeatExecutorService = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, clientId + "-Heartbeat-Thread"));
+        this.heartbeatExecutorService.scheduleAtFixedRate(this::sendHeartbeat, 0, heartbeatInterval, TimeUnit.MILLISECONDS);
+
+        return instance;
+    }
+
+    @Override
+    protected void onStopped() {
+        if (heartbeatExecutorService != null) {
+            heartbeatExecutorService.shutdownNow();
+            heartbeatExecutorService = null;
+        }
+    }
+
+    private static long getHeartbeatInterval() {
+        return Long.getLong(HEARTBEAT_INTERVAL_PROPERTY, DEFAULT_HEARTBEAT_INTERVAL);
+    }
+
+    private void sendHeartbeat() {
+        final HardwareCapabilities hardwareCapabilities = this.hardwareCapabilities;
+        final RunnerHeartbeat runnerHeartbeat = new RunnerHeartbeat(clientId, hardwareClass, hardwareCapabilities.cpuModel, hardwareCapabilities.cpuCores, hardwareCapabilities.memory, hardwareCapabilities.diskType, getHeartbeatInterval());
+        try {
+            final Queue runnerHeartbeatQueue = getQueue(settings.runnerHeartbeatQueueName);
+            sendMessage(runnerHeartbeat, runnerHeartbeatQueue);
+        } catch (final IOException | JMSException | RuntimeException e) {
+            // must not throw, or no further heartbeats will be scheduled
+            LOGGER.error("Unable to send RunnerHeartbeat to Queue: {}. Error: {}", settings.runnerHeartbeatQueueName, e.getMessage(), e);
+        }
+    }
+
+    private void sendBenchmarkProgress(final BenchmarkProgress benchmarkProgress) {
+        try {
+            final Queue benchmarkProgressQueue = getQueue(settings.benchmarkProgressQueueName);
+            sendMessage(benchmarkProgress, benchmarkProgressQueue);
+        } catch (final IOException | JMSException | RuntimeException e) {
+            // progress is informational, so must not fail the benchmark
+            LOGGER.warn("Unable to send BenchmarkProgress to Queue: {}. Error: {}", settings.benchmarkProgressQueueName, e.getMessage());
+        }
+    }
+
     @Override
     protected Logger getLogger() {
         return LOGGER;
@@ -67,11 +170,8 @@ class Runner extends AbstractJMSService {
     }
 
     @Override
-    protected Map<String, Object> getTransportConfigurationParameters() {
-        return MapUtil.Map(
-                Entry("host", settings.artemisBrokerHost),
-                Entry("port", settings.artemisBrokerPort)
-        );
+    protected List<BrokerEndpoint> getBrokerEndpoints() {
+        return settings.artemisBrokers;
     }
 
     @Override
@@ -79,20 +179,51 @@ class Runner extends AbstractJMSService {
         return clientId ;
     }
 
+    @Override
+    protected long getShutdownDrainTimeout() {
+        return Long.getLong(SHUTDOWN_DRAIN_TIMEOUT_PROPERTY, DEFAULT_SHUTDOWN_DRAIN_TIMEOUT);
+    }
+
     @Override
     protected List<String> getQueueNames() {
         return Arrays.asList(
                 settings.buildRequestQueueName,
-                settings.buildResponseQueueName
+                settings.buildResponseQueueName,
+                settings.runnerHeartbeatQueueName,
+                settings.benchmarkProgressQueueName
         );
     }
 
+    @Override
+    protected List<String> getTopicNames() {
+        return Collections.singletonList(settings.controlTopicName);
+    }
+
+    @Override
+    protected boolean isHandledWhilstDraining(final String queueName) {
+        // a CancelRequest must still reach the build which is being drained
+        return settings.controlTopicName.equals(queueName);
+    }
+
     @Nullable
     @Override
     protected MessageListener getListener(final String queueName) {
         if (settings.buildRequestQueueName.equals(queueName)) {
             return buildRequestQueueMessageListener;
 
+        } else if (settings.controlTopicName.equals(queueName)) {
+            return controlTopicMessageListener;
+        }
+
+        return null;
+    }
+
+    @Nullable
+    @Override
+    protected String getMessageSelector(final String queueName) {
+        if (settings.buildRequestQueueName.equals(queueName)) {
+            // only build requests routed to our hardware class, or to any hardware class
+            return BuildRequest.HARDWARE_CLASS_PROPERTY + " IS NULL OR " + BuildRequest.hardwareClassSelector(hardwareClass);
         }
 
         return null;
@@ -125,7 +256,7 @@ class Runner extends AbstractJMSService {
             // attempt to parse as BuildRequest
             final BuildRequest buildRequest;
             try {
-                buildRequest = new BuildRequest().deserialize(content);
+                buildRequest = deserialize(new BuildRequest(), content);
             } catch (final IOException e) {
                 // unable to deserialize, acknowledge invalid message so that it is removed from the queue
                 if (acknowledgeMessage(message)) {
@@ -141,6 +272,16 @@ class Runner extends AbstractJMSService {
                 return;
             }
 
+            final Cancellation cancellation = new Cancellation();
+            inFlightBuild = new InFlightBuild(buildRequest.getId(), cancellation);
+            try {
+                build(buildRequest, cancellation);
+            } finally {
+                inFlightBuild = null;
+            }
+        }
+
+        private void build(final BuildRequest buildRequest, final Cancellation cancellation) {
             // 1) do some sanity checks?
             // TODO(AR)
 
@@ -175,6 +316,10 @@ class Runner extends AbstractJMSService {
                 gitHelper = gitHelper.checkout(buildRequest.getCommit());
 
             } catch (final GitHelperException e) {
+                if (reportIfCancelled(cancellation, buildRequest, buildStats)) {
+                    return;  // nothing more can be done!
+                }
+
                 LOGGER.error("Unable to open/update Git repo: {}. Error: {}",buildRequest.getRepository(), e.getMessage(), e);
 
                 // send UPDATING_SOURCE_FAILED
@@ -192,6 +337,11 @@ class Runner extends AbstractJMSService {
             // record the total time taken for updating the source code
             buildStats.setUpdateSourceTime(System.currentTimeMillis() - updateSourceStartTime);
 
+            // updating the source cannot be interrupted, so check if we were cancelled whilst it ran
+            if (reportIfCancelled(cancellation, buildRequest, buildStats)) {
+                return;  // nothing more can be done!
+            }
+
             // 4) Send UPDATING_SOURCE_COMPLETE
             if (!sendUpdatedBuildStatus(BuildState.UPDATING_SOURCE_COMPLETE, buildRequest, buildStats)) {
                 return;  // nothing more can be done!
@@ -209,14 +359,19 @@ class Runner extends AbstractJMSService {
 
             final Builder builder;
             if (settings.buildCommand != null) {
-                builder = new JavaProcessBuilderImpl(settings.buildCommand);
+                builder = new JavaProcessBuilderImpl(settings.buildCommand, settings.compressBuildLogs);
             } else {
-                builder = new JavaProcessBuilderImpl();
+                builder = new JavaProcessBuilderImpl(settings.compressBuildLogs);
             }
             final BuildResult buildResult;
             try {
-                buildResult = builder.build(buildRequest.getId(), projectRepoDir, projectLogDir, DEFAULT_MAKE_TARGETS);
+                buildResult = builder.build(buildRequest.getId(), projectRepoDir, projectLogDir, getMakeTargets(buildRequest), cancellation, TimeUnit.SECONDS.toMillis(settings.buildTimeoutSeconds));
             } catch (final IOException e) {
+                buildStats.setCompilationTime(System.currentTimeMillis() - compileSourceStartTime);
+                if (reportIfCancelled(cancellation, buildRequest, buildStats)) {
+                    return;  // nothing more can be done!
+                }
+
                 LOGGER.error("Unable to build source code repo: {}. Error: {}", projectRepoDir, e.getMessage(), e);
 
                 // send BUILDING_FAILED
@@ -229,16 +384,33 @@ class Runner extends AbstractJMSService {
             // record the total time taken for building the source code
             buildStats.setCompilationTime(System.currentTimeMillis() - compileSourceStartTime);
 
+            // if we were cancelled then the build processes were terminated, so the build result is meaningless
+            if (reportIfCancelled(cancellation, buildRequest, buildStats)) {
+                return;  // nothing more can be done!
+            }
 
             // 7) did the builder succeed in building the source code?
             if (!buildResult.ok) {
-                // build FAILED
+                // build FAILED, or TIMED OUT
+
+                // get build logs, just the end of them if the output was captured or the build hung
+                final List<BuildDetail> buildDetails;
+                if (buildResult.stdOutputTail != null || buildResult.stdErrorTail != null) {
+                    buildDetails = convertTailsToBuildDetails(buildResult.stdOutputTail, buildResult.stdErrorTail);
+                } else if (buildResult.timedOut) {
+                    buildDetails = convertLogTailsToBuildDetails(buildResult.stdOutputLogFile, buildResult.stdErrorLogFile);
+                } else {
+                    buildDetails = convertLogsToBuildDetails(buildResult.stdOutputLogFile, buildResult.stdErrorLogFile);
+                }
 
-                // get build logs
-                final List<BuildDetail> buildDetails = convertLogsToBuildDetails(buildResult.stdOutputLogFile, buildResult.stdErrorLogFile);
+                if (buildResult.timedOut) {
+                    LOGGER.warn("Build of BuildRequest(id={}) for ref: {} exceeded its time budget of {} seconds", buildRequest.getId(), buildRequest.getRef(), settings.buildTimeoutSeconds);
+                }
+
+                // 7.1) Send BUILDING_FAILED, or BUILDING_TIMED_OUT
+                sendFailureBuildStatus(buildResult.timedOut ? BuildState.BUILDING_TIMED_OUT : BuildState.BUILDING_FAILED, buildRequest, buildStats, buildDetails);
 
-                // 7.1) Send BUILDING_FAILED
-                sendFailureBuildStatus(BuildState.BUILDING_FAILED, buildRequest, buildStats, buildDetails);
+                return;  // there is nothing to benchmark!
 
             } else {
                 // build OK
@@ -265,15 +437,72 @@ class Runner extends AbstractJMSService {
 
             final Benchmarker benchmarker;
             if (settings.benchmarkCommand != null) {
-                benchmarker = new JavaProcessBenchmarkerImpl(settings.benchmarkCommand);
+                benchmarker = new JavaProcessBenchmarkerImpl(settings.benchmarkCommand, settings.isolation);
             } else {
-                benchmarker = new JavaProcessBenchmarkerImpl();
+                benchmarker = new JavaProcessBenchmarkerImpl(settings.isolation);
             }
 
-            final BenchmarkResult benchmarkResult;
+            // the workloads to benchmark, a build request which is a stage of a workflow runs just the one workload
+            @Nullable final BenchmarkSpec benchmarkSpec = buildRequest.getBenchmarkSpec();
+            final List<BenchmarkWorkload> workloads = getWorkloads(buildRequest);
+
+            final List<BenchmarkResult> benchmarkResults = new ArrayList<>();
+            final List<BuildStats> workloadLogStats = new ArrayList<>();
+            @Nullable RegressionGuard abortedRegressionGuard = null;
             try {
-                benchmarkResult = benchmarker.benchmark(buildRequest.getId(), projectRepoDir, projectLogDir, projectDbDir, projectWalDir, DEFAULT_BENCHMARK_ENV, DEFAULT_BENCHMARK_ARGS);
+                for (final BenchmarkWorkload workload : workloads) {
+                    if (workload.getCacheMode() == CacheMode.COLD) {
+                        BenchmarkIsolation.dropPageCache();
+                    }
+
+                    // each workload needs its own log files
+                    final UUID benchmarkId = workloads.size() == 1 ? buildRequest.getId() : UUID.nameUUIDFromBytes((buildRequest.getId() + "/" + workload.getName()).getBytes(UTF_8));
+
+                    // a workload whose throughput regresses far below its baseline is aborted, rather than left to occupy the Runner
+                    final Cancellation workloadCancellation = cancellation.newChild();
+                    @Nullable final Double baseline = buildRequest.getBaseline(workload.getName());
+                    @Nullable final RegressionGuard regressionGuard = settings.abortRegressionFraction > 0 && baseline != null && baseline > 0 ? new RegressionGuard(baseline, settings.abortRegressionFraction, settings.abortRegressionSeconds, workloadCancellation::cancel) : null;
+
+                    LOGGER.info("Benchmarking workload: {} of BuildRequest(id={})", workload.getName(), buildRequest.getId());
+                    final BenchmarkResult benchmarkResult = benchmarker.benchmark(benchmarkId, projectRepoDir, projectLogDir, projectDbDir, projectWalDir, getBenchmarkEnv(workload), workload.getArgs(), workloadCancellation,
+                            (thread, elapsedSeconds, intervalOps, totalOps, intervalOpsPerSec, cumulativeOpsPerSec) -> {
+                                sendBenchmarkProgress(new BenchmarkProgress(buildRequest.getId(), buildRequest.getRef(), clientId, workload.getName(), thread, elapsedSeconds, intervalOps, totalOps, intervalOpsPerSec, cumulativeOpsPerSec));
+                                if (regressionGuard != null) {
+                                    regressionGuard.onProgress(thread, elapsedSeconds, intervalOps, totalOps, intervalOpsPerSec, cumulativeOpsPerSec);
+                                }
+                            }, TimeUnit.SECONDS.toMillis(settings.benchmarkTimeoutSeconds));
+                    benchmarkResults.add(benchmarkResult);
+                    logResourceUsage(workload, benchmarkResult);
+
+                    // the LOG is removed with the DB, and replaced by the next workload, so must be parsed now
+                    final BuildStats logStats = new BuildStats();
+                    final Path rocksDbLogFile = projectDbDir.resolve(RocksDbLogParser.LOG_FILE_NAME);
+                    try {
+                        RocksDbLogParser.parse(rocksDbLogFile, workload.getName(), logStats);
+                    } catch (final IOException e) {
+                        LOGGER.warn("Unable to parse RocksDB LOG: {}. Error: {}", rocksDbLogFile.toAbsolutePath(), e.getMessage(), e);
+                    }
+                    workloadLogStats.add(logStats);
+
+                    if (regressionGuard != null && regressionGuard.isAborted() && !cancellation.isCancelled()) {
+                        LOGGER.warn("Aborted workload: {} of BuildRequest(id={}) for ref: {}, throughput: {} ops/sec stayed below {} of its baseline: {} ops/sec for {} seconds", workload.getName(), buildRequest.getId(), buildRequest.getRef(), regressionGuard.getCumulativeOpsPerSec(), settings.abortRegressionFraction, regressionGuard.getBaselineOpsPerSec(), settings.abortRegressionSeconds);
+                        abortedRegressionGuard = regressionGuard;
+                    }
+
+                    if (benchmarkResult.timedOut) {
+                        LOGGER.warn("Workload: {} of BuildRequest(id={}) for ref: {} exceeded its time budget of {} seconds", workload.getName(), buildRequest.getId(), buildRequest.getRef(), settings.benchmarkTimeoutSeconds);
+                    }
+
+                    if (!benchmarkResult.ok || cancellation.isCancelled()) {
+                        break;  // don't run the remaining workloads
+                    }
+                }
             } catch (final IOException e) {
+                buildStats.setBenchmarkTime(System.currentTimeMillis() - benchmarkStartTime);
+                if (reportIfCancelled(cancellation, buildRequest, buildStats)) {
+                    return;  // nothing more can be done!
+                }
+
                 LOGGER.error("Unable to benchmark source code repo: {}. Error: {}", projectRepoDir, e.getMessage(), e);
 
                 // send BUILDING_FAILED
@@ -299,14 +528,27 @@ class Runner extends AbstractJMSService {
             // record the total time taken for building the source code
             buildStats.setBenchmarkTime(System.currentTimeMillis() - benchmarkStartTime);
 
+            if (reportIfCancelled(cancellation, buildRequest, buildStats)) {
+                return;  // nothing more can be done!
+            }
+
             // get benchmark logs
             final List<BuildDetail> buildDetails;
 
-            // 10) did the builder succeed in building the source code?
-            if (!benchmarkResult.ok) {
+            // 10) did the benchmarker succeed in benchmarking every workload?
+            final BenchmarkResult lastBenchmarkResult = benchmarkResults.get(benchmarkResults.size() - 1);
+            if (lastBenchmarkResult.timedOut) {
+                // benchmark TIMED OUT, its logs may be huge, so just the end of them is sent
+
+                buildDetails = convertLogTailsToBuildDetails(lastBenchmarkResult.stdOutputLogFile, lastBenchmarkResult.stdErrorLogFile);
+
+                // 10.1) Send BENCHMARKING_TIMED_OUT
+                sendFailureBuildStatus(BuildState.BENCHMARKING_TIMED_OUT, buildRequest, buildStats, buildDetails);
+
+            } else if (!lastBenchmarkResult.ok && abortedRegressionGuard == null) {
                 // benchmark FAILED
 
-                 buildDetails = convertLogsToBuildDetails(benchmarkResult.stdOutputLogFile, benchmarkResult.stdErrorLogFile);
+                 buildDetails = convertLogsToBuildDetails(lastBenchmarkResult.stdOutputLogFile, lastBenchmarkResult.stdErrorLogFile);
 
                 // 10.1) Send BENCHMARKING_FAILED
                 sendFailureBuildStatus(BuildState.BENCHMARKING_FAILED, buildRequest, buildStats, buildDetails);
@@ -314,10 +556,62 @@ class Runner extends AbstractJMSService {
             } else {
                 // benchmark OK
 
-                buildDetails = convertLogsToBuildDetails(benchmarkResult.stdOutputLogFile, null);
+                buildDetails = new ArrayList<>();
+                boolean isolated = true;
+                for (int i = 0; i < benchmarkResults.size(); i++) {
+                    final BenchmarkResult benchmarkResult = benchmarkResults.get(i);
+
+                    copyMetrics(workloadLogStats.get(i), buildStats);
+
+                    if (benchmarkResult.cgroupStats != null) {
+                        setCgroupMetrics(workloads.get(i).getName(), benchmarkResult.cgroupStats, buildStats);
+                    } else {
+                        isolated = false;
+                    }
+
+                    // extract the performance of each benchmark from the db_bench output
+                    try {
+                        if (benchmarkSpec == null) {
+                            DbBenchResultParser.parse(benchmarkResult.stdOutputLogFile, buildStats);
+                        } else {
+                            final BuildStats workloadStats = new BuildStats();
+                            DbBenchResultParser.parse(benchmarkResult.stdOutputLogFile, workloadStats);
+                            setWorkloadMetrics(workloads.get(i).getName(), workloadStats, buildStats);
+                        }
+                    } catch (final IOException e) {
+                        LOGGER.warn("Unable to parse benchmark results from: {}. Error: {}", benchmarkResult.stdOutputLogFile.toAbsolutePath(), e.getMessage(), e);
+                    }
+
+                    @Nullable final List<BuildDetail> workloadBuildDetails = convertLogsToBuildDetails(benchmarkResult.stdOutputLogFile, null);
+                    if (workloadBuildDetails != null) {
+                        buildDetails.addAll(workloadBuildDetails);
+                    }
+                }
+
+                // results from a Runner which could not isolate its benchmarks are noisier, so mark them
+                if (settings.isolation != null) {
+                    buildStats.setIsolated(isolated);
+                }
+
+                if (abortedRegressionGuard != null) {
+                    // the aborted workload did not report its results, so report the throughput it had achieved by then
+                    final String abortedWorkloadName = workloads.get(benchmarkResults.size() - 1).getName();
+                    buildStats.setMetric(abortedWorkloadName, BuildStats.METRIC_OPS_PER_SEC, abortedRegressionGuard.getCumulativeOpsPerSec());
+                    buildStats.setMetric(abortedWorkloadName, BuildStats.METRIC_BASELINE_OPS_PER_SEC, abortedRegressionGuard.getBaselineOpsPerSec());
+                    buildStats.setMetric(abortedWorkloadName, BuildStats.METRIC_ABORTED_AFTER_SECONDS, abortedRegressionGuard.getElapsedSeconds());
+
+                    @Nullable final List<BuildDetail> stdErrorBuildDetails = convertLogsToBuildDetails(null, lastBenchmarkResult.stdErrorLogFile);
+                    if (stdErrorBuildDetails != null) {
+                        buildDetails.addAll(stdErrorBuildDetails);
+                    }
+
+                    // 10.2) Send BENCHMARKING_ABORTED
+                    sendFailureBuildStatus(BuildState.BENCHMARKING_ABORTED, buildRequest, buildStats, buildDetails.isEmpty() ? null : buildDetails);
+                    return;
+                }
 
-                // 10.2) Send BENCHMARKING_COMPLETE
-                if (!sendUpdatedBuildStatus(BuildState.BENCHMARKING_COMPLETE, buildRequest, buildStats, buildDetails)) {
+                // 10.3) Send BENCHMARKING_COMPLETE
+                if (!sendUpdatedBuildStatus(BuildState.BENCHMARKING_COMPLETE, buildRequest, buildStats, buildDetails.isEmpty() ? null : buildDetails)) {
                     return;  // nothing more can be done!
                 }
             }
@@ -326,6 +620,180 @@ class Runner extends AbstractJMSService {
         }
     }
 
+    private class ControlTopicMessageListener implements MessageListener {
+        @Override
+        public void onMessage(final Message message) {
+            if (!(message instanceof TextMessage)) {
+                // acknowledge invalid message so that it is removed from the topic
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected type {} from Topic: {}.", message.getClass().getName(), settings.controlTopicName);
+                }
+
+                // can't process non-text message, so DONE
+                return;
+            }
+
+            final TextMessage textMessage = (TextMessage) message;
+            final String content;
+            try {
+                content = textMessage.getText();
+            } catch (final JMSException e) {
+                LOGGER.error("Could not get content of TextMessage from Topic: {}. Error: {}", settings.controlTopicName, e.getMessage(), e);
+
+                // can't access message content, so DONE
+                return;
+            }
+
+            // attempt to parse as CancelRequest
+            final CancelRequest cancelRequest;
+            try {
+                cancelRequest = deserialize(new CancelRequest(), content);
+            } catch (final IOException e) {
+                // unable to deserialize, acknowledge invalid message so that it is removed from the topic
+                if (acknowledgeMessage(message)) {
+                    LOGGER.error("Discarded message with unexpected format from Topic: {}. Error: {}. Content: '{}'", settings.controlTopicName, e.getMessage(), content);
+                }
+                return;
+            }
+
+            acknowledgeMessage(message);
+
+            // every Runner receives the cancel request, but only the one building the build request acts on it
+            final InFlightBuild inFlightBuild = Runner.this.inFlightBuild;
+            if (inFlightBuild != null && inFlightBuild.buildRequestId.equals(cancelRequest.getBuildRequestId())) {
+                if (inFlightBuild.cancellation.cancel()) {
+                    LOGGER.info("Cancelled build: {} of ref: {}. Reason: {}", cancelRequest.getBuildRequestId(), cancelRequest.getRef(), cancelRequest.getReason());
+                }
+            }
+        }
+    }
+
+    private static class InFlightBuild {
+        final UUID buildRequestId;
+        final Cancellation cancellation;
+
+        InFlightBuild(final UUID buildRequestId, final Cancellation cancellation) {
+            this.buildRequestId = buildRequestId;
+            this.cancellation = cancellation;
+        }
+    }
+
+    /**
+     * Get the make build targets of a build request.
+     */
+    private static List<String> getMakeTargets(final BuildRequest buildRequest) {
+        @Nullable final BenchmarkSpec benchmarkSpec = buildRequest.getBenchmarkSpec();
+        if (benchmarkSpec == null || benchmarkSpec.getMakeTargets().isEmpty()) {
+            return DEFAULT_MAKE_TARGETS;
+        }
+        return benchmarkSpec.getMakeTargets();
+    }
+
+    /**
+     * Get the workloads to benchmark for a build request.
+     *
+     * A build request which is a stage of a workflow runs just the workload
+     * named by its benchmark, any other build request runs every workload of
+     * its benchmark spec, or the default benchmarks if it has no spec.
+     */
+    private static List<BenchmarkWorkload> getWorkloads(final BuildRequest buildRequest) {
+        @Nullable final BenchmarkSpec benchmarkSpec = buildRequest.getBenchmarkSpec();
+        @Nullable final String benchmark = buildRequest.getBenchmark();
+
+        if (benchmark != null) {
+            @Nullable BenchmarkWorkload workload = benchmarkSpec != null ? benchmarkSpec.getWorkload(benchmark) : null;
+            if (workload == null) {
+                workload = new BenchmarkWorkload(benchmark);
+            }
+            return Collections.singletonList(workload);
+        }
+
+        if (benchmarkSpec != null) {
+            return benchmarkSpec.getWorkloads();
+        }
+
+        return Collections.singletonList(new BenchmarkWorkload(DEFAULT_BENCHMARK_ARGS.get(0), DEFAULT_BENCHMARK_ARGS, Collections.emptyMap(), -1, -1, -1, CacheMode.WARM));
+    }
+
+    /**
+     * Get the environment variables of the benchmark command for a workload.
+     */
+    private static Map<String, String> getBenchmarkEnv(final BenchmarkWorkload workload) {
+        final Map<String, String> env = new LinkedHashMap<>(DEFAULT_BENCHMARK_ENV);
+        if (workload.getNumKeys() > -1) {
+            env.put(NUM_KEYS_ENV_VAR_NAME, Long.toString(workload.getNumKeys()));
+        }
+        if (workload.getKeySize() > -1) {
+            env.put(KEY_SIZE_ENV_VAR_NAME, Integer.toString(workload.getKeySize()));
+        }
+        if (workload.getValueSize() > -1) {
+            env.put(VALUE_SIZE_ENV_VAR_NAME, Integer.toString(workload.getValueSize()));
+        }
+        env.putAll(workload.getEnv());
+        return env;
+    }
+
+    /**
+     * Record the metrics of a workload under the name of the workload, or if the workload
+     * ran more than one benchmark, under the name of the workload and benchmark.
+     */
+    private static void setWorkloadMetrics(final String workloadName, final BuildStats workloadStats, final BuildStats buildStats) {
+        final Map<String, Map<String, Double>> metrics = workloadStats.getMetrics();
+        for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : metrics.entrySet()) {
+            final String name = metrics.size() == 1 ? workloadName : workloadName + "/" + benchmarkMetrics.getKey();
+            for (final Map.Entry<String, Double> metric : benchmarkMetrics.getValue().entrySet()) {
+                buildStats.setMetric(name, metric.getKey(), metric.getValue());
+            }
+        }
+    }
+
+    private static void logResourceUsage(final BenchmarkWorkload workload, final BenchmarkResult benchmarkResult) {
+        @Nullable final ResourceSample lastSample = benchmarkResult.resourceSeries != null ? benchmarkResult.resourceSeries.getLast() : null;
+        if (lastSample != null) {
+            LOGGER.info("Workload: {} used CPU user: {}ms, sys: {}ms, peak RSS: {}KB, read: {} bytes, written: {} bytes, context switches: {}, over {} sample(s)", workload.getName(), lastSample.cpuUserMillis, lastSample.cpuSysMillis, lastSample.peakRssKb, lastSample.readBytes, lastSample.writeBytes, lastSample.voluntaryContextSwitches + lastSample.involuntaryContextSwitches, benchmarkResult.resourceSeries.size());
+        }
+    }
+
+    private static void copyMetrics(final BuildStats from, final BuildStats to) {
+        for (final Map.Entry<String, Map<String, Double>> benchmarkMetrics : from.getMetrics().entrySet()) {
+            for (final Map.Entry<String, Double> metric : benchmarkMetrics.getValue().entrySet()) {
+                to.setMetric(benchmarkMetrics.getKey(), metric.getKey(), metric.getValue());
+            }
+        }
+    }
+
+    /**
+     * Record the accounting of the cgroup of an isolated workload under the name of the workload.
+     */
+    private static void setCgroupMetrics(final String workloadName, final CgroupStats cgroupStats, final BuildStats buildStats) {
+        setMetricIfPresent(buildStats, workloadName, BuildStats.METRIC_CPU_USER_USEC, cgroupStats.cpuUserUsec);
+        setMetricIfPresent(buildStats, workloadName, BuildStats.METRIC_CPU_SYSTEM_USEC, cgroupStats.cpuSystemUsec);
+        setMetricIfPresent(buildStats, workloadName, BuildStats.METRIC_CPU_THROTTLED_USEC, cgroupStats.cpuThrottledUsec);
+        setMetricIfPresent(buildStats, workloadName, BuildStats.METRIC_MEMORY_PEAK_BYTES, cgroupStats.memoryPeakBytes);
+        setMetricIfPresent(buildStats, workloadName, BuildStats.METRIC_IO_READ_BYTES, cgroupStats.ioReadBytes);
+        setMetricIfPresent(buildStats, workloadName, BuildStats.METRIC_IO_WRITE_BYTES, cgroupStats.ioWriteBytes);
+    }
+
+    private static void setMetricIfPresent(final BuildStats buildStats, final String benchmark, final String metric, final long value) {
+        if (value > -1) {
+            buildStats.setMetric(benchmark, metric, value);
+        }
+    }
+
+    /**
+     * If the build was cancelled, send a {@link BuildState#CANCELLED} status.
+     *
+     * @return true if the build was cancelled, false otherwise
+     */
+    private boolean reportIfCancelled(final Cancellation cancellation, final BuildRequest buildRequest, final BuildStats buildStats) {
+        if (!cancellation.isCancelled()) {
+            return false;
+        }
+
+        sendFailureBuildStatus(BuildState.CANCELLED, buildRequest, buildStats, (List<BuildDetail>) null);
+        return true;
+    }
+
     private boolean sendUpdatedBuildStatus(final BuildState newBuildState, final BuildRequest buildRequest, final BuildStats buildStats) {
         return sendUpdatedBuildStatus(newBuildState, buildRequest, buildStats, null);
     }
@@ -393,6 +861,55 @@ class Runner extends AbstractJMSService {
         return buildDetails;
     }
 
+    private static @Nullable List<BuildDetail> convertTailsToBuildDetails(@Nullable final byte[] stdOutputTail, @Nullable final byte[] stdErrorTail) {
+        List<BuildDetail> buildDetails = null;
+
+        if (stdOutputTail != null && stdOutputTail.length > 0) {
+            buildDetails = new ArrayList<>();
+            buildDetails.add(BuildDetail.forStdOut(stdOutputTail));
+        }
+
+        if (stdErrorTail != null && stdErrorTail.length > 0) {
+            if (buildDetails == null) {
+                buildDetails = new ArrayList<>();
+            }
+            buildDetails.add(BuildDetail.forStdErr(stdErrorTail));
+        }
+
+        return buildDetails;
+    }
+
+    private static @Nullable List<BuildDetail> convertLogTailsToBuildDetails(@Nullable final Path stdOutputLogFile, @Nullable final Path stdErrorLogFile) {
+        final int tailSize = Integer.getInteger(OutputCapture.TAIL_SIZE_PROPERTY, OutputCapture.DEFAULT_TAIL_SIZE);
+        return convertTailsToBuildDetails(readFileTail(stdOutputLogFile, tailSize), readFileTail(stdErrorLogFile, tailSize));
+    }
+
+    private static @Nullable byte[] readFileTail(@Nullable final Path path, final int tailSize) {
+        if (path == null) {
+            return null;
+        }
+
+        try {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            try (final SeekableByteChannel channel = Files.newByteChannel(path)) {
+                final long size = channel.size();
+                final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, tailSize));
+                channel.position(size - buffer.capacity());
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) == -1) {
+                        break;
+                    }
+                }
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Unable to read file: {}. {}", path.toAbsolutePath().toString(), e.getMessage(), e);
+            return null;
+        }
+    }
+
     private static byte[] readFile(@Nullable final Path path) {
         if (path == null) {
             return null;
@@ -410,26 +927,152 @@ class Runner extends AbstractJMSService {
     }
 
     static class Settings {
-        final String artemisBrokerHost;
-        final int artemisBrokerPort;
+        static final String DEFAULT_RUNNER_HEARTBEAT_QUEUE_NAME = "RunnerHeartbeatQueue";
+        static final String DEFAULT_CONTROL_TOPIC_NAME = "ControlTopic";
+        static final String DEFAULT_BENCHMARK_PROGRESS_QUEUE_NAME = "BenchmarkProgressQueue";
+        // within the deadlines of the Orchestrator's BuildReaper, so that a hung build is reported with its logs before it is reaped
+        static final long DEFAULT_BUILD_TIMEOUT_SECONDS = TimeUnit.MINUTES.toSeconds(90);
+        static final long DEFAULT_BENCHMARK_TIMEOUT_SECONDS = TimeUnit.HOURS.toSeconds(2);
+
+        final List<BrokerEndpoint> artemisBrokers;
         final String buildRequestQueueName;
         final String buildResponseQueueName;
+        final String runnerHeartbeatQueueName;
+        final String controlTopicName;
+        final String benchmarkProgressQueueName;
         final Path dataDir;
+        @Nullable final String hardwareClass;
         @Nullable final String buildCommand;
         @Nullable final String benchmarkCommand;
         final boolean keepLogs;
         final boolean keepData;
-
-        public Settings(final String artemisBrokerHost, final int artemisBrokerPort, final String buildRequestQueueName, final String buildResponseQueueName, final Path dataDir, @Nullable final String buildCommand, @Nullable final String benchmarkCommand, final boolean keepLogs, final boolean keepData) {
-            this.artemisBrokerHost = artemisBrokerHost;
-            this.artemisBrokerPort = artemisBrokerPort;
+        @Nullable final BenchmarkIsolation isolation;
+        final double abortRegressionFraction;
+        final long abortRegressionSeconds;
+        final boolean compressBuildLogs;
+        final long buildTimeoutSeconds;
+        final long benchmarkTimeoutSeconds;
+
+        public Settings(final List<BrokerEndpoint> artemisBrokers, final String buildRequestQueueName, final String buildResponseQueueName, final String runnerHeartbeatQueueName, final String controlTopicName, final String benchmarkProgressQueueName, final Path dataDir, @Nullable final String hardwareClass, @Nullable final String buildCommand, @Nullable final String benchmarkCommand, final boolean keepLogs, final boolean keepData, @Nullable final BenchmarkIsolation isolation, final double abortRegressionFraction, final long abortRegressionSeconds, final boolean compressBuildLogs, final long buildTimeoutSeconds, final long benchmarkTimeoutSeconds) {
+            this.artemisBrokers = artemisBrokers;
             this.buildRequestQueueName = buildRequestQueueName;
             this.buildResponseQueueName = buildResponseQueueName;
+            this.runnerHeartbeatQueueName = runnerHeartbeatQueueName;
+            this.controlTopicName = controlTopicName;
+            this.benchmarkProgressQueueName = benchmarkProgressQueueName;
             this.dataDir = dataDir;
+            this.hardwareClass = hardwareClass;
             this.benchmarkCommand = benchmarkCommand;
             this.buildCommand = buildCommand;
             this.keepLogs = keepLogs;
             this.keepData = keepData;
+            this.isolation = isolation;
+            this.abortRegressionFraction = abortRegressionFraction;
+            this.abortRegressionSeconds = abortRegressionSeconds;
+            this.compressBuildLogs = compressBuildLogs;
+            this.buildTimeoutSeconds = buildTimeoutSeconds;
+            this.benchmarkTimeoutSeconds = benchmarkTimeoutSeconds;
+        }
+
+        /**
+         * Builds {@link Settings}, where any setting which is not set has its default value.
+         */
+        static class Builder {
+            private final List<BrokerEndpoint> artemisBrokers;
+            private final String buildRequestQueueName;
+            private final String buildResponseQueueName;
+            private final Path dataDir;
+            private String runnerHeartbeatQueueName = DEFAULT_RUNNER_HEARTBEAT_QUEUE_NAME;
+            private String controlTopicName = DEFAULT_CONTROL_TOPIC_NAME;
+            private String benchmarkProgressQueueName = DEFAULT_BENCHMARK_PROGRESS_QUEUE_NAME;
+            @Nullable private String hardwareClass;
+            @Nullable private String buildCommand;
+            @Nullable private String benchmarkCommand;
+            private boolean keepLogs;
+            private boolean keepData;
+            @Nullable private BenchmarkIsolation isolation;
+            private double abortRegressionFraction = RegressionGuard.DEFAULT_FRACTION;
+            private long abortRegressionSeconds = RegressionGuard.DEFAULT_SUSTAIN_SECONDS;
+            private boolean compressBuildLogs;
+            private long buildTimeoutSeconds = DEFAULT_BUILD_TIMEOUT_SECONDS;
+            private long benchmarkTimeoutSeconds = DEFAULT_BENCHMARK_TIMEOUT_SECONDS;
+
+            public Builder(final List<BrokerEndpoint> artemisBrokers, final String buildRequestQueueName, final String buildResponseQueueName, final Path dataDir) {
+                this.artemisBrokers = artemisBrokers;
+                this.buildRequestQueueName = buildRequestQueueName;
+                this.buildResponseQueueName = buildResponseQueueName;
+                this.dataDir = dataDir;
+            }
+
+            public Builder runnerHeartbeatQueueName(final String runnerHeartbeatQueueName) {
+                this.runnerHeartbeatQueueName = runnerHeartbeatQueueName;
+                return this;
+            }
+
+            public Builder controlTopicName(final String controlTopicName) {
+                this.controlTopicName = controlTopicName;
+                return this;
+            }
+
+            public Builder benchmarkProgressQueueName(final String benchmarkProgressQueueName) {
+                this.benchmarkProgressQueueName = benchmarkProgressQueueName;
+                return this;
+            }
+
+            public Builder hardwareClass(@Nullable final String hardwareClass) {
+                this.hardwareClass = hardwareClass;
+                return this;
+            }
+
+            public Builder buildCommand(@Nullable final String buildCommand) {
+                this.buildCommand = buildCommand;
+                return this;
+            }
+
+            public Builder benchmarkCommand(@Nullable final String benchmarkCommand) {
+                this.benchmarkCommand = benchmarkCommand;
+                return this;
+            }
+
+            public Builder keepLogs(final boolean keepLogs) {
+                this.keepLogs = keepLogs;
+                return this;
+            }
+
+            public Builder keepData(final boolean keepData) {
+                this.keepData = keepData;
+                return this;
+            }
+
+            public Builder isolation(@Nullable final BenchmarkIsolation isolation) {
+                this.isolation = isolation;
+                return this;
+            }
+
+            public Builder abortRegression(final double abortRegressionFraction, final long abortRegressionSeconds) {
+                this.abortRegressionFraction = abortRegressionFraction;
+                this.abortRegressionSeconds = abortRegressionSeconds;
+                return this;
+            }
+
+            public Builder compressBuildLogs(final boolean compressBuildLogs) {
+                this.compressBuildLogs = compressBuildLogs;
+                return this;
+            }
+
+            public Builder buildTimeoutSeconds(final long buildTimeoutSeconds) {
+                this.buildTimeoutSeconds = buildTimeoutSeconds;
+                return this;
+            }
+
+            public Builder benchmarkTimeoutSeconds(final long benchmarkTimeoutSeconds) {
+                this.benchmarkTimeoutSeconds = benchmarkTimeoutSeconds;
+                return this;
+            }
+
+            public Settings build() {
+                return new Settings(artemisBrokers, buildRequestQueueName, buildResponseQueueName, runnerHeartbeatQueueName, controlTopicName, benchmarkProgressQueueName, dataDir, hardwareClass, buildCommand, benchmarkCommand, keepLogs, keepData, isolation, abortRegressionFraction, abortRegressionSeconds, compressBuildLogs, buildTimeoutSeconds, benchmarkTimeoutSeconds);
+            }
         }
     }
 }
@@ -0,0 +1,398 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Isolates benchmarks from the rest of the system to reduce the noise in their results.
+ *
+ * Requires a cgroup v2 which is delegated to the user of the Runner, e.g. created by
+ * {@code mkdir /sys/fs/cgroup/rocksdb-cb && chown -R runner /sys/fs/cgroup/rocksdb-cb},
+ * and which the Runner is allowed to move itself into. Within it two child cgroups are created:
+ * <ul>
+ *     <li>{@code runner}, into which the JVM of the Runner, including its JGit and JMS threads,
+ *     is moved, with a cpuset of the CPUs which are not dedicated to benchmarks.</li>
+ *     <li>{@code benchmark}, which each benchmark process is started in, with a cpuset
+ *     of the dedicated CPUs, and optionally the memory of a single NUMA node. It is
+ *     recreated for each benchmark, so that its accounting is of just that benchmark.</li>
+ * </ul>
+ *
+ * Before each benchmark, the isolation waits for the load average of the system
+ * to settle below a threshold.
+ *
+ * If the cgroup controls are not available, e.g. on cgroup v1 or without delegation,
+ * the benchmarks run without isolation, and their results are marked as non-isolated.
+ */
+public class BenchmarkIsolation {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkIsolation.class);
+
+    public static final Path DEFAULT_CGROUP_DIR = Paths.get("/sys/fs/cgroup/rocksdb-cb");
+    public static final double DEFAULT_LOAD_THRESHOLD = 1.0;
+    static final long DEFAULT_MAX_SETTLE_TIME = TimeUnit.MINUTES.toMillis(5);
+    private static final long SETTLE_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    private static final String RUNNER_CGROUP_NAME = "runner";
+    private static final String BENCHMARK_CGROUP_NAME = "benchmark";
+    private static final List<String> CONTROLLERS = Arrays.asList("cpuset", "cpu", "memory", "io");
+
+    private static final Path LOADAVG = Paths.get("/proc/loadavg");
+    private static final Path DROP_CACHES = Paths.get("/proc/sys/vm/drop_caches");
+
+    private final Path cgroupDir;
+    private final String cpus;
+    private final int numaNode;
+    private final double loadThreshold;
+    private final long maxSettleTime;
+
+    private volatile boolean available;
+
+    /**
+     * @param cgroupDir the cgroup which is delegated to the Runner
+     * @param cpus the CPUs to dedicate to benchmarks, in the cpuset list format, e.g. {@code 4-7}
+     * @param numaNode the NUMA node whose memory benchmarks should use, or -1 for any
+     * @param loadThreshold the load average that the system must settle below before a benchmark starts
+     */
+    public BenchmarkIsolation(final Path cgroupDir, final String cpus, final int numaNode, final double loadThreshold) {
+        this(cgroupDir, cpus, numaNode, loadThreshold, DEFAULT_MAX_SETTLE_TIME);
+    }
+
+    BenchmarkIsolation(final Path cgroupDir, final String cpus, final int numaNode, final double loadThreshold, final long maxSettleTime) {
+        this.cgroupDir = cgroupDir;
+        this.cpus = cpus;
+        this.numaNode = numaNode;
+        this.loadThreshold = loadThreshold;
+        this.maxSettleTime = maxSettleTime;
+    }
+
+    /**
+     * Set up the cgroups, and move the Runner off of the dedicated CPUs.
+     *
+     * @return true if benchmarks can be isolated, false otherwise
+     */
+    public boolean setup() {
+        try {
+            final List<String> controllers = Arrays.asList(readString(cgroupDir.resolve("cgroup.controllers")).trim().split("\\s+"));
+            if (!controllers.contains("cpuset")) {
+                throw new IOException("The cpuset controller is not available in cgroup: " + cgroupDir);
+            }
+
+            final BitSet dedicatedCpus = parseCpuList(cpus);
+            final BitSet runnerCpus = parseCpuList(readString(cgroupDir.resolve("cpuset.cpus.effective")).trim());
+            if (!containsAll(runnerCpus, dedicatedCpus)) {
+                throw new IOException("The CPUs: " + cpus + " are not all available in cgroup: " + cgroupDir);
+            }
+            runnerCpus.andNot(dedicatedCpus);
+            if (runnerCpus.isEmpty()) {
+                throw new IOException("No CPUs would remain for the Runner after dedicating CPUs: " + cpus);
+            }
+
+            // a cgroup with processes cannot delegate controllers, so first move the Runner into its own child
+            final Path runnerCgroupDir = cgroupDir.resolve(RUNNER_CGROUP_NAME);
+            Files.createDirectories(runnerCgroupDir);
+            writeString(runnerCgroupDir.resolve("cgroup.procs"), Long.toString(ProcessHandle.current().pid()));
+
+            for (final String controller : CONTROLLERS) {
+                if (!controllers.contains(controller)) {
+                    LOGGER.warn("The {} controller is not available in cgroup: {}, benchmarks will not be accounted by it", controller, cgroupDir);
+                    continue;
+                }
+                try {
+                    writeString(cgroupDir.resolve("cgroup.subtree_control"), "+" + controller);
+                } catch (final IOException e) {
+                    if (controller.equals("cpuset")) {
+                        throw e;
+                    }
+                    LOGGER.warn("Unable to enable the {} controller in cgroup: {}, benchmarks will not be accounted by it. Error: {}", controller, cgroupDir, e.getMessage());
+                }
+            }
+
+            writeString(runnerCgroupDir.resolve("cpuset.cpus"), formatCpuList(runnerCpus));
+
+            available = true;
+            LOGGER.info("Isolating benchmarks on CPUs: {}{}, Runner moved to CPUs: {}", cpus, numaNode > -1 ? " of NUMA node: " + numaNode : "", formatCpuList(runnerCpus));
+
+        } catch (final IOException | IllegalArgumentException e) {
+            available = false;
+            LOGGER.warn("Unable to isolate benchmarks in cgroup: {}, benchmark results will be marked as non-isolated. Error: {}", cgroupDir, e.getMessage());
+        }
+        return available;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Prepare a fresh cgroup for the next benchmark.
+     *
+     * @return true if the benchmark can be isolated, false otherwise
+     */
+    boolean prepare() {
+        if (!available) {
+            return false;
+        }
+
+        final Path benchmarkCgroupDir = cgroupDir.resolve(BENCHMARK_CGROUP_NAME);
+        try {
+            // the previous benchmark's processes have exited, so its cgroup can be removed
+            if (Files.exists(benchmarkCgroupDir)) {
+                Files.delete(benchmarkCgroupDir);
+            }
+            Files.createDirectory(benchmarkCgroupDir);
+            writeString(benchmarkCgroupDir.resolve("cpuset.cpus"), cpus);
+            if (numaNode > -1) {
+                writeString(benchmarkCgroupDir.resolve("cpuset.mems"), Integer.toString(numaNode));
+            }
+            return true;
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to prepare cgroup: {}, the benchmark will not be isolated. Error: {}", benchmarkCgroupDir, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Wrap a command so that it runs in the cgroup of the benchmark.
+     *
+     * The shell moves itself into the cgroup before it execs the command,
+     * so that every process of the benchmark starts in the cgroup.
+     *
+     * @return the shell command and its arguments
+     */
+    List<String> wrapCommand(final String command, final List<String> arguments) {
+        final Path procs = cgroupDir.resolve(BENCHMARK_CGROUP_NAME).resolve("cgroup.procs").toAbsolutePath();
+        final List<String> commandAndArgs = new ArrayList<>();
+        commandAndArgs.add("sh");
+        commandAndArgs.add("-c");
+        commandAndArgs.add("echo $$ > '" + procs.toString().replace("'", "'\\''") + "' && exec \"$@\"");
+        commandAndArgs.add("sh");
+        commandAndArgs.add(command);
+        commandAndArgs.addAll(arguments);
+        return commandAndArgs;
+    }
+
+    /**
+     * Read the accounting of the cgroup of the last benchmark.
+     *
+     * @return the accounting, or null if it could not be read
+     */
+    @Nullable CgroupStats readStats() {
+        final Path benchmarkCgroupDir = cgroupDir.resolve(BENCHMARK_CGROUP_NAME);
+        try {
+            final long[] cpuStat = parseCpuStat(readString(benchmarkCgroupDir.resolve("cpu.stat")));
+
+            long memoryPeak = -1;
+            final Path memoryPeakFile = benchmarkCgroupDir.resolve("memory.peak");
+            if (Files.exists(memoryPeakFile)) {
+                memoryPeak = Long.parseLong(readString(memoryPeakFile).trim());
+            }
+
+            long[] ioStat = { -1, -1 };
+            final Path ioStatFile = benchmarkCgroupDir.resolve("io.stat");
+            if (Files.exists(ioStatFile)) {
+                ioStat = parseIoStat(readString(ioStatFile));
+            }
+
+            return new CgroupStats(cpuStat[0], cpuStat[1], cpuStat[2], memoryPeak, ioStat[0], ioStat[1]);
+        } catch (final IOException | NumberFormatException e) {
+            LOGGER.warn("Unable to read the accounting of cgroup: {}. Error: {}", benchmarkCgroupDir, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wait until the load average of the system settles below the threshold,
+     * or until the maximum settle time has elapsed.
+     *
+     * @return true if the load settled, false otherwise
+     */
+    boolean waitForLoadToSettle() {
+        final long deadline = System.currentTimeMillis() + maxSettleTime;
+        double load = -1;
+        while (true) {
+            try {
+                load = parseLoadAverage(readString(LOADAVG));
+            } catch (final IOException | NumberFormatException e) {
+                LOGGER.warn("Unable to read the load average of the system. Error: {}", e.getMessage());
+                return false;
+            }
+
+            if (load < loadThreshold) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                LOGGER.warn("Load average: {} did not settle below: {} within {}ms, starting benchmark anyway", load, loadThreshold, maxSettleTime);
+                return false;
+            }
+
+            LOGGER.info("Waiting for load average: {} to settle below: {}", load, loadThreshold);
+            try {
+                Thread.sleep(Math.min(SETTLE_POLL_INTERVAL, Math.max(1, deadline - System.currentTimeMillis())));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();  // reset the interrupted thread
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Drop the page cache of the operating system, so that a benchmark
+     * starts with a cold cache.
+     *
+     * This is best effort, as it requires Linux and root privileges.
+     */
+    public static void dropPageCache() {
+        try {
+            // only clean pages can be dropped, so first write out the dirty pages
+            final Process sync = new ProcessBuilder("sync").start();
+            sync.waitFor();
+
+            writeString(DROP_CACHES, "3");
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to drop the page cache, the benchmark will run with a warm cache. Error: {}", e.getMessage());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();  // reset the interrupted thread
+        }
+    }
+
+    private static String readString(final Path path) throws IOException {
+        return new String(Files.readAllBytes(path), US_ASCII);
+    }
+
+    private static void writeString(final Path path, final String value) throws IOException {
+        Files.write(path, value.getBytes(US_ASCII));
+    }
+
+    private static boolean containsAll(final BitSet set, final BitSet subset) {
+        final BitSet missing = (BitSet) subset.clone();
+        missing.andNot(set);
+        return missing.isEmpty();
+    }
+
+    /**
+     * Parse a list of CPUs in the format of {@code cpuset.cpus}, e.g. {@code 0-3,8,10-11}.
+     *
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    static BitSet parseCpuList(final String cpuList) {
+        final BitSet cpus = new BitSet();
+        if (cpuList.isEmpty()) {
+            return cpus;
+        }
+        try {
+            for (final String range : cpuList.split(",")) {
+                final int idxSeparator = range.indexOf('-');
+                if (idxSeparator < 0) {
+                    cpus.set(Integer.parseInt(range.trim()));
+                } else {
+                    final int from = Integer.parseInt(range.substring(0, idxSeparator).trim());
+                    final int to = Integer.parseInt(range.substring(idxSeparator + 1).trim());
+                    if (to < from) {
+                        throw new IllegalArgumentException("Invalid CPU range: " + range);
+                    }
+                    cpus.set(from, to + 1);
+                }
+            }
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CPU list: " + cpuList, e);
+        }
+        return cpus;
+    }
+
+    /**
+     * Format CPUs in the list format of {@code cpuset.cpus}.
+     */
+    static String formatCpuList(final BitSet cpus) {
+        final StringBuilder builder = new StringBuilder();
+        int from = cpus.nextSetBit(0);
+        while (from >= 0) {
+            final int to = cpus.nextClearBit(from) - 1;
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(from);
+            if (to > from) {
+                builder.append('-').append(to);
+            }
+            from = cpus.nextSetBit(to + 1);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse the content of {@code cpu.stat}.
+     *
+     * @return the user, system, and throttled microseconds, -1 for any which are not present
+     */
+    static long[] parseCpuStat(final String cpuStat) throws IOException {
+        final long[] values = { -1, -1, -1 };
+        try (final BufferedReader reader = new BufferedReader(new StringReader(cpuStat))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] keyValue = line.trim().split("\\s+");
+                if (keyValue.length != 2) {
+                    continue;
+                }
+                switch (keyValue[0]) {
+                    case "user_usec":
+                        values[0] = Long.parseLong(keyValue[1]);
+                        break;
+                    case "system_usec":
+                        values[1] = Long.parseLong(keyValue[1]);
+                        break;
+                    case "throttled_usec":
+                        values[2] = Long.parseLong(keyValue[1]);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Parse the content of {@code io.stat}.
+     *
+     * @return the bytes read and written, summed across all devices
+     */
+    static long[] parseIoStat(final String ioStat) throws IOException {
+        final long[] values = { 0, 0 };
+        try (final BufferedReader reader = new BufferedReader(new StringReader(ioStat))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // e.g. 259:0 rbytes=1459200 wbytes=314773504 rios=192 wios=353 dbytes=0 dios=0
+                for (final String field : line.trim().split("\\s+")) {
+                    if (field.startsWith("rbytes=")) {
+                        values[0] += Long.parseLong(field.substring(7));
+                    } else if (field.startsWith("wbytes=")) {
+                        values[1] += Long.parseLong(field.substring(7));
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Parse the one minute load average from the content of {@code /proc/loadavg}.
+     */
+    static double parseLoadAverage(final String loadAvg) {
+        return Double.parseDouble(loadAvg.trim().split("\\s+")[0]);
+    }
+}
@@ -0,0 +1,20 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+/**
+ * Receives the interim throughput of a benchmark whilst it is running.
+ */
+@FunctionalInterface
+public interface BenchmarkProgressListener {
+
+    /**
+     * Called for each interim report of throughput by a thread of {@code db_bench}.
+     *
+     * @param thread the thread of db_bench which reported
+     * @param elapsedSeconds the time since the benchmark started
+     * @param intervalOps the number of operations completed since the previous report
+     * @param totalOps the number of operations completed since the benchmark started
+     * @param intervalOpsPerSec the throughput since the previous report
+     * @param cumulativeOpsPerSec the throughput since the benchmark started
+     */
+    void onProgress(int thread, double elapsedSeconds, long intervalOps, long totalOps, double intervalOpsPerSec, double cumulativeOpsPerSec);
+}
@@ -1,5 +1,8 @@
 package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
 
+import com.evolvedbinary.rocksdb.cb.process.ResourceSeries;
+
+import javax.annotation.Nullable;
 import java.nio.file.Path;
 
 import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
@@ -10,20 +13,57 @@ public class BenchmarkResult {
     public final long duration;
     public final Path stdOutputLogFile;
     public final Path stdErrorLogFile;
+    /**
+     * True if the benchmark was terminated because it exceeded its time budget.
+     */
+    public final boolean timedOut;
+    /**
+     * The resource usage of the benchmark process tree over time,
+     * or null if it was not sampled.
+     */
+    @Nullable public final ResourceSeries resourceSeries;
+    /**
+     * The accounting of the cgroup of the benchmark,
+     * or null if the benchmark was not isolated.
+     */
+    @Nullable public final CgroupStats cgroupStats;
 
     static BenchmarkResult ok(final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile) {
-        return new BenchmarkResult(true, NORMAL_EXIT_CODE, duration, stdOutputLogFile, stdErrorLogFile);
+        return ok(duration, stdOutputLogFile, stdErrorLogFile, null);
+    }
+
+    static BenchmarkResult ok(final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final ResourceSeries resourceSeries) {
+        return ok(duration, stdOutputLogFile, stdErrorLogFile, resourceSeries, null);
+    }
+
+    static BenchmarkResult ok(final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final ResourceSeries resourceSeries, @Nullable final CgroupStats cgroupStats) {
+        return new BenchmarkResult(true, NORMAL_EXIT_CODE, duration, stdOutputLogFile, stdErrorLogFile, false, resourceSeries, cgroupStats);
     }
 
     static BenchmarkResult failure(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile) {
-        return new BenchmarkResult(false, exitCode, duration, stdOutputLogFile, stdErrorLogFile);
+        return failure(exitCode, duration, stdOutputLogFile, stdErrorLogFile, null);
+    }
+
+    static BenchmarkResult failure(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final ResourceSeries resourceSeries) {
+        return failure(exitCode, duration, stdOutputLogFile, stdErrorLogFile, resourceSeries, null);
+    }
+
+    static BenchmarkResult failure(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final ResourceSeries resourceSeries, @Nullable final CgroupStats cgroupStats) {
+        return new BenchmarkResult(false, exitCode, duration, stdOutputLogFile, stdErrorLogFile, false, resourceSeries, cgroupStats);
+    }
+
+    static BenchmarkResult timedOut(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final ResourceSeries resourceSeries, @Nullable final CgroupStats cgroupStats) {
+        return new BenchmarkResult(false, exitCode, duration, stdOutputLogFile, stdErrorLogFile, true, resourceSeries, cgroupStats);
     }
 
-    private BenchmarkResult(final boolean ok, final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile) {
+    private BenchmarkResult(final boolean ok, final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, final boolean timedOut, @Nullable final ResourceSeries resourceSeries, @Nullable final CgroupStats cgroupStats) {
         this.ok = ok;
         this.exitCode = exitCode;
         this.duration = duration;
         this.stdOutputLogFile = stdOutputLogFile;
         this.stdErrorLogFile = stdErrorLogFile;
+        this.timedOut = timedOut;
+        this.resourceSeries = resourceSeries;
+        this.cgroupStats = cgroupStats;
     }
 }
@@ -1,5 +1,8 @@
 package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
 
+import com.evolvedbinary.rocksdb.cb.process.Cancellation;
+import com.evolvedbinary.rocksdb.cb.process.ProcessHelper;
+
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -29,5 +32,87 @@ public interface Benchmarker {
      *
      * @throws IOException if the benchmark cannot be started
      */
-    BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs) throws IOException;
+    default BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs) throws IOException {
+        return benchmark(benchmarkId, projectRepoDir, projectLogDir, projectDbDir, projectWalDir, benchmarkEnvironmentVariables, benchmarkArgs, null);
+    }
+
+    /**
+     * Run a Benchmark, unless cancelled.
+     *
+     * @param benchmarkId a unique identifier for the benchmark
+     * @param projectRepoDir the location of the source code
+     * @param projectLogDir the location to write benchmark log files to
+     * @param projectDbDir the location to write db files to
+     * @param projectWalDir the location to write db WAL files to
+     * @param benchmarkEnvironmentVariables the environment variables for the benchmark
+     * @param benchmarkArgs the arguments to the benchmark
+     * @param cancellation if not null, the benchmark processes are terminated when it is cancelled,
+     *     in which case the result is a failure
+     *
+     * @return the result of the benchmark
+     *
+     * @throws IllegalArgumentException if the {@code projectRepoDir} does not exist,
+     *     or if the {@code projectLogDir} does not exist or cannot be created,
+     *     or if the {@code projectDbDir} does not exist or cannot be created,
+     *     or if the {@code projectWalDir} if not null, and does not exist or cannot be created,
+     *
+     * @throws IOException if the benchmark cannot be started
+     */
+    default BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs, @Nullable final Cancellation cancellation) throws IOException {
+        return benchmark(benchmarkId, projectRepoDir, projectLogDir, projectDbDir, projectWalDir, benchmarkEnvironmentVariables, benchmarkArgs, cancellation, null);
+    }
+
+    /**
+     * Run a Benchmark, unless cancelled, reporting its progress whilst it runs.
+     *
+     * @param benchmarkId a unique identifier for the benchmark
+     * @param projectRepoDir the location of the source code
+     * @param projectLogDir the location to write benchmark log files to
+     * @param projectDbDir the location to write db files to
+     * @param projectWalDir the location to write db WAL files to
+     * @param benchmarkEnvironmentVariables the environment variables for the benchmark
+     * @param benchmarkArgs the arguments to the benchmark
+     * @param cancellation if not null, the benchmark processes are terminated when it is cancelled,
+     *     in which case the result is a failure
+     * @param progressListener if not null, receives the interim throughput reported by the benchmark whilst it runs
+     *
+     * @return the result of the benchmark
+     *
+     * @throws IllegalArgumentException if the {@code projectRepoDir} does not exist,
+     *     or if the {@code projectLogDir} does not exist or cannot be created,
+     *     or if the {@code projectDbDir} does not exist or cannot be created,
+     *     or if the {@code projectWalDir} if not null, and does not exist or cannot be created,
+     *
+     * @throws IOException if the benchmark cannot be started
+     */
+    default BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs, @Nullable final Cancellation cancellation, @Nullable final BenchmarkProgressListener progressListener) throws IOException {
+        return benchmark(benchmarkId, projectRepoDir, projectLogDir, projectDbDir, projectWalDir, benchmarkEnvironmentVariables, benchmarkArgs, cancellation, progressListener, ProcessHelper.NO_TIMEOUT);
+    }
+
+    /**
+     * Run a Benchmark, unless cancelled, within a time budget, reporting its progress whilst it runs.
+     *
+     * @param benchmarkId a unique identifier for the benchmark
+     * @param projectRepoDir the location of the source code
+     * @param projectLogDir the location to write benchmark log files to
+     * @param projectDbDir the location to write db files to
+     * @param projectWalDir the location to write db WAL files to
+     * @param benchmarkEnvironmentVariables the environment variables for the benchmark
+     * @param benchmarkArgs the arguments to the benchmark
+     * @param cancellation if not null, the benchmark processes are terminated when it is cancelled,
+     *     in which case the result is a failure
+     * @param progressListener if not null, receives the interim throughput reported by the benchmark whilst it runs
+     * @param timeout the most milliseconds the benchmark may take, or {@link ProcessHelper#NO_TIMEOUT},
+     *     after which the benchmark processes are terminated and the result is timed out
+     *
+     * @return the result of the benchmark
+     *
+     * @throws IllegalArgumentException if the {@code projectRepoDir} does not exist,
+     *     or if the {@code projectLogDir} does not exist or cannot be created,
+     *     or if the {@code projectDbDir} does not exist or cannot be created,
+     *     or if the {@code projectWalDir} if not null, and does not exist or cannot be created,
+     *
+     * @throws IOException if the benchmark cannot be started
+     */
+    BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs, @Nullable final Cancellation cancellation, @Nullable final BenchmarkProgressListener progressListener, final long timeout) throws IOException;
 }
@@ -0,0 +1,31 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+/**
+ * The resource accounting of the cgroup of an isolated benchmark,
+ * read from its {@code cpu.stat}, {@code memory.peak}, and {@code io.stat}.
+ *
+ * A value is -1 if the controller which accounts for it is not enabled.
+ */
+public class CgroupStats {
+    public final long cpuUserUsec;
+    public final long cpuSystemUsec;
+    public final long cpuThrottledUsec;
+    public final long memoryPeakBytes;
+    public final long ioReadBytes;
+    public final long ioWriteBytes;
+
+    public CgroupStats(final long cpuUserUsec, final long cpuSystemUsec, final long cpuThrottledUsec, final long memoryPeakBytes, final long ioReadBytes, final long ioWriteBytes) {
+        this.cpuUserUsec = cpuUserUsec;
+        this.cpuSystemUsec = cpuSystemUsec;
+        this.cpuThrottledUsec = cpuThrottledUsec;
+        this.memoryPeakBytes = memoryPeakBytes;
+        this.ioReadBytes = ioReadBytes;
+        this.ioWriteBytes = ioWriteBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "CgroupStats(cpuUserUsec=" + cpuUserUsec + ", cpuSystemUsec=" + cpuSystemUsec + ", cpuThrottledUsec=" + cpuThrottledUsec
+                + ", memoryPeakBytes=" + memoryPeakBytes + ", ioReadBytes=" + ioReadBytes + ", ioWriteBytes=" + ioWriteBytes + ")";
+    }
+}
@@ -0,0 +1,294 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parses the results of each benchmark from the output of {@code db_bench}.
+ *
+ * For each benchmark, {@code db_bench} reports a line such as:
+ * <pre>
+ * fillseq      :       2.345 micros/op 426439 ops/sec;   47.2 MB/s
+ * </pre>
+ * which, when run with {@code --histogram}, is followed by the latency histogram of each type of operation:
+ * <pre>
+ * Microseconds per write:
+ * Count: 1000000 Average: 2.2916  StdDev: 17.42
+ * Min: 0  Median: 0.5632  Max: 10530
+ * Percentiles: P50: 0.56 P75: 0.85 P99: 2.96 P99.9: 7.43 P99.99: 27.41
+ * ------------------------------------------------------
+ * [       0,       1 ]   888043  88.804%  88.804% ##################
+ * (       1,       2 ]    94218   9.422%  98.226% ##
+ * </pre>
+ *
+ * {@code db_bench} does not report the P95 latency, so it is interpolated from the buckets of the histogram
+ * in the same way as {@code db_bench} interpolates the other percentiles.
+ * Only the percentiles of the first histogram of a benchmark are recorded, i.e. of its primary operation.
+ *
+ * When run with {@code --statistics}, {@code db_bench} also dumps the tickers of RocksDB's statistics after each benchmark:
+ * <pre>
+ * STATISTICS:
+ * rocksdb.block.cache.miss COUNT : 1234
+ * rocksdb.compact.read.bytes COUNT : 56789
+ * </pre>
+ * of which those in {@link #TICKERS} are recorded under their own names.
+ *
+ * When run with {@code --stats_interval_seconds}, each thread of {@code db_bench} periodically reports its throughput whilst running:
+ * <pre>
+ * 2023/01/01-12:00:40  ... thread 0: (200000,1000000) ops and (20000.0,24691.4) ops/second in (10.000000,40.500000) seconds
+ * </pre>
+ * which may be parsed as it is written by {@link #parseProgress(String, BenchmarkProgressListener)}.
+ */
+public class DbBenchResultParser {
+
+    private static final Pattern RESULT_PATTERN = Pattern.compile("^(\\S+)\\s*:\\s*([0-9.]+) micros/op\\s+([0-9.]+) ops/sec");
+    private static final Pattern MB_PER_SEC_PATTERN = Pattern.compile("([0-9.]+) MB/s");
+    private static final Pattern HISTOGRAM_PATTERN = Pattern.compile("^Microseconds per \\S+:");
+    private static final Pattern COUNT_PATTERN = Pattern.compile("^Count: (\\d+)");
+    private static final Pattern MIN_MAX_PATTERN = Pattern.compile("^Min: ([0-9.]+)\\s+Median: [0-9.]+\\s+Max: ([0-9.]+)");
+    private static final Pattern PERCENTILE_PATTERN = Pattern.compile("(P[0-9.]+): ([0-9.]+)");
+    private static final Pattern BUCKET_PATTERN = Pattern.compile("^[\\[(]\\s*([0-9.]+),\\s*([0-9.]+)\\s*]\\s+(\\d+)\\s");
+    private static final Pattern PROGRESS_PATTERN = Pattern.compile("thread (\\d+): \\((\\d+),(\\d+)\\) ops and \\(([0-9.]+),([0-9.]+)\\) ops/second in \\(([0-9.]+),([0-9.]+)\\) seconds");
+    private static final Pattern TICKER_PATTERN = Pattern.compile("^(rocksdb\\.\\S+) COUNT : (\\d+)$");
+
+    /**
+     * The tickers of RocksDB's statistics which explain the performance of a benchmark.
+     */
+    static final Set<String> TICKERS = new HashSet<>(Arrays.asList(
+            "rocksdb.block.cache.hit",
+            "rocksdb.block.cache.miss",
+            "rocksdb.bloom.filter.useful",
+            "rocksdb.memtable.hit",
+            "rocksdb.memtable.miss",
+            "rocksdb.number.keys.written",
+            "rocksdb.number.keys.read",
+            "rocksdb.bytes.written",
+            "rocksdb.bytes.read",
+            "rocksdb.wal.bytes",
+            "rocksdb.wal.synced",
+            "rocksdb.flush.write.bytes",
+            "rocksdb.compact.read.bytes",
+            "rocksdb.compact.write.bytes",
+            "rocksdb.stall.micros"
+    ));
+
+    private static final double P95 = 95;
+
+    /**
+     * Parse the output of {@code db_bench} from a log file.
+     *
+     * @param logFile the log file of the standard output of the benchmark
+     * @param buildStats the stats to set the metrics of each benchmark in
+     *
+     * @throws IOException if the log file cannot be read
+     */
+    public static void parse(final Path logFile, final BuildStats buildStats) throws IOException {
+        try (final BufferedReader reader = Files.newBufferedReader(logFile, UTF_8)) {
+            parse(reader, buildStats);
+        }
+    }
+
+    /**
+     * Parse the output of {@code db_bench}.
+     *
+     * @param reader the output of the benchmark
+     * @param buildStats the stats to set the metrics of each benchmark in
+     *
+     * @throws IOException if the output cannot be read
+     */
+    public static void parse(final BufferedReader reader, final BuildStats buildStats) throws IOException {
+        final Set<String> benchmarksWithHistogram = new HashSet<>();
+
+        @Nullable String benchmark = null;
+        @Nullable Histogram histogram = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+
+            final Matcher resultMatcher = RESULT_PATTERN.matcher(line);
+            if (resultMatcher.find()) {
+                finish(histogram, buildStats);
+                histogram = null;
+
+                benchmark = resultMatcher.group(1);
+                buildStats.setMetric(benchmark, BuildStats.METRIC_MICROS_PER_OP, Double.parseDouble(resultMatcher.group(2)));
+                buildStats.setMetric(benchmark, BuildStats.METRIC_OPS_PER_SEC, Double.parseDouble(resultMatcher.group(3)));
+                final Matcher mbPerSecMatcher = MB_PER_SEC_PATTERN.matcher(line);
+                if (mbPerSecMatcher.find(resultMatcher.end())) {
+                    buildStats.setMetric(benchmark, BuildStats.METRIC_MB_PER_SEC, Double.parseDouble(mbPerSecMatcher.group(1)));
+                }
+                continue;
+            }
+
+            final Matcher tickerMatcher = TICKER_PATTERN.matcher(line);
+            if (tickerMatcher.find()) {
+                finish(histogram, buildStats);
+                histogram = null;
+
+                // the statistics are cumulative, so the last dump of each benchmark is recorded
+                if (benchmark != null && TICKERS.contains(tickerMatcher.group(1))) {
+                    buildStats.setMetric(benchmark, tickerMatcher.group(1), Long.parseLong(tickerMatcher.group(2)));
+                }
+                continue;
+            }
+
+            if (HISTOGRAM_PATTERN.matcher(line).find()) {
+                finish(histogram, buildStats);
+                histogram = null;
+
+                if (benchmark != null && benchmarksWithHistogram.add(benchmark)) {
+                    histogram = new Histogram(benchmark);
+                }
+                continue;
+            }
+
+            if (histogram == null) {
+                continue;
+            }
+
+            final Matcher countMatcher = COUNT_PATTERN.matcher(line);
+            if (countMatcher.find()) {
+                histogram.count = Long.parseLong(countMatcher.group(1));
+                continue;
+            }
+
+            final Matcher minMaxMatcher = MIN_MAX_PATTERN.matcher(line);
+            if (minMaxMatcher.find()) {
+                histogram.min = Double.parseDouble(minMaxMatcher.group(1));
+                histogram.max = Double.parseDouble(minMaxMatcher.group(2));
+                continue;
+            }
+
+            if (line.startsWith("Percentiles:")) {
+                final Matcher percentileMatcher = PERCENTILE_PATTERN.matcher(line);
+                while (percentileMatcher.find()) {
+                    final String metric = percentileMetric(percentileMatcher.group(1));
+                    if (metric != null) {
+                        buildStats.setMetric(benchmark, metric, Double.parseDouble(percentileMatcher.group(2)));
+                    }
+                }
+                continue;
+            }
+
+            final Matcher bucketMatcher = BUCKET_PATTERN.matcher(line);
+            if (bucketMatcher.find()) {
+                histogram.buckets.add(new double[] {
+                        Double.parseDouble(bucketMatcher.group(1)),
+                        Double.parseDouble(bucketMatcher.group(2)),
+                        Long.parseLong(bucketMatcher.group(3))
+                });
+            }
+        }
+
+        finish(histogram, buildStats);
+    }
+
+    /**
+     * Parse a line of the output of {@code db_bench} for an interim report of throughput.
+     *
+     * @param line a line of the output of the benchmark
+     * @param listener the listener to call if the line is an interim report
+     *
+     * @return true if the line was an interim report, false otherwise
+     */
+    public static boolean parseProgress(final String line, final BenchmarkProgressListener listener) {
+        final Matcher progressMatcher = PROGRESS_PATTERN.matcher(line);
+        if (!progressMatcher.find()) {
+            return false;
+        }
+        listener.onProgress(
+                Integer.parseInt(progressMatcher.group(1)),
+                Double.parseDouble(progressMatcher.group(7)),
+                Long.parseLong(progressMatcher.group(2)),
+                Long.parseLong(progressMatcher.group(3)),
+                Double.parseDouble(progressMatcher.group(4)),
+                Double.parseDouble(progressMatcher.group(5)));
+        return true;
+    }
+
+    private static @Nullable String percentileMetric(final String percentile) {
+        switch (percentile) {
+            case "P50":
+                return BuildStats.METRIC_P50;
+            case "P95":
+                return BuildStats.METRIC_P95;
+            case "P99":
+                return BuildStats.METRIC_P99;
+            case "P99.9":
+                return BuildStats.METRIC_P99_9;
+            case "P99.99":
+                return BuildStats.METRIC_P99_99;
+            default:
+                return null;
+        }
+    }
+
+    private static void finish(@Nullable final Histogram histogram, final BuildStats buildStats) {
+        if (histogram == null || buildStats.getMetric(histogram.benchmark, BuildStats.METRIC_P95) != null) {
+            return;
+        }
+
+        final double p95 = histogram.percentile(P95);
+        if (!Double.isNaN(p95)) {
+            buildStats.setMetric(histogram.benchmark, BuildStats.METRIC_P95, p95);
+        }
+    }
+
+    private static class Histogram {
+        final String benchmark;
+        long count = -1;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        final List<double[]> buckets = new ArrayList<>();  // [left, right, count]
+
+        Histogram(final String benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        /**
+         * Interpolate a percentile from the buckets, as {@code HistogramStat::Percentile} of RocksDB does.
+         *
+         * @return the percentile, or {@link Double#NaN} if the histogram is incomplete
+         */
+        double percentile(final double p) {
+            if (count <= 0 || buckets.isEmpty()) {
+                return Double.NaN;
+            }
+
+            final double threshold = count * (p / 100.0);
+            double cumulativeSum = 0;
+            for (final double[] bucket : buckets) {
+                final double bucketCount = bucket[2];
+                cumulativeSum += bucketCount;
+                if (cumulativeSum >= threshold) {
+                    final double leftSum = cumulativeSum - bucketCount;
+                    final double pos = bucketCount == 0 ? 0 : (threshold - leftSum) / bucketCount;
+                    double r = bucket[0] + (bucket[1] - bucket[0]) * pos;
+                    if (!Double.isNaN(min) && r < min) {
+                        r = min;
+                    }
+                    if (!Double.isNaN(max) && r > max) {
+                        r = max;
+                    }
+                    return r;
+                }
+            }
+            return Double.isNaN(max) ? buckets.get(buckets.size() - 1)[1] : max;
+        }
+    }
+}
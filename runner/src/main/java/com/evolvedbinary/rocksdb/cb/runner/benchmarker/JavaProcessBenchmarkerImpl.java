@@ -1,7 +1,12 @@
 package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
 
+import com.evolvedbinary.rocksdb.cb.process.Cancellation;
+import com.evolvedbinary.rocksdb.cb.process.LogTailer;
 import com.evolvedbinary.rocksdb.cb.process.ProcessHelper;
 import com.evolvedbinary.rocksdb.cb.process.ProcessInfo;
+import com.evolvedbinary.rocksdb.cb.process.ResourceSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -9,12 +14,24 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
 import static com.evolvedbinary.rocksdb.cb.common.MapUtil.Map;
 
 public class JavaProcessBenchmarkerImpl implements Benchmarker {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaProcessBenchmarkerImpl.class);
+
+    /**
+     * System property which sets the interval in milliseconds
+     * at which the output of a running benchmark is checked for progress.
+     */
+    public static final String PROGRESS_POLL_INTERVAL_PROPERTY = "cb.runner.progress.interval";
+    static final long DEFAULT_PROGRESS_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
     private static final String DB_DIR_ENV_VAR_NAME = "DB_DIR";
     private static final String WAL_DIR_ENV_VAR_NAME = "WAL_DIR";
 
@@ -25,23 +42,44 @@ public class JavaProcessBenchmarkerImpl implements Benchmarker {
     private final Map<String, String> environmentVariables;
     private final String command;
     private final List<String> arguments;
+    @Nullable private final BenchmarkIsolation isolation;
 
     public JavaProcessBenchmarkerImpl() {
-        this(DEFAULT_ENVIRONMENT_VARIABLES, DEFAULT_COMMAND, Collections.emptyList());
+        this(DEFAULT_ENVIRONMENT_VARIABLES, DEFAULT_COMMAND, Collections.emptyList(), null);
     }
 
     public JavaProcessBenchmarkerImpl(final String command) {
-        this(DEFAULT_ENVIRONMENT_VARIABLES, command, Collections.emptyList());
+        this(DEFAULT_ENVIRONMENT_VARIABLES, command, Collections.emptyList(), null);
+    }
+
+    /**
+     * @param isolation the isolation to run benchmarks in, or null to run them without isolation
+     */
+    public JavaProcessBenchmarkerImpl(@Nullable final BenchmarkIsolation isolation) {
+        this(DEFAULT_ENVIRONMENT_VARIABLES, DEFAULT_COMMAND, Collections.emptyList(), isolation);
+    }
+
+    /**
+     * @param command the command which runs the benchmarks
+     * @param isolation the isolation to run benchmarks in, or null to run them without isolation
+     */
+    public JavaProcessBenchmarkerImpl(final String command, @Nullable final BenchmarkIsolation isolation) {
+        this(DEFAULT_ENVIRONMENT_VARIABLES, command, Collections.emptyList(), isolation);
     }
 
     JavaProcessBenchmarkerImpl(final Map<String, String> environmentVariables, final String command, final List<String> arguments) {
+        this(environmentVariables, command, arguments, null);
+    }
+
+    JavaProcessBenchmarkerImpl(final Map<String, String> environmentVariables, final String command, final List<String> arguments, @Nullable final BenchmarkIsolation isolation) {
         this.environmentVariables = environmentVariables;
         this.command = command;
         this.arguments = arguments;
+        this.isolation = isolation;
     }
 
     @Override
-    public BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs) throws IOException {
+    public BenchmarkResult benchmark(final UUID benchmarkId, final Path projectRepoDir, final Path projectLogDir, final Path projectDbDir, @Nullable final Path projectWalDir, final Map<String, String> benchmarkEnvironmentVariables, final List<String> benchmarkArgs, @Nullable final Cancellation cancellation, @Nullable final BenchmarkProgressListener progressListener, final long timeout) throws IOException {
         if (!Files.exists(Objects.requireNonNull(projectRepoDir))) {
             throw new IllegalArgumentException("The projectRepoDir does not exist: " + projectRepoDir.toAbsolutePath());
         }
@@ -79,22 +117,95 @@ public class JavaProcessBenchmarkerImpl implements Benchmarker {
             allEnvironmentVariables.put(WAL_DIR_ENV_VAR_NAME, projectWalDir.toAbsolutePath().toString());
         }
 
-        final List<String> allArguments = new ArrayList<>(arguments);
+        List<String> allArguments = new ArrayList<>(arguments);
         allArguments.addAll(benchmarkArgs);
 
+        String processCommand = command;
+        boolean isolated = false;
+        if (isolation != null) {
+            isolation.waitForLoadToSettle();
+            isolated = isolation.prepare();
+            if (isolated) {
+                final List<String> wrappedCommand = isolation.wrapCommand(command, allArguments);
+                processCommand = wrappedCommand.get(0);
+                allArguments = wrappedCommand.subList(1, wrappedCommand.size());
+            }
+        }
+
         final long benchmarkStart = System.currentTimeMillis();
 
         final String logFilePrefix = benchmarkId.toString() + ".benchmark";
-        final ProcessInfo processInfo = ProcessHelper.start(projectRepoDir, allEnvironmentVariables, command, allArguments, projectLogDir, logFilePrefix);
-        final int exitCode = ProcessHelper.waitFor(processInfo);
+        final ProcessInfo processInfo = ProcessHelper.start(projectRepoDir, allEnvironmentVariables, processCommand, allArguments, projectLogDir, logFilePrefix, cancellation, true);
+        @Nullable final ProgressTailer progressTailer = progressListener != null ? new ProgressTailer(benchmarkId, processInfo, progressListener) : null;
+        final int exitCode;
+        try {
+            exitCode = ProcessHelper.waitFor(processInfo, timeout);
+        } finally {
+            if (progressTailer != null) {
+                progressTailer.stop();
+            }
+        }
+        final ResourceSeries resourceSeries = processInfo.resourceSampler != null ? processInfo.resourceSampler.stop() : null;
+        final CgroupStats cgroupStats = isolated ? isolation.readStats() : null;
 
         final long benchmarkEnd = System.currentTimeMillis();
         final long benchmarkDuration = benchmarkEnd - benchmarkStart;
 
-        if (exitCode == NORMAL_EXIT_CODE) {
-            return BenchmarkResult.ok(benchmarkDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile);
+        if (processInfo.isTimedOut()) {
+            return BenchmarkResult.timedOut(exitCode, benchmarkDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile, resourceSeries, cgroupStats);
+        } else if (exitCode == NORMAL_EXIT_CODE) {
+            return BenchmarkResult.ok(benchmarkDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile, resourceSeries, cgroupStats);
         } else {
-            return BenchmarkResult.failure(exitCode, benchmarkDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile);
+            return BenchmarkResult.failure(exitCode, benchmarkDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile, resourceSeries, cgroupStats);
+        }
+    }
+
+    /**
+     * Tails the output of a running benchmark for its interim reports of throughput.
+     */
+    private static class ProgressTailer {
+        private final List<LogTailer> logTailers;
+        private final BenchmarkProgressListener progressListener;
+        private final ScheduledExecutorService executorService;
+
+        ProgressTailer(final UUID benchmarkId, final ProcessInfo processInfo, final BenchmarkProgressListener progressListener) {
+            // db_bench reports to stderr, but benchmark.sh redirects it to stdout
+            this.logTailers = Arrays.asList(new LogTailer(processInfo.stdOutputLogFile), new LogTailer(processInfo.stdErrorLogFile));
+            this.progressListener = progressListener;
+            this.executorService = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "BenchmarkProgress-" + benchmarkId);
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long pollInterval = Long.getLong(PROGRESS_POLL_INTERVAL_PROPERTY, DEFAULT_PROGRESS_POLL_INTERVAL);
+            executorService.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        }
+
+        private void poll() {
+            for (final LogTailer logTailer : logTailers) {
+                try {
+                    for (final String line : logTailer.poll()) {
+                        DbBenchResultParser.parseProgress(line, progressListener);
+                    }
+                } catch (final IOException | RuntimeException e) {
+                    // must not throw, or no further polls will be scheduled
+                    LOGGER.warn("Unable to read the progress of the benchmark. Error: {}", e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Stop tailing, after reading any output which has not yet been read.
+         */
+        void stop() {
+            executorService.shutdownNow();
+            try {
+                executorService.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();  // reset the interrupted thread
+                return;
+            }
+            poll();
         }
     }
 }
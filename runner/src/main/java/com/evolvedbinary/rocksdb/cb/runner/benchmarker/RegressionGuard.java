@@ -0,0 +1,120 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Watches the interim throughput of a benchmark whilst it is running, and aborts
+ * the benchmark if its throughput stays far below its baseline, e.g. a commit which
+ * makes a workload 10x slower would otherwise occupy the Runner for 10x as long.
+ *
+ * The throughput of the benchmark is the sum of the most recent interval throughput
+ * of each of its threads. The benchmark is aborted once that has stayed below the
+ * fraction of the baseline for at least the sustained period.
+ */
+@ThreadSafe
+public class RegressionGuard implements BenchmarkProgressListener {
+
+    public static final double DEFAULT_FRACTION = 0.1;
+    public static final long DEFAULT_SUSTAIN_SECONDS = 60;
+
+    private final double baselineOpsPerSec;
+    private final double fraction;
+    private final long sustainSeconds;
+    private final Runnable abort;
+
+    // thread -> [intervalOpsPerSec, cumulativeOpsPerSec]
+    @GuardedBy("this") private final Map<Integer, double[]> threads = new HashMap<>();
+    @GuardedBy("this") private double elapsedSeconds;
+    @GuardedBy("this") private double belowSinceSeconds = -1;
+    @GuardedBy("this") private boolean aborted;
+
+    /**
+     * @param baselineOpsPerSec the baseline throughput of the benchmark
+     * @param fraction the fraction of the baseline, between 0 and 1, below which the throughput has regressed
+     * @param sustainSeconds how long the throughput must stay regressed before the benchmark is aborted
+     * @param abort called once to abort the benchmark
+     */
+    public RegressionGuard(final double baselineOpsPerSec, final double fraction, final long sustainSeconds, final Runnable abort) {
+        if (baselineOpsPerSec <= 0) {
+            throw new IllegalArgumentException("baselineOpsPerSec must be greater than 0, but was: " + baselineOpsPerSec);
+        }
+        if (fraction <= 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be greater than 0 and at most 1, but was: " + fraction);
+        }
+        if (sustainSeconds < 0) {
+            throw new IllegalArgumentException("sustainSeconds must not be negative, but was: " + sustainSeconds);
+        }
+        this.baselineOpsPerSec = baselineOpsPerSec;
+        this.fraction = fraction;
+        this.sustainSeconds = sustainSeconds;
+        this.abort = abort;
+    }
+
+    @Override
+    public void onProgress(final int thread, final double elapsedSeconds, final long intervalOps, final long totalOps, final double intervalOpsPerSec, final double cumulativeOpsPerSec) {
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+
+            threads.put(thread, new double[] { intervalOpsPerSec, cumulativeOpsPerSec });
+            this.elapsedSeconds = Math.max(this.elapsedSeconds, elapsedSeconds);
+
+            double opsPerSec = 0;
+            for (final double[] throughput : threads.values()) {
+                opsPerSec += throughput[0];
+            }
+
+            if (opsPerSec >= baselineOpsPerSec * fraction) {
+                belowSinceSeconds = -1;
+                return;
+            }
+
+            if (belowSinceSeconds < 0) {
+                belowSinceSeconds = this.elapsedSeconds;
+            }
+            if (this.elapsedSeconds - belowSinceSeconds < sustainSeconds) {
+                return;
+            }
+
+            aborted = true;
+        }
+
+        // outside of the lock, as aborting destroys the benchmark process
+        abort.run();
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    public double getBaselineOpsPerSec() {
+        return baselineOpsPerSec;
+    }
+
+    /**
+     * Get the time since the benchmark started, as of its most recent report.
+     *
+     * @return the elapsed time in seconds
+     */
+    public synchronized double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    /**
+     * Get the throughput of the benchmark since it started, as of the most recent report of each thread.
+     *
+     * @return the operations per second
+     */
+    public synchronized double getCumulativeOpsPerSec() {
+        double opsPerSec = 0;
+        for (final double[] throughput : threads.values()) {
+            opsPerSec += throughput[1];
+        }
+        return opsPerSec;
+    }
+}
@@ -0,0 +1,186 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parses the compaction, flush, and write stall metrics from the {@code LOG} file
+ * which RocksDB writes in its database directory.
+ *
+ * The counts and sizes of flushes and compactions are taken from the event log lines, e.g.:
+ * <pre>
+ * 2023/01/01-12:00:00.123456 7f0e1c7f8700 EVENT_LOG_v1 {"time_micros": 1672574400123456, "job": 5, "event": "compaction_started", "input_data_size": 12345, ...}
+ * 2023/01/01-12:00:00.223456 7f0e1c7f8700 EVENT_LOG_v1 {"time_micros": 1672574400223456, "job": 5, "event": "compaction_finished", "total_output_size": 6789, ...}
+ * </pre>
+ *
+ * The write amplification and the cumulative write stall time are taken from the last
+ * statistics dump of the default column family, e.g.:
+ * <pre>
+ * ** Compaction Stats [default] **
+ * Level    Files   Size     Score Read(GB)  Rn(GB) Rnp1(GB) Write(GB) Wnew(GB) Moved(GB) W-Amp Rd(MB/s) Wr(MB/s) ...
+ * ----------------------------------------------------------------------------------------------------------------
+ *  Sum      4/0   251.91 MB   0.0      0.4     0.2      0.2       0.6      0.4       0.0   2.6     95.2    141.3 ...
+ * ...
+ * Cumulative stall: 00:00:1.234 H:M:S, 2.3 percent
+ * </pre>
+ * RocksDB only dumps its statistics periodically, so they are absent from the LOG of a short benchmark.
+ */
+public class RocksDbLogParser {
+
+    /**
+     * The name of the LOG file in the database directory.
+     */
+    public static final String LOG_FILE_NAME = "LOG";
+
+    private static final Pattern EVENT_PATTERN = Pattern.compile("EVENT_LOG_v1 .*\"event\": \"(\\w+)\"");
+    private static final Pattern INPUT_DATA_SIZE_PATTERN = Pattern.compile("\"input_data_size\": (\\d+)");
+    private static final Pattern TOTAL_OUTPUT_SIZE_PATTERN = Pattern.compile("\"total_output_size\": (\\d+)");
+    private static final String DEFAULT_COMPACTION_STATS = "** Compaction Stats [default] **";
+    private static final Pattern CUMULATIVE_STALL_PATTERN = Pattern.compile("^Cumulative stall: (\\d+):(\\d+):([0-9.]+) H:M:S");
+
+    /**
+     * Parse the LOG file of RocksDB.
+     *
+     * @param logFile the LOG file
+     * @param benchmark the name to record the metrics under
+     * @param buildStats the stats to set the metrics in
+     *
+     * @return true if the LOG file was parsed, false if it does not exist
+     *
+     * @throws IOException if the LOG file cannot be read
+     */
+    public static boolean parse(final Path logFile, final String benchmark, final BuildStats buildStats) throws IOException {
+        if (!Files.exists(logFile)) {
+            return false;
+        }
+        try (final BufferedReader reader = Files.newBufferedReader(logFile, UTF_8)) {
+            parse(reader, benchmark, buildStats);
+        }
+        return true;
+    }
+
+    /**
+     * Parse the content of a LOG file of RocksDB.
+     *
+     * @param reader the content of the LOG file
+     * @param benchmark the name to record the metrics under
+     * @param buildStats the stats to set the metrics in
+     *
+     * @throws IOException if the content cannot be read
+     */
+    public static void parse(final BufferedReader reader, final String benchmark, final BuildStats buildStats) throws IOException {
+        long flushCount = 0;
+        long compactionCount = 0;
+        long compactionReadBytes = 0;
+        long compactionWriteBytes = 0;
+        double writeAmplification = Double.NaN;
+        long stallMicros = -1;
+
+        boolean inDefaultCompactionStats = false;
+        @Nullable List<String> compactionStatsHeader = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final Matcher eventMatcher = EVENT_PATTERN.matcher(line);
+            if (eventMatcher.find()) {
+                switch (eventMatcher.group(1)) {
+                    case "flush_finished":
+                        flushCount++;
+                        break;
+                    case "compaction_started":
+                        compactionReadBytes += findLong(INPUT_DATA_SIZE_PATTERN, line);
+                        break;
+                    case "compaction_finished":
+                        compactionCount++;
+                        compactionWriteBytes += findLong(TOTAL_OUTPUT_SIZE_PATTERN, line);
+                        break;
+                    default:
+                        break;
+                }
+                continue;
+            }
+
+            line = line.trim();
+
+            if (line.startsWith("** Compaction Stats")) {
+                inDefaultCompactionStats = line.equals(DEFAULT_COMPACTION_STATS);
+                compactionStatsHeader = null;
+                continue;
+            }
+
+            if (inDefaultCompactionStats) {
+                final List<String> fields = Arrays.asList(line.split("\\s+"));
+                if (fields.get(0).equals("Level")) {
+                    compactionStatsHeader = fields;
+                } else if (fields.get(0).equals("Sum") && compactionStatsHeader != null) {
+                    final double sumWriteAmplification = getColumn(compactionStatsHeader, fields, "W-Amp");
+                    if (!Double.isNaN(sumWriteAmplification)) {
+                        writeAmplification = sumWriteAmplification;
+                    }
+                    inDefaultCompactionStats = false;
+                }
+                continue;
+            }
+
+            final Matcher stallMatcher = CUMULATIVE_STALL_PATTERN.matcher(line);
+            if (stallMatcher.find()) {
+                final double seconds = Long.parseLong(stallMatcher.group(1)) * 3600 + Long.parseLong(stallMatcher.group(2)) * 60 + Double.parseDouble(stallMatcher.group(3));
+                stallMicros = Math.round(seconds * 1_000_000);
+            }
+        }
+
+        buildStats.setMetric(benchmark, BuildStats.METRIC_FLUSH_COUNT, flushCount);
+        buildStats.setMetric(benchmark, BuildStats.METRIC_COMPACTION_COUNT, compactionCount);
+        buildStats.setMetric(benchmark, BuildStats.METRIC_COMPACTION_READ_BYTES, compactionReadBytes);
+        buildStats.setMetric(benchmark, BuildStats.METRIC_COMPACTION_WRITE_BYTES, compactionWriteBytes);
+        if (!Double.isNaN(writeAmplification)) {
+            buildStats.setMetric(benchmark, BuildStats.METRIC_WRITE_AMPLIFICATION, writeAmplification);
+        }
+        if (stallMicros > -1) {
+            buildStats.setMetric(benchmark, BuildStats.METRIC_STALL_MICROS, stallMicros);
+        }
+    }
+
+    private static long findLong(final Pattern pattern, final String line) {
+        final Matcher matcher = pattern.matcher(line);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    /**
+     * Get the value of a column of a row of the compaction stats.
+     *
+     * @return the value, or {@link Double#NaN} if the column is not present
+     */
+    private static double getColumn(final List<String> header, final List<String> row, final String column) {
+        int idx = header.indexOf(column);
+        if (idx < 0) {
+            return Double.NaN;
+        }
+
+        // the value of the Size column has a unit, e.g. "251.91 MB", so spans two fields
+        final int idxSize = header.indexOf("Size");
+        if (idxSize > -1 && idx > idxSize && row.size() > header.size()) {
+            idx++;
+        }
+
+        if (idx >= row.size()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(row.get(idx));
+        } catch (final NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
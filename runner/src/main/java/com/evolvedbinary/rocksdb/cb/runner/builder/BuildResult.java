@@ -1,5 +1,6 @@
 package com.evolvedbinary.rocksdb.cb.runner.builder;
 
+import javax.annotation.Nullable;
 import java.nio.file.Path;
 
 import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
@@ -10,20 +11,45 @@ public class BuildResult {
     public final long duration;
     public final Path stdOutputLogFile;
     public final Path stdErrorLogFile;
+    /**
+     * True if the build was terminated because it exceeded its time budget.
+     */
+    public final boolean timedOut;
+    /**
+     * The end of the stdout and stderr of the build, or null
+     * if the output was not captured, see {@link com.evolvedbinary.rocksdb.cb.process.OutputCapture}.
+     */
+    @Nullable public final byte[] stdOutputTail;
+    @Nullable public final byte[] stdErrorTail;
 
     static BuildResult ok(final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile) {
-        return new BuildResult(true, NORMAL_EXIT_CODE, duration, stdOutputLogFile, stdErrorLogFile);
+        return ok(duration, stdOutputLogFile, stdErrorLogFile, null, null);
+    }
+
+    static BuildResult ok(final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final byte[] stdOutputTail, @Nullable final byte[] stdErrorTail) {
+        return new BuildResult(true, NORMAL_EXIT_CODE, duration, stdOutputLogFile, stdErrorLogFile, false, stdOutputTail, stdErrorTail);
     }
 
     static BuildResult failure(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile) {
-        return new BuildResult(false, exitCode, duration, stdOutputLogFile, stdErrorLogFile);
+        return failure(exitCode, duration, stdOutputLogFile, stdErrorLogFile, null, null);
+    }
+
+    static BuildResult failure(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final byte[] stdOutputTail, @Nullable final byte[] stdErrorTail) {
+        return new BuildResult(false, exitCode, duration, stdOutputLogFile, stdErrorLogFile, false, stdOutputTail, stdErrorTail);
+    }
+
+    static BuildResult timedOut(final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, @Nullable final byte[] stdOutputTail, @Nullable final byte[] stdErrorTail) {
+        return new BuildResult(false, exitCode, duration, stdOutputLogFile, stdErrorLogFile, true, stdOutputTail, stdErrorTail);
     }
 
-    private BuildResult(final boolean ok, final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile) {
+    private BuildResult(final boolean ok, final int exitCode, final long duration, final Path stdOutputLogFile, final Path stdErrorLogFile, final boolean timedOut, @Nullable final byte[] stdOutputTail, @Nullable final byte[] stdErrorTail) {
         this.ok = ok;
         this.exitCode = exitCode;
         this.duration = duration;
         this.stdOutputLogFile = stdOutputLogFile;
         this.stdErrorLogFile = stdErrorLogFile;
+        this.timedOut = timedOut;
+        this.stdOutputTail = stdOutputTail;
+        this.stdErrorTail = stdErrorTail;
     }
 }
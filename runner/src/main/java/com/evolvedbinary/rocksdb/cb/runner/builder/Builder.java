@@ -1,5 +1,9 @@
 package com.evolvedbinary.rocksdb.cb.runner.builder;
 
+import com.evolvedbinary.rocksdb.cb.process.Cancellation;
+import com.evolvedbinary.rocksdb.cb.process.ProcessHelper;
+
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
@@ -23,5 +27,51 @@ public interface Builder {
      *
      * @throws IOException if the build cannot be started
      */
-    BuildResult build(final UUID buildId, final Path projectRepoDir, final Path projectLogDir, final List<String> targets) throws IOException;
+    default BuildResult build(final UUID buildId, final Path projectRepoDir, final Path projectLogDir, final List<String> targets) throws IOException {
+        return build(buildId, projectRepoDir, projectLogDir, targets, null);
+    }
+
+    /**
+     * Build the Source Code, unless cancelled.
+     *
+     * @param buildId a unique identifier for the build
+     * @param projectRepoDir the location of the source code
+     * @param projectLogDir the location to write build log files to
+     * @param targets the make build targets
+     * @param cancellation if not null, the build processes are terminated when it is cancelled,
+     *     in which case the result is a failure
+     *
+     * @return the result of the build
+     *
+     * @throws IllegalArgumentException if the {@code projectRepoDir} does not exist,
+     *     or if the {@code projectLogDir} does not exist or cannot be created,
+     *     or if the targets list is empty
+     *
+     * @throws IOException if the build cannot be started
+     */
+    default BuildResult build(final UUID buildId, final Path projectRepoDir, final Path projectLogDir, final List<String> targets, @Nullable final Cancellation cancellation) throws IOException {
+        return build(buildId, projectRepoDir, projectLogDir, targets, cancellation, ProcessHelper.NO_TIMEOUT);
+    }
+
+    /**
+     * Build the Source Code, unless cancelled, within a time budget.
+     *
+     * @param buildId a unique identifier for the build
+     * @param projectRepoDir the location of the source code
+     * @param projectLogDir the location to write build log files to
+     * @param targets the make build targets
+     * @param cancellation if not null, the build processes are terminated when it is cancelled,
+     *     in which case the result is a failure
+     * @param timeout the most milliseconds the build may take, or {@link ProcessHelper#NO_TIMEOUT},
+     *     after which the build processes are terminated and the result is timed out
+     *
+     * @return the result of the build
+     *
+     * @throws IllegalArgumentException if the {@code projectRepoDir} does not exist,
+     *     or if the {@code projectLogDir} does not exist or cannot be created,
+     *     or if the targets list is empty
+     *
+     * @throws IOException if the build cannot be started
+     */
+    BuildResult build(final UUID buildId, final Path projectRepoDir, final Path projectLogDir, final List<String> targets, @Nullable final Cancellation cancellation, final long timeout) throws IOException;
 }
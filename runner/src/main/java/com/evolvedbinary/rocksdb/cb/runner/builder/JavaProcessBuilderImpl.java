@@ -1,8 +1,10 @@
 package com.evolvedbinary.rocksdb.cb.runner.builder;
 
+import com.evolvedbinary.rocksdb.cb.process.Cancellation;
 import com.evolvedbinary.rocksdb.cb.process.ProcessHelper;
 import com.evolvedbinary.rocksdb.cb.process.ProcessInfo;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -32,6 +34,7 @@ public class JavaProcessBuilderImpl implements Builder {
     private final Map<String, String> environmentVariables;
     private final String command;
     private final List<String> arguments;
+    private final boolean captureOutput;
 
     public JavaProcessBuilderImpl() {
         this(DEFAULT_ENVIRONMENT_VARIABLES, DEFAULT_COMMAND, DEFAULT_ARGUMENTS);
@@ -41,14 +44,37 @@ public class JavaProcessBuilderImpl implements Builder {
         this(DEFAULT_ENVIRONMENT_VARIABLES, command, DEFAULT_ARGUMENTS);
     }
 
+    /**
+     * @param captureOutput true to capture the output of the build into zstd compressed log files,
+     *     and to hold just the end of the output for reporting failures,
+     *     see {@link com.evolvedbinary.rocksdb.cb.process.OutputCapture}
+     */
+    public JavaProcessBuilderImpl(final boolean captureOutput) {
+        this(DEFAULT_ENVIRONMENT_VARIABLES, DEFAULT_COMMAND, DEFAULT_ARGUMENTS, captureOutput);
+    }
+
+    /**
+     * @param captureOutput true to capture the output of the build into zstd compressed log files,
+     *     and to hold just the end of the output for reporting failures,
+     *     see {@link com.evolvedbinary.rocksdb.cb.process.OutputCapture}
+     */
+    public JavaProcessBuilderImpl(final String command, final boolean captureOutput) {
+        this(DEFAULT_ENVIRONMENT_VARIABLES, command, DEFAULT_ARGUMENTS, captureOutput);
+    }
+
     JavaProcessBuilderImpl(final Map<String, String> environmentVariables, final String command, final List<String> arguments) {
+        this(environmentVariables, command, arguments, false);
+    }
+
+    JavaProcessBuilderImpl(final Map<String, String> environmentVariables, final String command, final List<String> arguments, final boolean captureOutput) {
         this.environmentVariables = environmentVariables;
         this.command = command;
         this.arguments = arguments;
+        this.captureOutput = captureOutput;
     }
 
     @Override
-    public BuildResult build(final UUID buildId, final Path projectRepoDir, final Path projectLogDir, final List<String> targets) throws IOException {
+    public BuildResult build(final UUID buildId, final Path projectRepoDir, final Path projectLogDir, final List<String> targets, @Nullable final Cancellation cancellation, final long timeout) throws IOException {
 
         if (!Files.exists(Objects.requireNonNull(projectRepoDir))) {
             throw new IllegalArgumentException("The projectRepoDir does not exist: " + projectRepoDir.toAbsolutePath());
@@ -72,16 +98,21 @@ public class JavaProcessBuilderImpl implements Builder {
         final long buildStart = System.currentTimeMillis();
 
         final String logFilePrefix = buildId.toString() + ".build";
-        final ProcessInfo processInfo = ProcessHelper.start(projectRepoDir, environmentVariables, command, allArguments, projectLogDir, logFilePrefix);
-        final int exitCode = ProcessHelper.waitFor(processInfo);
+        final ProcessInfo processInfo = ProcessHelper.start(projectRepoDir, environmentVariables, command, allArguments, projectLogDir, logFilePrefix, cancellation, false, captureOutput);
+        final int exitCode = ProcessHelper.waitFor(processInfo, timeout);
+
+        final byte[] stdOutputTail = processInfo.stdOutputCapture != null ? processInfo.stdOutputCapture.getTail() : null;
+        final byte[] stdErrorTail = processInfo.stdErrorCapture != null ? processInfo.stdErrorCapture.getTail() : null;
 
         final long buildEnd = System.currentTimeMillis();
         final long buildDuration = buildEnd - buildStart;
 
-        if (exitCode == NORMAL_EXIT_CODE) {
-            return BuildResult.ok(buildDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile);
+        if (processInfo.isTimedOut()) {
+            return BuildResult.timedOut(exitCode, buildDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile, stdOutputTail, stdErrorTail);
+        } else if (exitCode == NORMAL_EXIT_CODE) {
+            return BuildResult.ok(buildDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile, stdOutputTail, stdErrorTail);
         } else {
-            return BuildResult.failure(exitCode, buildDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile);
+            return BuildResult.failure(exitCode, buildDuration, processInfo.stdOutputLogFile, processInfo.stdErrorLogFile, stdOutputTail, stdErrorTail);
         }
     }
 }
@@ -0,0 +1,198 @@
+package com.evolvedbinary.rocksdb.cb.runner.capability;
+
+import net.jcip.annotations.Immutable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The hardware of the machine that a Runner benchmarks on.
+ */
+@Immutable
+public class HardwareCapabilities {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HardwareCapabilities.class);
+
+    public static final String DISK_TYPE_SSD = "ssd";
+    public static final String DISK_TYPE_HDD = "hdd";
+    public static final String DISK_TYPE_UNKNOWN = "unknown";
+    public static final long MEMORY_UNKNOWN = -1;
+
+    private static final Path PROC_CPUINFO = Paths.get("/proc/cpuinfo");
+    private static final Path PROC_MEMINFO = Paths.get("/proc/meminfo");
+    private static final Path SYS_CLASS_BLOCK = Paths.get("/sys/class/block");
+    private static final long KIB = 1024L;
+    private static final long GIB = 1024L * 1024 * 1024;
+
+    public final String cpuModel;
+    public final int cpuCores;
+    public final long memory;  // bytes of physical memory, or MEMORY_UNKNOWN
+    public final String diskType;
+
+    public HardwareCapabilities(final String cpuModel, final int cpuCores, final long memory, final String diskType) {
+        this.cpuModel = cpuModel;
+        this.cpuCores = cpuCores;
+        this.memory = memory;
+        this.diskType = diskType;
+    }
+
+    /**
+     * Detect the capabilities of this machine.
+     *
+     * @param dataDir the directory in which benchmarks will be run,
+     *     used to find the type of disk
+     *
+     * @return the capabilities
+     */
+    public static HardwareCapabilities detect(final Path dataDir) {
+        final String cpuModel = detectCpuModel();
+        final int cpuCores = Runtime.getRuntime().availableProcessors();
+        final long memory = detectMemory();
+        final String diskType = detectDiskType(dataDir);
+        return new HardwareCapabilities(cpuModel, cpuCores, memory, diskType);
+    }
+
+    /**
+     * Derive a label for the hardware class of this machine,
+     * machines with the same label are expected to produce
+     * comparable benchmark results.
+     *
+     * The label is stable across restarts and only contains
+     * characters which are valid in a queue name.
+     *
+     * @return the hardware class label, e.g. {@code xeon-e5-2680-v4-28c-128g-ssd}
+     */
+    public String deriveHardwareClass() {
+        final String memoryComponent = memory == MEMORY_UNKNOWN ? "unknown" : ((memory + GIB / 2) / GIB) + "g";
+        return normaliseCpuModel(cpuModel) + "-" + cpuCores + "c-" + memoryComponent + "-" + diskType;
+    }
+
+    static String normaliseCpuModel(final String cpuModel) {
+        String normalised = cpuModel.toLowerCase(Locale.ROOT);
+
+        // remove marketing noise and the clock speed, which is implied by the model
+        normalised = normalised.replaceAll("\\((r|tm)\\)", "");
+        normalised = normalised.replaceAll("@.*$", "");
+        normalised = normalised.replaceAll("\\b(intel|amd|cpu|processor)\\b", "");
+
+        normalised = normalised.replaceAll("[^a-z0-9]+", "-");
+        normalised = normalised.replaceAll("^-+|-+$", "");
+        return normalised.isEmpty() ? "unknown" : normalised;
+    }
+
+    static @Nullable String parseCpuModel(final List<String> cpuInfoLines) {
+        for (final String line : cpuInfoLines) {
+            if (line.startsWith("model name")) {
+                final int idxSeparator = line.indexOf(':');
+                if (idxSeparator > -1) {
+                    return line.substring(idxSeparator + 1).trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    static long parseMemTotal(final List<String> memInfoLines) {
+        for (final String line : memInfoLines) {
+            // e.g. MemTotal:       131891292 kB
+            if (line.startsWith("MemTotal:")) {
+                final String[] fields = line.substring("MemTotal:".length()).trim().split("\\s+");
+                try {
+                    final long value = Long.parseLong(fields[0]);
+                    return fields.length > 1 && fields[1].equalsIgnoreCase("kB") ? value * KIB : value;
+                } catch (final NumberFormatException e) {
+                    return MEMORY_UNKNOWN;
+                }
+            }
+        }
+        return MEMORY_UNKNOWN;
+    }
+
+    static String parseDiskType(@Nullable final String rotational) {
+        if (rotational == null) {
+            return DISK_TYPE_UNKNOWN;
+        }
+        switch (rotational.trim()) {
+            case "0":
+                return DISK_TYPE_SSD;
+            case "1":
+                return DISK_TYPE_HDD;
+            default:
+                return DISK_TYPE_UNKNOWN;
+        }
+    }
+
+    private static String detectCpuModel() {
+        if (Files.isReadable(PROC_CPUINFO)) {
+            try {
+                final String cpuModel = parseCpuModel(Files.readAllLines(PROC_CPUINFO, StandardCharsets.UTF_8));
+                if (cpuModel != null) {
+                    return cpuModel;
+                }
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to read {}: {}", PROC_CPUINFO, e.getMessage());
+            }
+        }
+        return System.getProperty("os.arch");
+    }
+
+    private static long detectMemory() {
+        if (Files.isReadable(PROC_MEMINFO)) {
+            try {
+                return parseMemTotal(Files.readAllLines(PROC_MEMINFO, StandardCharsets.UTF_8));
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to read {}: {}", PROC_MEMINFO, e.getMessage());
+            }
+        }
+        // the heap limit of the JVM says nothing about the memory of the machine
+        return MEMORY_UNKNOWN;
+    }
+
+    private static String detectDiskType(final Path dataDir) {
+        try {
+            // e.g. /dev/nvme0n1p1
+            final Path device = Paths.get(Files.getFileStore(dataDir).name());
+            if (device.getFileName() == null) {
+                return DISK_TYPE_UNKNOWN;
+            }
+
+            Path blockDevice = SYS_CLASS_BLOCK.resolve(device.getFileName().toString());
+            if (!Files.exists(blockDevice)) {
+                return DISK_TYPE_UNKNOWN;
+            }
+
+            // a partition does not have a queue, but its parent device does
+            if (!Files.exists(blockDevice.resolve("queue"))) {
+                blockDevice = blockDevice.toRealPath().getParent();
+            }
+
+            final Path rotational = blockDevice.resolve("queue").resolve("rotational");
+            if (!Files.isReadable(rotational)) {
+                return DISK_TYPE_UNKNOWN;
+            }
+            return parseDiskType(new String(Files.readAllBytes(rotational), StandardCharsets.UTF_8));
+
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Unable to detect the disk type of {}: {}", dataDir, e.getMessage());
+            return DISK_TYPE_UNKNOWN;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HardwareCapabilities{" +
+                "cpuModel='" + cpuModel + '\'' +
+                ", cpuCores=" + cpuCores +
+                ", memory=" + memory +
+                ", diskType='" + diskType + '\'' +
+                '}';
+    }
+}
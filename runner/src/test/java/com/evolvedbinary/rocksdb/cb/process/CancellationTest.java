@@ -0,0 +1,98 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+public class CancellationTest {
+
+    @Test
+    public void cancelTerminatesProcessTree(@TempDir final Path tempDir) throws Exception {
+        final Cancellation cancellation = new Cancellation();
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", Arrays.asList("-c", "sleep 60 & sleep 60"), tempDir, "cancel", cancellation);
+
+        // wait for the shell to start its children
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        List<ProcessHandle> descendants = processInfo.process.descendants().collect(Collectors.toList());
+        while (descendants.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            descendants = processInfo.process.descendants().collect(Collectors.toList());
+        }
+        assertFalse(descendants.isEmpty());
+
+        assertFalse(cancellation.isCancelled());
+        assertTrue(cancellation.cancel());
+        assertTrue(cancellation.isCancelled());
+        assertFalse(cancellation.cancel());
+
+        assertTrue(processInfo.process.waitFor(10, TimeUnit.SECONDS));
+        for (final ProcessHandle descendant : descendants) {
+            descendant.onExit().get(10, TimeUnit.SECONDS);
+            assertFalse(descendant.isAlive());
+        }
+    }
+
+    @Test
+    public void cancelSendsSigtermFirst(@TempDir final Path tempDir) throws Exception {
+        final Cancellation cancellation = new Cancellation();
+        final Path trapped = tempDir.resolve("trapped");
+        final Path ready = tempDir.resolve("ready");
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh",
+                Arrays.asList("-c", "trap 'touch " + trapped + "; exit 0' TERM; touch " + ready + "; sleep 60 & wait"),
+                tempDir, "cancel", cancellation);
+
+        // wait for the shell to install its trap
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!Files.exists(ready) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.exists(ready));
+
+        assertTrue(cancellation.cancel());
+        assertTrue(processInfo.process.waitFor(10, TimeUnit.SECONDS));
+
+        // the shell was given the chance to exit gracefully, rather than being killed
+        assertTrue(Files.exists(trapped));
+    }
+
+    @Test
+    public void startAfterCancelIsTerminated(@TempDir final Path tempDir) throws Exception {
+        final Cancellation cancellation = new Cancellation();
+        assertTrue(cancellation.cancel());
+
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sleep", Arrays.asList("60"), tempDir, "cancel", cancellation);
+        assertTrue(processInfo.process.waitFor(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelChild(@TempDir final Path tempDir) throws Exception {
+        final Cancellation parent = new Cancellation();
+        final Cancellation child1 = parent.newChild();
+        final Cancellation child2 = parent.newChild();
+
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sleep", Arrays.asList("60"), tempDir, "cancel", child1);
+
+        // cancelling a child does not cancel its parent, or its siblings
+        assertTrue(child1.cancel());
+        assertTrue(processInfo.process.waitFor(10, TimeUnit.SECONDS));
+        assertFalse(parent.isCancelled());
+        assertFalse(child2.isCancelled());
+
+        // cancelling the parent cancels its children
+        assertTrue(parent.cancel());
+        assertTrue(child2.isCancelled());
+        assertTrue(parent.newChild().isCancelled());
+    }
+}
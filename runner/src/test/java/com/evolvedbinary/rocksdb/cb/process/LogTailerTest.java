@@ -0,0 +1,61 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogTailerTest {
+
+    @Test
+    public void pollIncrementally(@TempDir final Path tempDir) throws IOException {
+        final Path logFile = tempDir.resolve("benchmark.log");
+        final LogTailer tailer = new LogTailer(logFile);
+
+        // the log file may not yet have been created
+        assertTrue(tailer.poll().isEmpty());
+
+        append(logFile, "line 1\nline 2\nli");
+        assertEquals(Arrays.asList("line 1", "line 2"), tailer.poll());
+        assertEquals(16, tailer.getPosition());
+
+        // nothing new
+        assertTrue(tailer.poll().isEmpty());
+
+        // the partial line is completed
+        append(logFile, "ne 3\r\nline 4\n");
+        assertEquals(Arrays.asList("line 3", "line 4"), tailer.poll());
+
+        // a multi-byte character split across polls
+        final byte[] euro = "€\n".getBytes(UTF_8);
+        Files.write(logFile, Arrays.copyOfRange(euro, 0, 1), CREATE, APPEND);
+        assertTrue(tailer.poll().isEmpty());
+        Files.write(logFile, Arrays.copyOfRange(euro, 1, euro.length), CREATE, APPEND);
+        assertEquals(Collections.singletonList("€"), tailer.poll());
+    }
+
+    @Test
+    public void pollTruncated(@TempDir final Path tempDir) throws IOException {
+        final Path logFile = tempDir.resolve("benchmark.log");
+        final LogTailer tailer = new LogTailer(logFile);
+
+        append(logFile, "line 1\nline 2\n");
+        assertEquals(Arrays.asList("line 1", "line 2"), tailer.poll());
+
+        Files.write(logFile, "new\n".getBytes(UTF_8));
+        assertEquals(Collections.singletonList("new"), tailer.poll());
+    }
+
+    private static void append(final Path logFile, final String content) throws IOException {
+        Files.write(logFile, content.getBytes(UTF_8), CREATE, APPEND);
+    }
+}
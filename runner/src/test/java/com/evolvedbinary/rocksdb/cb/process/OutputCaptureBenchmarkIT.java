@@ -0,0 +1,74 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the throughput of capturing the output of a chatty process,
+ * such as a verbose build, compared with redirecting it to a plain log file,
+ * and how much smaller the compressed log file is.
+ */
+@DisabledOnOs(OS.WINDOWS)
+public class OutputCaptureBenchmarkIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutputCaptureBenchmarkIT.class);
+
+    private static final long OUTPUT_SIZE = 300L * 1024 * 1024;
+    private static final String OUTPUT_LINE = "g++ -O2 -fno-omit-frame-pointer -momit-leaf-frame-pointer -DROCKSDB_PLATFORM_POSIX -c db/db_impl/db_impl.cc -o db/db_impl/db_impl.o";
+
+    @Test
+    public void captureThroughputAndCompression(@TempDir final Path tempDir) throws Exception {
+        final List<String> arguments = Arrays.asList("-c", "yes '" + OUTPUT_LINE + "' | head -c " + OUTPUT_SIZE);
+
+        // redirected to a plain log file
+        long start = System.nanoTime();
+        final ProcessInfo redirected = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", arguments, tempDir, "redirected", null, false, false);
+        assertEquals(NORMAL_EXIT_CODE, ProcessHelper.waitFor(redirected));
+        final long redirectedNanos = System.nanoTime() - start;
+        assertEquals(OUTPUT_SIZE, Files.size(redirected.stdOutputLogFile));
+
+        // captured to a compressed log file and tail
+        start = System.nanoTime();
+        final ProcessInfo captured = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", arguments, tempDir, "captured", null, false, true);
+        assertEquals(NORMAL_EXIT_CODE, ProcessHelper.waitFor(captured));
+        final long capturedNanos = System.nanoTime() - start;
+
+        final OutputCapture outputCapture = captured.stdOutputCapture;
+        assertNotNull(outputCapture);
+        assertEquals(OUTPUT_SIZE, outputCapture.getSize());
+
+        final byte[] tail = outputCapture.getTail();
+        assertEquals(OutputCapture.DEFAULT_TAIL_SIZE, tail.length);
+        assertTrue(new String(tail, StandardCharsets.UTF_8).contains(OUTPUT_LINE + '\n'));
+
+        final long compressedSize = Files.size(captured.stdOutputLogFile);
+        assertTrue(compressedSize < OUTPUT_SIZE / 10);
+
+        LOGGER.info("Redirected {} MB of output in {} ms ({} MB/s)", mb(OUTPUT_SIZE), redirectedNanos / 1_000_000, String.format("%.1f", mbPerSecond(OUTPUT_SIZE, redirectedNanos)));
+        LOGGER.info("Captured {} MB of output in {} ms ({} MB/s), compressed to {} KB (ratio {}), holding a {} KB tail",
+                mb(OUTPUT_SIZE), capturedNanos / 1_000_000, String.format("%.1f", mbPerSecond(OUTPUT_SIZE, capturedNanos)),
+                compressedSize / 1024, String.format("%.1f", (double) OUTPUT_SIZE / compressedSize), tail.length / 1024);
+    }
+
+    private static long mb(final long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    private static double mbPerSecond(final long bytes, final long nanos) {
+        return (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+    }
+}
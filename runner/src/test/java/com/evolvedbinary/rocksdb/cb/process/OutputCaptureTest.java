@@ -0,0 +1,102 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import io.airlift.compress.zstd.ZstdDecompressor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputCaptureTest {
+
+    @Test
+    public void framesDecompressToOriginal() throws IOException {
+        final byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+        // make the data compressible
+        for (int i = 0; i < data.length; i += 2) {
+            data[i] = 'a';
+        }
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final OutputStream os = new ZstdFrameOutputStream(compressed, 4096)) {
+            // write in pieces which straddle the chunks
+            int offset = 0;
+            while (offset < data.length) {
+                final int length = Math.min(3000, data.length - offset);
+                os.write(data, offset, length);
+                offset += length;
+            }
+            os.write('z');
+        }
+
+        final byte[] expected = Arrays.copyOf(data, data.length + 1);
+        expected[data.length] = 'z';
+        assertArrayEquals(expected, decompress(compressed.toByteArray(), expected.length));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void captureProcessOutput(@TempDir final Path tempDir) throws Exception {
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", Arrays.asList("-c", "i=0; while [ $i -lt 10000 ]; do echo \"line $i\"; i=$((i+1)); done; echo oops >&2"), tempDir, "capture", null, false, true);
+        assertEquals(NORMAL_EXIT_CODE, ProcessHelper.waitFor(processInfo));
+
+        assertNotNull(processInfo.stdOutputCapture);
+        assertNotNull(processInfo.stdErrorCapture);
+        assertTrue(processInfo.stdOutputLogFile.getFileName().toString().endsWith(".log.zst"));
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            expected.append("line ").append(i).append('\n');
+        }
+        final byte[] expectedStdOutput = expected.toString().getBytes(StandardCharsets.UTF_8);
+
+        // the log file holds all of the output
+        assertEquals(expectedStdOutput.length, processInfo.stdOutputCapture.getSize());
+        final byte[] compressed = Files.readAllBytes(processInfo.stdOutputLogFile);
+        assertTrue(compressed.length < expectedStdOutput.length);
+        assertArrayEquals(expectedStdOutput, decompress(compressed, expectedStdOutput.length));
+
+        // the tail holds just the end of the output
+        final byte[] stdOutputTail = processInfo.stdOutputCapture.getTail();
+        assertEquals(Math.min(OutputCapture.DEFAULT_TAIL_SIZE, expectedStdOutput.length), stdOutputTail.length);
+        assertTrue(new String(stdOutputTail, StandardCharsets.UTF_8).endsWith("line 9999\n"));
+
+        assertEquals("oops\n", new String(processInfo.stdErrorCapture.getTail(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void drainsOutputWhenLogFileCannotBeWritten(@TempDir final Path tempDir) throws Exception {
+        // much more output than fits in the pipe, so the process would block if the output were not drained
+        final Process process = new ProcessBuilder("sh", "-c", "i=0; while [ $i -lt 100000 ]; do echo \"line $i\"; i=$((i+1)); done").start();
+        final Path unwritableLogFile = tempDir.resolve("no-such-dir").resolve("capture.log.zst");
+        final OutputCapture outputCapture = OutputCapture.start(process.getInputStream(), unwritableLogFile, OutputCapture.DEFAULT_TAIL_SIZE, "capture-test");
+
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertThrows(IOException.class, () -> outputCapture.await(TimeUnit.SECONDS.toMillis(30)));
+        assertFalse(Files.exists(unwritableLogFile));
+
+        assertTrue(new String(outputCapture.getTail(), StandardCharsets.UTF_8).endsWith("line 99999\n"));
+    }
+
+    static byte[] decompress(final byte[] compressed, final int decompressedLength) {
+        final byte[] decompressed = new byte[decompressedLength];
+        final int length = new ZstdDecompressor().decompress(compressed, 0, compressed.length, decompressed, 0, decompressed.length);
+        assertEquals(decompressedLength, length);
+        return decompressed;
+    }
+}
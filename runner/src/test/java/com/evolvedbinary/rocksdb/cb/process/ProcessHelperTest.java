@@ -0,0 +1,71 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+public class ProcessHelperTest {
+
+    @Test
+    public void waitForWithinTimeout(@TempDir final Path tempDir) throws Exception {
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", Arrays.asList("-c", "exit 3"), tempDir, "timeout");
+        assertEquals(3, ProcessHelper.waitFor(processInfo, TimeUnit.SECONDS.toMillis(30)));
+        assertFalse(processInfo.isTimedOut());
+    }
+
+    @Test
+    public void waitForTimeoutTerminatesProcessTree(@TempDir final Path tempDir) throws Exception {
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", Arrays.asList("-c", "sleep 60 & sleep 60"), tempDir, "timeout");
+        final List<ProcessHandle> descendants = awaitDescendants(processInfo.process);
+
+        final long start = System.currentTimeMillis();
+        assertNotEquals(NORMAL_EXIT_CODE, ProcessHelper.waitFor(processInfo, 500));
+        assertTrue(processInfo.isTimedOut());
+        assertTrue(System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(30));
+
+        assertFalse(processInfo.process.isAlive());
+        for (final ProcessHandle descendant : descendants) {
+            descendant.onExit().get(10, TimeUnit.SECONDS);
+            assertFalse(descendant.isAlive());
+        }
+    }
+
+    @Test
+    public void terminateTreeKillsProcessesWhichIgnoreSigterm(@TempDir final Path tempDir) throws Exception {
+        // an ignored signal stays ignored in the children of the shell
+        final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", Arrays.asList("-c", "trap '' TERM; sleep 60 & sleep 60"), tempDir, "terminate");
+        final List<ProcessHandle> descendants = awaitDescendants(processInfo.process);
+
+        ProcessHelper.terminateTree(processInfo.process, 500);
+
+        assertTrue(processInfo.process.waitFor(10, TimeUnit.SECONDS));
+        for (final ProcessHandle descendant : descendants) {
+            descendant.onExit().get(10, TimeUnit.SECONDS);
+            assertFalse(descendant.isAlive());
+        }
+    }
+
+    private static List<ProcessHandle> awaitDescendants(final Process process) throws InterruptedException {
+        // wait for the shell to start its children
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+        while (descendants.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            descendants = process.descendants().collect(Collectors.toList());
+        }
+        assertEquals(2, descendants.size());
+        return descendants;
+    }
+}
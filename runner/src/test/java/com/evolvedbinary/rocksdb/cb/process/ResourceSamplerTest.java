@@ -0,0 +1,75 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceSamplerTest {
+
+    @Test
+    public void parseStat() throws IOException {
+        final long[] cpu = ResourceSampler.parseStat("1234 (db (bench)) R 1 1234 1234 0 -1 4194560 500 0 0 0 250 40 7 3 20 0 8 0 100 1000000 500 18446744073709551615 1 1 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0");
+        assertArrayEquals(new long[] { 257, 43 }, cpu);
+
+        assertThrows(IOException.class, () -> ResourceSampler.parseStat("1234 db_bench R 1"));
+    }
+
+    @Test
+    public void parseKeyValues() throws IOException {
+        final Map<String, Long> status = ResourceSampler.parseKeyValues("Name:\tdb_bench\nVmHWM:\t  204800 kB\nVmRSS:\t  102400 kB\nvoluntary_ctxt_switches:\t12\nnonvoluntary_ctxt_switches:\t3\n");
+        assertEquals(204800, status.get("VmHWM"));
+        assertEquals(102400, status.get("VmRSS"));
+        assertEquals(12, status.get("voluntary_ctxt_switches"));
+        assertEquals(3, status.get("nonvoluntary_ctxt_switches"));
+        assertFalse(status.containsKey("Name"));
+
+        final Map<String, Long> io = ResourceSampler.parseKeyValues("rchar: 3980\nwchar: 0\nread_bytes: 8192\nwrite_bytes: 4096\n");
+        assertEquals(8192, io.get("read_bytes"));
+        assertEquals(4096, io.get("write_bytes"));
+    }
+
+    @Test
+    public void parseDiskStats() throws IOException {
+        final Map<String, Long> deviceIoTicks = ResourceSampler.parseDiskStats(
+                "   7       0 loop0 10 0 20 0 0 0 0 0 0 5 5 0 0 0 0 0 0\n" +
+                " 259       0 nvme0n1 1000 10 20000 300 2000 20 40000 600 0 750 900 0 0 0 0 0 0\n" +
+                "   1       0 ram0 0 0 0 0 0 0 0 0 0 0 0\n");
+        assertEquals(Collections.singletonMap("nvme0n1", 750L), deviceIoTicks);
+    }
+
+    @EnabledOnOs(OS.LINUX)
+    @Test
+    public void samplesProcessTree(@TempDir final Path tempDir) throws IOException {
+        final String previousInterval = System.setProperty(ResourceSampler.INTERVAL_PROPERTY, "50");
+        try {
+            final ProcessInfo processInfo = ProcessHelper.start(tempDir, Collections.emptyMap(), "sh", Arrays.asList("-c", "i=0; while [ $i -lt 100000 ]; do i=$((i+1)); done & wait"), tempDir, "sample", null, true);
+            assertNotNull(processInfo.resourceSampler);
+            ProcessHelper.waitFor(processInfo);
+
+            final ResourceSeries series = processInfo.resourceSampler.stop();
+            assertFalse(series.isEmpty());
+
+            final List<ResourceSample> samples = series.getSamples();
+            for (int i = 1; i < samples.size(); i++) {
+                assertTrue(samples.get(i).time >= samples.get(i - 1).time);
+            }
+            assertTrue(series.getPeakRssKb() > 0);
+        } finally {
+            if (previousInterval == null) {
+                System.clearProperty(ResourceSampler.INTERVAL_PROPERTY);
+            } else {
+                System.setProperty(ResourceSampler.INTERVAL_PROPERTY, previousInterval);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceSeriesTest {
+
+    @Test
+    public void encodeDecode() {
+        final List<ResourceSample> samples = Arrays.asList(
+                new ResourceSample(0, 10, 0, 2048, 2048, 0, 0, 1, 0, 0),
+                new ResourceSample(1000, 990, 20, 524288, 524288, 4096, 1L << 33, 120, 15, 1000),
+                // values may decrease, e.g. when a process exits before it is reaped
+                new ResourceSample(2001, 980, 20, 1024, 524288, 4096, 1L << 33, 110, 15, 0)
+        );
+
+        final ResourceSeries series = new ResourceSeries();
+        assertTrue(series.isEmpty());
+        assertNull(series.getLast());
+        assertEquals(0, series.getPeakRssKb());
+
+        for (final ResourceSample sample : samples) {
+            series.add(sample);
+        }
+
+        assertEquals(3, series.size());
+        assertEquals(samples, series.getSamples());
+        assertEquals(samples, ResourceSeries.decode(series.toByteArray()));
+        assertEquals(samples.get(2), series.getLast());
+        assertEquals(524288, series.getPeakRssKb());
+
+        // delta-encoding keeps the series compact
+        assertTrue(series.toByteArray().length < samples.size() * 10 * 4, "Encoded to " + series.toByteArray().length + " bytes");
+    }
+
+    @Test
+    public void decodeTruncated() {
+        final ResourceSeries series = new ResourceSeries();
+        series.add(new ResourceSample(1000, 990, 20, 524288, 524288, 4096, 8192, 120, 15, 1000));
+        final byte[] bytes = series.toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> ResourceSeries.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+}
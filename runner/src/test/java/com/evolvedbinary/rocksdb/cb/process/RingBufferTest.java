@@ -0,0 +1,63 @@
+package com.evolvedbinary.rocksdb.cb.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferTest {
+
+    @Test
+    public void holdsEverythingUntilFull() {
+        final RingBuffer ringBuffer = new RingBuffer(8);
+        assertArrayEquals(new byte[0], ringBuffer.toByteArray());
+
+        write(ringBuffer, "abc");
+        write(ringBuffer, "defgh");
+
+        assertEquals("abcdefgh", read(ringBuffer));
+        assertEquals(8, ringBuffer.getWritten());
+        assertFalse(ringBuffer.isTruncated());
+    }
+
+    @Test
+    public void overwritesOldest() {
+        final RingBuffer ringBuffer = new RingBuffer(8);
+
+        write(ringBuffer, "abcdef");
+        write(ringBuffer, "ghij");
+        assertEquals("cdefghij", read(ringBuffer));
+
+        write(ringBuffer, "k");
+        assertEquals("defghijk", read(ringBuffer));
+        assertEquals(11, ringBuffer.getWritten());
+        assertTrue(ringBuffer.isTruncated());
+    }
+
+    @Test
+    public void writeLargerThanCapacity() {
+        final RingBuffer ringBuffer = new RingBuffer(4);
+
+        write(ringBuffer, "ab");
+        write(ringBuffer, "cdefghij");
+
+        assertEquals("ghij", read(ringBuffer));
+        assertEquals(10, ringBuffer.getWritten());
+        assertTrue(ringBuffer.isTruncated());
+    }
+
+    @Test
+    public void invalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer(0));
+    }
+
+    private static void write(final RingBuffer ringBuffer, final String data) {
+        final byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        ringBuffer.write(bytes, 0, bytes.length);
+    }
+
+    private static String read(final RingBuffer ringBuffer) {
+        return new String(ringBuffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -2,6 +2,7 @@ package com.evolvedbinary.rocksdb.cb.runner;
 
 import com.evolvedbinary.rocksdb.cb.Constants;
 import com.evolvedbinary.rocksdb.cb.dataobject.*;
+import com.evolvedbinary.rocksdb.cb.jms.BrokerEndpoint;
 import com.evolvedbinary.rocksdb.cb.jms.JMSServiceInstance;
 import com.evolvedbinary.rocksdb.cb.junit.JUnit5ExternalResourceAdapter;
 import org.apache.activemq.artemis.api.core.TransportConfiguration;
@@ -19,6 +20,7 @@ import org.junit.jupiter.api.io.TempDir;
 import javax.jms.*;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 
@@ -92,7 +94,10 @@ public class RunnerIT {
     public void fromBuildRequestToBenchmarkingComplete(@TempDir final Path tempDir) throws IOException, JMSException {
         assumeFalse(IS_WINDOWS);
 
-        final Runner.Settings settings = new Runner.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir, null, null, true, true);
+        final Runner.Settings settings = new Runner.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir)
+                .keepLogs(true)
+                .keepData(true)
+                .build();
         final Runner runner = new Runner(settings);
 
         final JMSServiceInstance instance = runner.runAsync();
@@ -168,7 +173,10 @@ public class RunnerIT {
 
     @Test
     public void fromBuildRequestToUpdatingSourceFailed_noSuchRepo(@TempDir final Path tempDir) throws IOException, JMSException {
-        final Runner.Settings settings = new Runner.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir, null, null, true, true);
+        final Runner.Settings settings = new Runner.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir)
+                .keepLogs(true)
+                .keepData(true)
+                .build();
         final Runner runner = new Runner(settings);
 
         final JMSServiceInstance instance = runner.runAsync();
@@ -234,7 +242,10 @@ public class RunnerIT {
 
     @Test
     public void fromBuildRequestToUpdatingSourceFailed_noSuchCommit(@TempDir final Path tempDir) throws IOException, JMSException {
-        final Runner.Settings settings = new Runner.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir, null, null, true, true);
+        final Runner.Settings settings = new Runner.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir)
+                .keepLogs(true)
+                .keepData(true)
+                .build();
         final Runner runner = new Runner(settings);
 
         final JMSServiceInstance instance = runner.runAsync();
@@ -301,7 +312,11 @@ public class RunnerIT {
     @Test
     public void fromBuildRequestToBuildingFailed(@TempDir final Path tempDir) throws IOException, JMSException {
         final String invalidBuildCommand = "no-such-build-command";
-        final Runner.Settings settings = new Runner.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir, invalidBuildCommand, null, true, true);
+        final Runner.Settings settings = new Runner.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir)
+                .buildCommand(invalidBuildCommand)
+                .keepLogs(true)
+                .keepData(true)
+                .build();
         final Runner runner = new Runner(settings);
 
         final JMSServiceInstance instance = runner.runAsync();
@@ -375,7 +390,11 @@ public class RunnerIT {
         assumeFalse(IS_WINDOWS);
 
         final String invalidBenchmarkCommand = "no-such-benchmark-command";
-        final Runner.Settings settings = new Runner.Settings(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT, BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir, null, invalidBenchmarkCommand, true, true);
+        final Runner.Settings settings = new Runner.Settings.Builder(Collections.singletonList(new BrokerEndpoint(Constants.DEFAULT_ARTEMIS_HOST, Constants.DEFAULT_ARTEMIS_PORT)), BUILD_REQUEST_QUEUE_NAME, BUILD_RESPONSE_QUEUE_NAME, tempDir)
+                .benchmarkCommand(invalidBenchmarkCommand)
+                .keepLogs(true)
+                .keepData(true)
+                .build();
         final Runner runner = new Runner(settings);
 
         final JMSServiceInstance instance = runner.runAsync();
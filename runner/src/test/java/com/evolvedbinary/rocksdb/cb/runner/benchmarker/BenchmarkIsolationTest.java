@@ -0,0 +1,78 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkIsolationTest {
+
+    @Test
+    public void parseFormatCpuList() {
+        final BitSet cpus = BenchmarkIsolation.parseCpuList("0-3,8,10-11");
+        assertEquals(7, cpus.cardinality());
+        assertTrue(cpus.get(0));
+        assertTrue(cpus.get(3));
+        assertFalse(cpus.get(4));
+        assertTrue(cpus.get(8));
+        assertTrue(cpus.get(11));
+        assertEquals("0-3,8,10-11", BenchmarkIsolation.formatCpuList(cpus));
+
+        assertTrue(BenchmarkIsolation.parseCpuList("").isEmpty());
+        assertEquals("", BenchmarkIsolation.formatCpuList(new BitSet()));
+
+        final BitSet complement = BenchmarkIsolation.parseCpuList("0-7");
+        complement.andNot(BenchmarkIsolation.parseCpuList("2-3,6"));
+        assertEquals("0-1,4-5,7", BenchmarkIsolation.formatCpuList(complement));
+
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkIsolation.parseCpuList("3-1"));
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkIsolation.parseCpuList("a"));
+    }
+
+    @Test
+    public void parseStats() throws IOException {
+        final long[] cpuStat = BenchmarkIsolation.parseCpuStat(
+                "usage_usec 1500\n" +
+                "user_usec 1000\n" +
+                "system_usec 500\n" +
+                "nr_periods 0\n" +
+                "nr_throttled 0\n" +
+                "throttled_usec 25\n");
+        assertArrayEquals(new long[] { 1000, 500, 25 }, cpuStat);
+
+        // without the cpu controller, only the usage is accounted
+        assertArrayEquals(new long[] { 1000, 500, -1 }, BenchmarkIsolation.parseCpuStat("usage_usec 1500\nuser_usec 1000\nsystem_usec 500\n"));
+
+        final long[] ioStat = BenchmarkIsolation.parseIoStat(
+                "259:0 rbytes=1459200 wbytes=314773504 rios=192 wios=353 dbytes=0 dios=0\n" +
+                "8:0 rbytes=100 wbytes=200 rios=1 wios=2 dbytes=0 dios=0\n");
+        assertArrayEquals(new long[] { 1459300, 314773704 }, ioStat);
+
+        assertEquals(0.52, BenchmarkIsolation.parseLoadAverage("0.52 0.58 0.59 1/467 12345\n"), 0.0001);
+    }
+
+    @Test
+    public void unavailable(@TempDir final Path tempDir) {
+        // not a cgroup
+        final BenchmarkIsolation isolation = new BenchmarkIsolation(tempDir, "1", -1, 1.0, 0);
+        assertFalse(isolation.setup());
+        assertFalse(isolation.isAvailable());
+        assertFalse(isolation.prepare());
+    }
+
+    @Test
+    public void wrapCommand(@TempDir final Path tempDir) {
+        final BenchmarkIsolation isolation = new BenchmarkIsolation(tempDir, "1", -1, 1.0, 0);
+        final List<String> wrapped = isolation.wrapCommand("tools/benchmark.sh", Arrays.asList("fillseq", "readrandom"));
+        assertEquals("sh", wrapped.get(0));
+        assertEquals("-c", wrapped.get(1));
+        assertTrue(wrapped.get(2).contains(tempDir.resolve("benchmark").resolve("cgroup.procs").toAbsolutePath().toString()));
+        assertEquals(Arrays.asList("sh", "tools/benchmark.sh", "fillseq", "readrandom"), wrapped.subList(3, wrapped.size()));
+    }
+}
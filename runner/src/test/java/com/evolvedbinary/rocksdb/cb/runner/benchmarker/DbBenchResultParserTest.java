@@ -0,0 +1,124 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DbBenchResultParserTest {
+
+    private static final String OUTPUT =
+            "RocksDB:    version 6.15\n" +
+            "Keys:       16 bytes each (+ 0 bytes user-defined timestamp)\n" +
+            "------------------------------------------------\n" +
+            "fillseq      :       2.345 micros/op 426439 ops/sec;   47.2 MB/s\n" +
+            "Microseconds per write:\n" +
+            "Count: 1000 Average: 2.2916  StdDev: 17.42\n" +
+            "Min: 0  Median: 0.5632  Max: 40\n" +
+            "Percentiles: P50: 0.56 P75: 0.85 P99: 2.96 P99.9: 7.43 P99.99: 27.41\n" +
+            "------------------------------------------------------\n" +
+            "[       0,       1 ]      800  80.000%  80.000% ################\n" +
+            "(       1,       2 ]      100  10.000%  90.000% ##\n" +
+            "(       2,       3 ]      100  10.000% 100.000% ##\n" +
+            "\n" +
+            "readrandom   :       3.456 micros/op 289352 ops/sec; (123 of 1000 found)\n" +
+            "Microseconds per read:\n" +
+            "Count: 1000 Average: 3.4560  StdDev: 1.00\n" +
+            "Min: 1  Median: 3.0000  Max: 9\n" +
+            "Percentiles: P50: 3.00 P75: 4.00 P99: 8.00 P99.9: 9.00 P99.99: 9.00\n" +
+            "------------------------------------------------------\n" +
+            "(       2,       3 ]     1000 100.000% 100.000% ####################\n" +
+            "Microseconds per write:\n" +
+            "Count: 10 Average: 1.0000  StdDev: 0.00\n" +
+            "Min: 1  Median: 1.0000  Max: 1\n" +
+            "Percentiles: P50: 1.00 P75: 1.00 P99: 1.00 P99.9: 1.00 P99.99: 1.00\n";
+
+    @Test
+    public void parse() throws IOException {
+        final BuildStats buildStats = new BuildStats(1, 2, 3);
+        DbBenchResultParser.parse(new BufferedReader(new StringReader(OUTPUT)), buildStats);
+
+        assertEquals(2, buildStats.getMetrics().size());
+
+        assertEquals(2.345, buildStats.getMetric("fillseq", BuildStats.METRIC_MICROS_PER_OP));
+        assertEquals(426439, buildStats.getMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC));
+        assertEquals(47.2, buildStats.getMetric("fillseq", BuildStats.METRIC_MB_PER_SEC));
+        assertEquals(0.56, buildStats.getMetric("fillseq", BuildStats.METRIC_P50));
+        assertEquals(2.96, buildStats.getMetric("fillseq", BuildStats.METRIC_P99));
+        assertEquals(7.43, buildStats.getMetric("fillseq", BuildStats.METRIC_P99_9));
+        assertEquals(27.41, buildStats.getMetric("fillseq", BuildStats.METRIC_P99_99));
+
+        // 95% of 1000 is 950, which is half way through the third bucket
+        assertEquals(2.5, buildStats.getMetric("fillseq", BuildStats.METRIC_P95), 0.0001);
+
+        assertEquals(3.456, buildStats.getMetric("readrandom", BuildStats.METRIC_MICROS_PER_OP));
+        assertEquals(289352, buildStats.getMetric("readrandom", BuildStats.METRIC_OPS_PER_SEC));
+        assertNull(buildStats.getMetric("readrandom", BuildStats.METRIC_MB_PER_SEC));
+
+        // only the first histogram of a benchmark is recorded
+        assertEquals(3.00, buildStats.getMetric("readrandom", BuildStats.METRIC_P50));
+        assertEquals(2.95, buildStats.getMetric("readrandom", BuildStats.METRIC_P95), 0.0001);
+
+        // the wall-clock times are untouched
+        assertEquals(3, buildStats.getBenchmarkTime());
+    }
+
+    @Test
+    public void parseWithoutHistogram() throws IOException {
+        final BuildStats buildStats = new BuildStats();
+        DbBenchResultParser.parse(new BufferedReader(new StringReader("fillrandom   :       5.000 micros/op 200000 ops/sec 5.000 seconds 1000000 operations;   22.1 MB/s\n")), buildStats);
+
+        assertEquals(200000, buildStats.getMetric("fillrandom", BuildStats.METRIC_OPS_PER_SEC));
+        assertEquals(22.1, buildStats.getMetric("fillrandom", BuildStats.METRIC_MB_PER_SEC));
+        assertNull(buildStats.getMetric("fillrandom", BuildStats.METRIC_P50));
+        assertNull(buildStats.getMetric("fillrandom", BuildStats.METRIC_P95));
+    }
+
+    @Test
+    public void parseNoResults() throws IOException {
+        final BuildStats buildStats = new BuildStats();
+        DbBenchResultParser.parse(new BufferedReader(new StringReader("Usage: benchmark.sh [--help]\n")), buildStats);
+        assertTrue(buildStats.getMetrics().isEmpty());
+    }
+
+    @Test
+    public void parseStatistics() throws IOException {
+        final BuildStats buildStats = new BuildStats();
+        DbBenchResultParser.parse(new BufferedReader(new StringReader(
+                "fillseq      :       2.345 micros/op 426439 ops/sec;   47.2 MB/s\n" +
+                "STATISTICS:\n" +
+                "rocksdb.block.cache.miss COUNT : 12\n" +
+                "rocksdb.compact.write.bytes COUNT : 4096\n" +
+                "rocksdb.stall.micros COUNT : 250\n" +
+                "rocksdb.no.file.opens COUNT : 3\n" +
+                "rocksdb.db.get.micros P50 : 0.000000 P95 : 0.000000 P99 : 0.000000 P100 : 0.000000 COUNT : 0 SUM : 0\n")), buildStats);
+
+        assertEquals(426439, buildStats.getMetric("fillseq", BuildStats.METRIC_OPS_PER_SEC));
+        assertEquals(12, buildStats.getMetric("fillseq", "rocksdb.block.cache.miss"));
+        assertEquals(4096, buildStats.getMetric("fillseq", "rocksdb.compact.write.bytes"));
+        assertEquals(250, buildStats.getMetric("fillseq", "rocksdb.stall.micros"));
+
+        // only the tickers which explain performance are recorded
+        assertNull(buildStats.getMetric("fillseq", "rocksdb.no.file.opens"));
+        assertNull(buildStats.getMetric("fillseq", "rocksdb.db.get.micros"));
+    }
+
+    @Test
+    public void parseProgress() {
+        final List<Object[]> reports = new ArrayList<>();
+        final BenchmarkProgressListener listener = (thread, elapsedSeconds, intervalOps, totalOps, intervalOpsPerSec, cumulativeOpsPerSec) ->
+                reports.add(new Object[] { thread, elapsedSeconds, intervalOps, totalOps, intervalOpsPerSec, cumulativeOpsPerSec });
+
+        assertTrue(DbBenchResultParser.parseProgress("2023/01/01-12:00:40  ... thread 1: (200000,1000000) ops and (20000.0,24691.4) ops/second in (10.000000,40.500000) seconds", listener));
+        assertFalse(DbBenchResultParser.parseProgress("fillseq      :       2.345 micros/op 426439 ops/sec;   47.2 MB/s", listener));
+
+        assertEquals(1, reports.size());
+        assertArrayEquals(new Object[] { 1, 40.5, 200000L, 1000000L, 20000.0, 24691.4 }, reports.get(0));
+    }
+}
@@ -0,0 +1,73 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegressionGuardTest {
+
+    @Test
+    public void abortsSustainedRegression() {
+        final AtomicInteger aborts = new AtomicInteger();
+        final RegressionGuard guard = new RegressionGuard(10_000, 0.1, 20, aborts::incrementAndGet);
+
+        guard.onProgress(0, 10, 5_000, 5_000, 500, 500);
+        guard.onProgress(0, 20, 5_000, 10_000, 500, 500);
+        assertFalse(guard.isAborted());
+
+        guard.onProgress(0, 30, 5_000, 15_000, 500, 500);
+        assertTrue(guard.isAborted());
+        assertEquals(1, aborts.get());
+
+        // aborts only once
+        guard.onProgress(0, 40, 5_000, 20_000, 500, 500);
+        assertEquals(1, aborts.get());
+        assertEquals(30, guard.getElapsedSeconds());
+        assertEquals(500, guard.getCumulativeOpsPerSec());
+    }
+
+    @Test
+    public void recoveryResetsSustainedPeriod() {
+        final AtomicInteger aborts = new AtomicInteger();
+        final RegressionGuard guard = new RegressionGuard(10_000, 0.1, 20, aborts::incrementAndGet);
+
+        guard.onProgress(0, 10, 5_000, 5_000, 500, 500);
+        guard.onProgress(0, 20, 50_000, 55_000, 5_000, 2_750);
+        guard.onProgress(0, 30, 5_000, 60_000, 500, 2_000);
+        guard.onProgress(0, 40, 5_000, 65_000, 500, 1_625);
+        assertFalse(guard.isAborted());
+
+        guard.onProgress(0, 50, 5_000, 70_000, 500, 1_400);
+        assertTrue(guard.isAborted());
+        assertEquals(1, aborts.get());
+    }
+
+    @Test
+    public void sumsThreads() {
+        final AtomicInteger aborts = new AtomicInteger();
+        final RegressionGuard guard = new RegressionGuard(10_000, 0.1, 0, aborts::incrementAndGet);
+
+        // one thread alone is below the fraction of the baseline
+        guard.onProgress(0, 10, 6_000, 6_000, 600, 600);
+        assertTrue(guard.isAborted());
+
+        // but two threads together are not
+        final RegressionGuard guard2 = new RegressionGuard(10_000, 0.1, 10, aborts::incrementAndGet);
+        guard2.onProgress(0, 10, 6_000, 6_000, 600, 600);
+        guard2.onProgress(1, 10, 6_000, 6_000, 600, 600);
+        guard2.onProgress(0, 20, 6_000, 12_000, 600, 600);
+        guard2.onProgress(1, 20, 6_000, 12_000, 600, 600);
+        assertFalse(guard2.isAborted());
+        assertEquals(1_200, guard2.getCumulativeOpsPerSec());
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RegressionGuard(0, 0.1, 60, () -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new RegressionGuard(1000, 0, 60, () -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new RegressionGuard(1000, 1.5, 60, () -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new RegressionGuard(1000, 0.1, -1, () -> {}));
+    }
+}
@@ -0,0 +1,72 @@
+package com.evolvedbinary.rocksdb.cb.runner.benchmarker;
+
+import com.evolvedbinary.rocksdb.cb.dataobject.BuildStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RocksDbLogParserTest {
+
+    private static final String LOG =
+            "2023/01/01-12:00:00.000001 7f0e1c7f8700 RocksDB version: 7.9.0\n" +
+            "2023/01/01-12:00:01.000001 7f0e1c7f8700 EVENT_LOG_v1 {\"time_micros\": 1672574401000001, \"job\": 2, \"event\": \"flush_started\", \"num_memtables\": 1, \"num_entries\": 1000}\n" +
+            "2023/01/01-12:00:01.100001 7f0e1c7f8700 EVENT_LOG_v1 {\"time_micros\": 1672574401100001, \"job\": 2, \"event\": \"flush_finished\", \"output_compression\": \"Snappy\", \"lsm_state\": [1, 0, 0]}\n" +
+            "2023/01/01-12:00:02.000001 7f0e1c7f8700 EVENT_LOG_v1 {\"time_micros\": 1672574402000001, \"job\": 3, \"event\": \"flush_finished\", \"output_compression\": \"Snappy\", \"lsm_state\": [2, 0, 0]}\n" +
+            "2023/01/01-12:00:03.000001 7f0e1c7f8700 EVENT_LOG_v1 {\"time_micros\": 1672574403000001, \"job\": 4, \"event\": \"compaction_started\", \"compaction_reason\": \"LevelL0FilesNum\", \"files_L0\": [9, 8], \"score\": 1, \"input_data_size\": 3000}\n" +
+            "2023/01/01-12:00:03.500001 7f0e1c7f8700 EVENT_LOG_v1 {\"time_micros\": 1672574403500001, \"job\": 4, \"event\": \"compaction_finished\", \"compaction_time_micros\": 500000, \"total_output_size\": 2500, \"lsm_state\": [0, 1, 0]}\n" +
+            "2023/01/01-12:10:00.000001 7f0e1c7f8700 [db/db_impl/db_impl.cc:1004] ------- DUMPING STATS -------\n" +
+            "** Compaction Stats [default] **\n" +
+            "Level    Files   Size     Score Read(GB)  Rn(GB) Rnp1(GB) Write(GB) Wnew(GB) Moved(GB) W-Amp Rd(MB/s) Wr(MB/s) Comp(sec) CompMergeCPU(sec) Comp(cnt) Avg(sec) KeyIn KeyDrop\n" +
+            "----------------------------------------------------------------------------------------------------------------------------------------------------------------------------\n" +
+            "  L0      0/0    0.00 KB   0.0      0.0     0.0      0.0       0.0      0.0       0.0   1.0      0.0     85.2      0.01              0.01         2    0.005       0      0\n" +
+            "  L1      1/0    2.44 KB   0.0      0.0     0.0      0.0       0.0      0.0       0.0   0.8     95.2     80.1      0.01              0.01         1    0.010    1000      0\n" +
+            " Sum      1/0    2.44 KB   0.0      0.0     0.0      0.0       0.0      0.0       0.0   1.8     47.6     82.6      0.02              0.02         3    0.007    1000      0\n" +
+            " Int      0/0    0.00 KB   0.0      0.0     0.0      0.0       0.0      0.0       0.0   0.0      0.0      0.0      0.00              0.00         0    0.000       0      0\n" +
+            "\n" +
+            "** Compaction Stats [other] **\n" +
+            "Level    Files   Size     Score Read(GB)  Rn(GB) Rnp1(GB) Write(GB) Wnew(GB) Moved(GB) W-Amp Rd(MB/s) Wr(MB/s) Comp(sec) CompMergeCPU(sec) Comp(cnt) Avg(sec) KeyIn KeyDrop\n" +
+            " Sum      0/0    0.00 KB   0.0      0.0     0.0      0.0       0.0      0.0       0.0   9.9      0.0      0.0      0.00              0.00         0    0.000       0      0\n" +
+            "\n" +
+            "Cumulative writes: 1000 writes, 1000 keys, 1000 commit groups, 1.0 writes per commit group, ingest: 0.10 MB, 0.00 MB/s\n" +
+            "Cumulative stall: 00:00:1.250 H:M:S, 0.2 percent\n" +
+            "Interval stall: 00:00:0.000 H:M:S, 0.0 percent\n";
+
+    @Test
+    public void parse() throws IOException {
+        final BuildStats buildStats = new BuildStats();
+        RocksDbLogParser.parse(new BufferedReader(new StringReader(LOG)), "fillrandom", buildStats);
+
+        assertEquals(2, buildStats.getMetric("fillrandom", BuildStats.METRIC_FLUSH_COUNT));
+        assertEquals(1, buildStats.getMetric("fillrandom", BuildStats.METRIC_COMPACTION_COUNT));
+        assertEquals(3000, buildStats.getMetric("fillrandom", BuildStats.METRIC_COMPACTION_READ_BYTES));
+        assertEquals(2500, buildStats.getMetric("fillrandom", BuildStats.METRIC_COMPACTION_WRITE_BYTES));
+
+        // from the Sum row of the default column family
+        assertEquals(1.8, buildStats.getMetric("fillrandom", BuildStats.METRIC_WRITE_AMPLIFICATION));
+        assertEquals(1_250_000, buildStats.getMetric("fillrandom", BuildStats.METRIC_STALL_MICROS));
+    }
+
+    @Test
+    public void parseWithoutStatsDump() throws IOException {
+        final BuildStats buildStats = new BuildStats();
+        RocksDbLogParser.parse(new BufferedReader(new StringReader("2023/01/01-12:00:00.000001 7f0e1c7f8700 RocksDB version: 7.9.0\n")), "fillseq", buildStats);
+
+        assertEquals(0, buildStats.getMetric("fillseq", BuildStats.METRIC_FLUSH_COUNT));
+        assertEquals(0, buildStats.getMetric("fillseq", BuildStats.METRIC_COMPACTION_COUNT));
+        assertNull(buildStats.getMetric("fillseq", BuildStats.METRIC_WRITE_AMPLIFICATION));
+        assertNull(buildStats.getMetric("fillseq", BuildStats.METRIC_STALL_MICROS));
+    }
+
+    @Test
+    public void parseMissingLog(@TempDir final Path tempDir) throws IOException {
+        final BuildStats buildStats = new BuildStats();
+        assertFalse(RocksDbLogParser.parse(tempDir.resolve(RocksDbLogParser.LOG_FILE_NAME), "fillseq", buildStats));
+        assertTrue(buildStats.getMetrics().isEmpty());
+    }
+}
@@ -9,6 +9,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static com.evolvedbinary.rocksdb.cb.common.ExitCodes.NORMAL_EXIT_CODE;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -45,4 +46,40 @@ public class JavaProcessBuilderImplIT {
         assertNotNull(errorLog);
         assertEquals(0, errorLog.length());
     }
+
+    @Test
+    public void timeout(@TempDir final Path tempDir) throws IOException {
+        assumeFalse(IS_WINDOWS);
+
+        final Path projectRepoDir = Files.createDirectories(tempDir.resolve("repo"));
+        final Path projectLogDir = Files.createDirectories(tempDir.resolve("log"));
+
+        final Builder builder = new JavaProcessBuilderImpl(Collections.emptyMap(), "sh", Arrays.asList("-c", "echo compiling; sleep 60"));
+        final BuildResult buildResult = builder.build(UUID.randomUUID(), projectRepoDir, projectLogDir, Arrays.asList("target1"), null, 500);
+
+        assertNotNull(buildResult);
+        assertFalse(buildResult.ok);
+        assertTrue(buildResult.timedOut);
+        assertNotEquals(NORMAL_EXIT_CODE, buildResult.exitCode);
+        assertTrue(buildResult.duration < TimeUnit.SECONDS.toMillis(30));
+
+        final String outputLog = new String(Files.readAllBytes(buildResult.stdOutputLogFile), UTF_8);
+        assertEquals("compiling\n", outputLog);
+    }
+
+    @Test
+    public void exitCodeIsNotMistakenForTimeout(@TempDir final Path tempDir) throws IOException {
+        assumeFalse(IS_WINDOWS);
+
+        final Path projectRepoDir = Files.createDirectories(tempDir.resolve("repo"));
+        final Path projectLogDir = Files.createDirectories(tempDir.resolve("log"));
+
+        final Builder builder = new JavaProcessBuilderImpl(Collections.emptyMap(), "sh", Arrays.asList("-c", "exit 26"));
+        final BuildResult buildResult = builder.build(UUID.randomUUID(), projectRepoDir, projectLogDir, Arrays.asList("target1"), null, TimeUnit.SECONDS.toMillis(30));
+
+        assertNotNull(buildResult);
+        assertFalse(buildResult.ok);
+        assertFalse(buildResult.timedOut);
+        assertEquals(26, buildResult.exitCode);
+    }
 }
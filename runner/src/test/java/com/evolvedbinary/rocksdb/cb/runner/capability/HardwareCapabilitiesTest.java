@@ -0,0 +1,74 @@
+package com.evolvedbinary.rocksdb.cb.runner.capability;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HardwareCapabilitiesTest {
+
+    @Test
+    public void parseCpuModel() {
+        assertEquals("Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz", HardwareCapabilities.parseCpuModel(Arrays.asList(
+                "processor\t: 0",
+                "vendor_id\t: GenuineIntel",
+                "model name\t: Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz",
+                "model name\t: ignored")));
+
+        assertNull(HardwareCapabilities.parseCpuModel(Arrays.asList("processor\t: 0", "Features\t: fp asimd")));
+    }
+
+    @Test
+    public void parseMemTotal() {
+        assertEquals(131891292L * 1024, HardwareCapabilities.parseMemTotal(Arrays.asList(
+                "MemTotal:       131891292 kB",
+                "MemFree:        120356812 kB")));
+
+        assertEquals(HardwareCapabilities.MEMORY_UNKNOWN, HardwareCapabilities.parseMemTotal(Arrays.asList("MemFree:        120356812 kB")));
+        assertEquals(HardwareCapabilities.MEMORY_UNKNOWN, HardwareCapabilities.parseMemTotal(Arrays.asList("MemTotal:       lots kB")));
+    }
+
+    @Test
+    public void parseDiskType() {
+        assertEquals(HardwareCapabilities.DISK_TYPE_SSD, HardwareCapabilities.parseDiskType("0\n"));
+        assertEquals(HardwareCapabilities.DISK_TYPE_HDD, HardwareCapabilities.parseDiskType("1\n"));
+        assertEquals(HardwareCapabilities.DISK_TYPE_UNKNOWN, HardwareCapabilities.parseDiskType(""));
+        assertEquals(HardwareCapabilities.DISK_TYPE_UNKNOWN, HardwareCapabilities.parseDiskType(null));
+    }
+
+    @Test
+    public void deriveHardwareClass() {
+        final HardwareCapabilities xeon = new HardwareCapabilities("Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz", 28, 128L * 1024 * 1024 * 1024, HardwareCapabilities.DISK_TYPE_SSD);
+        assertEquals("xeon-e5-2680-v4-28c-128g-ssd", xeon.deriveHardwareClass());
+
+        final HardwareCapabilities epyc = new HardwareCapabilities("AMD EPYC 7763 64-Core Processor", 16, 64L * 1024 * 1024 * 1024 - 300 * 1024 * 1024, HardwareCapabilities.DISK_TYPE_HDD);
+        assertEquals("epyc-7763-64-core-16c-64g-hdd", epyc.deriveHardwareClass());
+
+        final HardwareCapabilities unknown = new HardwareCapabilities("(R)", 1, 0, HardwareCapabilities.DISK_TYPE_UNKNOWN);
+        assertEquals("unknown-1c-0g-unknown", unknown.deriveHardwareClass());
+
+        final HardwareCapabilities unknownMemory = new HardwareCapabilities("Intel(R) Xeon(R) CPU E5-2680 v4 @ 2.40GHz", 28, HardwareCapabilities.MEMORY_UNKNOWN, HardwareCapabilities.DISK_TYPE_SSD);
+        assertEquals("xeon-e5-2680-v4-28c-unknown-ssd", unknownMemory.deriveHardwareClass());
+    }
+
+    @Test
+    public void detect(@TempDir final Path tempDir) {
+        final HardwareCapabilities capabilities = HardwareCapabilities.detect(tempDir);
+        assertNotNull(capabilities.cpuModel);
+        assertTrue(capabilities.cpuCores > 0);
+        if (Files.isReadable(Paths.get("/proc/meminfo"))) {
+            assertTrue(capabilities.memory > 0);
+        } else {
+            assertEquals(HardwareCapabilities.MEMORY_UNKNOWN, capabilities.memory);
+        }
+        assertNotNull(capabilities.diskType);
+
+        // the same machine must always derive the same class
+        assertEquals(capabilities.deriveHardwareClass(), HardwareCapabilities.detect(tempDir).deriveHardwareClass());
+    }
+}